@@ -0,0 +1,210 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.benchmark;
+
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Blob;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.derby.drda.NetworkServerControl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.afm_wiki.engine.BlobQueries;
+import com.example.afm_wiki.utility.BlobCopier;
+import com.example.afm_wiki.utility.Utility;
+
+/**
+ * Benchmark for copying a large data BLOB from a Derby network server to a file; the pipelined BLOB copier against the former blocking <code>Files.copy</code> of the BLOB stream. The network server runs within the benchmark process
+ * and serves an on-disk database over the loopback interface, through the Derby client driver as in production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BlobCopyBenchmark {
+
+	/** Network server port. */
+	private static final int PORT = 15270;
+
+	/** Size of the BLOB in megabytes. */
+	@Param({ "256" })
+	public int blobSize;
+
+	/** Network server. */
+	private NetworkServerControl server_;
+
+	/** Working directory (database and copied files). */
+	private Path directory_;
+
+	/** Client connection URL. */
+	private String url_;
+
+	/** Thread executor of BLOB copier. */
+	private ExecutorService executor_;
+
+	/** BLOB copier. */
+	private BlobCopier copier_;
+
+	/**
+	 * Starts the network server and creates the database with a single BLOB.
+	 *
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	@Setup
+	public void setup() throws Exception {
+
+		// start network server
+		server_ = new NetworkServerControl(InetAddress.getByName("localhost"), PORT);
+		server_.start(null);
+		for (int i = 0;; i++) {
+			try {
+				server_.ping();
+				break;
+			}
+			catch (Exception e) {
+				if (i == 50)
+					throw e;
+				Thread.sleep(200L);
+			}
+		}
+
+		// create database
+		directory_ = Files.createTempDirectory("afm-wiki-blobs");
+		url_ = "jdbc:derby://localhost:" + PORT + "/" + directory_.resolve("db").toAbsolutePath() + ";user=APP";
+		try (Connection connection = DriverManager.getConnection(url_ + ";create=true")) {
+			try (Statement statement = connection.createStatement()) {
+				statement.executeUpdate("create table pilot_point_data(id int primary key, data blob(2G))");
+			}
+			try (PreparedStatement statement = connection.prepareStatement("insert into pilot_point_data(id, data) values(0, ?)")) {
+				long length = blobSize * 1024L * 1024L;
+				statement.setBinaryStream(1, new RandomInputStream(length), length);
+				statement.executeUpdate();
+			}
+		}
+
+		// create BLOB copier
+		executor_ = Executors.newFixedThreadPool(2);
+		copier_ = new BlobCopier(BlobCopier.DEFAULT_CHUNK_SIZE, BlobCopier.DEFAULT_BUFFER_COUNT, executor_);
+	}
+
+	/**
+	 * Shuts down the copier executor and the network server, and deletes the database and files.
+	 *
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	@TearDown
+	public void tearDown() throws Exception {
+		System.out.println(copier_.getStatistics());
+		Utility.shutdownThreadExecutor(executor_);
+		server_.shutdown();
+		Utility.deleteTemporaryFiles(directory_);
+	}
+
+	@Benchmark
+	public long blockingCopy() throws Exception {
+		try (Connection connection = DriverManager.getConnection(url_)) {
+			try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery("select data from pilot_point_data where id = 0")) {
+				resultSet.next();
+				Blob blob = resultSet.getBlob("data");
+				try {
+					return Files.copy(blob.getBinaryStream(), directory_.resolve("blocking.sigma"), StandardCopyOption.REPLACE_EXISTING);
+				}
+				finally {
+					blob.free();
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public long pipelinedCopy() throws Exception {
+		try (Connection connection = DriverManager.getConnection(url_)) {
+			try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery("select data from pilot_point_data where id = 0")) {
+				resultSet.next();
+				return BlobQueries.copyBlob(copier_, resultSet.getBlob("data"), directory_.resolve("pipelined.sigma"));
+			}
+		}
+	}
+
+	/**
+	 * Inner class for input stream of pseudo random (incompressible) bytes.
+	 */
+	private static class RandomInputStream extends InputStream {
+
+		/** Random number generator. */
+		private final Random random_ = new Random(1);
+
+		/** Block of random bytes. */
+		private final byte[] block_ = new byte[64 * 1024];
+
+		/** Remaining bytes. */
+		private long remaining_;
+
+		/**
+		 * Creates input stream.
+		 *
+		 * @param length
+		 *            Number of bytes.
+		 */
+		RandomInputStream(long length) {
+			remaining_ = length;
+			random_.nextBytes(block_);
+		}
+
+		@Override
+		public int read() {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (remaining_ == 0)
+				return -1;
+			int n = (int) Math.min(Math.min(len, block_.length), remaining_);
+			System.arraycopy(block_, (int) (remaining_ % block_.length) % (block_.length - n + 1), b, off, n);
+			remaining_ -= n;
+			return n;
+		}
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.example.afm_wiki.engine.BlobQueries;
+import com.example.afm_wiki.utility.BlobCopier;
+import com.example.afm_wiki.utility.Utility;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Benchmark for the download bundling hot paths; copying data BLOBs to files, correcting file names and zipping the copied files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BundlingBenchmark {
+
+	/** Number of bundled files. */
+	@Param({ "10", "50" })
+	public int files;
+
+	/** Size of each bundled file in bytes. */
+	@Param({ "65536", "1048576" })
+	public int fileSize;
+
+	/** Synthetic database. */
+	private SyntheticDatabase database_;
+
+	/** Connection pool. */
+	private ConnectionPool pool_;
+
+	/** Thread executor of BLOB copier. */
+	private ExecutorService executor_;
+
+	/** BLOB copier. */
+	private BlobCopier copier_;
+
+	/** Working directory. */
+	private Path directory_;
+
+	/** Files to zip. */
+	private ArrayList<Path> zipInput_;
+
+	/** File names to correct. */
+	private String[] fileNames_;
+
+	/**
+	 * Creates the database, BLOB copier and input files.
+	 *
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	@Setup
+	public void setup() throws Exception {
+
+		// create database
+		database_ = new SyntheticDatabase("bundling", 1, files, fileSize);
+		database_.setImages(false);
+		database_.create();
+		pool_ = database_.createConnectionPool(2);
+
+		// create BLOB copier
+		executor_ = Executors.newFixedThreadPool(2);
+		copier_ = new BlobCopier(BlobCopier.DEFAULT_CHUNK_SIZE, BlobCopier.DEFAULT_BUFFER_COUNT, executor_);
+
+		// create input files with random (incompressible) content
+		directory_ = Files.createTempDirectory("afm-wiki-bundling");
+		zipInput_ = new ArrayList<>();
+		Random random = new Random(1);
+		byte[] content = new byte[fileSize];
+		for (int i = 0; i < files; i++) {
+			random.nextBytes(content);
+			zipInput_.add(Files.write(directory_.resolve("input_" + i + ".sigma"), content));
+		}
+
+		// create file names
+		fileNames_ = new String[files];
+		for (int i = 0; i < files; i++) {
+			fileNames_[i] = "A350_WING/SR:" + i + "_PP*ELEM?" + i + "|FR<" + i + ">.sigma";
+		}
+	}
+
+	/**
+	 * Deletes the files, shuts down the copier executor and drops the database.
+	 *
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	@TearDown
+	public void tearDown() throws Exception {
+		Utility.shutdownThreadExecutor(executor_);
+		pool_.release();
+		database_.drop();
+		Utility.deleteTemporaryFiles(directory_);
+	}
+
+	@Benchmark
+	public void copyBlobs() throws Exception {
+		try (Connection connection = pool_.getConnection(3000)) {
+			try (PreparedStatement statement = connection.prepareStatement("select data from pilot_point_data where id = ?")) {
+				for (int i = 0; i < files; i++) {
+					statement.setInt(1, i);
+					try (ResultSet resultSet = statement.executeQuery()) {
+						if (resultSet.next()) {
+							BlobQueries.copyBlob(copier_, resultSet.getBlob("data"), directory_.resolve("copy_" + i + ".sigma"));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public void correctFileNames(Blackhole blackhole) {
+		for (String fileName : fileNames_) {
+			blackhole.consume(Utility.correctFileName(fileName));
+		}
+	}
+
+	@Benchmark
+	public void zipFiles() throws Exception {
+		Utility.zipFiles(zipInput_, directory_.resolve("bundle.zip").toFile());
+	}
+}
@@ -0,0 +1,718 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.benchmark;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import com.example.afm_wiki.data.PilotPointImageType;
+import com.example.afm_wiki.utility.Utility;
+
+/**
+ * Class for synthetic AFM database generator. Creates the spectra, pilot point, loadcase factor and aircraft model tables, their data BLOB tables and all pilot point image tables in a Derby database, and fills them with
+ * deterministic synthetic data at configurable scale.
+ * <p>
+ * Values follow skewed distributions rather than round-robin: aircraft programs and sections are weighted, issues favor early revisions, frame and stringer positions cluster around the section center, and the number
+ * of pilot points per spectrum, loadcase factor files per pilot point and the BLOB sizes are log-normally distributed around their configured means. A spread of 0 makes all counts and sizes exact.
+ * <p>
+ * The generator can also be run from the command line to create an on-disk database for load tests (see {@link #main(String[])}).
+ */
+public class DatabaseGenerator {
+
+	/** Aircraft programs and their weights. */
+	static final String[] PROGRAMS = { "A320", "A330", "A350", "A380", "A400M" };
+	private static final double[] PROGRAM_WEIGHTS = { 0.35, 0.2, 0.25, 0.1, 0.1 };
+
+	/** Aircraft sections and their weights. */
+	static final String[] SECTIONS = { "Wing", "Fuselage", "HTP", "VTP", "Pylon" };
+	private static final double[] SECTION_WEIGHTS = { 0.4, 0.35, 0.1, 0.1, 0.05 };
+
+	/** Fatigue missions. */
+	static final String[] MISSIONS = { "SR", "MR", "LR", "XLR" };
+
+	/** Element types and their weights. */
+	static final String[] ELEMENT_TYPES = { "Skin", "Stringer", "Frame", "Rib", "Clip", "Spar" };
+	private static final double[] ELEMENT_TYPE_WEIGHTS = { 0.3, 0.25, 0.2, 0.1, 0.1, 0.05 };
+
+	/** Material names and their weights. */
+	static final String[] MATERIALS = { "2024-T351", "7050-T7451", "7075-T6", "Ti-6Al-4V", "2198-T8" };
+	private static final double[] MATERIAL_WEIGHTS = { 0.35, 0.3, 0.15, 0.1, 0.1 };
+
+	/** Number of distinct images rendered per image type. */
+	private static final int IMAGE_VARIANTS = 4;
+
+	/** Maximum BLOB size relative to the mean BLOB size. */
+	private static final int MAX_BLOB_FACTOR = 4;
+
+	/** JDBC URL of the database. */
+	private final String url_;
+
+	/** Number of spectra and aircraft models. */
+	private int spectra_ = 1000, aircraftModels_ = 20;
+
+	/** Mean number of pilot points per spectrum and loadcase factor files per pilot point. */
+	private double pilotPointsPerSpectrum_ = 100.0, loadcaseFactorsPerPilotPoint_ = 1.0;
+
+	/** Mean sizes of spectrum, pilot point, loadcase factor and aircraft model data BLOBs in bytes. */
+	private int spectrumDataSize_ = 256 * 1024, pilotPointDataSize_ = 16 * 1024, loadcaseFactorDataSize_ = 8 * 1024, aircraftModelDataSize_ = 4 * 1024 * 1024;
+
+	/** Pilot point image width and height. */
+	private int imageWidth_ = 1200, imageHeight_ = 900;
+
+	/** Fraction of pilot points with images. */
+	private double imageCoverage_ = 0.75;
+
+	/** Spread (log-normal sigma) of counts and BLOB sizes. */
+	private double spread_ = 0.5;
+
+	/** Random seed. */
+	private long seed_ = 1L;
+
+	/** Number of rows inserted per batch and commit. */
+	private int batchSize_ = 500;
+
+	/** Random number generator. */
+	private Random random_;
+
+	/** Shared random content that data BLOBs are sliced from. */
+	private byte[] blobContent_;
+
+	/**
+	 * Creates synthetic AFM database generator.
+	 *
+	 * @param url
+	 *            JDBC URL of the database (including create attribute if the database doesn't exist).
+	 */
+	public DatabaseGenerator(String url) {
+		url_ = url;
+	}
+
+	/**
+	 * Sets number of spectra.
+	 *
+	 * @param spectra
+	 *            Number of spectra.
+	 */
+	public void setSpectra(int spectra) {
+		spectra_ = spectra;
+	}
+
+	/**
+	 * Sets number of aircraft models.
+	 *
+	 * @param aircraftModels
+	 *            Number of aircraft models.
+	 */
+	public void setAircraftModels(int aircraftModels) {
+		aircraftModels_ = aircraftModels;
+	}
+
+	/**
+	 * Sets mean number of pilot points per spectrum.
+	 *
+	 * @param pilotPointsPerSpectrum
+	 *            Mean number of pilot points per spectrum.
+	 */
+	public void setPilotPointsPerSpectrum(double pilotPointsPerSpectrum) {
+		pilotPointsPerSpectrum_ = pilotPointsPerSpectrum;
+	}
+
+	/**
+	 * Sets mean number of loadcase factor files per pilot point.
+	 *
+	 * @param loadcaseFactorsPerPilotPoint
+	 *            Mean number of loadcase factor files per pilot point.
+	 */
+	public void setLoadcaseFactorsPerPilotPoint(double loadcaseFactorsPerPilotPoint) {
+		loadcaseFactorsPerPilotPoint_ = loadcaseFactorsPerPilotPoint;
+	}
+
+	/**
+	 * Sets mean sizes of data BLOBs.
+	 *
+	 * @param spectrum
+	 *            Mean spectrum data size in bytes.
+	 * @param pilotPoint
+	 *            Mean pilot point data size in bytes.
+	 * @param loadcaseFactor
+	 *            Mean loadcase factor data size in bytes.
+	 * @param aircraftModel
+	 *            Mean aircraft model data size in bytes.
+	 */
+	public void setDataSizes(int spectrum, int pilotPoint, int loadcaseFactor, int aircraftModel) {
+		spectrumDataSize_ = spectrum;
+		pilotPointDataSize_ = pilotPoint;
+		loadcaseFactorDataSize_ = loadcaseFactor;
+		aircraftModelDataSize_ = aircraftModel;
+	}
+
+	/**
+	 * Sets pilot point image size. Larger images produce larger image BLOBs.
+	 *
+	 * @param width
+	 *            Image width.
+	 * @param height
+	 *            Image height.
+	 */
+	public void setImageSize(int width, int height) {
+		imageWidth_ = width;
+		imageHeight_ = height;
+	}
+
+	/**
+	 * Sets fraction of pilot points with images. Pilot points with images always have a mission profile image.
+	 *
+	 * @param imageCoverage
+	 *            Fraction of pilot points with images (0 for no images).
+	 */
+	public void setImageCoverage(double imageCoverage) {
+		imageCoverage_ = imageCoverage;
+	}
+
+	/**
+	 * Sets spread (log-normal sigma) of counts and BLOB sizes.
+	 *
+	 * @param spread
+	 *            Spread of counts and BLOB sizes (0 for exact counts and sizes).
+	 */
+	public void setSpread(double spread) {
+		spread_ = spread;
+	}
+
+	/**
+	 * Sets random seed.
+	 *
+	 * @param seed
+	 *            Random seed.
+	 */
+	public void setSeed(long seed) {
+		seed_ = seed;
+	}
+
+	/**
+	 * Sets number of rows inserted per batch and commit.
+	 *
+	 * @param batchSize
+	 *            Number of rows inserted per batch and commit.
+	 */
+	public void setBatchSize(int batchSize) {
+		batchSize_ = Math.max(1, batchSize);
+	}
+
+	/**
+	 * Creates the tables and fills them.
+	 *
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public void generate() throws Exception {
+
+		// create random content
+		random_ = new Random(seed_);
+		int maxDataSize = Math.max(Math.max(spectrumDataSize_, pilotPointDataSize_), Math.max(loadcaseFactorDataSize_, aircraftModelDataSize_));
+		blobContent_ = new byte[maxDataSize * (spread_ == 0.0 ? 1 : MAX_BLOB_FACTOR)];
+		random_.nextBytes(blobContent_);
+
+		// generate
+		try (Connection connection = DriverManager.getConnection(url_)) {
+			connection.setAutoCommit(false);
+			createTables(connection);
+			connection.commit();
+			fillAircraftModels(connection);
+			fillSpectra(connection);
+		}
+	}
+
+	/**
+	 * Creates a synthetic PNG image of given size.
+	 *
+	 * @param width
+	 *            Image width.
+	 * @param height
+	 *            Image height.
+	 * @param seed
+	 *            Random seed of the plotted curve.
+	 * @return The PNG image bytes.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static byte[] createImage(int width, int height, long seed) throws Exception {
+
+		// create chart-like image
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		try {
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			g.setColor(Color.WHITE);
+			g.fillRect(0, 0, width, height);
+			g.setColor(Color.LIGHT_GRAY);
+			for (int x = 0; x < width; x += Math.max(1, width / 10))
+				g.drawLine(x, 0, x, height);
+			for (int y = 0; y < height; y += Math.max(1, height / 10))
+				g.drawLine(0, y, width, y);
+			g.setColor(Color.BLUE);
+			g.setStroke(new BasicStroke(2f));
+			Random random = new Random(seed);
+			int y0 = height / 2;
+			for (int x = 0; x < width - 4; x += 4) {
+				int y1 = Math.max(0, Math.min(height - 1, y0 + random.nextInt(21) - 10));
+				g.drawLine(x, y0, x + 4, y1);
+				y0 = y1;
+			}
+		}
+		finally {
+			g.dispose();
+		}
+
+		// encode
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Creates the database tables.
+	 *
+	 * @param connection
+	 *            Database connection.
+	 * @throws SQLException
+	 *             If exception occurs during process.
+	 */
+	private static void createTables(Connection connection) throws SQLException {
+
+		// use large pages for tables with BLOB columns
+		try (CallableStatement property = connection.prepareCall("call SYSCS_UTIL.SYSCS_SET_DATABASE_PROPERTY('derby.storage.pageSize', ?)")) {
+			property.setString(1, "32768");
+			property.execute();
+		}
+
+		// create tables
+		try (Statement statement = connection.createStatement()) {
+			statement.executeUpdate("create table spectra(id int primary key, name varchar(100), ac_program varchar(50), ac_section varchar(50), fat_mission varchar(50), fat_mission_issue varchar(10), flp_issue varchar(10), iflp_issue varchar(10), cdf_issue varchar(10), delivery_ref varchar(50), description varchar(200), data_size bigint)");
+			statement.executeUpdate("create table spectrum_data(id int primary key, data blob(100M))");
+			statement.executeUpdate("create table pilot_points(id int primary key, spectrum_name varchar(100), name varchar(100), ac_program varchar(50), ac_section varchar(50), fat_mission varchar(50), description varchar(200), element_type varchar(50), frame_rib_position varchar(50), stringer_position varchar(50), data_source varchar(50), generation_source varchar(50), delivery_ref_num varchar(50), issue varchar(10), material_name varchar(50))");
+			statement.executeUpdate("create table pilot_point_data(id int primary key, data blob(100M))");
+			statement.executeUpdate("create table mult_tables(id int primary key, spectrum_name varchar(100), pilot_point_name varchar(100), name varchar(100), ac_program varchar(50), ac_section varchar(50), fat_mission varchar(50), issue varchar(10), delivery_ref_num varchar(50), description varchar(200))");
+			statement.executeUpdate("create table mult_table_data(id int primary key, data blob(100M))");
+			statement.executeUpdate("create table ac_models(model_id int primary key, ac_program varchar(50), name varchar(100), delivery_ref varchar(50), description varchar(200), data_size bigint)");
+			statement.executeUpdate("create table ac_model_data(id int primary key, data blob(1G))");
+			for (PilotPointImageType imageType : PilotPointImageType.values())
+				statement.executeUpdate("create table " + imageType.getTableName() + "(id int primary key, image blob(2M))");
+		}
+
+		// reset page size for indexes
+		try (CallableStatement property = connection.prepareCall("call SYSCS_UTIL.SYSCS_SET_DATABASE_PROPERTY('derby.storage.pageSize', NULL)")) {
+			property.execute();
+		}
+	}
+
+	/**
+	 * Fills the aircraft model tables.
+	 *
+	 * @param connection
+	 *            Database connection.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private void fillAircraftModels(Connection connection) throws Exception {
+		try (PreparedStatement model = connection.prepareStatement("insert into ac_models values(?, ?, ?, ?, ?, ?)")) {
+			try (PreparedStatement modelData = connection.prepareStatement("insert into ac_model_data values(?, ?)")) {
+				for (int i = 0; i < aircraftModels_; i++) {
+					String program = PROGRAMS[i % PROGRAMS.length];
+					int size = drawSize(aircraftModelDataSize_);
+					model.setInt(1, i);
+					model.setString(2, program);
+					model.setString(3, program + "_GFEM_V" + (1 + i / PROGRAMS.length));
+					model.setString(4, "DR-" + program + "-" + (1000 + random_.nextInt(9000)));
+					model.setString(5, "Global finite element model of " + program);
+					model.setLong(6, size);
+					model.executeUpdate();
+					insertBlob(modelData, i, size);
+					modelData.executeBatch();
+					connection.commit();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Fills the spectrum, pilot point and loadcase factor tables.
+	 *
+	 * @param connection
+	 *            Database connection.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private void fillSpectra(Connection connection) throws Exception {
+
+		// render images
+		PilotPointImageType[] imageTypes = PilotPointImageType.values();
+		byte[][][] images = new byte[imageTypes.length][][];
+		if (imageCoverage_ > 0.0) {
+			for (int i = 0; i < imageTypes.length; i++) {
+				images[i] = new byte[IMAGE_VARIANTS][];
+				for (int j = 0; j < IMAGE_VARIANTS; j++) {
+					images[i][j] = createImage(imageWidth_, imageHeight_, i * IMAGE_VARIANTS + j);
+				}
+			}
+		}
+
+		// prepare statements
+		PreparedStatement[] imageInserts = new PreparedStatement[imageTypes.length];
+		try (PreparedStatement spectrum = connection.prepareStatement("insert into spectra values(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+				PreparedStatement spectrumData = connection.prepareStatement("insert into spectrum_data values(?, ?)");
+				PreparedStatement pilotPoint = connection.prepareStatement("insert into pilot_points values(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+				PreparedStatement pilotPointData = connection.prepareStatement("insert into pilot_point_data values(?, ?)");
+				PreparedStatement multTable = connection.prepareStatement("insert into mult_tables values(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+				PreparedStatement multTableData = connection.prepareStatement("insert into mult_table_data values(?, ?)")) {
+
+			// prepare image statements
+			for (int i = 0; i < imageTypes.length; i++) {
+				imageInserts[i] = connection.prepareStatement("insert into " + imageTypes[i].getTableName() + " values(?, ?)");
+			}
+
+			// loop over spectra
+			long start = System.currentTimeMillis();
+			int pilotPointID = 0, multTableID = 0, pending = 0;
+			for (int i = 0; i < spectra_; i++) {
+
+				// insert spectrum
+				String program = pick(PROGRAMS, PROGRAM_WEIGHTS);
+				String section = pick(SECTIONS, SECTION_WEIGHTS);
+				String mission = MISSIONS[random_.nextInt(MISSIONS.length)];
+				String spectrumName = program + "_" + section.toUpperCase() + "_" + mission + "_" + String.format("%05d", i);
+				String deliveryRef = "DR-" + program + "-" + (1000 + random_.nextInt(9000));
+				int spectrumSize = drawSize(spectrumDataSize_);
+				spectrum.setInt(1, i);
+				spectrum.setString(2, spectrumName);
+				spectrum.setString(3, program);
+				spectrum.setString(4, section);
+				spectrum.setString(5, mission);
+				spectrum.setString(6, drawIssue("I"));
+				spectrum.setString(7, drawIssue("F"));
+				spectrum.setString(8, drawIssue("IF"));
+				spectrum.setString(9, drawIssue("C"));
+				spectrum.setString(10, deliveryRef);
+				spectrum.setString(11, "Fatigue spectrum of " + program + " " + section.toLowerCase() + " for " + mission + " mission");
+				spectrum.setLong(12, spectrumSize);
+				spectrum.addBatch();
+				insertBlob(spectrumData, i, spectrumSize);
+
+				// loop over pilot points
+				int pilotPoints = Math.max(1, drawCount(pilotPointsPerSpectrum_));
+				int frameCenter = 10 + random_.nextInt(80), stringerCenter = 5 + random_.nextInt(50);
+				for (int j = 0; j < pilotPoints; j++) {
+
+					// insert pilot point
+					String elementType = pick(ELEMENT_TYPES, ELEMENT_TYPE_WEIGHTS);
+					String frame = "FR" + Math.max(0, (int) Math.round(frameCenter + 8.0 * random_.nextGaussian()));
+					String stringer = "STR" + Math.max(0, (int) Math.round(stringerCenter + 6.0 * random_.nextGaussian()));
+					String pilotPointName = spectrumName + "_PP_" + elementType.toUpperCase() + "_" + frame + "_" + stringer;
+					pilotPoint.setInt(1, pilotPointID);
+					pilotPoint.setString(2, spectrumName);
+					pilotPoint.setString(3, pilotPointName);
+					pilotPoint.setString(4, program);
+					pilotPoint.setString(5, section);
+					pilotPoint.setString(6, mission);
+					pilotPoint.setString(7, elementType + " at " + frame + " " + stringer);
+					pilotPoint.setString(8, elementType);
+					pilotPoint.setString(9, frame);
+					pilotPoint.setString(10, stringer);
+					pilotPoint.setString(11, random_.nextDouble() < 0.8 ? "FEM" : "Test");
+					pilotPoint.setString(12, random_.nextDouble() < 0.7 ? "ISAMI" : "Equinox");
+					pilotPoint.setString(13, deliveryRef);
+					pilotPoint.setString(14, drawIssue("I"));
+					pilotPoint.setString(15, pick(MATERIALS, MATERIAL_WEIGHTS));
+					pilotPoint.addBatch();
+					insertBlob(pilotPointData, pilotPointID, drawSize(pilotPointDataSize_));
+
+					// insert images (mission profile is always available when the pilot point has images)
+					if ((imageCoverage_ > 0.0) && (random_.nextDouble() < imageCoverage_)) {
+						for (int k = 0; k < imageTypes.length; k++) {
+							if ((imageTypes[k] == PilotPointImageType.MISSION_PROFILE) || (random_.nextDouble() < 0.6)) {
+								byte[] image = images[k][random_.nextInt(IMAGE_VARIANTS)];
+								imageInserts[k].setInt(1, pilotPointID);
+								imageInserts[k].setBinaryStream(2, new ByteArrayInputStream(image), image.length);
+								imageInserts[k].addBatch();
+							}
+						}
+					}
+
+					// insert loadcase factor files
+					int multTables = drawCount(loadcaseFactorsPerPilotPoint_);
+					for (int k = 0; k < multTables; k++) {
+						multTable.setInt(1, multTableID);
+						multTable.setString(2, spectrumName);
+						multTable.setString(3, pilotPointName);
+						multTable.setString(4, pilotPointName + "_LF" + (k == 0 ? "" : "_" + k));
+						multTable.setString(5, program);
+						multTable.setString(6, section);
+						multTable.setString(7, mission);
+						multTable.setString(8, drawIssue("I"));
+						multTable.setString(9, deliveryRef);
+						multTable.setString(10, "Loadcase factors of " + pilotPointName);
+						multTable.addBatch();
+						insertBlob(multTableData, multTableID, drawSize(loadcaseFactorDataSize_));
+						multTableID++;
+					}
+					pilotPointID++;
+
+					// execute batches
+					if (++pending >= batchSize_) {
+						executeBatches(connection, imageInserts, spectrum, spectrumData, pilotPoint, pilotPointData, multTable, multTableData);
+						pending = 0;
+					}
+
+					// report progress
+					if (pilotPointID % 100000 == 0) {
+						System.out.println("Generated " + pilotPointID + " pilot points in " + (System.currentTimeMillis() - start) / 1000 + " s.");
+					}
+				}
+			}
+
+			// execute remaining batches
+			executeBatches(connection, imageInserts, spectrum, spectrumData, pilotPoint, pilotPointData, multTable, multTableData);
+			System.out.println("Generated " + spectra_ + " spectra, " + pilotPointID + " pilot points and " + multTableID + " loadcase factor files in " + (System.currentTimeMillis() - start) / 1000 + " s.");
+		}
+
+		// close image statements
+		finally {
+			for (PreparedStatement imageInsert : imageInserts) {
+				if (imageInsert != null) {
+					imageInsert.close();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Executes pending batches of given statements and commits.
+	 *
+	 * @param connection
+	 *            Database connection.
+	 * @param imageInserts
+	 *            Image insert statements.
+	 * @param statements
+	 *            Other insert statements (in parent-first order).
+	 * @throws SQLException
+	 *             If exception occurs during process.
+	 */
+	private static void executeBatches(Connection connection, PreparedStatement[] imageInserts, PreparedStatement... statements) throws SQLException {
+		for (PreparedStatement statement : statements)
+			statement.executeBatch();
+		for (PreparedStatement imageInsert : imageInserts)
+			imageInsert.executeBatch();
+		connection.commit();
+	}
+
+	/**
+	 * Adds data BLOB row of given size to the batch of given statement. The BLOB is sliced from the shared random content.
+	 *
+	 * @param statement
+	 *            Insert statement.
+	 * @param id
+	 *            Row ID.
+	 * @param size
+	 *            BLOB size in bytes.
+	 * @throws SQLException
+	 *             If exception occurs during process.
+	 */
+	private void insertBlob(PreparedStatement statement, int id, int size) throws SQLException {
+		int offset = random_.nextInt(blobContent_.length - size + 1);
+		statement.setInt(1, id);
+		statement.setBinaryStream(2, new ByteArrayInputStream(blobContent_, offset, size), size);
+		statement.addBatch();
+	}
+
+	/**
+	 * Draws log-normally distributed count around given mean.
+	 *
+	 * @param mean
+	 *            Mean count.
+	 * @return The count.
+	 */
+	private int drawCount(double mean) {
+		if (spread_ == 0.0)
+			return (int) Math.round(mean);
+		return (int) Math.round(mean * Math.exp(spread_ * random_.nextGaussian() - spread_ * spread_ / 2.0));
+	}
+
+	/**
+	 * Draws log-normally distributed BLOB size around given mean. Sizes are limited to the shared random content.
+	 *
+	 * @param mean
+	 *            Mean size in bytes.
+	 * @return The size in bytes.
+	 */
+	private int drawSize(int mean) {
+		return Math.max(1, Math.min(blobContent_.length, drawCount(mean)));
+	}
+
+	/**
+	 * Draws issue number favoring early revisions.
+	 *
+	 * @param prefix
+	 *            Issue prefix.
+	 * @return The issue.
+	 */
+	private String drawIssue(String prefix) {
+		int issue = 1;
+		while ((issue < 9) && (random_.nextDouble() < 0.4))
+			issue++;
+		return prefix + issue;
+	}
+
+	/**
+	 * Picks a value with given weights.
+	 *
+	 * @param values
+	 *            Values.
+	 * @param weights
+	 *            Weights of values (summing up to 1).
+	 * @return The picked value.
+	 */
+	private String pick(String[] values, double[] weights) {
+		double r = random_.nextDouble();
+		for (int i = 0; i < values.length - 1; i++) {
+			r -= weights[i];
+			if (r < 0.0)
+				return values[i];
+		}
+		return values[values.length - 1];
+	}
+
+	/**
+	 * Generates an on-disk AFM database. Arguments are given as name value pairs:
+	 * <ul>
+	 * <li>-path: Database directory (required, must not exist).
+	 * <li>-user: Database user, which owns the schema of the tables (default APP).
+	 * <li>-spectra: Number of spectra (default 1000).
+	 * <li>-pilotPoints: Mean number of pilot points per spectrum (default 100).
+	 * <li>-loadcaseFactors: Mean number of loadcase factor files per pilot point (default 1).
+	 * <li>-models: Number of aircraft models (default 20).
+	 * <li>-spectrumSize, -pilotPointSize, -loadcaseFactorSize, -modelSize: Mean data BLOB sizes in bytes (defaults 256K, 16K, 8K, 4M).
+	 * <li>-imageWidth, -imageHeight: Pilot point image size (default 1200 x 900).
+	 * <li>-imageCoverage: Fraction of pilot points with images (default 0.75).
+	 * <li>-spread: Spread of counts and BLOB sizes (default 0.5).
+	 * <li>-seed: Random seed (default 1).
+	 * </ul>
+	 * The generated database can be served by the Derby network server and connected to through {@link Utility#setupDatabaseConnectionPool(String, String, String, String, String)} with the same user.
+	 *
+	 * @param args
+	 *            Arguments.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		// parse arguments
+		String path = null, user = "APP";
+		int spectra = 1000, models = 20, spectrumSize = 256 * 1024, pilotPointSize = 16 * 1024, loadcaseFactorSize = 8 * 1024, modelSize = 4 * 1024 * 1024, imageWidth = 1200, imageHeight = 900;
+		double pilotPoints = 100.0, loadcaseFactors = 1.0, imageCoverage = 0.75, spread = 0.5;
+		long seed = 1L;
+		for (int i = 0; i < args.length - 1; i += 2) {
+			String value = args[i + 1];
+			switch (args[i]) {
+				case "-path":
+					path = value;
+					break;
+				case "-user":
+					user = value;
+					break;
+				case "-spectra":
+					spectra = Integer.parseInt(value);
+					break;
+				case "-pilotPoints":
+					pilotPoints = Double.parseDouble(value);
+					break;
+				case "-loadcaseFactors":
+					loadcaseFactors = Double.parseDouble(value);
+					break;
+				case "-models":
+					models = Integer.parseInt(value);
+					break;
+				case "-spectrumSize":
+					spectrumSize = Integer.parseInt(value);
+					break;
+				case "-pilotPointSize":
+					pilotPointSize = Integer.parseInt(value);
+					break;
+				case "-loadcaseFactorSize":
+					loadcaseFactorSize = Integer.parseInt(value);
+					break;
+				case "-modelSize":
+					modelSize = Integer.parseInt(value);
+					break;
+				case "-imageWidth":
+					imageWidth = Integer.parseInt(value);
+					break;
+				case "-imageHeight":
+					imageHeight = Integer.parseInt(value);
+					break;
+				case "-imageCoverage":
+					imageCoverage = Double.parseDouble(value);
+					break;
+				case "-spread":
+					spread = Double.parseDouble(value);
+					break;
+				case "-seed":
+					seed = Long.parseLong(value);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown argument: " + args[i]);
+			}
+		}
+		if (path == null)
+			throw new IllegalArgumentException("Database path is not given. Usage: -path <directory> [-spectra <n>] [-pilotPoints <mean>] ...");
+
+		// create generator
+		DatabaseGenerator generator = new DatabaseGenerator("jdbc:derby:" + path + ";create=true;user=" + user);
+		generator.setSpectra(spectra);
+		generator.setPilotPointsPerSpectrum(pilotPoints);
+		generator.setLoadcaseFactorsPerPilotPoint(loadcaseFactors);
+		generator.setAircraftModels(models);
+		generator.setDataSizes(spectrumSize, pilotPointSize, loadcaseFactorSize, modelSize);
+		generator.setImageSize(imageWidth, imageHeight);
+		generator.setImageCoverage(imageCoverage);
+		generator.setSpread(spread);
+		generator.setSeed(seed);
+
+		// generate and shut down database
+		generator.generate();
+		try {
+			DriverManager.getConnection("jdbc:derby:;shutdown=true");
+		}
+
+		// Derby reports a successful shutdown with an exception
+		catch (SQLException e) {
+			// expected
+		}
+	}
+}
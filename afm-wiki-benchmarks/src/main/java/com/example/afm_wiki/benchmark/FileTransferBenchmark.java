@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.benchmark;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.afm_wiki.download.FileTransfer;
+import com.example.afm_wiki.download.FileTransfer.TransferMode;
+
+/**
+ * Benchmark for the in-JVM file transfer modes of the download servlet. The target stream copies the written bytes into a fixed response buffer, as the output streams of servlet containers do. The container sendfile mode cannot be
+ * measured outside a container. Throughput and CPU share of each mode are printed after each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileTransferBenchmark {
+
+	/** Transfer mode. */
+	@Param({ "STREAM", "TRANSFER_TO", "MEMORY_MAPPED" })
+	public String mode;
+
+	/** File size in megabytes. */
+	@Param({ "64" })
+	public int fileSize;
+
+	/** File to transfer. */
+	private Path file_;
+
+	/** Transfer mode. */
+	private TransferMode transferMode_;
+
+	/** Output stream copying all written bytes into a response buffer, which is discarded when full. */
+	private final OutputStream response_ = new OutputStream() {
+
+		/** Response buffer. */
+		private final byte[] buffer_ = new byte[8192];
+
+		/** Number of buffered bytes. */
+		private int count_ = 0;
+
+		@Override
+		public void write(int b) {
+			if (count_ == buffer_.length)
+				count_ = 0;
+			buffer_[count_++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			while (len > 0) {
+				if (count_ == buffer_.length)
+					count_ = 0;
+				int n = Math.min(len, buffer_.length - count_);
+				System.arraycopy(b, off, buffer_, count_, n);
+				count_ += n;
+				off += n;
+				len -= n;
+			}
+		}
+	};
+
+	/**
+	 * Creates the file to transfer.
+	 *
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	@Setup
+	public void setup() throws Exception {
+		transferMode_ = TransferMode.valueOf(mode);
+		file_ = Files.createTempFile("afm-wiki-transfer", ".bin");
+		byte[] block = new byte[1024 * 1024];
+		new Random(0).nextBytes(block);
+		try (OutputStream out = Files.newOutputStream(file_)) {
+			for (int i = 0; i < fileSize; i++)
+				out.write(block);
+		}
+	}
+
+	/**
+	 * Prints the transfer statistics and deletes the file.
+	 *
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	@TearDown
+	public void tearDown() throws Exception {
+		System.out.println(transferMode_.getStatistics());
+		Files.deleteIfExists(file_);
+	}
+
+	@Benchmark
+	public void transfer() throws Exception {
+		FileTransfer.transfer(file_, 0L, Files.size(file_), response_, transferMode_);
+	}
+}
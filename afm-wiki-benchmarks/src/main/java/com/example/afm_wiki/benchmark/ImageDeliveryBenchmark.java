@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.benchmark;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.afm_wiki.data.PilotPointImageRendition;
+import com.example.afm_wiki.data.PilotPointImageType;
+import com.example.afm_wiki.engine.PilotPointImages;
+import com.example.afm_wiki.utility.ImageCache;
+import com.example.afm_wiki.utility.ImageCache.ImageFile;
+import com.example.afm_wiki.utility.ImageScaler;
+import com.example.afm_wiki.utility.Utility;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Benchmark for the pilot point image delivery paths; cached renditions, rendition scaling and streaming of original images from the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageDeliveryBenchmark {
+
+	/** Synthetic database. */
+	private SyntheticDatabase database_;
+
+	/** Connection pool. */
+	private ConnectionPool pool_;
+
+	/** Image cache. */
+	private ImageCache imageCache_;
+
+	/** Image cache directory. */
+	private Path directory_;
+
+	/** Original image on disk. */
+	private Path original_;
+
+	/** Output stream discarding all written bytes. */
+	private final OutputStream sink_ = new OutputStream() {
+
+		@Override
+		public void write(int b) {
+			// no implementation
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			// no implementation
+		}
+	};
+
+	/**
+	 * Creates the database and image cache.
+	 *
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	@Setup
+	public void setup() throws Exception {
+
+		// create database
+		database_ = new SyntheticDatabase("images", 2, 20, 1024);
+		database_.create();
+		pool_ = database_.createConnectionPool(4);
+
+		// create image cache
+		directory_ = Files.createTempDirectory("afm-wiki-images");
+		imageCache_ = new ImageCache(ImageCache.DEFAULT_MEMORY_BUDGET, directory_, ImageCache.DEFAULT_DISK_BUDGET, ImageCache.DEFAULT_TIME_TO_LIVE);
+
+		// warm cache and get original image on disk
+		PilotPointImages.getImage(imageCache_, pool_, 0, PilotPointImageType.MISSION_PROFILE, PilotPointImageRendition.THUMBNAIL);
+		ImageFile original = PilotPointImages.getOriginal(imageCache_, pool_, 0, PilotPointImageType.MISSION_PROFILE);
+		original_ = original.getPath();
+	}
+
+	/**
+	 * Drops the database and deletes the image cache directory.
+	 *
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	@TearDown
+	public void tearDown() throws Exception {
+		imageCache_.clear();
+		pool_.release();
+		database_.drop();
+		Utility.deleteTemporaryFiles(directory_);
+	}
+
+	@Benchmark
+	public byte[] cachedThumbnail() throws Exception {
+		return PilotPointImages.getImage(imageCache_, pool_, 0, PilotPointImageType.MISSION_PROFILE, PilotPointImageRendition.THUMBNAIL);
+	}
+
+	@Benchmark
+	public byte[] scaleThumbnail() throws Exception {
+		return ImageScaler.createRendition(original_, PilotPointImageRendition.THUMBNAIL);
+	}
+
+	@Benchmark
+	public byte[] scaleDisplay() throws Exception {
+		return ImageScaler.createRendition(original_, PilotPointImageRendition.DISPLAY);
+	}
+
+	@Benchmark
+	public boolean streamOriginal() throws Exception {
+		try (Connection connection = pool_.getConnection(3000)) {
+			return PilotPointImages.loadImage(connection, 0, PilotPointImageType.MISSION_PROFILE, sink_);
+		}
+	}
+}
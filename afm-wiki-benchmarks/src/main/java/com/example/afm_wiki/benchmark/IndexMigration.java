@@ -0,0 +1,429 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.benchmark;
+
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.afm_wiki.data.BasicSearchInput;
+import com.example.afm_wiki.data.LoadcaseFactorInfo.LoadcaseFactorInfoType;
+import com.example.afm_wiki.data.LoadcaseFactorSearchInput;
+import com.example.afm_wiki.data.PilotPointInfo.PilotPointInfoType;
+import com.example.afm_wiki.data.PilotPointSearchInput;
+import com.example.afm_wiki.data.SearchItem;
+import com.example.afm_wiki.data.SpectrumInfo.SpectrumInfoType;
+import com.example.afm_wiki.data.SpectrumSearchInput;
+import com.example.afm_wiki.engine.AdvancedLoadcaseFactorQuery;
+import com.example.afm_wiki.engine.AdvancedPilotPointQuery;
+import com.example.afm_wiki.engine.AdvancedSpectrumQuery;
+import com.example.afm_wiki.engine.BasicPilotPointQuery;
+import com.example.afm_wiki.engine.BasicSpectrumQuery;
+import com.example.afm_wiki.engine.SearchQuery;
+import com.example.afm_wiki.schema.IndexAdvisor;
+import com.example.afm_wiki.schema.IndexProposal;
+import com.example.afm_wiki.schema.SearchSchema;
+import com.example.afm_wiki.utility.LatencyHistogram;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Class for index migration tool. Builds a workload of the search queries on the search-critical columns (spectrum name, A/C program, A/C section, fatigue mission, name and material name) with values sampled from
+ * the database, analyzes the column filters of the workload (and optionally of a slow query log) with {@link IndexAdvisor}, and prints the proposed shadow columns and indexes. The workload is benchmarked before
+ * the proposals are applied, and again after they are applied.
+ * <p>
+ * See {@link #main(String[])} for the arguments.
+ */
+public class IndexMigration {
+
+	/**
+	 * Class for workload query.
+	 */
+	private static class WorkloadQuery {
+
+		/** Name of the query. */
+		private final String name_;
+
+		/** Search query. */
+		private final SearchQuery query_;
+
+		/** Latency histograms before and after the migration. */
+		private final LatencyHistogram before_ = new LatencyHistogram(), after_ = new LatencyHistogram();
+
+		/** Number of results. */
+		private int results_ = 0;
+
+		/**
+		 * Creates workload query.
+		 *
+		 * @param name
+		 *            Name of the query.
+		 * @param query
+		 *            Search query.
+		 */
+		private WorkloadQuery(String name, SearchQuery query) {
+			name_ = name;
+			query_ = query;
+		}
+	}
+
+	/** JDBC URL of the database. */
+	private final String url_;
+
+	/** Workload queries. */
+	private final ArrayList<WorkloadQuery> workload_ = new ArrayList<>();
+
+	/** Index advisor. */
+	private final IndexAdvisor advisor_ = new IndexAdvisor();
+
+	/** Search schema of the workload queries. */
+	private final SearchSchema searchSchema_ = new SearchSchema();
+
+	/**
+	 * Creates index migration tool.
+	 *
+	 * @param url
+	 *            JDBC URL of the database (including user and password if needed).
+	 */
+	public IndexMigration(String url) {
+		url_ = url;
+	}
+
+	/**
+	 * Returns the index advisor of this tool.
+	 *
+	 * @return The index advisor.
+	 */
+	public IndexAdvisor getAdvisor() {
+		return advisor_;
+	}
+
+	/**
+	 * Builds the workload with values sampled from the middle rows of the search tables, and adds its queries to the advisor. The workload contains each query with ignored and with matched case.
+	 *
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public void buildWorkload() throws Exception {
+
+		// sample values
+		String[] spectrum, pilotPoint;
+		try (Connection connection = DriverManager.getConnection(url_)) {
+			spectrum = sample(connection, "spectra", "name", "ac_program", "ac_section", "fat_mission");
+			pilotPoint = sample(connection, "pilot_points", "spectrum_name", "name", "ac_program", "material_name");
+		}
+
+		// loop over case options
+		for (boolean ignoreCase : new boolean[] { true, false }) {
+			String suffix = ignoreCase ? " (ignore case)" : "";
+
+			// spectrum name starts with
+			SpectrumSearchInput spectrumInput = new SpectrumSearchInput();
+			spectrumInput.addInput(SpectrumInfoType.NAME, new SearchItem(prefix(spectrum[0]), SearchItem.STARTS_WITH));
+			spectrumInput.setCase(ignoreCase);
+			add("Spectrum name starts with" + suffix, "spectra", new AdvancedSpectrumQuery(spectrumInput));
+
+			// spectrum program, section and mission equal
+			spectrumInput = new SpectrumSearchInput();
+			spectrumInput.addInput(SpectrumInfoType.AC_PROGRAM, new SearchItem(spectrum[1], SearchItem.EQUALS));
+			spectrumInput.addInput(SpectrumInfoType.AC_SECTION, new SearchItem(spectrum[2], SearchItem.EQUALS));
+			spectrumInput.addInput(SpectrumInfoType.FAT_MISSION, new SearchItem(spectrum[3], SearchItem.EQUALS));
+			spectrumInput.setCase(ignoreCase);
+			add("Spectrum program, section and mission equal" + suffix, "spectra", new AdvancedSpectrumQuery(spectrumInput));
+
+			// pilot point spectrum name equals
+			PilotPointSearchInput pilotPointInput = new PilotPointSearchInput();
+			pilotPointInput.addInput(PilotPointInfoType.SPECTRUM_NAME, new SearchItem(pilotPoint[0], SearchItem.EQUALS));
+			pilotPointInput.setCase(ignoreCase);
+			add("Pilot point spectrum name equals" + suffix, "pilot_points", new AdvancedPilotPointQuery(pilotPointInput));
+
+			// pilot point name starts with
+			pilotPointInput = new PilotPointSearchInput();
+			pilotPointInput.addInput(PilotPointInfoType.NAME, new SearchItem(prefix(pilotPoint[1]), SearchItem.STARTS_WITH));
+			pilotPointInput.setCase(ignoreCase);
+			add("Pilot point name starts with" + suffix, "pilot_points", new AdvancedPilotPointQuery(pilotPointInput));
+
+			// pilot point name ends with
+			pilotPointInput = new PilotPointSearchInput();
+			pilotPointInput.addInput(PilotPointInfoType.NAME, new SearchItem(suffix(pilotPoint[1]), SearchItem.ENDS_WITH));
+			pilotPointInput.setCase(ignoreCase);
+			add("Pilot point name ends with" + suffix, "pilot_points", new AdvancedPilotPointQuery(pilotPointInput));
+
+			// pilot point program and material equal
+			pilotPointInput = new PilotPointSearchInput();
+			pilotPointInput.addInput(PilotPointInfoType.AC_PROGRAM, new SearchItem(pilotPoint[2], SearchItem.EQUALS));
+			pilotPointInput.addInput(PilotPointInfoType.MATERIAL_NAME, new SearchItem(pilotPoint[3], SearchItem.EQUALS));
+			pilotPointInput.setCase(ignoreCase);
+			add("Pilot point program and material equal" + suffix, "pilot_points", new AdvancedPilotPointQuery(pilotPointInput));
+
+			// loadcase factor spectrum name equals
+			LoadcaseFactorSearchInput loadcaseFactorInput = new LoadcaseFactorSearchInput();
+			loadcaseFactorInput.addInput(LoadcaseFactorInfoType.SPECTRUM_NAME, new SearchItem(pilotPoint[0], SearchItem.EQUALS));
+			loadcaseFactorInput.setCase(ignoreCase);
+			add("Loadcase factor spectrum name equals" + suffix, "mult_tables", new AdvancedLoadcaseFactorQuery(loadcaseFactorInput));
+
+			// basic searches
+			BasicSearchInput basicInput = new BasicSearchInput();
+			ArrayList<String> keywords = new ArrayList<>();
+			keywords.add(spectrum[1]);
+			keywords.add(spectrum[3]);
+			basicInput.setKeywords(keywords);
+			basicInput.setCase(ignoreCase);
+			add("Basic spectrum search" + suffix, "spectra", new BasicSpectrumQuery(basicInput));
+			add("Basic pilot point search" + suffix, "pilot_points", new BasicPilotPointQuery(basicInput));
+		}
+
+		// counts of connected pilot points and loadcase factors of the spectrum searches
+		advisor_.addQuery("select count(id) as numpps from pilot_points where spectrum_name = ?");
+		advisor_.addQuery("select count(id) as nummults from mult_tables where spectrum_name = ?");
+	}
+
+	/**
+	 * Runs the workload and records the latencies. The search schema is inspected before, so that the queries use the shadow columns which exist.
+	 *
+	 * @param runs
+	 *            Number of measured runs of each query (after one warm-up run).
+	 * @param after
+	 *            True if the latencies are recorded after the migration.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public void benchmark(int runs, boolean after) throws Exception {
+		ConnectionPool pool = new ConnectionPool("Index migration", 1, 1, 0, 180000, url_, null, null);
+		try {
+			try (Connection connection = pool.getConnection(3000)) {
+				searchSchema_.update(connection);
+			}
+			for (WorkloadQuery query : workload_) {
+				query.results_ = query.query_.run(pool).size();
+				for (int i = 0; i < runs; i++) {
+					long start = System.nanoTime();
+					query.query_.run(pool);
+					(after ? query.after_ : query.before_).record(System.nanoTime() - start);
+				}
+			}
+		}
+		finally {
+			pool.release();
+		}
+	}
+
+	/**
+	 * Returns the benchmark report.
+	 *
+	 * @return The benchmark report.
+	 */
+	public String getBenchmarkReport() {
+		String report = String.format("%-60s %8s %12s %12s %8s%n", "Query", "Results", "Before (ms)", "After (ms)", "Speedup");
+		for (WorkloadQuery query : workload_) {
+			double before = query.before_.getPercentile(50) / 1e6, after = query.after_.getPercentile(50) / 1e6;
+			String speedup = query.after_.getCount() == 0 ? "" : String.format("%.1fx", before / Math.max(after, 0.001));
+			report += String.format("%-60s %8d %12.2f %12s %8s%n", query.name_, query.results_, before, query.after_.getCount() == 0 ? "" : String.format("%.2f", after), speedup);
+		}
+		return report;
+	}
+
+	/**
+	 * Adds given query to the workload and to the advisor.
+	 *
+	 * @param name
+	 *            Name of the query.
+	 * @param table
+	 *            Table of the query.
+	 * @param query
+	 *            Search query.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private void add(String name, String table, SearchQuery query) throws Exception {
+		query.setSearchSchema(searchSchema_);
+		workload_.add(new WorkloadQuery(name, query));
+		advisor_.addQuery("select id from " + table + " where " + query.buildQuery());
+	}
+
+	/**
+	 * Returns the values of given columns of the middle row of given table.
+	 *
+	 * @param connection
+	 *            Database connection.
+	 * @param table
+	 *            Table name.
+	 * @param columns
+	 *            Column names.
+	 * @return The values (empty strings for null values).
+	 * @throws SQLException
+	 *             If exception occurs during process.
+	 */
+	private static String[] sample(Connection connection, String table, String... columns) throws SQLException {
+		String[] values = new String[columns.length];
+		try (Statement statement = connection.createStatement()) {
+			long rows;
+			try (ResultSet resultSet = statement.executeQuery("select count(*) from " + table)) {
+				resultSet.next();
+				rows = resultSet.getLong(1);
+			}
+			try (ResultSet resultSet = statement.executeQuery("select " + String.join(", ", columns) + " from " + table + " order by id offset " + rows / 2 + " rows fetch next 1 rows only")) {
+				if (!resultSet.next())
+					throw new IllegalStateException("Table " + table + " is empty.");
+				for (int i = 0; i < columns.length; i++) {
+					String value = resultSet.getString(i + 1);
+					values[i] = value == null ? "" : value;
+				}
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Returns the first half of given value (at least 1 character).
+	 *
+	 * @param value
+	 *            Value.
+	 * @return The prefix.
+	 */
+	private static String prefix(String value) {
+		return value.substring(0, Math.min(value.length(), Math.max(1, value.length() / 2)));
+	}
+
+	/**
+	 * Returns the last 4 characters of given value.
+	 *
+	 * @param value
+	 *            Value.
+	 * @return The suffix.
+	 */
+	private static String suffix(String value) {
+		return value.substring(Math.max(0, value.length() - 4));
+	}
+
+	/**
+	 * Analyzes the search queries of an AFM database and proposes shadow columns and indexes for them. Arguments are given as name value pairs:
+	 * <ul>
+	 * <li>-url: JDBC URL of the database (required), such as <code>jdbc:derby://localhost:1527/path;user=APP;password=APP</code>.
+	 * <li>-slowQueryLog: Slow query log file to analyze in addition to the built-in workload (default none).
+	 * <li>-minRows: Minimum number of rows of a table to propose indexes for (default 1000).
+	 * <li>-runs: Number of benchmark runs of each workload query (default 5, 0 to skip the benchmark).
+	 * <li>-apply: True to apply the proposals and benchmark the workload again (default false).
+	 * </ul>
+	 *
+	 * @param args
+	 *            Arguments.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		// parse arguments
+		String url = null, slowQueryLog = null;
+		long minRows = IndexAdvisor.DEFAULT_MIN_ROWS;
+		int runs = 5;
+		boolean apply = false;
+		for (int i = 0; i < args.length - 1; i += 2) {
+			String value = args[i + 1];
+			switch (args[i]) {
+				case "-url":
+					url = value;
+					break;
+				case "-slowQueryLog":
+					slowQueryLog = value;
+					break;
+				case "-minRows":
+					minRows = Long.parseLong(value);
+					break;
+				case "-runs":
+					runs = Integer.parseInt(value);
+					break;
+				case "-apply":
+					apply = Boolean.parseBoolean(value);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown argument: " + args[i]);
+			}
+		}
+		if (url == null)
+			throw new IllegalArgumentException("Database URL is not given. Usage: -url <JDBC URL> [-slowQueryLog <file>] [-minRows <n>] [-runs <n>] [-apply <true|false>]");
+
+		// build workload and analyze queries
+		IndexMigration migration = new IndexMigration(url);
+		migration.buildWorkload();
+		if (slowQueryLog != null)
+			System.out.println(migration.getAdvisor().addSlowQueryLog(Paths.get(slowQueryLog)) + " queries read from slow query log.");
+		System.out.println("Column filters of " + migration.getAdvisor().getQueries() + " queries:");
+		System.out.print(migration.getAdvisor().getReport());
+
+		// propose
+		List<IndexProposal> proposals;
+		try (Connection connection = DriverManager.getConnection(url)) {
+			proposals = migration.getAdvisor().propose(connection, minRows);
+		}
+		System.out.println();
+		System.out.println(proposals.isEmpty() ? "No proposals." : "Proposals:");
+		for (IndexProposal proposal : proposals)
+			System.out.println(proposal);
+		if (!migration.getAdvisor().getNotes().isEmpty()) {
+			System.out.println("Not proposed (too few distinct values):");
+			for (String note : migration.getAdvisor().getNotes())
+				System.out.println(note);
+		}
+
+		// benchmark before
+		if (runs > 0) {
+			System.out.println();
+			System.out.println("Benchmarking " + migration.workload_.size() + " queries...");
+			migration.benchmark(runs, false);
+		}
+
+		// apply and benchmark after
+		if (apply && !proposals.isEmpty()) {
+			System.out.println("Applying " + proposals.size() + " proposals...");
+			long start = System.currentTimeMillis();
+			try (Connection connection = DriverManager.getConnection(url)) {
+				IndexAdvisor.apply(connection, proposals);
+			}
+			System.out.println("Proposals applied in " + (System.currentTimeMillis() - start) / 1000.0 + " seconds.");
+			if (runs > 0) {
+				System.out.println("Benchmarking " + migration.workload_.size() + " queries...");
+				migration.benchmark(runs, true);
+			}
+		}
+		else if (!proposals.isEmpty()) {
+			System.out.println("Proposals are not applied (see -apply).");
+		}
+
+		// print benchmark report (median latencies)
+		if (runs > 0) {
+			System.out.println();
+			System.out.print(migration.getBenchmarkReport());
+		}
+
+		// shut down embedded database
+		if (!url.startsWith("jdbc:derby://")) {
+			try {
+				DriverManager.getConnection("jdbc:derby:;shutdown=true");
+			}
+
+			// Derby reports a successful shutdown with an exception
+			catch (SQLException e) {
+				// expected
+			}
+		}
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.benchmark;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.afm_wiki.data.BasicSearchInput;
+import com.example.afm_wiki.data.LoadcaseFactorInfo.LoadcaseFactorInfoType;
+import com.example.afm_wiki.data.LoadcaseFactorSearchInput;
+import com.example.afm_wiki.data.PilotPointInfo.PilotPointInfoType;
+import com.example.afm_wiki.data.PilotPointSearchInput;
+import com.example.afm_wiki.data.SearchItem;
+import com.example.afm_wiki.data.SpectrumInfo.SpectrumInfoType;
+import com.example.afm_wiki.data.SpectrumSearchInput;
+import com.example.afm_wiki.engine.AdvancedLoadcaseFactorQuery;
+import com.example.afm_wiki.engine.AdvancedPilotPointQuery;
+import com.example.afm_wiki.engine.AdvancedSpectrumQuery;
+import com.example.afm_wiki.engine.BasicLoadcaseFactorQuery;
+import com.example.afm_wiki.engine.BasicPilotPointQuery;
+import com.example.afm_wiki.engine.BasicSpectrumQuery;
+
+/**
+ * Benchmark for building the SQL queries of basic and advanced searches. No database is needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBuildingBenchmark {
+
+	/** True if case is ignored. */
+	@Param({ "true", "false" })
+	public boolean ignoreCase;
+
+	/** Number of basic search keywords. */
+	@Param({ "1", "3" })
+	public int keywords;
+
+	/** Basic search queries. */
+	private BasicSpectrumQuery basicSpectrum_;
+	private BasicPilotPointQuery basicPilotPoint_;
+	private BasicLoadcaseFactorQuery basicLoadcaseFactor_;
+
+	/** Advanced search queries. */
+	private AdvancedSpectrumQuery advancedSpectrum_;
+	private AdvancedPilotPointQuery advancedPilotPoint_;
+	private AdvancedLoadcaseFactorQuery advancedLoadcaseFactor_;
+
+	/**
+	 * Creates search queries.
+	 */
+	@Setup
+	public void setup() {
+
+		// create basic search input
+		BasicSearchInput basic = new BasicSearchInput();
+		ArrayList<String> words = new ArrayList<>();
+		String[] candidates = { "A350", "WING", "SR" };
+		for (int i = 0; i < keywords; i++)
+			words.add(candidates[i % candidates.length]);
+		basic.setKeywords(words);
+		basic.setCase(ignoreCase);
+		basicSpectrum_ = new BasicSpectrumQuery(basic);
+		basicPilotPoint_ = new BasicPilotPointQuery(basic);
+		basicLoadcaseFactor_ = new BasicLoadcaseFactorQuery(basic);
+
+		// create advanced spectrum search input
+		SpectrumSearchInput spectrum = new SpectrumSearchInput();
+		spectrum.addInput(SpectrumInfoType.AC_PROGRAM, new SearchItem("A350", SearchItem.EQUALS));
+		spectrum.addInput(SpectrumInfoType.AC_SECTION, new SearchItem("Wing", SearchItem.EQUALS));
+		spectrum.addInput(SpectrumInfoType.NAME, new SearchItem("A350_WING", SearchItem.STARTS_WITH));
+		spectrum.setCase(ignoreCase);
+		advancedSpectrum_ = new AdvancedSpectrumQuery(spectrum);
+
+		// create advanced pilot point search input
+		PilotPointSearchInput pilotPoint = new PilotPointSearchInput();
+		pilotPoint.addInput(PilotPointInfoType.AC_PROGRAM, new SearchItem("A350", SearchItem.EQUALS));
+		pilotPoint.addInput(PilotPointInfoType.NAME, new SearchItem("_STR12", SearchItem.ENDS_WITH));
+		pilotPoint.addInput(PilotPointInfoType.MATERIAL_NAME, new SearchItem("7050", SearchItem.CONTAINS));
+		pilotPoint.setCase(ignoreCase);
+		advancedPilotPoint_ = new AdvancedPilotPointQuery(pilotPoint);
+
+		// create advanced loadcase factor search input
+		LoadcaseFactorSearchInput loadcaseFactor = new LoadcaseFactorSearchInput();
+		loadcaseFactor.addInput(LoadcaseFactorInfoType.AC_PROGRAM, new SearchItem("A350", SearchItem.EQUALS));
+		loadcaseFactor.addInput(LoadcaseFactorInfoType.SPECTRUM_NAME, new SearchItem("A350_WING", SearchItem.STARTS_WITH));
+		loadcaseFactor.setCase(ignoreCase);
+		advancedLoadcaseFactor_ = new AdvancedLoadcaseFactorQuery(loadcaseFactor);
+	}
+
+	@Benchmark
+	public String basicSpectrum() throws Exception {
+		return basicSpectrum_.buildQuery();
+	}
+
+	@Benchmark
+	public String basicPilotPoint() throws Exception {
+		return basicPilotPoint_.buildQuery();
+	}
+
+	@Benchmark
+	public String basicLoadcaseFactor() throws Exception {
+		return basicLoadcaseFactor_.buildQuery();
+	}
+
+	@Benchmark
+	public String advancedSpectrum() throws Exception {
+		return advancedSpectrum_.buildQuery();
+	}
+
+	@Benchmark
+	public String advancedPilotPoint() throws Exception {
+		return advancedPilotPoint_.buildQuery();
+	}
+
+	@Benchmark
+	public String advancedLoadcaseFactor() throws Exception {
+		return advancedLoadcaseFactor_.buildQuery();
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.benchmark;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.example.afm_wiki.data.BasicSearchInput;
+import com.example.afm_wiki.data.DownloadInfo;
+import com.example.afm_wiki.data.PilotPointInfo.PilotPointInfoType;
+import com.example.afm_wiki.data.PilotPointSearchInput;
+import com.example.afm_wiki.data.SearchItem;
+import com.example.afm_wiki.engine.AdvancedPilotPointQuery;
+import com.example.afm_wiki.engine.BasicSpectrumQuery;
+import com.example.afm_wiki.engine.InfoMapper;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Benchmark for mapping search result rows to info objects, and for complete searches (query execution and mapping) against the synthetic database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultMappingBenchmark {
+
+	/** Number of mapped rows. */
+	@Param({ "100", "1000" })
+	public int rows;
+
+	/** Synthetic database. */
+	private SyntheticDatabase database_;
+
+	/** Connection pool. */
+	private ConnectionPool pool_;
+
+	/** Connection and statements holding the mapped result sets. */
+	private Connection connection_;
+	private Statement spectrumStatement_, pilotPointStatement_;
+
+	/** Result sets to map. */
+	private ResultSet spectra_, pilotPoints_;
+
+	/** Search queries. */
+	private BasicSpectrumQuery basicSpectrum_;
+	private AdvancedPilotPointQuery advancedPilotPoint_;
+
+	/**
+	 * Creates the database and opens the result sets.
+	 *
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	@Setup
+	public void setup() throws Exception {
+
+		// create database
+		database_ = new SyntheticDatabase("mapping", 500, 10, 1024);
+		database_.setImages(false);
+		database_.create();
+		pool_ = database_.createConnectionPool(4);
+
+		// open scrollable result sets
+		connection_ = pool_.getConnection(3000);
+		spectrumStatement_ = connection_.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+		spectrumStatement_.setMaxRows(rows);
+		spectra_ = spectrumStatement_.executeQuery("select id, name, ac_program, ac_section, fat_mission, fat_mission_issue, flp_issue, iflp_issue, cdf_issue, delivery_ref, description, data_size from spectra");
+		pilotPointStatement_ = connection_.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+		pilotPointStatement_.setMaxRows(rows);
+		pilotPoints_ = pilotPointStatement_.executeQuery("select id, spectrum_name, name, ac_program, ac_section, fat_mission, description, element_type, frame_rib_position, stringer_position, data_source, generation_source, delivery_ref_num, issue, material_name from pilot_points");
+
+		// create basic spectrum search
+		BasicSearchInput basic = new BasicSearchInput();
+		ArrayList<String> keywords = new ArrayList<>();
+		keywords.add("A350");
+		basic.setKeywords(keywords);
+		basic.setMaxHits(rows);
+		basicSpectrum_ = new BasicSpectrumQuery(basic);
+
+		// create advanced pilot point search
+		PilotPointSearchInput pilotPoint = new PilotPointSearchInput();
+		pilotPoint.addInput(PilotPointInfoType.AC_PROGRAM, new SearchItem("A350", SearchItem.EQUALS));
+		pilotPoint.setMaxHits(rows);
+		advancedPilotPoint_ = new AdvancedPilotPointQuery(pilotPoint);
+	}
+
+	/**
+	 * Closes the result sets and drops the database.
+	 *
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	@TearDown
+	public void tearDown() throws Exception {
+		spectra_.close();
+		pilotPoints_.close();
+		spectrumStatement_.close();
+		pilotPointStatement_.close();
+		connection_.close();
+		pool_.release();
+		database_.drop();
+	}
+
+	@Benchmark
+	public void mapSpectra(Blackhole blackhole) throws Exception {
+		spectra_.beforeFirst();
+		while (spectra_.next())
+			blackhole.consume(InfoMapper.createSpectrumInfo(spectra_));
+	}
+
+	@Benchmark
+	public void mapPilotPoints(Blackhole blackhole) throws Exception {
+		pilotPoints_.beforeFirst();
+		while (pilotPoints_.next())
+			blackhole.consume(InfoMapper.createPilotPointInfo(pilotPoints_));
+	}
+
+	@Benchmark
+	public ArrayList<DownloadInfo> basicSpectrumSearch() throws Exception {
+		return basicSpectrum_.run(pool_);
+	}
+
+	@Benchmark
+	public ArrayList<DownloadInfo> advancedPilotPointSearch() throws Exception {
+		return advancedPilotPoint_.run(pool_);
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.benchmark;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Class for synthetic AFM database. Creates an embedded in-memory Derby database with {@link DatabaseGenerator}, using exact counts and BLOB sizes so that benchmark results are comparable between runs.
+ */
+public class SyntheticDatabase {
+
+	/** JDBC URL of the database. */
+	private final String url_;
+
+	/** Number of spectra, pilot points per spectrum and size of data BLOBs. */
+	private final int spectra_, pilotPointsPerSpectrum_, dataSize_;
+
+	/** True if pilot point images should be created. */
+	private boolean images_ = true;
+
+	/**
+	 * Creates synthetic database.
+	 *
+	 * @param name
+	 *            In-memory database name.
+	 * @param spectra
+	 *            Number of spectra.
+	 * @param pilotPointsPerSpectrum
+	 *            Number of pilot points (and loadcase factor files) per spectrum.
+	 * @param dataSize
+	 *            Size of data BLOBs in bytes.
+	 */
+	public SyntheticDatabase(String name, int spectra, int pilotPointsPerSpectrum, int dataSize) {
+		url_ = "jdbc:derby:memory:" + name;
+		spectra_ = spectra;
+		pilotPointsPerSpectrum_ = pilotPointsPerSpectrum;
+		dataSize_ = dataSize;
+	}
+
+	/**
+	 * Sets whether pilot point images should be created. Images are created by default.
+	 *
+	 * @param images
+	 *            True if pilot point images should be created.
+	 */
+	public void setImages(boolean images) {
+		images_ = images;
+	}
+
+	/**
+	 * Creates and fills the database.
+	 *
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public void create() throws Exception {
+		DatabaseGenerator generator = new DatabaseGenerator(url_ + ";create=true");
+		generator.setSpectra(spectra_);
+		generator.setPilotPointsPerSpectrum(pilotPointsPerSpectrum_);
+		generator.setLoadcaseFactorsPerPilotPoint(1.0);
+		generator.setAircraftModels(DatabaseGenerator.PROGRAMS.length);
+		generator.setDataSizes(dataSize_, dataSize_, dataSize_, dataSize_);
+		generator.setImageCoverage(images_ ? 1.0 : 0.0);
+		generator.setSpread(0.0);
+		generator.generate();
+	}
+
+	/**
+	 * Creates connection pool to the database.
+	 *
+	 * @param maxPool
+	 *            Maximum number of pooled connections.
+	 * @return The connection pool.
+	 */
+	public ConnectionPool createConnectionPool(int maxPool) {
+		return new ConnectionPool("Synthetic DCP", 1, maxPool, 0, 180000, url_, null, null);
+	}
+
+	/**
+	 * Drops the in-memory database.
+	 */
+	public void drop() {
+		try {
+			DriverManager.getConnection(url_ + ";drop=true");
+		}
+
+		// Derby reports a successful drop with an exception
+		catch (SQLException e) {
+			// expected
+		}
+	}
+}
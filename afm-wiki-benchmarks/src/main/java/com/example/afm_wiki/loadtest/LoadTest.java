@@ -0,0 +1,601 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.loadtest;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.derby.drda.NetworkServerControl;
+
+import com.example.afm_wiki.download.DownloadAdmission;
+import com.example.afm_wiki.loadtest.VirtualUser.UserAction;
+import com.example.afm_wiki.metrics.MeteredConnectionPool;
+import com.example.afm_wiki.metrics.SlowQueryLog;
+import com.example.afm_wiki.schema.ReverseIndex;
+import com.example.afm_wiki.schema.SearchDocumentIndex;
+import com.example.afm_wiki.schema.SearchSchema;
+import com.example.afm_wiki.utility.BlobCopier;
+import com.example.afm_wiki.utility.ImageAvailabilityIndex;
+import com.example.afm_wiki.utility.ImageCache;
+import com.example.afm_wiki.utility.LatencyHistogram;
+import com.example.afm_wiki.utility.Utility;
+
+/**
+ * Class for headless load test. Simulates concurrent users running the search, image and download code paths of the engine against a Derby network server, and reports throughput, latency percentiles,
+ * connection pool wait times and heap usage.
+ * <p>
+ * The shared services (connection pool, BLOB copier, download admission, image cache, image availability index and search schema) are created with the same defaults as the web application. The connection pool records the
+ * time spent waiting for connections.
+ */
+public class LoadTest {
+
+	/** Number of reported failure details. */
+	private static final int MAX_REPORTED_FAILURES = 10;
+
+	/** Number of users, test duration and ramp-up time in seconds, mean think time in milliseconds and random seed. */
+	private final int users_, duration_, rampUp_;
+	private final long thinkTime_, seed_;
+
+	/** Shared services. */
+	private final MeteredConnectionPool pool_;
+	private final ExecutorService threadPool_;
+	private final ScheduledExecutorService scheduler_;
+	private final BlobCopier copier_;
+	private final DownloadAdmission admission_;
+	private final ImageCache imageCache_;
+	private final ImageAvailabilityIndex imageIndex_;
+	private final SearchSchema searchSchema_;
+	private final ReverseIndex reverseIndex_;
+	private final SearchDocumentIndex searchDocumentIndex_;
+
+	/** Slow query log, or null if slow queries are not logged. */
+	private SlowQueryLog slowQueryLog_;
+
+	/** Working directory for downloads and image cache. */
+	private final Path directory_;
+
+	/** Released when the test is over. */
+	private final CountDownLatch stop_ = new CountDownLatch(1);
+
+	/** Latencies and failures of user actions. */
+	private final LatencyHistogram[] latencies_;
+	private final AtomicLongArray failures_;
+
+	/** Downloaded bytes. */
+	private final AtomicLong downloaded_ = new AtomicLong();
+
+	/** Heap samples. */
+	private final AtomicLong heapSamples_ = new AtomicLong(), heapSum_ = new AtomicLong(), heapMax_ = new AtomicLong();
+
+	/**
+	 * Creates load test.
+	 *
+	 * @param url
+	 *            JDBC URL of the database server.
+	 * @param username
+	 *            Database username.
+	 * @param password
+	 *            Database password.
+	 * @param maxPool
+	 *            Maximum number of pooled connections.
+	 * @param users
+	 *            Number of concurrent users.
+	 * @param duration
+	 *            Test duration in seconds.
+	 * @param rampUp
+	 *            Ramp-up time in seconds.
+	 * @param thinkTime
+	 *            Mean think time of users in milliseconds.
+	 * @param seed
+	 *            Random seed.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public LoadTest(String url, String username, String password, int maxPool, int users, int duration, int rampUp, long thinkTime, long seed) throws Exception {
+
+		// set parameters
+		users_ = users;
+		duration_ = duration;
+		rampUp_ = rampUp;
+		thinkTime_ = thinkTime;
+		seed_ = seed;
+
+		// create metrics
+		latencies_ = new LatencyHistogram[UserAction.values().length];
+		for (int i = 0; i < latencies_.length; i++)
+			latencies_[i] = new LatencyHistogram();
+		failures_ = new AtomicLongArray(latencies_.length);
+
+		// create shared services
+		directory_ = Files.createTempDirectory("afm-wiki-loadtest");
+		pool_ = new MeteredConnectionPool("Global DCP", 1, maxPool, 0, 180000, url, username, password);
+		threadPool_ = Executors.newCachedThreadPool();
+		scheduler_ = Executors.newSingleThreadScheduledExecutor();
+		copier_ = new BlobCopier(BlobCopier.DEFAULT_CHUNK_SIZE, BlobCopier.DEFAULT_BUFFER_COUNT, threadPool_);
+		admission_ = new DownloadAdmission(DownloadAdmission.DEFAULT_USER_BUDGET, DownloadAdmission.DEFAULT_GLOBAL_BUDGET, DownloadAdmission.DEFAULT_MAX_QUEUED, DownloadAdmission.DEFAULT_QUEUE_TIMEOUT);
+		imageCache_ = new ImageCache(ImageCache.DEFAULT_MEMORY_BUDGET, directory_, ImageCache.DEFAULT_DISK_BUDGET, ImageCache.DEFAULT_TIME_TO_LIVE);
+		imageIndex_ = new ImageAvailabilityIndex(pool_, imageCache_, scheduler_, ImageAvailabilityIndex.DEFAULT_REFRESH_INTERVAL);
+		searchSchema_ = new SearchSchema();
+		searchSchema_.schedule(pool_, scheduler_, SearchSchema.DEFAULT_REFRESH_INTERVAL);
+		reverseIndex_ = new ReverseIndex(pool_, scheduler_, ReverseIndex.DEFAULT_REFRESH_INTERVAL, ReverseIndex.DEFAULT_REBUILD_INTERVAL);
+		searchDocumentIndex_ = new SearchDocumentIndex(pool_, scheduler_, SearchDocumentIndex.DEFAULT_REFRESH_INTERVAL, SearchDocumentIndex.DEFAULT_REBUILD_INTERVAL, SearchDocumentIndex.DEFAULT_MAX_MEMORY);
+	}
+
+	/**
+	 * Runs the load test and prints the report.
+	 *
+	 * @param reportInterval
+	 *            Progress report interval in seconds.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public void run(int reportInterval) throws Exception {
+
+		// sample heap usage every second
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		scheduler_.scheduleAtFixedRate(new Runnable() {
+
+			@Override
+			public void run() {
+				long used = memory.getHeapMemoryUsage().getUsed();
+				heapSamples_.incrementAndGet();
+				heapSum_.addAndGet(used);
+				long max = heapMax_.get();
+				while ((used > max) && !heapMax_.compareAndSet(max, used))
+					max = heapMax_.get();
+			}
+		}, 0L, 1L, TimeUnit.SECONDS);
+
+		// start users (spread over ramp-up time)
+		long start = System.nanoTime();
+		ArrayList<Thread> threads = new ArrayList<>();
+		long stagger = users_ == 0 ? 0L : TimeUnit.SECONDS.toMillis(rampUp_) / users_;
+		long nextReport = start + TimeUnit.SECONDS.toNanos(reportInterval);
+		for (int i = 0; i < users_; i++) {
+			Thread thread = new Thread(new VirtualUser(this, i), "user-" + i);
+			thread.start();
+			threads.add(thread);
+			if (stagger > 0)
+				Thread.sleep(stagger);
+			if (System.nanoTime() >= nextReport) {
+				reportProgress(start, threads.size());
+				nextReport += TimeUnit.SECONDS.toNanos(reportInterval);
+			}
+		}
+
+		// run until test duration is over
+		long end = start + TimeUnit.SECONDS.toNanos(duration_);
+		while (System.nanoTime() < end) {
+			Thread.sleep(Math.max(1L, Math.min(TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime()), TimeUnit.NANOSECONDS.toMillis(nextReport - System.nanoTime()))));
+			if (System.nanoTime() >= nextReport) {
+				reportProgress(start, threads.size());
+				nextReport += TimeUnit.SECONDS.toNanos(reportInterval);
+			}
+		}
+
+		// stop users (running actions are allowed to complete)
+		stop_.countDown();
+		for (Thread thread : threads)
+			thread.join();
+		double elapsed = (System.nanoTime() - start) / 1e9;
+
+		// print report
+		report(elapsed);
+	}
+
+	/**
+	 * Sets the slow query log of the search queries.
+	 *
+	 * @param directory
+	 *            Log directory.
+	 * @param threshold
+	 *            Threshold in milliseconds.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public void setSlowQueryLog(Path directory, long threshold) throws Exception {
+		slowQueryLog_ = new SlowQueryLog(directory, threshold, true, SlowQueryLog.DEFAULT_MAX_FILE_SIZE, SlowQueryLog.DEFAULT_MAX_FILES, scheduler_);
+	}
+
+	/**
+	 * Shuts down the shared services and deletes the working directory.
+	 */
+	public void shutdown() {
+		if (slowQueryLog_ != null)
+			slowQueryLog_.shutdown();
+		Utility.shutdownThreadExecutor(threadPool_);
+		Utility.shutdownThreadExecutor(scheduler_);
+		pool_.release();
+		imageCache_.clear();
+		Utility.deleteTemporaryFiles(directory_);
+	}
+
+	/**
+	 * Returns true while the test is running.
+	 *
+	 * @return True while the test is running.
+	 */
+	public boolean isRunning() {
+		return stop_.getCount() > 0;
+	}
+
+	/**
+	 * Waits for given time, or until the test is over.
+	 *
+	 * @param millis
+	 *            Time to wait in milliseconds.
+	 * @return True if the test is still running.
+	 * @throws InterruptedException
+	 *             If the current thread is interrupted while waiting.
+	 */
+	public boolean pause(long millis) throws InterruptedException {
+		return !stop_.await(millis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Returns random seed.
+	 *
+	 * @return Random seed.
+	 */
+	public long getSeed() {
+		return seed_;
+	}
+
+	/**
+	 * Returns mean think time of users in milliseconds.
+	 *
+	 * @return Mean think time of users in milliseconds.
+	 */
+	public long getThinkTime() {
+		return thinkTime_;
+	}
+
+	/**
+	 * Returns database connection pool.
+	 *
+	 * @return Database connection pool.
+	 */
+	public MeteredConnectionPool getPool() {
+		return pool_;
+	}
+
+	/**
+	 * Returns thread pool for background tasks.
+	 *
+	 * @return Thread pool for background tasks.
+	 */
+	public ExecutorService getBackgroundExecutor() {
+		return threadPool_;
+	}
+
+	/**
+	 * Returns BLOB copier.
+	 *
+	 * @return BLOB copier.
+	 */
+	public BlobCopier getCopier() {
+		return copier_;
+	}
+
+	/**
+	 * Returns download admission controller.
+	 *
+	 * @return Download admission controller.
+	 */
+	public DownloadAdmission getAdmission() {
+		return admission_;
+	}
+
+	/**
+	 * Returns slow query log.
+	 *
+	 * @return Slow query log, or null if slow queries are not logged.
+	 */
+	public SlowQueryLog getSlowQueryLog() {
+		return slowQueryLog_;
+	}
+
+	/**
+	 * Returns image cache.
+	 *
+	 * @return Image cache.
+	 */
+	public ImageCache getImageCache() {
+		return imageCache_;
+	}
+
+	/**
+	 * Returns image availability index.
+	 *
+	 * @return Image availability index.
+	 */
+	public ImageAvailabilityIndex getImageIndex() {
+		return imageIndex_;
+	}
+
+	/**
+	 * Returns search schema.
+	 *
+	 * @return Search schema.
+	 */
+	public SearchSchema getSearchSchema() {
+		return searchSchema_;
+	}
+
+	/**
+	 * Returns reverse-string index.
+	 *
+	 * @return Reverse-string index.
+	 */
+	public ReverseIndex getReverseIndex() {
+		return reverseIndex_;
+	}
+
+	/**
+	 * Returns search document index.
+	 *
+	 * @return Search document index.
+	 */
+	public SearchDocumentIndex getSearchDocumentIndex() {
+		return searchDocumentIndex_;
+	}
+
+	/**
+	 * Returns working directory.
+	 *
+	 * @return Working directory.
+	 */
+	public Path getDirectory() {
+		return directory_;
+	}
+
+	/**
+	 * Records latency of given user action.
+	 *
+	 * @param action
+	 *            User action.
+	 * @param nanos
+	 *            Latency in nanoseconds.
+	 */
+	public void record(UserAction action, long nanos) {
+		latencies_[action.ordinal()].record(nanos);
+	}
+
+	/**
+	 * Records downloaded bytes.
+	 *
+	 * @param bytes
+	 *            Downloaded bytes.
+	 */
+	public void recordDownload(long bytes) {
+		downloaded_.addAndGet(bytes);
+	}
+
+	/**
+	 * Records failure of given user action.
+	 *
+	 * @param action
+	 *            User action.
+	 * @param e
+	 *            Exception.
+	 */
+	public void fail(UserAction action, Exception e) {
+		long failures = 0L;
+		for (int i = 0; i < failures_.length(); i++)
+			failures += failures_.get(i);
+		failures_.incrementAndGet(action.ordinal());
+		if (failures < MAX_REPORTED_FAILURES)
+			System.err.println(action + " failed: " + e);
+	}
+
+	/**
+	 * Prints progress report.
+	 *
+	 * @param start
+	 *            Start time of the test in nanoseconds.
+	 * @param users
+	 *            Number of started users.
+	 */
+	private void reportProgress(long start, int users) {
+		long operations = 0L;
+		for (LatencyHistogram latency : latencies_)
+			operations += latency.getCount();
+		long elapsed = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+		long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+		System.out.println(elapsed + " s: " + users + " users, " + operations + " operations, connection wait p99 " + String.format("%.2f", pool_.getWaits().getPercentile(99) / 1e6) + " ms, " + pool_.getCheckedOut() + " connections checked out (" + pool_.getMaxPool() + " pooled), heap " + Utility.readableFileSize(heap));
+	}
+
+	/**
+	 * Prints the final report.
+	 *
+	 * @param elapsed
+	 *            Elapsed test time in seconds.
+	 */
+	private void report(double elapsed) {
+
+		// throughput and latencies
+		System.out.println();
+		System.out.println(String.format("Load test: %d users, %.1f s, mean think time %d ms", users_, elapsed, thinkTime_));
+		long operations = 0L;
+		for (UserAction action : UserAction.values()) {
+			LatencyHistogram latency = latencies_[action.ordinal()];
+			operations += latency.getCount();
+			System.out.println(String.format("%-20s %8.2f ops/s, %d failed, %s", action, latency.getCount() / elapsed, failures_.get(action.ordinal()), latency.getStatistics()));
+		}
+		System.out.println(String.format("%-20s %8.2f ops/s", "Total", operations / elapsed));
+		System.out.println("Downloaded: " + Utility.readableFileSize(downloaded_.get()) + ", " + Utility.readableFileSize((long) (downloaded_.get() / elapsed)) + "/s");
+
+		// connection pool
+		System.out.println("Connection wait: " + pool_.getWaits().getStatistics() + ", " + pool_.getTimeouts() + " timed out, pool size " + pool_.getSize() + " (max " + pool_.getMaxPool() + ")");
+
+		// heap and garbage collection
+		MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+		long samples = heapSamples_.get();
+		System.out.println("Heap: mean used " + Utility.readableFileSize(samples == 0 ? 0L : heapSum_.get() / samples) + ", max used " + Utility.readableFileSize(heapMax_.get()) + ", committed " + Utility.readableFileSize(heap.getCommitted()) + ", max " + Utility.readableFileSize(heap.getMax()));
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			System.out.println("GC " + gc.getName() + ": " + gc.getCollectionCount() + " collections, " + gc.getCollectionTime() + " ms");
+
+		// shared services
+		System.out.println("Download admission: " + admission_.getStatistics());
+		System.out.println("BLOB copies: " + copier_.getStatistics());
+		System.out.println("Image cache: " + imageCache_.getStatistics());
+		System.out.println("Image availability index: " + imageIndex_.getStatistics());
+		System.out.println("Search schema: " + searchSchema_.getStatistics());
+		System.out.println("Reverse-string index: " + reverseIndex_.getStatistics());
+		System.out.println("Search document index: " + searchDocumentIndex_.getStatistics());
+		if (slowQueryLog_ != null)
+			System.out.println("Slow query log: " + slowQueryLog_.getStatistics());
+	}
+
+	/**
+	 * Runs load test. Arguments are given as name value pairs:
+	 * <ul>
+	 * <li>-path: Database path on the server (required).
+	 * <li>-host, -port: Database server host and port (default localhost 1527).
+	 * <li>-user, -password: Database username and password (default APP).
+	 * <li>-startServer: True to start a Derby network server within this process (default false).
+	 * <li>-users: Number of concurrent users (default 20).
+	 * <li>-duration: Test duration in seconds (default 300).
+	 * <li>-rampUp: Ramp-up time in seconds (default 30).
+	 * <li>-thinkTime: Mean think time of users in milliseconds (default 2000).
+	 * <li>-maxPool: Maximum number of pooled database connections (default 10, as in the web application).
+	 * <li>-report: Progress report interval in seconds (default 10).
+	 * <li>-seed: Random seed (default 1).
+	 * <li>-slowQueryLog: Directory of the slow query log (default none, slow queries are not logged).
+	 * <li>-slowQueryThreshold: Slow query threshold in milliseconds (default 1000).
+	 * </ul>
+	 *
+	 * @param args
+	 *            Arguments.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		// parse arguments
+		String path = null, host = "localhost", user = "APP", password = "APP";
+		int port = 1527, users = 20, duration = 300, rampUp = 30, maxPool = 10, report = 10;
+		long thinkTime = 2000L, seed = 1L, slowQueryThreshold = SlowQueryLog.DEFAULT_THRESHOLD;
+		boolean startServer = false;
+		String slowQueryLog = null;
+		for (int i = 0; i < args.length - 1; i += 2) {
+			String value = args[i + 1];
+			switch (args[i]) {
+				case "-path":
+					path = value;
+					break;
+				case "-host":
+					host = value;
+					break;
+				case "-port":
+					port = Integer.parseInt(value);
+					break;
+				case "-user":
+					user = value;
+					break;
+				case "-password":
+					password = value;
+					break;
+				case "-startServer":
+					startServer = Boolean.parseBoolean(value);
+					break;
+				case "-users":
+					users = Integer.parseInt(value);
+					break;
+				case "-duration":
+					duration = Integer.parseInt(value);
+					break;
+				case "-rampUp":
+					rampUp = Integer.parseInt(value);
+					break;
+				case "-thinkTime":
+					thinkTime = Long.parseLong(value);
+					break;
+				case "-maxPool":
+					maxPool = Integer.parseInt(value);
+					break;
+				case "-report":
+					report = Integer.parseInt(value);
+					break;
+				case "-seed":
+					seed = Long.parseLong(value);
+					break;
+				case "-slowQueryLog":
+					slowQueryLog = value;
+					break;
+				case "-slowQueryThreshold":
+					slowQueryThreshold = Long.parseLong(value);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown argument: " + args[i]);
+			}
+		}
+		if (path == null)
+			throw new IllegalArgumentException("Database path is not given. Usage: -path <database path> [-users <n>] [-duration <seconds>] ...");
+
+		// start network server
+		NetworkServerControl server = null;
+		if (startServer) {
+			server = new NetworkServerControl(InetAddress.getByName(host), port);
+			server.start(null);
+			for (int i = 0;; i++) {
+				try {
+					server.ping();
+					break;
+				}
+				catch (Exception e) {
+					if (i == 50)
+						throw e;
+					Thread.sleep(200L);
+				}
+			}
+			System.out.println("Derby network server started on " + host + ":" + port + ".");
+		}
+
+		// run test
+		try {
+			LoadTest test = new LoadTest("jdbc:derby://" + host + ":" + port + "/" + path, user, password, maxPool, users, duration, rampUp, thinkTime, seed);
+			try {
+				if (slowQueryLog != null)
+					test.setSlowQueryLog(Paths.get(slowQueryLog), slowQueryThreshold);
+				test.run(report);
+			}
+			finally {
+				test.shutdown();
+			}
+		}
+
+		// stop network server
+		finally {
+			if (server != null)
+				server.shutdown();
+		}
+	}
+}
@@ -0,0 +1,451 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.loadtest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import com.example.afm_wiki.data.BasicSearchInput;
+import com.example.afm_wiki.data.DownloadInfo;
+import com.example.afm_wiki.data.PilotPointImageRendition;
+import com.example.afm_wiki.data.PilotPointImageType;
+import com.example.afm_wiki.data.PilotPointInfo;
+import com.example.afm_wiki.data.PilotPointInfo.PilotPointInfoType;
+import com.example.afm_wiki.data.PilotPointSearchInput;
+import com.example.afm_wiki.data.SearchExpressionParser;
+import com.example.afm_wiki.data.SearchItem;
+import com.example.afm_wiki.data.SpectrumInfo;
+import com.example.afm_wiki.data.SpectrumInfo.SpectrumInfoType;
+import com.example.afm_wiki.data.SpectrumSearchInput;
+import com.example.afm_wiki.engine.AdvancedPilotPointQuery;
+import com.example.afm_wiki.engine.AdvancedSpectrumQuery;
+import com.example.afm_wiki.engine.BasicLoadcaseFactorQuery;
+import com.example.afm_wiki.engine.BasicPilotPointQuery;
+import com.example.afm_wiki.engine.BasicSpectrumQuery;
+import com.example.afm_wiki.engine.BlobQueries;
+import com.example.afm_wiki.engine.PilotPointImages;
+import com.example.afm_wiki.engine.SearchQuery;
+import com.example.afm_wiki.engine.TaskProgress;
+import com.example.afm_wiki.utility.ImageCache.ImageFile;
+import com.example.afm_wiki.utility.ImageCache.ImageLoader;
+import com.example.afm_wiki.utility.Utility;
+
+/**
+ * Class for virtual user of the load test. A virtual user repeatedly picks an action with the weights of a typical engineer session (basic and advanced searches, browsing the images of a found pilot point as
+ * the pilot point info dialog does, and multi-item downloads), runs it through the same engine calls as the web application and waits for an exponentially distributed think time.
+ */
+public class VirtualUser implements Runnable {
+
+	/**
+	 * Enumeration for user actions.
+	 */
+	public enum UserAction {
+
+		/** User action. */
+		BASIC_SEARCH("Basic search"), ADVANCED_SEARCH("Advanced search"), OPEN_PILOT_POINT("Open pilot point"), VIEW_IMAGE("View image"), VIEW_ORIGINAL("View original image"), DOWNLOAD("Download");
+
+		/** Display name. */
+		private final String name_;
+
+		/**
+		 * Creates user action.
+		 *
+		 * @param name
+		 *            Display name.
+		 */
+		UserAction(String name) {
+			name_ = name;
+		}
+
+		@Override
+		public String toString() {
+			return name_;
+		}
+	}
+
+	/** Search keywords. */
+	private static final String[] KEYWORDS = { "A320", "A330", "A350", "A380", "A400M", "Wing", "Fuselage", "HTP", "VTP", "Pylon", "Skin", "Stringer", "Frame", "Rib", "Clip", "Spar", "SR", "LR", "FR1", "STR2", "7050-T7451", "2024-T351" };
+
+	/** Values of advanced search fields. */
+	private static final String[] PROGRAMS = { "A320", "A330", "A350", "A380", "A400M" }, SECTIONS = { "Wing", "Fuselage", "HTP", "VTP", "Pylon" }, ELEMENT_TYPES = { "Skin", "Stringer", "Frame", "Rib", "Clip", "Spar" };
+
+	/** Output stream discarding all written bytes (stands for the servlet response of original images). */
+	private static final OutputStream SINK = new OutputStream() {
+
+		@Override
+		public void write(int b) {
+			// no implementation
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			// no implementation
+		}
+	};
+
+	/** Owner load test. */
+	private final LoadTest owner_;
+
+	/** Session ID of the user. */
+	private final String session_;
+
+	/** Random number generator. */
+	private final Random random_;
+
+	/** Download directory of the user. */
+	private final Path directory_;
+
+	/** Pilot points and spectra found by the last searches. */
+	private final ArrayList<PilotPointInfo> pilotPoints_ = new ArrayList<>();
+	private final ArrayList<SpectrumInfo> spectra_ = new ArrayList<>();
+
+	/**
+	 * Creates virtual user.
+	 *
+	 * @param owner
+	 *            Owner load test.
+	 * @param index
+	 *            User index.
+	 * @throws IOException
+	 *             If download directory of the user cannot be created.
+	 */
+	public VirtualUser(LoadTest owner, int index) throws IOException {
+		owner_ = owner;
+		session_ = "user-" + index;
+		random_ = new Random(owner.getSeed() + index);
+		directory_ = Files.createDirectories(owner.getDirectory().resolve(session_));
+	}
+
+	@Override
+	public void run() {
+
+		// loop until load test is over
+		while (owner_.isRunning()) {
+
+			// pick and run action
+			double action = random_.nextDouble();
+			try {
+				if (action < 0.4)
+					basicSearch();
+				else if (action < 0.6)
+					advancedSearch();
+				else if (action < 0.9)
+					browseImages();
+				else
+					download();
+			}
+
+			// user interrupted
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+
+			// think
+			if (!think())
+				return;
+		}
+	}
+
+	/**
+	 * Runs a basic search for spectra, pilot points or loadcase factor files with one or two keywords. Some of the pilot point searches use fields and prefixes of the query language instead.
+	 *
+	 * @throws InterruptedException
+	 *             If the user is interrupted.
+	 */
+	private void basicSearch() throws InterruptedException {
+
+		// create input
+		BasicSearchInput input = new BasicSearchInput();
+		ArrayList<String> keywords = new ArrayList<>();
+		keywords.add(KEYWORDS[random_.nextInt(KEYWORDS.length)]);
+		if (random_.nextBoolean())
+			keywords.add(KEYWORDS[random_.nextInt(KEYWORDS.length)]);
+		input.setKeywords(keywords);
+
+		// create query
+		double target = random_.nextDouble();
+		SearchQuery query = target < 0.5 ? new BasicPilotPointQuery(input) : target < 0.8 ? new BasicSpectrumQuery(input) : new BasicLoadcaseFactorQuery(input);
+
+		// selective pilot point query
+		if ((target < 0.5) && (random_.nextDouble() < 0.3))
+			input.setExpression(SearchExpressionParser.parse("ac_program:" + PROGRAMS[random_.nextInt(PROGRAMS.length)] + " element_type:" + ELEMENT_TYPES[random_.nextInt(ELEMENT_TYPES.length)] + " frame_rib_position:FR" + (1 + random_.nextInt(9)) + "*", true));
+
+		// run query
+		search(UserAction.BASIC_SEARCH, query);
+	}
+
+	/**
+	 * Runs an advanced search for pilot points or spectra with a few fields filled.
+	 *
+	 * @throws InterruptedException
+	 *             If the user is interrupted.
+	 */
+	private void advancedSearch() throws InterruptedException {
+
+		// pilot point search
+		SearchQuery query;
+		if (random_.nextDouble() < 0.7) {
+			PilotPointSearchInput input = new PilotPointSearchInput();
+			input.addInput(PilotPointInfoType.AC_PROGRAM, new SearchItem(PROGRAMS[random_.nextInt(PROGRAMS.length)], SearchItem.EQUALS));
+			input.addInput(PilotPointInfoType.ELEMENT_TYPE, new SearchItem(ELEMENT_TYPES[random_.nextInt(ELEMENT_TYPES.length)], SearchItem.EQUALS));
+			double position = random_.nextDouble();
+			if (position < 0.25)
+				input.addInput(PilotPointInfoType.FRAME_RIB_POSITION, new SearchItem("FR" + (1 + random_.nextInt(9)), SearchItem.STARTS_WITH));
+
+			// element position suffix of pilot point names
+			else if (position < 0.5)
+				input.addInput(PilotPointInfoType.NAME, new SearchItem("_FR" + (10 + random_.nextInt(80)) + "_STR" + (5 + random_.nextInt(50)), SearchItem.ENDS_WITH));
+			query = new AdvancedPilotPointQuery(input);
+		}
+
+		// spectrum search
+		else {
+			SpectrumSearchInput input = new SpectrumSearchInput();
+			input.addInput(SpectrumInfoType.AC_PROGRAM, new SearchItem(PROGRAMS[random_.nextInt(PROGRAMS.length)], SearchItem.EQUALS));
+			input.addInput(SpectrumInfoType.AC_SECTION, new SearchItem(SECTIONS[random_.nextInt(SECTIONS.length)], SearchItem.CONTAINS));
+			query = new AdvancedSpectrumQuery(input);
+		}
+
+		// run query
+		search(UserAction.ADVANCED_SEARCH, query);
+	}
+
+	/**
+	 * Runs given search query and keeps the found pilot points and spectra for later browsing and downloads.
+	 *
+	 * @param action
+	 *            User action.
+	 * @param query
+	 *            Search query.
+	 * @throws InterruptedException
+	 *             If the user is interrupted.
+	 */
+	private void search(UserAction action, SearchQuery query) throws InterruptedException {
+
+		// run query
+		long start = System.nanoTime();
+		ArrayList<DownloadInfo> results;
+		try {
+			query.setSlowQueryLog(owner_.getSlowQueryLog());
+			query.setSearchSchema(owner_.getSearchSchema());
+			query.setReverseIndex(owner_.getReverseIndex());
+			query.setSearchDocumentIndex(owner_.getSearchDocumentIndex());
+			results = query.run(owner_.getPool());
+			owner_.record(action, System.nanoTime() - start);
+		}
+
+		// search failed
+		catch (Exception e) {
+			owner_.fail(action, e);
+			return;
+		}
+
+		// keep results
+		boolean pilotPointsFound = false, spectraFound = false;
+		for (DownloadInfo info : results) {
+			if (info instanceof PilotPointInfo) {
+				if (!pilotPointsFound) {
+					pilotPoints_.clear();
+					pilotPointsFound = true;
+				}
+				pilotPoints_.add((PilotPointInfo) info);
+			}
+			else if (info instanceof SpectrumInfo) {
+				if (!spectraFound) {
+					spectra_.clear();
+					spectraFound = true;
+				}
+				spectra_.add((SpectrumInfo) info);
+			}
+		}
+	}
+
+	/**
+	 * Opens a found pilot point and browses a few of its images. Opening the pilot point checks image availability and prefetches the display renditions in background, then the user views a few image tabs and
+	 * occasionally opens the original image.
+	 *
+	 * @throws InterruptedException
+	 *             If the user is interrupted.
+	 */
+	private void browseImages() throws InterruptedException {
+
+		// no pilot point found yet
+		if (pilotPoints_.isEmpty()) {
+			basicSearch();
+			return;
+		}
+
+		// open pilot point
+		int pilotPointID = pilotPoints_.get(random_.nextInt(pilotPoints_.size())).getID();
+		long start = System.nanoTime();
+		ArrayList<PilotPointImageType> available = new ArrayList<>();
+		for (PilotPointImageType imageType : PilotPointImageType.values()) {
+			if (owner_.getImageIndex().isAvailable(pilotPointID, imageType))
+				available.add(imageType);
+		}
+		owner_.getBackgroundExecutor().submit(new Runnable() {
+
+			@Override
+			public void run() {
+				prefetch(pilotPointID);
+			}
+		});
+		owner_.record(UserAction.OPEN_PILOT_POINT, System.nanoTime() - start);
+
+		// no image available
+		if (available.isEmpty())
+			return;
+
+		// view a few image tabs
+		Collections.shuffle(available, random_);
+		int tabs = 1 + random_.nextInt(Math.min(3, available.size()));
+		for (int i = 0; i < tabs; i++) {
+
+			// think
+			if (!think())
+				return;
+
+			// view image
+			PilotPointImageType imageType = available.get(i);
+			start = System.nanoTime();
+			try {
+				PilotPointImages.getImage(owner_.getImageCache(), owner_.getPool(), pilotPointID, imageType, PilotPointImageRendition.DISPLAY);
+				owner_.record(UserAction.VIEW_IMAGE, System.nanoTime() - start);
+			}
+			catch (Exception e) {
+				owner_.fail(UserAction.VIEW_IMAGE, e);
+				continue;
+			}
+
+			// occasionally open original image
+			if (random_.nextDouble() < 0.1) {
+				start = System.nanoTime();
+				try {
+					ImageFile original = PilotPointImages.getOriginal(owner_.getImageCache(), owner_.getPool(), pilotPointID, imageType);
+					if (original != null)
+						Files.copy(original.getPath(), SINK);
+					owner_.record(UserAction.VIEW_ORIGINAL, System.nanoTime() - start);
+				}
+				catch (Exception e) {
+					owner_.fail(UserAction.VIEW_ORIGINAL, e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Prefetches display renditions of all available images of the given pilot point, as the prefetch task of the pilot point info dialog does.
+	 *
+	 * @param pilotPointID
+	 *            Pilot point ID.
+	 */
+	private void prefetch(int pilotPointID) {
+		try (Connection connection = owner_.getPool().getConnection(3000)) {
+			for (PilotPointImageType imageType : PilotPointImageType.values()) {
+				if (!owner_.getImageIndex().isAvailable(pilotPointID, imageType) || owner_.getImageCache().contains(pilotPointID, imageType, PilotPointImageRendition.DISPLAY))
+					continue;
+				owner_.getImageCache().get(pilotPointID, imageType, PilotPointImageRendition.DISPLAY, new ImageLoader() {
+
+					@Override
+					public boolean load(OutputStream out) throws Exception {
+						return PilotPointImages.loadImage(connection, pilotPointID, imageType, out);
+					}
+				});
+			}
+		}
+		catch (Exception e) {
+			owner_.fail(UserAction.OPEN_PILOT_POINT, e);
+		}
+	}
+
+	/**
+	 * Downloads a few of the found pilot points or spectra as a zip bundle. The download size is checked and admitted before the BLOBs are copied, as in the download tasks of the web application.
+	 *
+	 * @throws InterruptedException
+	 *             If the user is interrupted.
+	 */
+	private void download() throws InterruptedException {
+
+		// pick items
+		String table;
+		ArrayList<Integer> ids = new ArrayList<>();
+		int items = 5 + random_.nextInt(16);
+		if (!pilotPoints_.isEmpty() && (spectra_.isEmpty() || random_.nextDouble() < 0.7)) {
+			table = "pilot_point_data";
+			for (int i = 0; i < items; i++)
+				ids.add(pilotPoints_.get(random_.nextInt(pilotPoints_.size())).getID());
+		}
+		else if (!spectra_.isEmpty()) {
+			table = "spectrum_data";
+			for (int i = 0; i < items; i++)
+				ids.add(spectra_.get(random_.nextInt(spectra_.size())).getID());
+		}
+
+		// nothing found yet
+		else {
+			basicSearch();
+			return;
+		}
+
+		// download
+		long start = System.nanoTime();
+		try {
+			long size = BlobQueries.getDataSize(owner_.getPool(), table, "data", ids);
+			owner_.getAdmission().acquire(session_, size, null);
+			try {
+				BlobQueries.downloadBundle(owner_.getPool(), owner_.getCopier(), table, ids, directory_, TaskProgress.NONE);
+				owner_.record(UserAction.DOWNLOAD, System.nanoTime() - start);
+				owner_.recordDownload(size);
+				Utility.deleteTemporaryFiles(directory_, directory_);
+			}
+			finally {
+				owner_.getAdmission().release(session_, size);
+			}
+		}
+
+		// interrupted while queued
+		catch (InterruptedException e) {
+			throw e;
+		}
+
+		// download failed
+		catch (Exception e) {
+			owner_.fail(UserAction.DOWNLOAD, e);
+		}
+	}
+
+	/**
+	 * Waits for an exponentially distributed think time.
+	 *
+	 * @return False if the user is interrupted or the load test is over.
+	 */
+	private boolean think() {
+		try {
+			return owner_.pause((long) (-owner_.getThinkTime() * Math.log(1.0 - random_.nextDouble())));
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+}
@@ -0,0 +1,4 @@
+/**
+ * This package contains the headless load test harness. Virtual users run the search, image and download code paths of the engine concurrently against a Derby network server.
+ */
+package com.example.afm_wiki.loadtest;
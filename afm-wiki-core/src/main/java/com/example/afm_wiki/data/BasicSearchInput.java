@@ -18,7 +18,8 @@ package com.example.afm_wiki.data;
 import java.util.ArrayList;
 
 /**
- * Class for basic search input.
+ * Class for basic search input. The input is either a search expression parsed from the basic search query language (see {@link SearchExpressionParser}), or a list of keywords combined with the logical operator
+ * of the input.
  *
  * @author Murat Artim
  * @date 19 Jan 2017
@@ -32,6 +33,9 @@ public class BasicSearchInput extends SearchInput {
 	/** Search keywords. */
 	private ArrayList<String> keywords_;
 
+	/** Search expression, or null if the keywords are searched. */
+	private SearchExpression expression_;
+
 	/**
 	 * Returns keywords.
 	 *
@@ -50,4 +54,23 @@ public class BasicSearchInput extends SearchInput {
 	public void setKeywords(ArrayList<String> keywords) {
 		keywords_ = keywords;
 	}
+
+	/**
+	 * Returns the search expression. If no expression is set, returns the expression of the keywords combined with the logical operator of this input.
+	 *
+	 * @return The search expression.
+	 */
+	public SearchExpression getExpression() {
+		return expression_ != null ? expression_ : SearchExpression.keywords(keywords_, getOperator());
+	}
+
+	/**
+	 * Sets search expression.
+	 *
+	 * @param expression
+	 *            Search expression.
+	 */
+	public void setExpression(SearchExpression expression) {
+		expression_ = expression;
+	}
 }
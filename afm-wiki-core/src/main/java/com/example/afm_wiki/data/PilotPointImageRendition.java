@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.data;
+
+/**
+ * Enumeration for pilot point image rendition. Renditions other than the original are downscaled on the server to fit into the given bounds.
+ */
+public enum PilotPointImageRendition {
+
+	/** Pilot point image rendition. */
+	THUMBNAIL(160, 139), DISPLAY(477, 414), ORIGINAL(0, 0);
+
+	/** Bounds of rendition. */
+	private final int width_, height_;
+
+	/**
+	 * Creates pilot point image rendition.
+	 *
+	 * @param width
+	 *            Maximum width (0 for original size).
+	 * @param height
+	 *            Maximum height (0 for original size).
+	 */
+	PilotPointImageRendition(int width, int height) {
+		width_ = width;
+		height_ = height;
+	}
+
+	/**
+	 * Returns maximum width, or 0 for original size.
+	 *
+	 * @return Maximum width, or 0 for original size.
+	 */
+	public int getWidth() {
+		return width_;
+	}
+
+	/**
+	 * Returns maximum height, or 0 for original size.
+	 *
+	 * @return Maximum height, or 0 for original size.
+	 */
+	public int getHeight() {
+		return height_;
+	}
+}
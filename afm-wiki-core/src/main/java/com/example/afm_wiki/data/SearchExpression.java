@@ -0,0 +1,305 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Class for basic search expression. Search expressions are immutable trees of terms combined with NOT, AND and OR, created by {@link SearchExpressionParser} from the basic search query language.
+ * <p>
+ * Expressions are normalized when they are created: nested AND and OR expressions are flattened, duplicate operands are removed and operands are sorted, double negations are removed and single operands replace
+ * their expressions. So equivalent queries (such as <code>b a</code> and <code>a AND b AND a</code>) have equal expressions, which compile to the same SQL statement, and their canonical forms
+ * ({@link #toString()}) can be used as cache keys.
+ */
+public final class SearchExpression implements Serializable {
+
+	/**
+	 * Enumeration for expression type.
+	 */
+	public enum ExpressionType {
+
+		/** Expression type. */
+		TERM, NOT, AND, OR
+	}
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** Expression type. */
+	private final ExpressionType type_;
+
+	/** Column name of the term, or null if the term matches any searched column. */
+	private final String field_;
+
+	/** Value of the term (matched literally). */
+	private final String value_;
+
+	/** True if the term matches column values starting with its value, false if column values containing it. */
+	private final boolean prefix_;
+
+	/** Operands (sorted by their canonical forms). */
+	private final List<SearchExpression> operands_;
+
+	/** Canonical form. */
+	private final String canonical_;
+
+	/**
+	 * Creates search expression.
+	 *
+	 * @param type
+	 *            Expression type.
+	 * @param field
+	 *            Column name of the term, or null.
+	 * @param value
+	 *            Value of the term, or null.
+	 * @param prefix
+	 *            True if the term is a prefix term.
+	 * @param operands
+	 *            Operands.
+	 */
+	private SearchExpression(ExpressionType type, String field, String value, boolean prefix, List<SearchExpression> operands) {
+		type_ = type;
+		field_ = field;
+		value_ = value;
+		prefix_ = prefix;
+		operands_ = Collections.unmodifiableList(operands);
+		canonical_ = buildCanonicalForm();
+	}
+
+	/**
+	 * Creates term expression.
+	 *
+	 * @param field
+	 *            Column name (lower case), or null to match any searched column.
+	 * @param value
+	 *            Value (matched literally, cannot be empty).
+	 * @param prefix
+	 *            True to match column values starting with the value, false to match column values containing it.
+	 * @return The term expression.
+	 */
+	public static SearchExpression term(String field, String value, boolean prefix) {
+		if ((value == null) || value.isEmpty())
+			throw new IllegalArgumentException("Search terms cannot be empty.");
+		return new SearchExpression(ExpressionType.TERM, field, value, prefix, new ArrayList<SearchExpression>());
+	}
+
+	/**
+	 * Creates negation of given expression.
+	 *
+	 * @param operand
+	 *            Expression to negate.
+	 * @return The negated expression.
+	 */
+	public static SearchExpression not(SearchExpression operand) {
+		if (operand.type_ == ExpressionType.NOT)
+			return operand.operands_.get(0);
+		ArrayList<SearchExpression> operands = new ArrayList<>();
+		operands.add(operand);
+		return new SearchExpression(ExpressionType.NOT, null, null, false, operands);
+	}
+
+	/**
+	 * Creates conjunction of given expressions.
+	 *
+	 * @param operands
+	 *            Expressions (at least one).
+	 * @return The conjunction.
+	 */
+	public static SearchExpression and(List<SearchExpression> operands) {
+		return combine(ExpressionType.AND, operands);
+	}
+
+	/**
+	 * Creates disjunction of given expressions.
+	 *
+	 * @param operands
+	 *            Expressions (at least one).
+	 * @return The disjunction.
+	 */
+	public static SearchExpression or(List<SearchExpression> operands) {
+		return combine(ExpressionType.OR, operands);
+	}
+
+	/**
+	 * Creates expression of given keywords, as searched before the query language. Each keyword is a term matching any searched column.
+	 *
+	 * @param keywords
+	 *            Keywords.
+	 * @param and
+	 *            True if all keywords must match, false if any keyword.
+	 * @return The expression.
+	 */
+	public static SearchExpression keywords(List<String> keywords, boolean and) {
+		ArrayList<SearchExpression> terms = new ArrayList<>();
+		for (String keyword : keywords)
+			terms.add(term(null, keyword, false));
+		return and ? and(terms) : or(terms);
+	}
+
+	/**
+	 * Returns expression type.
+	 *
+	 * @return Expression type.
+	 */
+	public ExpressionType getType() {
+		return type_;
+	}
+
+	/**
+	 * Returns the column name of this term.
+	 *
+	 * @return The column name of this term, or null if the term matches any searched column (or if this is not a term).
+	 */
+	public String getField() {
+		return field_;
+	}
+
+	/**
+	 * Returns the value of this term.
+	 *
+	 * @return The value of this term, or null if this is not a term.
+	 */
+	public String getValue() {
+		return value_;
+	}
+
+	/**
+	 * Returns true if this is a prefix term.
+	 *
+	 * @return True if this term matches column values starting with its value, false if column values containing it.
+	 */
+	public boolean isPrefix() {
+		return prefix_;
+	}
+
+	/**
+	 * Returns the operands of this expression.
+	 *
+	 * @return The operands of this expression (empty for terms).
+	 */
+	public List<SearchExpression> getOperands() {
+		return operands_;
+	}
+
+	/**
+	 * Returns the column names of the terms of this expression.
+	 *
+	 * @return The column names of the terms.
+	 */
+	public Set<String> getFields() {
+		TreeSet<String> fields = new TreeSet<>();
+		if (field_ != null)
+			fields.add(field_);
+		for (SearchExpression operand : operands_)
+			fields.addAll(operand.getFields());
+		return fields;
+	}
+
+	/**
+	 * Checks that the terms of this expression only refer to given columns.
+	 *
+	 * @param columns
+	 *            Searchable column names.
+	 * @throws IllegalArgumentException
+	 *             If a term refers to another column.
+	 */
+	public void checkFields(String[] columns) {
+		List<String> valid = new ArrayList<>();
+		Collections.addAll(valid, columns);
+		for (String field : getFields()) {
+			if (!valid.contains(field))
+				throw new IllegalArgumentException("Unknown search field '" + field + "'. Searchable fields are " + String.join(", ", columns) + ".");
+		}
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		return (object instanceof SearchExpression) && canonical_.equals(((SearchExpression) object).canonical_);
+	}
+
+	@Override
+	public int hashCode() {
+		return canonical_.hashCode();
+	}
+
+	/**
+	 * Returns the canonical form of this expression. Equivalent expressions have the same canonical form, which is also valid query language.
+	 */
+	@Override
+	public String toString() {
+		return canonical_;
+	}
+
+	/**
+	 * Creates conjunction or disjunction of given expressions.
+	 *
+	 * @param type
+	 *            Expression type (AND or OR).
+	 * @param operands
+	 *            Expressions (at least one).
+	 * @return The expression.
+	 */
+	private static SearchExpression combine(ExpressionType type, List<SearchExpression> operands) {
+
+		// flatten nested expressions of the same type, remove duplicates and sort
+		TreeMap<String, SearchExpression> flattened = new TreeMap<>();
+		for (SearchExpression operand : operands) {
+			if (operand.type_ == type) {
+				for (SearchExpression nested : operand.operands_)
+					flattened.put(nested.canonical_, nested);
+			}
+			else
+				flattened.put(operand.canonical_, operand);
+		}
+
+		// single operand
+		if (flattened.isEmpty())
+			throw new IllegalArgumentException("Search expressions need at least one operand.");
+		if (flattened.size() == 1)
+			return flattened.firstEntry().getValue();
+
+		// create expression
+		return new SearchExpression(type, null, null, false, new ArrayList<>(flattened.values()));
+	}
+
+	/**
+	 * Builds the canonical form of this expression.
+	 *
+	 * @return The canonical form.
+	 */
+	private String buildCanonicalForm() {
+
+		// term
+		if (type_ == ExpressionType.TERM)
+			return (field_ == null ? "" : field_ + ":") + "\"" + value_ + "\"" + (prefix_ ? "*" : "");
+
+		// negation
+		if (type_ == ExpressionType.NOT)
+			return "NOT " + operands_.get(0).canonical_;
+
+		// conjunction or disjunction
+		String canonical = "";
+		for (SearchExpression operand : operands_)
+			canonical += (canonical.isEmpty() ? "" : " " + type_ + " ") + operand.canonical_;
+		return "(" + canonical + ")";
+	}
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.data;
+
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * Class for the parser of the basic search query language. The language has the following elements:
+ * <ul>
+ * <li>Keywords, separated by spaces or commas (<code>A350 wing</code>). A keyword matches rows with a searched column containing it.
+ * <li>Quoted phrases (<code>"fatigue spectrum"</code>), matched like keywords including their spaces and commas.
+ * <li>Fields (<code>element_type:skin</code>, <code>name:"FR40 STR20"</code>), where the field is the database column name of the info type. A field term only matches the given column.
+ * <li>Prefixes (<code>FR4*</code>, <code>frame_rib_position:FR4*</code>), matching column values starting with the keyword or phrase instead of containing it.
+ * <li>The operators NOT, AND and OR (in upper case, in order of precedence), and parentheses for grouping.
+ * </ul>
+ * Terms without an operator in between are combined with the default operator of the search settings. Apart from <code>*</code> at the end of terms, all characters are matched literally.
+ * <p>
+ * Queries with commas and none of the above syntax are comma separated keyword lists, as before the query language was introduced. Each keyword is trimmed and matched including its spaces, so that <code>A310, sect13 MR</code>
+ * searches for the two keywords <code>A310</code> and <code>sect13 MR</code>. Note that in all other queries, the upper case words NOT, AND and OR are operators.
+ */
+public class SearchExpressionParser {
+
+	/** Token types. */
+	private static final int TERM = 0, NOT = 1, AND = 2, OR = 3, OPEN = 4, CLOSE = 5;
+
+	/** Tokens. */
+	private final ArrayList<Object[]> tokens_ = new ArrayList<>();
+
+	/** Default operator (true for AND). */
+	private final boolean and_;
+
+	/** Index of the next token. */
+	private int next_ = 0;
+
+	/**
+	 * Creates parser.
+	 *
+	 * @param and
+	 *            True if terms without an operator in between are combined with AND, false if with OR.
+	 */
+	private SearchExpressionParser(boolean and) {
+		and_ = and;
+	}
+
+	/**
+	 * Parses given query.
+	 *
+	 * @param query
+	 *            Query text.
+	 * @param and
+	 *            True if terms without an operator in between are combined with AND, false if with OR.
+	 * @return The normalized search expression.
+	 * @throws IllegalArgumentException
+	 *             If the query is empty or invalid (the message describes the problem).
+	 */
+	public static SearchExpression parse(String query, boolean and) {
+
+		// tokenize
+		SearchExpressionParser parser = new SearchExpressionParser(and);
+		String text = query == null ? "" : query;
+		if (isKeywordList(text))
+			parser.split(text);
+		else
+			parser.tokenize(text);
+		if (parser.tokens_.isEmpty())
+			throw new IllegalArgumentException("Please enter keywords to search");
+
+		// parse
+		SearchExpression expression = parser.parseOr();
+		if (parser.next_ < parser.tokens_.size())
+			throw new IllegalArgumentException("Unexpected ')' in search query.");
+		return expression;
+	}
+
+	/**
+	 * Returns true if given query is a comma separated keyword list, which contains commas and no query language syntax (quotes, parentheses, operators, fields or prefixes).
+	 *
+	 * @param query
+	 *            Query text.
+	 * @return True if given query is a comma separated keyword list.
+	 */
+	private static boolean isKeywordList(String query) {
+
+		// no commas or syntax characters
+		if ((query.indexOf(',') < 0) || (query.indexOf('"') >= 0) || (query.indexOf('(') >= 0) || (query.indexOf(')') >= 0))
+			return false;
+
+		// check words
+		for (String word : query.split("[\\s,]+")) {
+			if (word.equals("NOT") || word.equals("AND") || word.equals("OR") || word.endsWith("*") || word.matches("[A-Za-z_][A-Za-z0-9_]*:.*"))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Splits given comma separated keyword list into term tokens.
+	 *
+	 * @param query
+	 *            Query text.
+	 */
+	private void split(String query) {
+		for (String keyword : query.split(",")) {
+			keyword = keyword.trim();
+			if (!keyword.isEmpty())
+				tokens_.add(new Object[] { TERM, SearchExpression.term(null, keyword, false) });
+		}
+	}
+
+	/**
+	 * Splits given query into tokens.
+	 *
+	 * @param query
+	 *            Query text.
+	 */
+	private void tokenize(String query) {
+		int length = query.length();
+		for (int i = 0; i < length;) {
+			char c = query.charAt(i);
+
+			// separator
+			if (Character.isWhitespace(c) || (c == ',')) {
+				i++;
+				continue;
+			}
+
+			// parentheses
+			if ((c == '(') || (c == ')')) {
+				tokens_.add(new Object[] { c == '(' ? OPEN : CLOSE });
+				i++;
+				continue;
+			}
+
+			// word (up to the next separator, parenthesis or quote)
+			int start = i;
+			while ((i < length) && !isDelimiter(query.charAt(i)))
+				i++;
+			String word = query.substring(start, i);
+
+			// operators
+			if (word.equals("NOT") || word.equals("AND") || word.equals("OR")) {
+				tokens_.add(new Object[] { word.equals("NOT") ? NOT : word.equals("AND") ? AND : OR });
+				continue;
+			}
+
+			// field
+			String field = null;
+			int colon = word.indexOf(':');
+			if ((colon > 0) && word.substring(0, colon).matches("[A-Za-z_][A-Za-z0-9_]*")) {
+				field = word.substring(0, colon).toLowerCase(Locale.ENGLISH);
+				word = word.substring(colon + 1);
+			}
+
+			// phrase
+			if (word.isEmpty() && (i < length) && (query.charAt(i) == '"')) {
+				int end = query.indexOf('"', i + 1);
+				if (end < 0)
+					throw new IllegalArgumentException("Missing closing quote in search query.");
+				word = query.substring(i + 1, end);
+				i = end + 1;
+				if ((i < length) && (query.charAt(i) == '*')) {
+					word += "*";
+					i++;
+				}
+			}
+
+			// prefix
+			boolean prefix = word.endsWith("*");
+			if (prefix)
+				word = word.substring(0, word.length() - 1);
+			if (word.isEmpty())
+				throw new IllegalArgumentException(field == null ? "Empty search term in search query." : "Missing value of search field '" + field + "'.");
+			tokens_.add(new Object[] { TERM, SearchExpression.term(field, word, prefix) });
+		}
+	}
+
+	/**
+	 * Parses disjunction (the terms without operator in between are also combined here if the default operator is OR).
+	 *
+	 * @return The expression.
+	 */
+	private SearchExpression parseOr() {
+		ArrayList<SearchExpression> operands = new ArrayList<>();
+		operands.add(parseAnd());
+		while (next_ < tokens_.size()) {
+			if (peek() == OR) {
+				next_++;
+				operands.add(parseAnd());
+			}
+			else if (!and_ && startsOperand())
+				operands.add(parseAnd());
+			else
+				break;
+		}
+		return SearchExpression.or(operands);
+	}
+
+	/**
+	 * Parses conjunction (the terms without operator in between are also combined here if the default operator is AND).
+	 *
+	 * @return The expression.
+	 */
+	private SearchExpression parseAnd() {
+		ArrayList<SearchExpression> operands = new ArrayList<>();
+		operands.add(parseUnary());
+		while (next_ < tokens_.size()) {
+			if (peek() == AND) {
+				next_++;
+				operands.add(parseUnary());
+			}
+			else if (and_ && startsOperand())
+				operands.add(parseUnary());
+			else
+				break;
+		}
+		return SearchExpression.and(operands);
+	}
+
+	/**
+	 * Parses negation, parenthesized expression or term.
+	 *
+	 * @return The expression.
+	 */
+	private SearchExpression parseUnary() {
+
+		// no operand
+		if (next_ >= tokens_.size())
+			throw new IllegalArgumentException("Missing search term after operator.");
+		if (peek() == CLOSE)
+			throw new IllegalArgumentException("Unexpected ')' in search query.");
+		if (!startsOperand())
+			throw new IllegalArgumentException("Misplaced operator in search query.");
+		Object[] token = tokens_.get(next_++);
+		int type = (Integer) token[0];
+
+		// negation
+		if (type == NOT)
+			return SearchExpression.not(parseUnary());
+
+		// parenthesized expression
+		if (type == OPEN) {
+			SearchExpression expression = parseOr();
+			if ((next_ >= tokens_.size()) || (peek() != CLOSE))
+				throw new IllegalArgumentException("Missing ')' in search query.");
+			next_++;
+			return expression;
+		}
+
+		// term
+		return (SearchExpression) token[1];
+	}
+
+	/**
+	 * Returns the type of the next token.
+	 *
+	 * @return The type of the next token.
+	 */
+	private int peek() {
+		return (Integer) tokens_.get(next_)[0];
+	}
+
+	/**
+	 * Returns true if the next token starts an operand (a term, negation or parenthesized expression).
+	 *
+	 * @return True if the next token starts an operand.
+	 */
+	private boolean startsOperand() {
+		if (next_ >= tokens_.size())
+			return false;
+		int type = peek();
+		return (type == TERM) || (type == NOT) || (type == OPEN);
+	}
+
+	/**
+	 * Returns true if given character ends a word.
+	 *
+	 * @param c
+	 *            Character.
+	 * @return True if given character ends a word.
+	 */
+	private static boolean isDelimiter(char c) {
+		return Character.isWhitespace(c) || (c == ',') || (c == '(') || (c == ')') || (c == '"');
+	}
+}
@@ -24,6 +24,9 @@ package com.example.afm_wiki.data;
  */
 public class SearchItem {
 
+	/** Search criteria. */
+	public static final String CONTAINS = "Contains", EQUALS = "Equals", STARTS_WITH = "Starts with", ENDS_WITH = "Ends with";
+
 	/** Value of search item. */
 	private final Object value_;
 
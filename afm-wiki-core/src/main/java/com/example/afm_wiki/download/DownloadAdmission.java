@@ -0,0 +1,283 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.download;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import com.example.afm_wiki.utility.Utility;
+
+/**
+ * Class for admission control of download tasks. Each download declares its total data size before touching the database. The download is admitted only if it fits into both the per-user and the global in-flight byte budgets, otherwise it waits in a
+ * FIFO queue. Downloads which are larger than the per-user budget, which arrive while the queue is full or which cannot be admitted within the queue timeout are rejected.
+ * <p>
+ * Queued downloads are admitted in arrival order. A download which is blocked only by its own user's budget does not hold back the downloads of other users, whereas a download which is blocked by the global budget does (so that large downloads are not
+ * starved by a stream of small ones).
+ */
+public class DownloadAdmission {
+
+	/** Servlet context attribute name of the download admission controller. */
+	public static final String ATTRIBUTE = "downloadAdmission";
+
+	/** Default budgets, queue length and queue timeout. */
+	public static final long DEFAULT_USER_BUDGET = 2L * 1024L * 1024L * 1024L, DEFAULT_GLOBAL_BUDGET = 8L * 1024L * 1024L * 1024L, DEFAULT_QUEUE_TIMEOUT = TimeUnit.MINUTES.toMillis(10);
+
+	/** Default maximum number of queued downloads. */
+	public static final int DEFAULT_MAX_QUEUED = 50;
+
+	/** Per-user and global in-flight byte budgets. */
+	private final long userBudget_, globalBudget_;
+
+	/** Maximum number of queued downloads. */
+	private final int maxQueued_;
+
+	/** Queue timeout in milliseconds. */
+	private final long queueTimeout_;
+
+	/** In-flight bytes per user. */
+	private final HashMap<String, Long> userInFlight_ = new HashMap<>();
+
+	/** Queue of waiting downloads. */
+	private final LinkedList<Ticket> queue_ = new LinkedList<>();
+
+	/** Global in-flight bytes. */
+	private long globalInFlight_ = 0L;
+
+	/** Admission statistics. */
+	private long admitted_ = 0L, queued_ = 0L, rejected_ = 0L;
+
+	/**
+	 * Creates download admission controller.
+	 *
+	 * @param userBudget
+	 *            Maximum number of in-flight download bytes per user.
+	 * @param globalBudget
+	 *            Maximum number of in-flight download bytes of all users.
+	 * @param maxQueued
+	 *            Maximum number of queued downloads.
+	 * @param queueTimeout
+	 *            Maximum time in milliseconds a download waits in the queue.
+	 */
+	public DownloadAdmission(long userBudget, long globalBudget, int maxQueued, long queueTimeout) {
+		userBudget_ = userBudget;
+		globalBudget_ = Math.max(globalBudget, userBudget);
+		maxQueued_ = maxQueued;
+		queueTimeout_ = queueTimeout;
+	}
+
+	/**
+	 * Returns the maximum number of in-flight download bytes per user.
+	 *
+	 * @return The maximum number of in-flight download bytes per user.
+	 */
+	public long getUserBudget() {
+		return userBudget_;
+	}
+
+	/**
+	 * Acquires the given number of bytes from the budgets of the given user. The calling thread is blocked until the download is admitted.
+	 *
+	 * @param user
+	 *            User (session) ID.
+	 * @param bytes
+	 *            Total data size of the download.
+	 * @param listener
+	 *            Listener to be notified if the download has to wait in the queue. Can be null.
+	 * @throws DownloadRejectedException
+	 *             If the download is rejected.
+	 * @throws InterruptedException
+	 *             If the calling thread is interrupted while waiting in the queue.
+	 */
+	public synchronized void acquire(String user, long bytes, Runnable listener) throws DownloadRejectedException, InterruptedException {
+
+		// larger than user budget
+		if (bytes > userBudget_) {
+			rejected_++;
+			throw new DownloadRejectedException("The selected download is " + Utility.readableFileSize(bytes) + ", which exceeds the limit of " + Utility.readableFileSize(userBudget_) + " per user. Please select fewer items.");
+		}
+
+		// admit immediately (in arrival order, passing the queued downloads which are blocked only by their own user's budget)
+		Ticket ticket = new Ticket(user, bytes);
+		queue_.add(ticket);
+		admitQueued();
+		if (ticket.admitted_)
+			return;
+
+		// queue is full
+		if (queue_.size() > maxQueued_) {
+			queue_.remove(ticket);
+			rejected_++;
+			throw new DownloadRejectedException("The server is busy with other downloads. Please try again later.");
+		}
+
+		// wait in queue
+		queued_++;
+		if (listener != null)
+			listener.run();
+		long deadline = System.currentTimeMillis() + queueTimeout_;
+		try {
+			while (!ticket.admitted_) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					queue_.remove(ticket);
+					rejected_++;
+					admitQueued();
+					throw new DownloadRejectedException("The server is busy with other downloads. Please try again later.");
+				}
+				wait(remaining);
+			}
+		}
+
+		// interrupted (give back admission or leave queue)
+		catch (InterruptedException e) {
+			if (ticket.admitted_)
+				release(user, bytes);
+			else {
+				queue_.remove(ticket);
+				admitQueued();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Releases the given number of bytes back to the budgets of the given user.
+	 *
+	 * @param user
+	 *            User (session) ID.
+	 * @param bytes
+	 *            Total data size of the download.
+	 */
+	public synchronized void release(String user, long bytes) {
+
+		// update in-flight bytes
+		globalInFlight_ -= bytes;
+		long inFlight = userInFlight_.getOrDefault(user, 0L) - bytes;
+		if (inFlight <= 0L)
+			userInFlight_.remove(user);
+		else
+			userInFlight_.put(user, inFlight);
+
+		// admit waiting downloads
+		admitQueued();
+	}
+
+	/**
+	 * Returns admission statistics summary.
+	 *
+	 * @return Admission statistics summary.
+	 */
+	public synchronized String getStatistics() {
+		String stats = admitted_ + " admitted, " + queued_ + " queued, " + rejected_ + " rejected";
+		stats += ", " + Utility.readableFileSize(globalInFlight_) + " in flight, " + queue_.size() + " waiting";
+		return stats;
+	}
+
+	/**
+	 * Returns true if given download fits into current budgets.
+	 *
+	 * @param ticket
+	 *            Download ticket.
+	 * @return True if given download fits into current budgets.
+	 */
+	private boolean fits(Ticket ticket) {
+		return fitsGlobal(ticket) && (userInFlight_.getOrDefault(ticket.user_, 0L) + ticket.bytes_ <= userBudget_);
+	}
+
+	/**
+	 * Returns true if given download fits into current global budget.
+	 *
+	 * @param ticket
+	 *            Download ticket.
+	 * @return True if given download fits into current global budget.
+	 */
+	private boolean fitsGlobal(Ticket ticket) {
+		return globalInFlight_ + ticket.bytes_ <= globalBudget_;
+	}
+
+	/**
+	 * Admits given download.
+	 *
+	 * @param ticket
+	 *            Download ticket.
+	 */
+	private void admit(Ticket ticket) {
+		globalInFlight_ += ticket.bytes_;
+		userInFlight_.put(ticket.user_, userInFlight_.getOrDefault(ticket.user_, 0L) + ticket.bytes_);
+		ticket.admitted_ = true;
+		admitted_++;
+	}
+
+	/**
+	 * Admits queued downloads in arrival order, as long as they fit into the budgets.
+	 */
+	private void admitQueued() {
+
+		// loop over queue
+		boolean changed = false;
+		Iterator<Ticket> iterator = queue_.iterator();
+		while (iterator.hasNext()) {
+			Ticket ticket = iterator.next();
+
+			// global budget exhausted (keep order)
+			if (!fitsGlobal(ticket))
+				break;
+
+			// user budget exhausted (let other users pass)
+			if (!fits(ticket))
+				continue;
+
+			// admit
+			iterator.remove();
+			admit(ticket);
+			changed = true;
+		}
+
+		// wake up waiting threads
+		if (changed)
+			notifyAll();
+	}
+
+	/**
+	 * Inner class for download ticket.
+	 */
+	private static class Ticket {
+
+		/** User (session) ID. */
+		private final String user_;
+
+		/** Total data size of the download. */
+		private final long bytes_;
+
+		/** True if the download is admitted. */
+		private boolean admitted_ = false;
+
+		/**
+		 * Creates download ticket.
+		 *
+		 * @param user
+		 *            User (session) ID.
+		 * @param bytes
+		 *            Total data size of the download.
+		 */
+		Ticket(String user, long bytes) {
+			user_ = user;
+			bytes_ = bytes;
+		}
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.download;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class for registry of prepared download files and streamed downloads. Each download is registered under a random token, which is then used by the download servlets to serve the download.
+ */
+public class DownloadRegistry {
+
+	/** Servlet context attribute name of the registry. */
+	public static final String ATTRIBUTE = "downloadRegistry";
+
+	/** Time to keep prepared downloads (in milliseconds). */
+	private static final long EXPIRY = TimeUnit.HOURS.toMillis(24);
+
+	/** Prepared downloads mapped to their tokens. */
+	private final ConcurrentHashMap<String, PreparedDownload> downloads_ = new ConcurrentHashMap<>();
+
+	/** Streamed downloads mapped to their tokens. */
+	private final ConcurrentHashMap<String, StreamedDownload> streams_ = new ConcurrentHashMap<>();
+
+	/**
+	 * Registers given prepared download file.
+	 *
+	 * @param file
+	 *            Prepared download file.
+	 * @param fileName
+	 *            Download file name to be presented to client.
+	 * @return The token of the download.
+	 */
+	public String register(File file, String fileName) {
+
+		// remove expired downloads
+		purge();
+
+		// create token and register download
+		String token = UUID.randomUUID().toString();
+		downloads_.put(token, new PreparedDownload(file, fileName));
+		return token;
+	}
+
+	/**
+	 * Registers given streamed download.
+	 *
+	 * @param download
+	 *            Streamed download.
+	 * @return The token of the download.
+	 */
+	public String register(StreamedDownload download) {
+
+		// remove expired downloads
+		purge();
+
+		// create token and register download
+		String token = UUID.randomUUID().toString();
+		streams_.put(token, download);
+		return token;
+	}
+
+	/**
+	 * Returns the streamed download of given token, or null if no such download is registered.
+	 *
+	 * @param token
+	 *            Download token.
+	 * @return The streamed download of given token, or null if no such download is registered.
+	 */
+	public StreamedDownload getStream(String token) {
+		return token == null ? null : streams_.get(token);
+	}
+
+	/**
+	 * Returns the prepared download of given token, or null if no such download is registered.
+	 *
+	 * @param token
+	 *            Download token.
+	 * @return The prepared download of given token, or null if no such download is registered.
+	 */
+	public PreparedDownload get(String token) {
+		return token == null ? null : downloads_.get(token);
+	}
+
+	/**
+	 * Removes expired downloads from this registry and deletes the files of prepared downloads.
+	 */
+	public void purge() {
+		long now = System.currentTimeMillis();
+		Iterator<PreparedDownload> iterator = downloads_.values().iterator();
+		while (iterator.hasNext()) {
+			PreparedDownload download = iterator.next();
+			if (now - download.getCreated() > EXPIRY) {
+				iterator.remove();
+				download.getFile().delete();
+			}
+		}
+		Iterator<StreamedDownload> streams = streams_.values().iterator();
+		while (streams.hasNext()) {
+			if (now - streams.next().getCreated() > EXPIRY)
+				streams.remove();
+		}
+	}
+
+	/**
+	 * Class for prepared download.
+	 */
+	public static class PreparedDownload {
+
+		/** Download file. */
+		private final File file_;
+
+		/** Download file name. */
+		private final String fileName_;
+
+		/** Creation time. */
+		private final long created_;
+
+		/**
+		 * Creates prepared download.
+		 *
+		 * @param file
+		 *            Download file.
+		 * @param fileName
+		 *            Download file name.
+		 */
+		public PreparedDownload(File file, String fileName) {
+			file_ = file;
+			fileName_ = fileName;
+			created_ = System.currentTimeMillis();
+		}
+
+		/**
+		 * Returns download file.
+		 *
+		 * @return Download file.
+		 */
+		public File getFile() {
+			return file_;
+		}
+
+		/**
+		 * Returns download file name.
+		 *
+		 * @return Download file name.
+		 */
+		public String getFileName() {
+			return fileName_;
+		}
+
+		/**
+		 * Returns creation time.
+		 *
+		 * @return Creation time.
+		 */
+		public long getCreated() {
+			return created_;
+		}
+	}
+}
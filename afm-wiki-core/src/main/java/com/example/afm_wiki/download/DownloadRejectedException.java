@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.download;
+
+/**
+ * Exception thrown when a download is rejected by the download admission controller.
+ */
+public class DownloadRejectedException extends Exception {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Creates download rejected exception.
+	 *
+	 * @param message
+	 *            Message to be shown to the user.
+	 */
+	public DownloadRejectedException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.download;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.afm_wiki.utility.Utility;
+
+/**
+ * Class for transferring file regions to servlet output streams. The transfer mode can be switched at deployment time, and throughput and CPU time of each mode is measured, so that the modes can be compared on the production machine.
+ * <p>
+ * Note that, only the container sendfile mode is zero-copy. The servlet API exposes the response as an output stream, so the channel modes write to a channel wrapper of the stream, which copies the bytes into a heap array before the
+ * container copies them into its response buffer. <code>FileChannel.transferTo</code> to such a channel falls back to a buffered copy loop as well. See FileTransferBenchmark for a comparison of the modes.
+ */
+public class FileTransfer {
+
+	/** Size of memory mapped regions. */
+	private static final long MAPPED_REGION_SIZE = 8L * 1024L * 1024L;
+
+	/** Buffer size of stream mode. */
+	private static final int STREAM_BUFFER_SIZE = 8192;
+
+	/** Thread management bean (used for measuring CPU time). */
+	private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+	/**
+	 * Enumeration for file transfer mode.
+	 */
+	public enum TransferMode {
+
+		/** Copies through a heap buffer (the former Vaadin stream resource path). This is the default mode. */
+		STREAM,
+
+		/** Uses FileChannel.transferTo to a channel wrapper of the response stream (not zero-copy, the JDK copies through heap buffers). */
+		TRANSFER_TO,
+
+		/** Writes memory mapped regions of the file to a channel wrapper of the response stream (not zero-copy, the wrapper copies the regions into a heap array). */
+		MEMORY_MAPPED,
+
+		/** Delegates the transfer to the container's sendfile support (zero-copy in the kernel). Only Tomcat advertises sendfile support (the Jetty development server does not), elsewhere TRANSFER_TO is used. */
+		SENDFILE;
+
+		/** Transfer statistics. */
+		private final AtomicLong transfers_ = new AtomicLong(), bytes_ = new AtomicLong(), wallTime_ = new AtomicLong(), cpuTime_ = new AtomicLong();
+
+		/**
+		 * Records a completed transfer.
+		 *
+		 * @param bytes
+		 *            Number of bytes transferred.
+		 * @param wallTime
+		 *            Elapsed time in nanoseconds.
+		 * @param cpuTime
+		 *            CPU time of the serving thread in nanoseconds.
+		 */
+		void record(long bytes, long wallTime, long cpuTime) {
+			transfers_.incrementAndGet();
+			bytes_.addAndGet(bytes);
+			wallTime_.addAndGet(wallTime);
+			cpuTime_.addAndGet(cpuTime);
+		}
+
+		/**
+		 * Returns transfer statistics summary of this mode.
+		 *
+		 * @return Transfer statistics summary of this mode.
+		 */
+		public String getStatistics() {
+			long bytes = bytes_.get();
+			long wallTime = wallTime_.get();
+			String stats = name() + ": " + transfers_.get() + " transfers, " + Utility.readableFileSize(bytes);
+			if (wallTime > 0) {
+				stats += ", " + Utility.readableFileSize((long) (bytes / (wallTime / 1e9))) + "/s";
+				stats += ", CPU " + String.format("%.1f", cpuTime_.get() * 100.0 / wallTime) + "% of wall time";
+			}
+			return stats;
+		}
+	}
+
+	/**
+	 * Transfers given file region to given output stream.
+	 *
+	 * @param file
+	 *            File to transfer.
+	 * @param position
+	 *            Start position of the region.
+	 * @param length
+	 *            Length of the region.
+	 * @param out
+	 *            Output stream.
+	 * @param mode
+	 *            Transfer mode. Note that, sendfile mode cannot be performed by this method.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static void transfer(Path file, long position, long length, OutputStream out, TransferMode mode) throws IOException {
+
+		// start measuring
+		long wallStart = System.nanoTime();
+		long cpuStart = THREAD_BEAN.isCurrentThreadCpuTimeSupported() ? THREAD_BEAN.getCurrentThreadCpuTime() : 0L;
+
+		// transfer
+		if (mode.equals(TransferMode.STREAM))
+			stream(file, position, length, out);
+		else if (mode.equals(TransferMode.MEMORY_MAPPED))
+			map(file, position, length, out);
+		else
+			transferTo(file, position, length, out);
+
+		// record statistics
+		long wallTime = System.nanoTime() - wallStart;
+		long cpuTime = THREAD_BEAN.isCurrentThreadCpuTimeSupported() ? THREAD_BEAN.getCurrentThreadCpuTime() - cpuStart : 0L;
+		mode.record(length, wallTime, cpuTime);
+	}
+
+	/**
+	 * Records a transfer which was delegated to the container's sendfile support. Only the transfer and its size are recorded, since the container transfers the file after the servlet returns.
+	 *
+	 * @param length
+	 *            Number of bytes.
+	 */
+	public static void recordSendfile(long length) {
+		TransferMode.SENDFILE.record(length, 0L, 0L);
+	}
+
+	/**
+	 * Copies given file region through a heap buffer.
+	 *
+	 * @param file
+	 *            File to transfer.
+	 * @param position
+	 *            Start position of the region.
+	 * @param length
+	 *            Length of the region.
+	 * @param out
+	 *            Output stream.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static void stream(Path file, long position, long length, OutputStream out) throws IOException {
+		try (InputStream in = Files.newInputStream(file)) {
+			long skipped = 0;
+			while (skipped < position) {
+				long n = in.skip(position - skipped);
+				if (n <= 0)
+					throw new IOException("Cannot skip to position " + position + ".");
+				skipped += n;
+			}
+			byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+			long remaining = length;
+			while (remaining > 0) {
+				int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+				if (read == -1)
+					break;
+				out.write(buffer, 0, read);
+				remaining -= read;
+			}
+		}
+	}
+
+	/**
+	 * Transfers given file region by FileChannel.transferTo.
+	 *
+	 * @param file
+	 *            File to transfer.
+	 * @param position
+	 *            Start position of the region.
+	 * @param length
+	 *            Length of the region.
+	 * @param out
+	 *            Output stream.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static void transferTo(Path file, long position, long length, OutputStream out) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			WritableByteChannel target = Channels.newChannel(out);
+			long remaining = length;
+			while (remaining > 0) {
+				long transferred = channel.transferTo(position, remaining, target);
+				if (transferred <= 0)
+					break;
+				position += transferred;
+				remaining -= transferred;
+			}
+		}
+	}
+
+	/**
+	 * Writes memory mapped regions of given file region.
+	 *
+	 * @param file
+	 *            File to transfer.
+	 * @param position
+	 *            Start position of the region.
+	 * @param length
+	 *            Length of the region.
+	 * @param out
+	 *            Output stream.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static void map(Path file, long position, long length, OutputStream out) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			WritableByteChannel target = Channels.newChannel(out);
+			long remaining = length;
+			while (remaining > 0) {
+				long regionSize = Math.min(MAPPED_REGION_SIZE, remaining);
+				MappedByteBuffer region = channel.map(MapMode.READ_ONLY, position, regionSize);
+				while (region.hasRemaining())
+					target.write(region);
+				position += regionSize;
+				remaining -= regionSize;
+			}
+		}
+	}
+}
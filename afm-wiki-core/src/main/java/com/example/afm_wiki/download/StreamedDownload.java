@@ -0,0 +1,195 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.download;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class for streamed download. Unlike prepared downloads, streamed downloads have no file. Their BLOBs are streamed from the database directly to the client when the download is requested.
+ */
+public class StreamedDownload {
+
+	/**
+	 * Interface for streamed download progress listener. Listener methods are called on the serving thread.
+	 */
+	public interface ProgressListener {
+
+		/**
+		 * Called periodically while the download is streamed.
+		 *
+		 * @param bytes
+		 *            Number of bytes streamed so far.
+		 * @param total
+		 *            Total number of bytes to stream.
+		 */
+		void progress(long bytes, long total);
+
+		/**
+		 * Called when the download is completed.
+		 *
+		 * @param bytes
+		 *            Number of bytes streamed.
+		 */
+		void completed(long bytes);
+
+		/**
+		 * Called when the download fails or is aborted by the client.
+		 *
+		 * @param e
+		 *            Exception.
+		 */
+		void failed(Exception e);
+	}
+
+	/** BLOB table and column names. */
+	private final String table_, column_;
+
+	/** IDs of the BLOBs. */
+	private final List<Integer> ids_;
+
+	/** Entry names of the BLOBs (if more than one BLOB is streamed as zip archive). */
+	private final List<String> entryNames_;
+
+	/** Download file name. */
+	private final String fileName_;
+
+	/** Total size of the BLOBs. */
+	private final long size_;
+
+	/** User (session) ID. */
+	private final String user_;
+
+	/** Progress listener. */
+	private final ProgressListener listener_;
+
+	/** Creation time. */
+	private final long created_;
+
+	/**
+	 * Creates streamed download.
+	 *
+	 * @param table
+	 *            BLOB table name.
+	 * @param column
+	 *            BLOB column name.
+	 * @param ids
+	 *            IDs of the BLOBs.
+	 * @param entryNames
+	 *            Entry names of the BLOBs. Used only if more than one BLOB is streamed.
+	 * @param fileName
+	 *            Download file name.
+	 * @param size
+	 *            Total size of the BLOBs.
+	 * @param user
+	 *            User (session) ID.
+	 * @param listener
+	 *            Progress listener.
+	 */
+	public StreamedDownload(String table, String column, List<Integer> ids, List<String> entryNames, String fileName, long size, String user, ProgressListener listener) {
+		table_ = table;
+		column_ = column;
+		ids_ = Collections.unmodifiableList(new ArrayList<>(ids));
+		entryNames_ = Collections.unmodifiableList(new ArrayList<>(entryNames));
+		fileName_ = fileName;
+		size_ = size;
+		user_ = user;
+		listener_ = listener;
+		created_ = System.currentTimeMillis();
+	}
+
+	/**
+	 * Returns BLOB table name.
+	 *
+	 * @return BLOB table name.
+	 */
+	public String getTable() {
+		return table_;
+	}
+
+	/**
+	 * Returns BLOB column name.
+	 *
+	 * @return BLOB column name.
+	 */
+	public String getColumn() {
+		return column_;
+	}
+
+	/**
+	 * Returns IDs of the BLOBs.
+	 *
+	 * @return IDs of the BLOBs.
+	 */
+	public List<Integer> getIDs() {
+		return ids_;
+	}
+
+	/**
+	 * Returns entry names of the BLOBs.
+	 *
+	 * @return Entry names of the BLOBs.
+	 */
+	public List<String> getEntryNames() {
+		return entryNames_;
+	}
+
+	/**
+	 * Returns download file name.
+	 *
+	 * @return Download file name.
+	 */
+	public String getFileName() {
+		return fileName_;
+	}
+
+	/**
+	 * Returns total size of the BLOBs.
+	 *
+	 * @return Total size of the BLOBs.
+	 */
+	public long getSize() {
+		return size_;
+	}
+
+	/**
+	 * Returns user (session) ID.
+	 *
+	 * @return User (session) ID.
+	 */
+	public String getUser() {
+		return user_;
+	}
+
+	/**
+	 * Returns progress listener.
+	 *
+	 * @return Progress listener.
+	 */
+	public ProgressListener getListener() {
+		return listener_;
+	}
+
+	/**
+	 * Returns creation time.
+	 *
+	 * @return Creation time.
+	 */
+	public long getCreated() {
+		return created_;
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.engine;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+
+import com.example.afm_wiki.data.DownloadInfo;
+import com.example.afm_wiki.data.AircraftModelInfo;
+import com.example.afm_wiki.data.AircraftModelInfo.AircraftModelInfoType;
+import com.example.afm_wiki.data.AircraftModelSearchInput;
+import com.example.afm_wiki.data.SearchItem;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Class for advanced A/C model search query.
+ */
+public class AdvancedAircraftModelQuery extends SearchQuery {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** Search input. */
+	private final AircraftModelSearchInput input_;
+
+	/**
+	 * Creates advanced A/C model search query.
+	 *
+	 * @param input
+	 *            Search input.
+	 */
+	public AdvancedAircraftModelQuery(AircraftModelSearchInput input) {
+		input_ = input;
+	}
+
+	@Override
+	public ArrayList<DownloadInfo> run(ConnectionPool databaseConnectionPool) throws Exception {
+
+		// create array of results
+		ArrayList<DownloadInfo> infos = new ArrayList<>();
+
+		// create SQL query
+		String sql = "select model_id, ac_program, name, delivery_ref, description, data_size from ac_models where ";
+		sql += buildQuery();
+
+		// set progress and info
+		setProgressInfo("S e a r c h i n g");
+		setProgressValue(0);
+
+		// get connection to database
+		try (Connection connection = databaseConnectionPool.getConnection(3000)) {
+
+			// create statement
+			try (Statement statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY)) {
+
+				// set max hits
+				statement.setMaxRows(input_.getMaxHits());
+
+				// execute query
+				try (ResultSet resultSet = executeQuery(statement, sql)) {
+
+					// move to last row
+					if (last(resultSet)) {
+
+						// get number of results
+						int numResults = resultSet.getRow();
+
+						// move to beginning
+						resultSet.beforeFirst();
+
+						// loop over segments
+						int resultCount = 0;
+						while (resultSet.next()) {
+
+							// get A/C model info
+							AircraftModelInfo info = InfoMapper.createAircraftModelInfo(resultSet);
+
+							// add info to list
+							infos.add(info);
+
+							// set progress
+							resultCount++;
+							setProgressValue(resultCount / numResults);
+						}
+					}
+				}
+
+				// log slow query (after the result set is closed)
+				finally {
+					logQuery(connection);
+				}
+
+				// reset statement
+				statement.setMaxRows(0);
+			}
+		}
+
+		// return results
+		return infos;
+	}
+
+	/**
+	 * Builds and returns a new SQL query according to search items.
+	 *
+	 * @return A new SQL query.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	@Override
+	public String buildQuery() throws Exception {
+
+		// initialize parameters
+		String sql = "";
+
+		// add search items
+		sql += buildQueryForStringBasedItem(AircraftModelInfoType.MODEL_NAME);
+		sql += buildQueryForStringBasedItem(AircraftModelInfoType.AC_PROGRAM);
+		sql += buildQueryForStringBasedItem(AircraftModelInfoType.DELIVERY_REF);
+		sql += buildQueryForStringBasedItem(AircraftModelInfoType.DESCRIPTION);
+
+		// remove trailing operator
+		if (sql.endsWith(" and "))
+			sql = sql.substring(0, sql.lastIndexOf(" and "));
+		else if (sql.endsWith(" or "))
+			sql = sql.substring(0, sql.lastIndexOf(" or "));
+
+		// return query
+		return sql;
+	}
+
+	/**
+	 * Builds and returns SQL query for the given type of string based search item.
+	 *
+	 * @param type
+	 *            Type of search item.
+	 * @return SQL query.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private String buildQueryForStringBasedItem(AircraftModelInfoType type) throws Exception {
+
+		// get search item
+		SearchItem item = input_.getInput(type);
+
+		// search item exists
+		String sql = "";
+		if (item != null) {
+
+			// create query
+			sql += buildFilter("ac_models", type.getColumnName(), item.getCriteria(), item.getValue().toString(), input_.getCase());
+			sql += input_.getOperator() ? " and " : " or ";
+		}
+
+		// return query
+		return sql;
+	}
+}
@@ -13,31 +13,29 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package com.example.afm_wiki.task;
+package com.example.afm_wiki.engine;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.Statement;
 import java.util.ArrayList;
 
-import com.example.afm_wiki.WikiUI;
 import com.example.afm_wiki.data.DownloadInfo;
 import com.example.afm_wiki.data.LoadcaseFactorInfo;
 import com.example.afm_wiki.data.LoadcaseFactorInfo.LoadcaseFactorInfoType;
 import com.example.afm_wiki.data.LoadcaseFactorSearchInput;
 import com.example.afm_wiki.data.SearchItem;
-import com.example.afm_wiki.ui.SearchField;
 
 import snaq.db.ConnectionPool;
 
 /**
- * Class for advanced loadcase factor search task.
+ * Class for advanced loadcase factor search query.
  *
  * @author Murat Artim
  * @date 5 Mar 2017
  * @time 13:38:09
  */
-public class AdvancedLoadcaseFactorSearch extends SearchTask {
+public class AdvancedLoadcaseFactorQuery extends SearchQuery {
 
 	/** Serial ID. */
 	private static final long serialVersionUID = 1L;
@@ -46,24 +44,17 @@ public class AdvancedLoadcaseFactorSearch extends SearchTask {
 	private final LoadcaseFactorSearchInput input_;
 
 	/**
-	 * Creates advanced loadcase factor search task.
+	 * Creates advanced loadcase factor search query.
 	 *
-	 * @param ui
-	 *            The owner user interface.
 	 * @param input
 	 *            Search input.
 	 */
-	public AdvancedLoadcaseFactorSearch(WikiUI ui, LoadcaseFactorSearchInput input) {
-
-		// create search task
-		super(ui);
-
-		// set input
+	public AdvancedLoadcaseFactorQuery(LoadcaseFactorSearchInput input) {
 		input_ = input;
 	}
 
 	@Override
-	protected ArrayList<DownloadInfo> run(ConnectionPool databaseConnectionPool) throws Exception {
+	public ArrayList<DownloadInfo> run(ConnectionPool databaseConnectionPool) throws Exception {
 
 		// create array of results
 		ArrayList<DownloadInfo> infos = new ArrayList<>();
@@ -86,10 +77,10 @@ public class AdvancedLoadcaseFactorSearch extends SearchTask {
 				statement.setMaxRows(input_.getMaxHits());
 
 				// execute query
-				try (ResultSet resultSet = statement.executeQuery(sql)) {
+				try (ResultSet resultSet = executeQuery(statement, sql)) {
 
 					// move to last row
-					if (resultSet.last()) {
+					if (last(resultSet)) {
 
 						// get number of results
 						int numResults = resultSet.getRow();
@@ -101,18 +92,8 @@ public class AdvancedLoadcaseFactorSearch extends SearchTask {
 						int resultCount = 0;
 						while (resultSet.next()) {
 
-							// get spectrum info
-							LoadcaseFactorInfo info = new LoadcaseFactorInfo();
-							info.setInfo(LoadcaseFactorInfoType.ID, resultSet.getInt("id"));
-							info.setInfo(LoadcaseFactorInfoType.SPECTRUM_NAME, resultSet.getString("spectrum_name"));
-							info.setInfo(LoadcaseFactorInfoType.PILOT_POINT_NAME, resultSet.getString("pilot_point_name"));
-							info.setInfo(LoadcaseFactorInfoType.NAME, resultSet.getString("name"));
-							info.setInfo(LoadcaseFactorInfoType.AC_PROGRAM, resultSet.getString("ac_program"));
-							info.setInfo(LoadcaseFactorInfoType.AC_SECTION, resultSet.getString("ac_section"));
-							info.setInfo(LoadcaseFactorInfoType.FAT_MISSION, resultSet.getString("fat_mission"));
-							info.setInfo(LoadcaseFactorInfoType.ISSUE, resultSet.getString("issue"));
-							info.setInfo(LoadcaseFactorInfoType.DELIVERY_REF, resultSet.getString("delivery_ref_num"));
-							info.setInfo(LoadcaseFactorInfoType.DESCRIPTION, resultSet.getString("description"));
+							// get loadcase factor info
+							LoadcaseFactorInfo info = InfoMapper.createLoadcaseFactorInfo(resultSet);
 
 							// add info to list
 							infos.add(info);
@@ -124,6 +105,11 @@ public class AdvancedLoadcaseFactorSearch extends SearchTask {
 					}
 				}
 
+				// log slow query (after the result set is closed)
+				finally {
+					logQuery(connection);
+				}
+
 				// reset statement
 				statement.setMaxRows(0);
 			}
@@ -140,7 +126,8 @@ public class AdvancedLoadcaseFactorSearch extends SearchTask {
 	 * @throws Exception
 	 *             If exception occurs during process.
 	 */
-	private String buildQuery() throws Exception {
+	@Override
+	public String buildQuery() throws Exception {
 
 		// initialize parameters
 		String sql = "";
@@ -184,21 +171,8 @@ public class AdvancedLoadcaseFactorSearch extends SearchTask {
 		String sql = "";
 		if (item != null) {
 
-			// get database column name
-			String columnName = type.getColumnName();
-
 			// create query
-			sql += input_.getCase() ? "upper(" + columnName + ") like " : columnName + " like ";
-			String filter = item.getCriteria();
-			String value = item.getValue().toString();
-			if (filter.equals(SearchField.CONTAINS))
-				sql += input_.getCase() ? "upper('%" + value + "%')" : "'%" + value + "%'"; // contains
-			else if (filter.equals(SearchField.EQUALS))
-				sql += input_.getCase() ? "upper('" + value + "')" : "'" + value + "'"; // equals
-			else if (filter.equals(SearchField.STARTS_WITH))
-				sql += input_.getCase() ? "upper('" + value + "%')" : "'" + value + "%'"; // starts with
-			else if (filter.equals(SearchField.ENDS_WITH))
-				sql += input_.getCase() ? "upper('%" + value + "')" : "'%" + value + "'"; // ends with
+			sql += buildFilter("mult_tables", type.getColumnName(), item.getCriteria(), item.getValue().toString(), input_.getCase());
 			sql += input_.getOperator() ? " and " : " or ";
 		}
 
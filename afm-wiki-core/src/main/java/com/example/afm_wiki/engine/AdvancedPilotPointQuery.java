@@ -13,31 +13,29 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package com.example.afm_wiki.task;
+package com.example.afm_wiki.engine;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.Statement;
 import java.util.ArrayList;
 
-import com.example.afm_wiki.WikiUI;
 import com.example.afm_wiki.data.DownloadInfo;
 import com.example.afm_wiki.data.PilotPointInfo;
 import com.example.afm_wiki.data.PilotPointInfo.PilotPointInfoType;
 import com.example.afm_wiki.data.PilotPointSearchInput;
 import com.example.afm_wiki.data.SearchItem;
-import com.example.afm_wiki.ui.SearchField;
 
 import snaq.db.ConnectionPool;
 
 /**
- * Class for advanced pilot point search task.
+ * Class for advanced pilot point search query.
  *
  * @author Murat Artim
  * @date 5 Mar 2017
  * @time 13:21:24
  */
-public class AdvancedPilotPointSearch extends SearchTask {
+public class AdvancedPilotPointQuery extends SearchQuery {
 
 	/** Serial ID. */
 	private static final long serialVersionUID = 1L;
@@ -46,24 +44,17 @@ public class AdvancedPilotPointSearch extends SearchTask {
 	private final PilotPointSearchInput input_;
 
 	/**
-	 * Creates advanced pilot point search task.
+	 * Creates advanced pilot point search query.
 	 *
-	 * @param ui
-	 *            The owner user interface.
 	 * @param input
 	 *            Search input.
 	 */
-	public AdvancedPilotPointSearch(WikiUI ui, PilotPointSearchInput input) {
-
-		// create search task
-		super(ui);
-
-		// set input
+	public AdvancedPilotPointQuery(PilotPointSearchInput input) {
 		input_ = input;
 	}
 
 	@Override
-	protected ArrayList<DownloadInfo> run(ConnectionPool databaseConnectionPool) throws Exception {
+	public ArrayList<DownloadInfo> run(ConnectionPool databaseConnectionPool) throws Exception {
 
 		// create array of results
 		ArrayList<DownloadInfo> infos = new ArrayList<>();
@@ -88,10 +79,10 @@ public class AdvancedPilotPointSearch extends SearchTask {
 				statement.setMaxRows(input_.getMaxHits());
 
 				// execute query
-				try (ResultSet resultSet = statement.executeQuery(sql)) {
+				try (ResultSet resultSet = executeQuery(statement, sql)) {
 
 					// move to last row
-					if (resultSet.last()) {
+					if (last(resultSet)) {
 
 						// get number of results
 						int numResults = resultSet.getRow();
@@ -104,22 +95,7 @@ public class AdvancedPilotPointSearch extends SearchTask {
 						while (resultSet.next()) {
 
 							// get pilot point info
-							PilotPointInfo info = new PilotPointInfo();
-							info.setInfo(PilotPointInfoType.ID, resultSet.getInt("id"));
-							info.setInfo(PilotPointInfoType.SPECTRUM_NAME, resultSet.getString("spectrum_name"));
-							info.setInfo(PilotPointInfoType.NAME, resultSet.getString("name"));
-							info.setInfo(PilotPointInfoType.AC_PROGRAM, resultSet.getString("ac_program"));
-							info.setInfo(PilotPointInfoType.AC_SECTION, resultSet.getString("ac_section"));
-							info.setInfo(PilotPointInfoType.FAT_MISSION, resultSet.getString("fat_mission"));
-							info.setInfo(PilotPointInfoType.DESCRIPTION, resultSet.getString("description"));
-							info.setInfo(PilotPointInfoType.ELEMENT_TYPE, resultSet.getString("element_type"));
-							info.setInfo(PilotPointInfoType.FRAME_RIB_POSITION, resultSet.getString("frame_rib_position"));
-							info.setInfo(PilotPointInfoType.STRINGER_POSITION, resultSet.getString("stringer_position"));
-							info.setInfo(PilotPointInfoType.DATA_SOURCE, resultSet.getString("data_source"));
-							info.setInfo(PilotPointInfoType.GENERATION_SOURCE, resultSet.getString("generation_source"));
-							info.setInfo(PilotPointInfoType.DELIVERY_REF_NUM, resultSet.getString("delivery_ref_num"));
-							info.setInfo(PilotPointInfoType.ISSUE, resultSet.getString("issue"));
-							info.setInfo(PilotPointInfoType.MATERIAL_NAME, resultSet.getString("material_name"));
+							PilotPointInfo info = InfoMapper.createPilotPointInfo(resultSet);
 
 							// add info to list
 							infos.add(info);
@@ -131,6 +107,11 @@ public class AdvancedPilotPointSearch extends SearchTask {
 					}
 				}
 
+				// log slow query (after the result set is closed)
+				finally {
+					logQuery(connection);
+				}
+
 				// reset statement
 				statement.setMaxRows(0);
 			}
@@ -147,7 +128,8 @@ public class AdvancedPilotPointSearch extends SearchTask {
 	 * @throws Exception
 	 *             If exception occurs during process.
 	 */
-	private String buildQuery() throws Exception {
+	@Override
+	public String buildQuery() throws Exception {
 
 		// initialize parameters
 		String sql = "";
@@ -195,21 +177,8 @@ public class AdvancedPilotPointSearch extends SearchTask {
 		String sql = "";
 		if (item != null) {
 
-			// get database column name
-			String columnName = type.getColumnName();
-
 			// create query
-			sql += input_.getCase() ? "upper(" + columnName + ") like " : columnName + " like ";
-			String filter = item.getCriteria();
-			String value = item.getValue().toString();
-			if (filter.equals(SearchField.CONTAINS))
-				sql += input_.getCase() ? "upper('%" + value + "%')" : "'%" + value + "%'"; // contains
-			else if (filter.equals(SearchField.EQUALS))
-				sql += input_.getCase() ? "upper('" + value + "')" : "'" + value + "'"; // equals
-			else if (filter.equals(SearchField.STARTS_WITH))
-				sql += input_.getCase() ? "upper('" + value + "%')" : "'" + value + "%'"; // starts with
-			else if (filter.equals(SearchField.ENDS_WITH))
-				sql += input_.getCase() ? "upper('%" + value + "')" : "'%" + value + "'"; // ends with
+			sql += buildFilter("pilot_points", type.getColumnName(), item.getCriteria(), item.getValue().toString(), input_.getCase());
 			sql += input_.getOperator() ? " and " : " or ";
 		}
 
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.engine;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+
+import com.example.afm_wiki.data.DownloadInfo;
+import com.example.afm_wiki.data.SearchItem;
+import com.example.afm_wiki.data.SpectrumInfo;
+import com.example.afm_wiki.data.SpectrumInfo.SpectrumInfoType;
+import com.example.afm_wiki.data.SpectrumSearchInput;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Class for advanced spectrum search query.
+ *
+ * @author Murat Artim
+ * @date 4 Mar 2017
+ * @time 22:52:31
+ */
+public class AdvancedSpectrumQuery extends SearchQuery {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** Search input. */
+	private final SpectrumSearchInput input_;
+
+	/**
+	 * Creates advanced spectrum search query.
+	 *
+	 * @param input
+	 *            Search input.
+	 */
+	public AdvancedSpectrumQuery(SpectrumSearchInput input) {
+		input_ = input;
+	}
+
+	@Override
+	public ArrayList<DownloadInfo> run(ConnectionPool databaseConnectionPool) throws Exception {
+
+		// create array of results
+		ArrayList<DownloadInfo> infos = new ArrayList<>();
+
+		// create SQL query
+		String sql = "select id, name, ac_program, ac_section, fat_mission, fat_mission_issue, flp_issue, iflp_issue, cdf_issue, delivery_ref, description, data_size from spectra where ";
+		sql += buildQuery();
+
+		// set progress and info
+		setProgressInfo("S e a r c h i n g");
+		setProgressValue(0);
+
+		// get connection to database
+		try (Connection connection = databaseConnectionPool.getConnection(3000)) {
+
+			// create statement
+			try (Statement statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY)) {
+
+				// set max hits
+				statement.setMaxRows(input_.getMaxHits());
+
+				// execute query
+				try (ResultSet resultSet = executeQuery(statement, sql)) {
+
+					// move to last row
+					if (last(resultSet)) {
+
+						// move to beginning
+						resultSet.beforeFirst();
+
+						// loop over segments
+						while (resultSet.next()) {
+
+							// get spectrum info
+							SpectrumInfo info = InfoMapper.createSpectrumInfo(resultSet);
+
+							// add info to list
+							infos.add(info);
+						}
+					}
+				}
+
+				// log slow query (after the result set is closed, and before the counts are queried on the same connection)
+				finally {
+					logQuery(connection);
+				}
+
+				// reset statement
+				statement.setMaxRows(0);
+			}
+
+			// prepare statement to count connected pilot points
+			sql = "select count(id) as numpps from pilot_points where spectrum_name = ?";
+			try (PreparedStatement countPPs = connection.prepareStatement(sql)) {
+
+				// prepare statement to count connected multiplication tables
+				sql = "select count(id) as nummults from mult_tables where spectrum_name = ?";
+				try (PreparedStatement countMultTables = connection.prepareStatement(sql)) {
+
+					// loop over spectra
+					for (int i = 0; i < infos.size(); i++) {
+
+						// get spectrum info
+						SpectrumInfo info = (SpectrumInfo) infos.get(i);
+						String name = (String) info.getInfo(SpectrumInfoType.NAME);
+
+						// get number of connected pilot points
+						int numPPs = 0;
+						countPPs.setString(1, name);
+						try (ResultSet resultSet = executeQuery(countPPs)) {
+							if (resultSet.next())
+								numPPs = resultSet.getInt("numpps");
+						}
+						info.setInfo(SpectrumInfoType.PILOT_POINTS, numPPs);
+
+						// get number of connected multiplication tables
+						int numMult = 0;
+						countMultTables.setString(1, name);
+						try (ResultSet resultSet = executeQuery(countMultTables)) {
+							if (resultSet.next())
+								numMult = resultSet.getInt("nummults");
+						}
+						info.setInfo(SpectrumInfoType.MULT_TABLES, numMult);
+
+						// set progress
+						setProgressValue((float) (i + 1) / infos.size());
+					}
+				}
+			}
+		}
+
+		// return results
+		return infos;
+	}
+
+	/**
+	 * Builds and returns a new SQL query according to search items.
+	 *
+	 * @return A new SQL query.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	@Override
+	public String buildQuery() throws Exception {
+
+		// initialize parameters
+		String sql = "";
+
+		// add search items
+		sql += buildQueryForStringBasedItem(SpectrumInfoType.NAME);
+		sql += buildQueryForStringBasedItem(SpectrumInfoType.AC_PROGRAM);
+		sql += buildQueryForStringBasedItem(SpectrumInfoType.AC_SECTION);
+		sql += buildQueryForStringBasedItem(SpectrumInfoType.FAT_MISSION);
+		sql += buildQueryForStringBasedItem(SpectrumInfoType.FAT_MISSION_ISSUE);
+		sql += buildQueryForStringBasedItem(SpectrumInfoType.FLP_ISSUE);
+		sql += buildQueryForStringBasedItem(SpectrumInfoType.IFLP_ISSUE);
+		sql += buildQueryForStringBasedItem(SpectrumInfoType.CDF_ISSUE);
+		sql += buildQueryForStringBasedItem(SpectrumInfoType.DELIVERY_REF);
+		sql += buildQueryForStringBasedItem(SpectrumInfoType.DESCRIPTION);
+
+		// remove trailing operator
+		if (sql.endsWith(" and "))
+			sql = sql.substring(0, sql.lastIndexOf(" and "));
+		else if (sql.endsWith(" or "))
+			sql = sql.substring(0, sql.lastIndexOf(" or "));
+
+		// return query
+		return sql;
+	}
+
+	/**
+	 * Builds and returns SQL query for the given type of string based search item.
+	 *
+	 * @param type
+	 *            Type of search item.
+	 * @return SQL query.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private String buildQueryForStringBasedItem(SpectrumInfoType type) throws Exception {
+
+		// get search item
+		SearchItem item = input_.getInput(type);
+
+		// search item exists
+		String sql = "";
+		if (item != null) {
+
+			// create query
+			sql += buildFilter("spectra", type.getColumnName(), item.getCriteria(), item.getValue().toString(), input_.getCase());
+			sql += input_.getOperator() ? " and " : " or ";
+		}
+
+		// return query
+		return sql;
+	}
+}
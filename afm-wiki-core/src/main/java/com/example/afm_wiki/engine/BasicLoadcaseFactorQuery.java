@@ -0,0 +1,132 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.engine;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+
+import com.example.afm_wiki.data.BasicSearchInput;
+import com.example.afm_wiki.data.DownloadInfo;
+import com.example.afm_wiki.data.LoadcaseFactorInfo;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Class for basic loadcase factor search query.
+ *
+ * @author Murat Artim
+ * @date 4 Mar 2017
+ * @time 22:10:54
+ */
+public class BasicLoadcaseFactorQuery extends SearchQuery {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** Search input. */
+	private final BasicSearchInput input_;
+
+	/**
+	 * Creates basic loadcase factor search query.
+	 *
+	 * @param input
+	 *            Search input.
+	 */
+	public BasicLoadcaseFactorQuery(BasicSearchInput input) {
+		input_ = input;
+	}
+
+	@Override
+	public ArrayList<DownloadInfo> run(ConnectionPool databaseConnectionPool) throws Exception {
+
+		// create array of results
+		ArrayList<DownloadInfo> infos = new ArrayList<>();
+
+		// create SQL query (with parameter markers for the search values)
+		ArrayList<String> parameters = new ArrayList<>();
+		String sql = "select id, spectrum_name, pilot_point_name, name, ac_program, ac_section, fat_mission, issue, delivery_ref_num, description from mult_tables where ";
+		sql += buildExpressionFilter("mult_tables", input_, parameters);
+
+		// set progress and info
+		setProgressInfo("S e a r c h i n g");
+		setProgressValue(0);
+
+		// get connection to database
+		try (Connection connection = databaseConnectionPool.getConnection(3000)) {
+
+			// prepare statement
+			try (PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY)) {
+
+				// set max hits
+				statement.setMaxRows(input_.getMaxHits());
+
+				// execute query
+				try (ResultSet resultSet = executeQuery(statement, sql, parameters)) {
+
+					// move to last row
+					if (last(resultSet)) {
+
+						// get number of results
+						int numResults = resultSet.getRow();
+
+						// move to beginning
+						resultSet.beforeFirst();
+
+						// loop over segments
+						int resultCount = 0;
+						while (resultSet.next()) {
+
+							// get loadcase factor info
+							LoadcaseFactorInfo info = InfoMapper.createLoadcaseFactorInfo(resultSet);
+
+							// add info to list
+							infos.add(info);
+
+							// set progress
+							resultCount++;
+							setProgressValue(resultCount / numResults);
+						}
+					}
+				}
+
+				// log slow query (after the result set is closed)
+				finally {
+					logQuery(connection);
+				}
+
+				// reset statement
+				statement.setMaxRows(0);
+			}
+		}
+
+		// return results
+		return infos;
+	}
+
+	/**
+	 * Builds and returns a new SQL query according to search items.
+	 *
+	 * @return A new SQL query.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	@Override
+	public String buildQuery() throws Exception {
+		return buildExpressionFilter("mult_tables", input_, null);
+	}
+}
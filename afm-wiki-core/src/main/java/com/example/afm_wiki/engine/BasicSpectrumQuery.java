@@ -0,0 +1,164 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.engine;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+
+import com.example.afm_wiki.data.BasicSearchInput;
+import com.example.afm_wiki.data.DownloadInfo;
+import com.example.afm_wiki.data.SpectrumInfo;
+import com.example.afm_wiki.data.SpectrumInfo.SpectrumInfoType;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Class for basic spectrum search.
+ *
+ * @author Murat Artim
+ * @date 27 Feb 2017
+ * @time 20:29:31
+ */
+public class BasicSpectrumQuery extends SearchQuery {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** Search input. */
+	private final BasicSearchInput input_;
+
+	/**
+	 * Creates basic spectrum search query.
+	 *
+	 * @param input
+	 *            Search input.
+	 */
+	public BasicSpectrumQuery(BasicSearchInput input) {
+		input_ = input;
+	}
+
+	@Override
+	public ArrayList<DownloadInfo> run(ConnectionPool databaseConnectionPool) throws Exception {
+
+		// create array of results
+		ArrayList<DownloadInfo> infos = new ArrayList<>();
+
+		// create SQL query (with parameter markers for the search values)
+		ArrayList<String> parameters = new ArrayList<>();
+		String sql = "select id, name, ac_program, ac_section, fat_mission, fat_mission_issue, flp_issue, iflp_issue, cdf_issue, delivery_ref, description, data_size from spectra where ";
+		sql += buildExpressionFilter("spectra", input_, parameters);
+
+		// set progress and info
+		setProgressInfo("S e a r c h i n g");
+		setProgressValue(0);
+
+		// get connection to database
+		try (Connection connection = databaseConnectionPool.getConnection(3000)) {
+
+			// prepare statement
+			try (PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY)) {
+
+				// set max hits
+				statement.setMaxRows(input_.getMaxHits());
+
+				// execute query
+				try (ResultSet resultSet = executeQuery(statement, sql, parameters)) {
+
+					// move to last row
+					if (last(resultSet)) {
+
+						// move to beginning
+						resultSet.beforeFirst();
+
+						// loop over segments
+						while (resultSet.next()) {
+
+							// get spectrum info
+							SpectrumInfo info = InfoMapper.createSpectrumInfo(resultSet);
+
+							// add info to list
+							infos.add(info);
+						}
+					}
+				}
+
+				// log slow query (after the result set is closed, and before the counts are queried on the same connection)
+				finally {
+					logQuery(connection);
+				}
+
+				// reset statement
+				statement.setMaxRows(0);
+			}
+
+			// prepare statement to count connected pilot points
+			sql = "select count(id) as numpps from pilot_points where spectrum_name = ?";
+			try (PreparedStatement countPPs = connection.prepareStatement(sql)) {
+
+				// prepare statement to count connected multiplication tables
+				sql = "select count(id) as nummults from mult_tables where spectrum_name = ?";
+				try (PreparedStatement countMultTables = connection.prepareStatement(sql)) {
+
+					// loop over spectra
+					for (int i = 0; i < infos.size(); i++) {
+
+						// get spectrum info
+						SpectrumInfo info = (SpectrumInfo) infos.get(i);
+						String name = (String) info.getInfo(SpectrumInfoType.NAME);
+
+						// get number of connected pilot points
+						int numPPs = 0;
+						countPPs.setString(1, name);
+						try (ResultSet resultSet = executeQuery(countPPs)) {
+							if (resultSet.next())
+								numPPs = resultSet.getInt("numpps");
+						}
+						info.setInfo(SpectrumInfoType.PILOT_POINTS, numPPs);
+
+						// get number of connected multiplication tables
+						int numMult = 0;
+						countMultTables.setString(1, name);
+						try (ResultSet resultSet = executeQuery(countMultTables)) {
+							if (resultSet.next())
+								numMult = resultSet.getInt("nummults");
+						}
+						info.setInfo(SpectrumInfoType.MULT_TABLES, numMult);
+
+						// set progress
+						setProgressValue((float) (i + 1) / infos.size());
+					}
+				}
+			}
+		}
+
+		// return results
+		return infos;
+	}
+
+	/**
+	 * Builds and returns a new SQL query according to search items.
+	 *
+	 * @return A new SQL query.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	@Override
+	public String buildQuery() throws Exception {
+		return buildExpressionFilter("spectra", input_, null);
+	}
+}
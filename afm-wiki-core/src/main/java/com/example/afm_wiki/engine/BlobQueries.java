@@ -0,0 +1,173 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.engine;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.sql.Blob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.example.afm_wiki.metrics.FlightEvents;
+import com.example.afm_wiki.metrics.TaskPhase;
+import com.example.afm_wiki.metrics.TaskSample;
+import com.example.afm_wiki.utility.BlobCopier;
+import com.example.afm_wiki.utility.Utility;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Utility class for data BLOB queries of downloads.
+ */
+public class BlobQueries {
+
+	/**
+	 * Returns the total size of the BLOBs in given column with given IDs.
+	 *
+	 * @param databaseConnectionPool
+	 *            Database connection pool.
+	 * @param table
+	 *            Table name.
+	 * @param column
+	 *            BLOB column name.
+	 * @param ids
+	 *            Row IDs.
+	 * @return The total size of the BLOBs with given IDs.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static long getDataSize(ConnectionPool databaseConnectionPool, String table, String column, Collection<Integer> ids) throws Exception {
+		try (Connection connection = databaseConnectionPool.getConnection(3000)) {
+			try (Statement statement = connection.createStatement()) {
+				long start = System.nanoTime();
+				try (ResultSet resultSet = statement.executeQuery("select sum(length(" + column + ")) from " + table + " where id in (" + StringUtils.join(ids, ", ") + ")")) {
+					return resultSet.next() ? resultSet.getLong(1) : 0L;
+				}
+				finally {
+					TaskSample.record(TaskPhase.QUERY, System.nanoTime() - start);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Copies given BLOB to given target file through the given pipelined BLOB copier, and frees the BLOB. The copy time and size are recorded as BLOB transfer of the current task sample.
+	 *
+	 * @param copier
+	 *            BLOB copier.
+	 * @param blob
+	 *            BLOB to copy.
+	 * @param target
+	 *            Target file.
+	 * @return Number of copied bytes.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static long copyBlob(BlobCopier copier, Blob blob, Path target) throws Exception {
+		try {
+			long start = System.nanoTime();
+			long bytes = copier.copy(blob.getBinaryStream(), target);
+			TaskSample.record(TaskPhase.BLOB, System.nanoTime() - start);
+			TaskSample.addBytes(bytes);
+			return bytes;
+		}
+		finally {
+			blob.free();
+		}
+	}
+
+	/**
+	 * Copies the data BLOBs with given IDs to files in the given directory and zips them into a single bundle file within the same directory. The bundle is recorded as download event of the flight recorder.
+	 *
+	 * @param databaseConnectionPool
+	 *            Database connection pool.
+	 * @param copier
+	 *            BLOB copier.
+	 * @param table
+	 *            Data table name (with a data BLOB column).
+	 * @param ids
+	 *            Row IDs.
+	 * @param directory
+	 *            Directory of the copied files and the bundle.
+	 * @param progress
+	 *            Task progress.
+	 * @return The bundle file.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static File downloadBundle(ConnectionPool databaseConnectionPool, BlobCopier copier, String table, List<Integer> ids, Path directory, TaskProgress progress) throws Exception {
+
+		// begin download event
+		Object event = FlightEvents.beginDownload();
+		long bytes = 0L;
+
+		try {
+
+			// create list store download paths
+			ArrayList<Path> downloads = new ArrayList<>();
+
+			// get connection to database
+			try (Connection connection = databaseConnectionPool.getConnection(3000)) {
+
+				// prepare statement
+				try (PreparedStatement statement = connection.prepareStatement("select data from " + table + " where id = ?")) {
+
+					// loop over files
+					for (int i = 0; i < ids.size(); i++) {
+
+						// create download path
+						Path downloadPath = Utility.createDownloadFilePath(directory);
+
+						// download archive
+						statement.setInt(1, ids.get(i));
+						long start = System.nanoTime();
+						try (ResultSet resultSet = statement.executeQuery()) {
+							TaskSample.record(TaskPhase.QUERY, System.nanoTime() - start);
+							if (resultSet.next()) {
+								bytes += copyBlob(copier, resultSet.getBlob("data"), downloadPath);
+							}
+						}
+
+						// add to list
+						downloads.add(downloadPath);
+
+						// set progress
+						progress.setProgressValue((float) (i + 1) / ids.size());
+					}
+				}
+			}
+
+			// zip all downloads
+			File downloadPath = Utility.createDownloadFilePath(directory).toFile();
+			Utility.zipFiles(downloads, downloadPath);
+			FlightEvents.commitDownload(event, "bundle", table, ids.size(), bytes, null);
+			return downloadPath;
+		}
+
+		// exception occurred during process
+		catch (Exception e) {
+			FlightEvents.commitDownload(event, "bundle", table, ids.size(), bytes, e);
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.engine;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import com.example.afm_wiki.data.AircraftModelInfo;
+import com.example.afm_wiki.data.AircraftModelInfo.AircraftModelInfoType;
+import com.example.afm_wiki.data.LoadcaseFactorInfo;
+import com.example.afm_wiki.data.LoadcaseFactorInfo.LoadcaseFactorInfoType;
+import com.example.afm_wiki.data.PilotPointInfo;
+import com.example.afm_wiki.data.PilotPointInfo.PilotPointInfoType;
+import com.example.afm_wiki.data.SpectrumInfo;
+import com.example.afm_wiki.data.SpectrumInfo.SpectrumInfoType;
+import com.example.afm_wiki.metrics.TaskPhase;
+import com.example.afm_wiki.metrics.TaskSample;
+
+/**
+ * Utility class for mapping search result rows to info objects. The result set must be positioned on the row to map. Mapping times are recorded as mapping time of the current task sample.
+ */
+public class InfoMapper {
+
+	/**
+	 * Creates spectrum info from the current row of given result set.
+	 *
+	 * @param resultSet
+	 *            Result set.
+	 * @return The spectrum info.
+	 * @throws SQLException
+	 *             If exception occurs during process.
+	 */
+	public static SpectrumInfo createSpectrumInfo(ResultSet resultSet) throws SQLException {
+		long start = System.nanoTime();
+		SpectrumInfo info = new SpectrumInfo();
+		info.setInfo(SpectrumInfoType.ID, resultSet.getInt("id"));
+		info.setInfo(SpectrumInfoType.NAME, resultSet.getString("name"));
+		info.setInfo(SpectrumInfoType.DATA_SIZE, resultSet.getLong("data_size"));
+		info.setInfo(SpectrumInfoType.AC_PROGRAM, resultSet.getString("ac_program"));
+		info.setInfo(SpectrumInfoType.AC_SECTION, resultSet.getString("ac_section"));
+		info.setInfo(SpectrumInfoType.FAT_MISSION, resultSet.getString("fat_mission"));
+		info.setInfo(SpectrumInfoType.FAT_MISSION_ISSUE, resultSet.getString("fat_mission_issue"));
+		info.setInfo(SpectrumInfoType.FLP_ISSUE, resultSet.getString("flp_issue"));
+		info.setInfo(SpectrumInfoType.IFLP_ISSUE, resultSet.getString("iflp_issue"));
+		info.setInfo(SpectrumInfoType.CDF_ISSUE, resultSet.getString("cdf_issue"));
+		info.setInfo(SpectrumInfoType.DELIVERY_REF, resultSet.getString("delivery_ref"));
+		info.setInfo(SpectrumInfoType.DESCRIPTION, resultSet.getString("description"));
+		TaskSample.record(TaskPhase.MAPPING, System.nanoTime() - start);
+		return info;
+	}
+
+	/**
+	 * Creates pilot point info from the current row of given result set.
+	 *
+	 * @param resultSet
+	 *            Result set.
+	 * @return The pilot point info.
+	 * @throws SQLException
+	 *             If exception occurs during process.
+	 */
+	public static PilotPointInfo createPilotPointInfo(ResultSet resultSet) throws SQLException {
+		long start = System.nanoTime();
+		PilotPointInfo info = new PilotPointInfo();
+		info.setInfo(PilotPointInfoType.ID, resultSet.getInt("id"));
+		info.setInfo(PilotPointInfoType.SPECTRUM_NAME, resultSet.getString("spectrum_name"));
+		info.setInfo(PilotPointInfoType.NAME, resultSet.getString("name"));
+		info.setInfo(PilotPointInfoType.AC_PROGRAM, resultSet.getString("ac_program"));
+		info.setInfo(PilotPointInfoType.AC_SECTION, resultSet.getString("ac_section"));
+		info.setInfo(PilotPointInfoType.FAT_MISSION, resultSet.getString("fat_mission"));
+		info.setInfo(PilotPointInfoType.DESCRIPTION, resultSet.getString("description"));
+		info.setInfo(PilotPointInfoType.ELEMENT_TYPE, resultSet.getString("element_type"));
+		info.setInfo(PilotPointInfoType.FRAME_RIB_POSITION, resultSet.getString("frame_rib_position"));
+		info.setInfo(PilotPointInfoType.STRINGER_POSITION, resultSet.getString("stringer_position"));
+		info.setInfo(PilotPointInfoType.DATA_SOURCE, resultSet.getString("data_source"));
+		info.setInfo(PilotPointInfoType.GENERATION_SOURCE, resultSet.getString("generation_source"));
+		info.setInfo(PilotPointInfoType.DELIVERY_REF_NUM, resultSet.getString("delivery_ref_num"));
+		info.setInfo(PilotPointInfoType.ISSUE, resultSet.getString("issue"));
+		info.setInfo(PilotPointInfoType.MATERIAL_NAME, resultSet.getString("material_name"));
+		TaskSample.record(TaskPhase.MAPPING, System.nanoTime() - start);
+		return info;
+	}
+
+	/**
+	 * Creates loadcase factor info from the current row of given result set.
+	 *
+	 * @param resultSet
+	 *            Result set.
+	 * @return The loadcase factor info.
+	 * @throws SQLException
+	 *             If exception occurs during process.
+	 */
+	public static LoadcaseFactorInfo createLoadcaseFactorInfo(ResultSet resultSet) throws SQLException {
+		long start = System.nanoTime();
+		LoadcaseFactorInfo info = new LoadcaseFactorInfo();
+		info.setInfo(LoadcaseFactorInfoType.ID, resultSet.getInt("id"));
+		info.setInfo(LoadcaseFactorInfoType.SPECTRUM_NAME, resultSet.getString("spectrum_name"));
+		info.setInfo(LoadcaseFactorInfoType.PILOT_POINT_NAME, resultSet.getString("pilot_point_name"));
+		info.setInfo(LoadcaseFactorInfoType.NAME, resultSet.getString("name"));
+		info.setInfo(LoadcaseFactorInfoType.AC_PROGRAM, resultSet.getString("ac_program"));
+		info.setInfo(LoadcaseFactorInfoType.AC_SECTION, resultSet.getString("ac_section"));
+		info.setInfo(LoadcaseFactorInfoType.FAT_MISSION, resultSet.getString("fat_mission"));
+		info.setInfo(LoadcaseFactorInfoType.ISSUE, resultSet.getString("issue"));
+		info.setInfo(LoadcaseFactorInfoType.DELIVERY_REF, resultSet.getString("delivery_ref_num"));
+		info.setInfo(LoadcaseFactorInfoType.DESCRIPTION, resultSet.getString("description"));
+		TaskSample.record(TaskPhase.MAPPING, System.nanoTime() - start);
+		return info;
+	}
+
+	/**
+	 * Creates A/C model info from the current row of given result set.
+	 *
+	 * @param resultSet
+	 *            Result set.
+	 * @return The A/C model info.
+	 * @throws SQLException
+	 *             If exception occurs during process.
+	 */
+	public static AircraftModelInfo createAircraftModelInfo(ResultSet resultSet) throws SQLException {
+		long start = System.nanoTime();
+		AircraftModelInfo info = new AircraftModelInfo();
+		info.setInfo(AircraftModelInfoType.ID, resultSet.getInt("model_id"));
+		info.setInfo(AircraftModelInfoType.AC_PROGRAM, resultSet.getString("ac_program"));
+		info.setInfo(AircraftModelInfoType.MODEL_NAME, resultSet.getString("name"));
+		info.setInfo(AircraftModelInfoType.DELIVERY_REF, resultSet.getString("delivery_ref"));
+		info.setInfo(AircraftModelInfoType.DESCRIPTION, resultSet.getString("description"));
+		info.setInfo(AircraftModelInfoType.DATA_SIZE, resultSet.getLong("data_size"));
+		TaskSample.record(TaskPhase.MAPPING, System.nanoTime() - start);
+		return info;
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.engine;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Blob;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.example.afm_wiki.data.PilotPointImageRendition;
+import com.example.afm_wiki.data.PilotPointImageType;
+import com.example.afm_wiki.metrics.FlightEvents;
+import com.example.afm_wiki.metrics.TaskPhase;
+import com.example.afm_wiki.metrics.TaskSample;
+import com.example.afm_wiki.utility.ImageCache;
+import com.example.afm_wiki.utility.ImageCache.ImageFile;
+import com.example.afm_wiki.utility.ImageCache.ImageLoader;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Utility class for pilot point images. Images are streamed from the database into the image cache, and served from the cache. Image requests are recorded as image events of the flight recorder.
+ */
+public class PilotPointImages {
+
+	/** Buffer size for streaming images. */
+	private static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * Returns the requested image rendition from the given image cache. The original image is streamed from the database into the cache if it is not cached.
+	 *
+	 * @param imageCache
+	 *            Image cache.
+	 * @param databaseConnectionPool
+	 *            Database connection pool.
+	 * @param pilotPointID
+	 *            Pilot point ID.
+	 * @param imageType
+	 *            Pilot point image type.
+	 * @param rendition
+	 *            Pilot point image rendition. Cannot be the original (see {@link #getOriginal(ImageCache, ConnectionPool, int, PilotPointImageType)}).
+	 * @return The image bytes, or {@link ImageCache#NO_IMAGE} if the image is not available.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static byte[] getImage(ImageCache imageCache, ConnectionPool databaseConnectionPool, int pilotPointID, PilotPointImageType imageType, PilotPointImageRendition rendition) throws Exception {
+		Object event = FlightEvents.beginImage();
+		AtomicBoolean loaded = new AtomicBoolean();
+		byte[] image = imageCache.get(pilotPointID, imageType, rendition, createLoader(databaseConnectionPool, pilotPointID, imageType, loaded));
+		FlightEvents.commitImage(event, pilotPointID, imageType.name(), rendition.name(), loaded.get(), image.length);
+		return image;
+	}
+
+	/**
+	 * Returns the original image file from the given image cache. The original image is streamed from the database into the cache if it is not cached.
+	 *
+	 * @param imageCache
+	 *            Image cache.
+	 * @param databaseConnectionPool
+	 *            Database connection pool.
+	 * @param pilotPointID
+	 *            Pilot point ID.
+	 * @param imageType
+	 *            Pilot point image type.
+	 * @return The original image file, or null if the image is not available.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static ImageFile getOriginal(ImageCache imageCache, ConnectionPool databaseConnectionPool, int pilotPointID, PilotPointImageType imageType) throws Exception {
+		Object event = FlightEvents.beginImage();
+		AtomicBoolean loaded = new AtomicBoolean();
+		ImageFile original = imageCache.getOriginal(pilotPointID, imageType, createLoader(databaseConnectionPool, pilotPointID, imageType, loaded));
+		FlightEvents.commitImage(event, pilotPointID, imageType.name(), PilotPointImageRendition.ORIGINAL.name(), loaded.get(), original == null ? 0L : original.getSize());
+		return original;
+	}
+
+	/**
+	 * Creates image loader which gets a connection from the given pool for each load.
+	 *
+	 * @param databaseConnectionPool
+	 *            Database connection pool.
+	 * @param pilotPointID
+	 *            Pilot point ID.
+	 * @param imageType
+	 *            Pilot point image type.
+	 * @param loaded
+	 *            Set to true when the loader is called.
+	 * @return The image loader.
+	 */
+	private static ImageLoader createLoader(ConnectionPool databaseConnectionPool, int pilotPointID, PilotPointImageType imageType, AtomicBoolean loaded) {
+		return new ImageLoader() {
+
+			@Override
+			public boolean load(OutputStream out) throws Exception {
+				loaded.set(true);
+				try (Connection connection = databaseConnectionPool.getConnection(3000)) {
+					return loadImage(connection, pilotPointID, imageType, out);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Streams the image of given pilot point and type from the database to the given output stream. The image is never materialized on the heap. The query time, and the streaming time and size are recorded to
+	 * the current task sample.
+	 *
+	 * @param connection
+	 *            Database connection.
+	 * @param pilotPointID
+	 *            Pilot point ID.
+	 * @param imageType
+	 *            Pilot point image type.
+	 * @param out
+	 *            Output stream to write the image to.
+	 * @return True if the image is available, false otherwise.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static boolean loadImage(Connection connection, int pilotPointID, PilotPointImageType imageType, OutputStream out) throws Exception {
+
+		// create statement
+		try (Statement statement = connection.createStatement()) {
+
+			// create and execute query
+			String sql = "select image from " + imageType.getTableName();
+			sql += " where id = " + pilotPointID;
+			long start = System.nanoTime();
+			try (ResultSet resultSet = statement.executeQuery(sql)) {
+				TaskSample.record(TaskPhase.QUERY, System.nanoTime() - start);
+				while (resultSet.next()) {
+
+					// no image
+					Blob blob = resultSet.getBlob("image");
+					if (blob == null)
+						return false;
+
+					// stream image
+					start = System.nanoTime();
+					long bytes = 0L;
+					try (InputStream in = blob.getBinaryStream()) {
+						byte[] buffer = new byte[BUFFER_SIZE];
+						int n;
+						while ((n = in.read(buffer)) != -1) {
+							out.write(buffer, 0, n);
+							bytes += n;
+						}
+					}
+					finally {
+						blob.free();
+						TaskSample.record(TaskPhase.BLOB, System.nanoTime() - start);
+						TaskSample.addBytes(bytes);
+					}
+					return true;
+				}
+			}
+		}
+
+		// no image
+		return false;
+	}
+}
@@ -0,0 +1,546 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.engine;
+
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import com.example.afm_wiki.data.BasicSearchInput;
+import com.example.afm_wiki.data.DownloadInfo;
+import com.example.afm_wiki.data.SearchExpression;
+import com.example.afm_wiki.data.SearchExpression.ExpressionType;
+import com.example.afm_wiki.data.SearchItem;
+import com.example.afm_wiki.metrics.FlightEvents;
+import com.example.afm_wiki.metrics.SlowQueryLog;
+import com.example.afm_wiki.metrics.TaskPhase;
+import com.example.afm_wiki.metrics.TaskSample;
+import com.example.afm_wiki.schema.IndexAdvisor;
+import com.example.afm_wiki.schema.ReverseIndex;
+import com.example.afm_wiki.schema.SearchDocumentIndex;
+import com.example.afm_wiki.schema.SearchSchema;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Abstract class for search query. Search queries build the SQL query for their search input, execute it and map the results to info objects.
+ * <p>
+ * Queries executed through {@link #executeQuery(Statement, String)} are measured until their rows are fetched by {@link #last(ResultSet)}, and logged to the slow query log by {@link #logQuery(Connection)} if
+ * they exceed its threshold. Since Derby completes the runtime statistics of a query only when its result set is closed, <code>logQuery</code> must be called after the result set is closed and before any
+ * other statement is executed on the connection (also if the query fails, so that runtime statistics are disabled before the connection is returned to the pool).
+ */
+public abstract class SearchQuery implements Serializable {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** Maximum number of IDs to restrict the query to. Broader results are filtered by the columns alone, since long IN lists are slow to compile. */
+	private static final int MAX_IDS = 1024;
+
+	/** Progress of this query. */
+	private TaskProgress progress_ = TaskProgress.NONE;
+
+	/** Slow query log, or null if slow queries are not logged. */
+	private transient SlowQueryLog slowQueryLog_;
+
+	/** Search schema, or null if the shadow columns are not used. */
+	private transient SearchSchema searchSchema_;
+
+	/** Reverse-string index, or null if ends with filters are not served from the index. */
+	private transient ReverseIndex reverseIndex_;
+
+	/** Search document index, or null if basic searches are not served from the index. */
+	private transient SearchDocumentIndex searchDocumentIndex_;
+
+	/** The SQL query being measured for the slow query log, or null if there is none. */
+	private transient String sql_;
+
+	/** Start time, execution time (or -1 if the rows are not fetched) and number of rows (or -1 if the rows are not fetched) of the measured query. */
+	private transient long start_, nanos_, rows_;
+
+	/** True if runtime statistics are enabled for the measured query. */
+	private transient boolean capturing_;
+
+	/**
+	 * Sets the progress to report to.
+	 *
+	 * @param progress
+	 *            Progress to report to, or null to ignore progress.
+	 */
+	public void setProgress(TaskProgress progress) {
+		progress_ = progress == null ? TaskProgress.NONE : progress;
+	}
+
+	/**
+	 * Sets the slow query log.
+	 *
+	 * @param slowQueryLog
+	 *            Slow query log, or null to not log slow queries.
+	 */
+	public void setSlowQueryLog(SlowQueryLog slowQueryLog) {
+		slowQueryLog_ = slowQueryLog;
+	}
+
+	/**
+	 * Sets the search schema. Case-insensitive filters use the upper-cased shadow columns of the schema.
+	 *
+	 * @param searchSchema
+	 *            Search schema, or null to not use shadow columns.
+	 */
+	public void setSearchSchema(SearchSchema searchSchema) {
+		searchSchema_ = searchSchema;
+	}
+
+	/**
+	 * Sets the reverse-string index. Ends with filters of the indexed columns are restricted to the row IDs found in the index.
+	 *
+	 * @param reverseIndex
+	 *            Reverse-string index, or null to not use the index.
+	 */
+	public void setReverseIndex(ReverseIndex reverseIndex) {
+		reverseIndex_ = reverseIndex;
+	}
+
+	/**
+	 * Sets the search document index. Keyword filters of basic searches are restricted to the row IDs found in the index.
+	 *
+	 * @param searchDocumentIndex
+	 *            Search document index, or null to not use the index.
+	 */
+	public void setSearchDocumentIndex(SearchDocumentIndex searchDocumentIndex) {
+		searchDocumentIndex_ = searchDocumentIndex;
+	}
+
+	/**
+	 * Runs this query and returns the results.
+	 *
+	 * @param databaseConnectionPool
+	 *            Database connection pool.
+	 * @return The results of this query.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public abstract ArrayList<DownloadInfo> run(ConnectionPool databaseConnectionPool) throws Exception;
+
+	/**
+	 * Builds and returns the where clause of this query according to search items.
+	 *
+	 * @return The where clause of this query.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public abstract String buildQuery() throws Exception;
+
+	/**
+	 * Builds and returns the SQL filter of given search criteria for given column.
+	 * <p>
+	 * If case is ignored, the value is upper-cased and compared to the upper-cased shadow column of the column if the search schema has one, or to <code>upper(column)</code> otherwise. Since shadow columns are
+	 * indexed, equals and starts with filters become index range scans. Values are <code>like</code> patterns for all criteria (<code>%</code> and <code>_</code> are wildcards), so the index range of these
+	 * filters ends at the first wildcard of the value.
+	 * <p>
+	 * Ends with filters of values without <code>%</code> wildcards are restricted to the row IDs of the reverse-string index if it serves the column, so that they are answered from the primary key index
+	 * instead of a table scan. The index adds inserted rows before each lookup, but rows renamed to match since its last rebuild are not found (see {@link ReverseIndex}). The <code>like</code> filter is kept,
+	 * so that case-sensitive searches and rows renamed to no longer match are still filtered exactly.
+	 *
+	 * @param table
+	 *            Table name.
+	 * @param column
+	 *            Column name.
+	 * @param criteria
+	 *            Search criteria (see {@link SearchItem}).
+	 * @param value
+	 *            Search value.
+	 * @param ignoreCase
+	 *            True if case is ignored.
+	 * @return The SQL filter.
+	 */
+	protected String buildFilter(String table, String column, String criteria, String value, boolean ignoreCase) {
+
+		// get compared expression and value
+		String expression = column;
+		if (ignoreCase) {
+			expression = (searchSchema_ != null) && searchSchema_.hasShadowColumn(table, column) ? IndexAdvisor.getShadowColumn(column) : "upper(" + column + ")";
+			value = value.toUpperCase(Locale.ENGLISH);
+		}
+		String pattern = value.replace("'", "''");
+
+		// contains
+		if (criteria.equals(SearchItem.CONTAINS))
+			return expression + " like '%" + pattern + "%'";
+
+		// ends with (restricted to the rows of the reverse-string index)
+		if (criteria.equals(SearchItem.ENDS_WITH)) {
+			String filter = expression + " like '%" + pattern + "'";
+			int[] ids = (value.indexOf('%') < 0) && (reverseIndex_ != null) ? reverseIndex_.getIDs(table, column, value) : null;
+			if (ids == null)
+				return filter;
+			if (ids.length == 0)
+				return "(1 = 0 and " + filter + ")";
+			StringBuilder in = new StringBuilder("(id in (");
+			for (int i = 0; i < ids.length; i++)
+				in.append(i == 0 ? "" : ", ").append(ids[i]);
+			return in.append(") and ").append(filter).append(")").toString();
+		}
+
+		// equals
+		if (criteria.equals(SearchItem.EQUALS))
+			return expression + " like '" + pattern + "'";
+
+		// starts with
+		return expression + " like '" + pattern + "%'";
+	}
+
+	/**
+	 * Builds and returns the SQL filter of the search expression of given basic search input for given table. Terms without field match if one of the searched columns of the table (see
+	 * {@link SearchDocumentIndex#getColumns(String)}) contains (or starts with) their value, and field terms if their column does. Values are matched literally.
+	 * <p>
+	 * If parameters are collected, the values (and row IDs) are replaced by parameter markers, so that the SQL statements of equal (normalized) expressions are identical, and Derby reuses their compiled plans
+	 * from its statement cache. Otherwise, the values are inlined as literals.
+	 * <p>
+	 * If the table is indexed by the search document index, the expression is evaluated once on the index, and the filter is restricted to the IDs of the first matching rows, which Derby fetches from the
+	 * primary key index. The index adds inserted rows before each lookup, but rows updated to match since its last rebuild are not found (see {@link SearchDocumentIndex}). The expression filter is kept, so
+	 * that rows updated to no longer match are not returned. Since these rows are dropped after the IDs are taken, up to twice the maximum hits of the input are taken, so that they don't cut the results
+	 * short. If more rows match than twice the maximum hits, and these don't fit in the IN list, the columns are filtered alone.
+	 *
+	 * @param table
+	 *            Table name.
+	 * @param input
+	 *            Basic search input.
+	 * @param parameters
+	 *            List to collect the parameter values (in order of their markers), or null to inline the values.
+	 * @return The SQL filter.
+	 * @throws IllegalArgumentException
+	 *             If a term refers to a column which is not searched.
+	 */
+	protected String buildExpressionFilter(String table, BasicSearchInput input, List<String> parameters) {
+
+		// compile expression
+		SearchExpression expression = input.getExpression();
+		expression.checkFields(SearchDocumentIndex.getColumns(table));
+		ArrayList<String> values = parameters == null ? null : new ArrayList<String>();
+		String sql = compile(table, expression, input.getCase(), false, values);
+
+		// restrict to the rows of the search document index (one more ID is fetched, to detect whether there are more matching rows than candidates)
+		long candidates = 2L * input.getMaxHits();
+		int maxIDs = (int) Math.min(candidates, MAX_IDS);
+		int[] ids = searchDocumentIndex_ == null ? null : searchDocumentIndex_.getIDs(table, expression, input.getCase(), maxIDs + 1);
+
+		// more matching rows than the IN list can hold (use the first candidates, or filter the columns alone if they are fewer than twice the maximum hits)
+		if ((ids != null) && (ids.length > maxIDs))
+			ids = maxIDs < candidates ? null : Arrays.copyOf(ids, maxIDs);
+		if ((ids != null) && (ids.length == 0))
+			sql = "1 = 0 and " + sql;
+
+		// IDs (parameter lists are padded with the last ID to the next power of two, so that few statements are compiled)
+		else if (ids != null) {
+			int size = parameters == null ? ids.length : Integer.highestOneBit(ids.length - 1) << 1;
+			StringBuilder in = new StringBuilder(SearchDocumentIndex.getKeyColumn(table) + " in (");
+			for (int i = 0; i < Math.max(size, 1); i++) {
+				String id = Integer.toString(ids[Math.min(i, ids.length - 1)]);
+				in.append(i == 0 ? "" : ", ").append(parameters == null ? id : "?");
+				if (parameters != null)
+					parameters.add(id);
+			}
+			sql = in.append(") and ").append(sql).toString();
+		}
+
+		// add values after the IDs
+		if (parameters != null)
+			parameters.addAll(values);
+		return sql;
+	}
+
+	/**
+	 * Compiles given search expression to SQL filter.
+	 *
+	 * @param table
+	 *            Table name.
+	 * @param expression
+	 *            Search expression.
+	 * @param ignoreCase
+	 *            True if case is ignored.
+	 * @param negated
+	 *            True if the expression is within an odd number of negations. Column filters of negated terms are false instead of unknown for null values, so that the negation matches these rows (like the
+	 *            search document index).
+	 * @param parameters
+	 *            List to collect the parameter values, or null to inline the values.
+	 * @return The SQL filter (in parentheses).
+	 */
+	private String compile(String table, SearchExpression expression, boolean ignoreCase, boolean negated, List<String> parameters) {
+
+		// term
+		if (expression.getType() == ExpressionType.TERM) {
+			String[] columns = expression.getField() == null ? SearchDocumentIndex.getColumns(table) : new String[] { expression.getField() };
+			String sql = "";
+			for (String column : columns) {
+				String filter = buildLiteralFilter(table, column, expression.getValue(), expression.isPrefix(), ignoreCase, parameters);
+				sql += (sql.isEmpty() ? "" : " or ") + (negated ? "(" + column + " is not null and " + filter + ")" : filter);
+			}
+			return "(" + sql + ")";
+		}
+
+		// negation
+		if (expression.getType() == ExpressionType.NOT)
+			return "(not " + compile(table, expression.getOperands().get(0), ignoreCase, !negated, parameters) + ")";
+
+		// conjunction or disjunction
+		String sql = "";
+		for (SearchExpression operand : expression.getOperands())
+			sql += (sql.isEmpty() ? "" : expression.getType() == ExpressionType.AND ? " and " : " or ") + compile(table, operand, ignoreCase, negated, parameters);
+		return "(" + sql + ")";
+	}
+
+	/**
+	 * Builds and returns the SQL filter matching column values which contain (or start with) given value literally. Case is ignored like in {@link #buildFilter(String, String, String, String, boolean)}.
+	 *
+	 * @param table
+	 *            Table name.
+	 * @param column
+	 *            Column name.
+	 * @param value
+	 *            Search value.
+	 * @param prefix
+	 *            True to match column values starting with the value, false to match column values containing it.
+	 * @param ignoreCase
+	 *            True if case is ignored.
+	 * @param parameters
+	 *            List to add the pattern to (the filter then has a parameter marker), or null to inline the pattern.
+	 * @return The SQL filter.
+	 */
+	private String buildLiteralFilter(String table, String column, String value, boolean prefix, boolean ignoreCase, List<String> parameters) {
+
+		// get compared expression and value
+		String expression = column;
+		if (ignoreCase) {
+			expression = (searchSchema_ != null) && searchSchema_.hasShadowColumn(table, column) ? IndexAdvisor.getShadowColumn(column) : "upper(" + column + ")";
+			value = value.toUpperCase(Locale.ENGLISH);
+		}
+
+		// create pattern (escaping wildcards)
+		String pattern = (prefix ? "" : "%") + value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+		if (parameters == null)
+			return expression + " like '" + pattern.replace("'", "''") + "' escape '\\'";
+		parameters.add(pattern);
+		return expression + " like ? escape '\\'";
+	}
+
+	/**
+	 * Sets progress info text.
+	 *
+	 * @param info
+	 *            Information string.
+	 */
+	protected void setProgressInfo(String info) {
+		progress_.setProgressInfo(info);
+	}
+
+	/**
+	 * Sets progress value.
+	 *
+	 * @param value
+	 *            Progress value.
+	 */
+	protected void setProgressValue(float value) {
+		progress_.setProgressValue(value);
+	}
+
+	/**
+	 * Executes given SQL query. The execution time is recorded as query time of the current task sample, and as query event of the flight recorder. The query is measured for the slow query log (see
+	 * {@link #logQuery(Connection)}).
+	 *
+	 * @param statement
+	 *            Statement.
+	 * @param sql
+	 *            SQL query.
+	 * @return The result set.
+	 * @throws SQLException
+	 *             If exception occurs during process.
+	 */
+	protected ResultSet executeQuery(Statement statement, String sql) throws SQLException {
+		return execute(statement, sql, sql);
+	}
+
+	/**
+	 * Executes given prepared statement with given parameters like {@link #executeQuery(Statement, String)}. The query is recorded and logged with its parameters inlined as literals, so that slow queries can
+	 * be reproduced and analyzed by the index advisor.
+	 *
+	 * @param statement
+	 *            Prepared statement of the SQL query.
+	 * @param sql
+	 *            SQL query (with parameter markers).
+	 * @param parameters
+	 *            String parameter values (in order of their markers).
+	 * @return The result set.
+	 * @throws SQLException
+	 *             If exception occurs during process.
+	 */
+	protected ResultSet executeQuery(PreparedStatement statement, String sql, List<String> parameters) throws SQLException {
+
+		// set parameters
+		for (int i = 0; i < parameters.size(); i++)
+			statement.setString(i + 1, parameters.get(i));
+
+		// inline parameters (IDs as numbers, patterns as strings)
+		StringBuilder query = new StringBuilder();
+		int parameter = 0;
+		for (int i = 0; i < sql.length(); i++) {
+			char c = sql.charAt(i);
+			if ((c == '?') && (parameter < parameters.size())) {
+				String value = parameters.get(parameter++);
+				query.append(value.matches("\\d+") ? value : "'" + value.replace("'", "''") + "'");
+			}
+			else
+				query.append(c);
+		}
+		return execute(statement, sql, query.toString());
+	}
+
+	/**
+	 * Executes and measures given query (see {@link #executeQuery(Statement, String)}).
+	 *
+	 * @param statement
+	 *            Statement (executed without SQL if it is a prepared statement).
+	 * @param sql
+	 *            SQL query.
+	 * @param recorded
+	 *            SQL query to record and log.
+	 * @return The result set.
+	 * @throws SQLException
+	 *             If exception occurs during process.
+	 */
+	private ResultSet execute(Statement statement, String sql, String recorded) throws SQLException {
+
+		// enable runtime statistics for the slow query log
+		sql_ = recorded;
+		nanos_ = -1L;
+		rows_ = -1L;
+		capturing_ = (slowQueryLog_ != null) && slowQueryLog_.isCapturingPlans() && setRuntimeStatistics(statement.getConnection(), true);
+
+		// execute query
+		long start = System.nanoTime();
+		start_ = start;
+		Object event = FlightEvents.beginQuery();
+		ResultSet resultSet = statement instanceof PreparedStatement ? ((PreparedStatement) statement).executeQuery() : statement.executeQuery(sql);
+		FlightEvents.commitQuery(event, recorded);
+		TaskSample.record(TaskPhase.QUERY, System.nanoTime() - start);
+		TaskSample.setQuery(recorded);
+		return resultSet;
+	}
+
+	/**
+	 * Executes given prepared statement. The execution time is recorded as query time of the current task sample.
+	 *
+	 * @param statement
+	 *            Prepared statement.
+	 * @return The result set.
+	 * @throws SQLException
+	 *             If exception occurs during process.
+	 */
+	protected static ResultSet executeQuery(PreparedStatement statement) throws SQLException {
+		long start = System.nanoTime();
+		ResultSet resultSet = statement.executeQuery();
+		TaskSample.record(TaskPhase.QUERY, System.nanoTime() - start);
+		return resultSet;
+	}
+
+	/**
+	 * Moves given scrollable result set to its last row. Since this fetches all rows, the time is recorded as query time of the current task sample, and the number of rows as its rows. This completes the measurement
+	 * of the query for the slow query log.
+	 *
+	 * @param resultSet
+	 *            Scrollable result set.
+	 * @return True if the result set has rows.
+	 * @throws SQLException
+	 *             If exception occurs during process.
+	 */
+	protected boolean last(ResultSet resultSet) throws SQLException {
+		long start = System.nanoTime();
+		boolean last = resultSet.last();
+		long end = System.nanoTime();
+		TaskSample.record(TaskPhase.QUERY, end - start);
+		int rows = last ? resultSet.getRow() : 0;
+		TaskSample.addRows(rows);
+		nanos_ = end - start_;
+		rows_ = rows;
+		return last;
+	}
+
+	/**
+	 * Logs the measured query to the slow query log if it exceeds the threshold, together with its runtime statistics if they are captured. Disables runtime statistics of the given connection.
+	 *
+	 * @param connection
+	 *            Database connection of the measured query.
+	 */
+	protected void logQuery(Connection connection) {
+
+		// no measured query
+		if (sql_ == null)
+			return;
+		String sql = sql_;
+		sql_ = null;
+
+		// check threshold
+		long nanos = nanos_ < 0L ? System.nanoTime() - start_ : nanos_;
+		boolean slow = (slowQueryLog_ != null) && slowQueryLog_.isSlow(nanos);
+
+		// get runtime statistics and disable them
+		String plan = null;
+		if (capturing_) {
+			if (slow) {
+				try (Statement statement = connection.createStatement()) {
+					try (ResultSet resultSet = statement.executeQuery("values syscs_util.syscs_get_runtimestatistics()")) {
+						plan = resultSet.next() ? resultSet.getString(1) : null;
+					}
+				}
+				catch (SQLException e) {
+					plan = "Runtime statistics are not available (" + e.getMessage() + ")";
+				}
+			}
+			setRuntimeStatistics(connection, false);
+		}
+
+		// log query
+		if (slow)
+			slowQueryLog_.log(getClass().getSimpleName(), sql, rows_, nanos, plan);
+	}
+
+	/**
+	 * Enables or disables runtime statistics (with timing) of given connection.
+	 *
+	 * @param connection
+	 *            Database connection.
+	 * @param enable
+	 *            True to enable runtime statistics.
+	 * @return True if runtime statistics are set.
+	 */
+	private static boolean setRuntimeStatistics(Connection connection, boolean enable) {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("call syscs_util.syscs_set_runtimestatistics(" + (enable ? 1 : 0) + ")");
+			statement.execute("call syscs_util.syscs_set_statistics_timing(" + (enable ? 1 : 0) + ")");
+			return true;
+		}
+		catch (SQLException e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.engine;
+
+import java.io.Serializable;
+
+/**
+ * Interface for task progress. Engine classes report their progress through this interface, so that they don't depend on how (or whether) the progress is shown.
+ */
+public interface TaskProgress extends Serializable {
+
+	/** Progress which ignores all updates. */
+	TaskProgress NONE = new TaskProgress() {
+
+		/** Serial ID. */
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public void setProgressInfo(String info) {
+			// no implementation
+		}
+
+		@Override
+		public void setProgressValue(float value) {
+			// no implementation
+		}
+	};
+
+	/**
+	 * Sets progress info text.
+	 *
+	 * @param info
+	 *            Information string.
+	 */
+	void setProgressInfo(String info);
+
+	/**
+	 * Sets progress value. The value is a float between 0 and 1 where 0 represents no progress at all and 1 represents fully completed.
+	 *
+	 * @param value
+	 *            Progress value.
+	 */
+	void setProgressValue(float value);
+}
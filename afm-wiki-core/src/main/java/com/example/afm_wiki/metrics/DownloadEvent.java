@@ -0,0 +1,56 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for download bundles and streamed downloads. Only referenced through {@link FlightEvents}.
+ */
+@Name("com.example.afm_wiki.Download")
+@Label("Download")
+@Category({ "AFM Wiki", "Downloads" })
+@Description("Preparation of a download bundle or transfer of a streamed download")
+@StackTrace(false)
+class DownloadEvent extends Event {
+
+	/** Download kind (bundle or stream). */
+	@Label("Kind")
+	String kind;
+
+	/** Data table name. */
+	@Label("Table")
+	String table;
+
+	/** Number of files. */
+	@Label("Files")
+	int files;
+
+	/** Number of transferred bytes. */
+	@Label("Bytes")
+	@DataAmount
+	long bytes;
+
+	/** Exception of the failure, or null if succeeded. */
+	@Label("Failure")
+	String failure;
+}
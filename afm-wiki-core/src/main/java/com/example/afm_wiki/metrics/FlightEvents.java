@@ -0,0 +1,217 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.metrics;
+
+/**
+ * Utility class for emitting flight recorder events. Events are begun with one of the begin methods, which return an opaque event handle, and committed with the corresponding commit method. The begin methods return
+ * null if the flight recorder is not available on the running JVM or the event is disabled in the recording settings, and the commit methods ignore null handles; so the event classes are only loaded where the
+ * flight recorder is available, and events cost next to nothing when no recording is running.
+ */
+public class FlightEvents {
+
+	/** True if the flight recorder is available on the running JVM. */
+	private static final boolean AVAILABLE = isAvailable();
+
+	/**
+	 * Begins task event.
+	 *
+	 * @return Event handle, or null if the event is not recorded.
+	 */
+	public static Object beginTask() {
+		if (!AVAILABLE)
+			return null;
+		TaskEvent event = new TaskEvent();
+		if (!event.isEnabled())
+			return null;
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Commits given task event.
+	 *
+	 * @param handle
+	 *            Event handle (ignored if null).
+	 * @param task
+	 *            Task name.
+	 * @param background
+	 *            True if the task runs in background.
+	 * @param sample
+	 *            Measurements of the task execution.
+	 * @param failure
+	 *            Exception of the failed execution, or null if the execution succeeded.
+	 */
+	public static void commitTask(Object handle, String task, boolean background, TaskSample sample, Exception failure) {
+		if (handle == null)
+			return;
+		TaskEvent event = (TaskEvent) handle;
+		event.end();
+		if (!event.shouldCommit())
+			return;
+		event.task = task;
+		event.background = background;
+		event.query = QueryShapes.getShape(sample.getQuery());
+		event.rows = sample.getRows();
+		event.bytes = sample.getBytes();
+		event.queueWait = sample.getNanos(TaskPhase.QUEUE);
+		event.connectionWait = sample.getNanos(TaskPhase.CONNECTION);
+		event.queryTime = sample.getNanos(TaskPhase.QUERY);
+		event.blobTime = sample.getNanos(TaskPhase.BLOB);
+		event.failure = failure == null ? null : failure.toString();
+		event.commit();
+	}
+
+	/**
+	 * Begins query event.
+	 *
+	 * @return Event handle, or null if the event is not recorded.
+	 */
+	public static Object beginQuery() {
+		if (!AVAILABLE)
+			return null;
+		QueryEvent event = new QueryEvent();
+		if (!event.isEnabled())
+			return null;
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Commits given query event.
+	 *
+	 * @param handle
+	 *            Event handle (ignored if null).
+	 * @param sql
+	 *            SQL query (recorded as its shape).
+	 */
+	public static void commitQuery(Object handle, String sql) {
+		if (handle == null)
+			return;
+		QueryEvent event = (QueryEvent) handle;
+		event.end();
+		if (!event.shouldCommit())
+			return;
+		event.query = QueryShapes.getShape(sql);
+		event.commit();
+	}
+
+	/**
+	 * Begins download event.
+	 *
+	 * @return Event handle, or null if the event is not recorded.
+	 */
+	public static Object beginDownload() {
+		if (!AVAILABLE)
+			return null;
+		DownloadEvent event = new DownloadEvent();
+		if (!event.isEnabled())
+			return null;
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Commits given download event.
+	 *
+	 * @param handle
+	 *            Event handle (ignored if null).
+	 * @param kind
+	 *            Download kind (such as bundle or stream).
+	 * @param table
+	 *            Data table name.
+	 * @param files
+	 *            Number of files.
+	 * @param bytes
+	 *            Number of transferred bytes.
+	 * @param failure
+	 *            Exception of the failed download, or null if the download succeeded.
+	 */
+	public static void commitDownload(Object handle, String kind, String table, int files, long bytes, Exception failure) {
+		if (handle == null)
+			return;
+		DownloadEvent event = (DownloadEvent) handle;
+		event.end();
+		if (!event.shouldCommit())
+			return;
+		event.kind = kind;
+		event.table = table;
+		event.files = files;
+		event.bytes = bytes;
+		event.failure = failure == null ? null : failure.toString();
+		event.commit();
+	}
+
+	/**
+	 * Begins image event.
+	 *
+	 * @return Event handle, or null if the event is not recorded.
+	 */
+	public static Object beginImage() {
+		if (!AVAILABLE)
+			return null;
+		ImageEvent event = new ImageEvent();
+		if (!event.isEnabled())
+			return null;
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Commits given image event.
+	 *
+	 * @param handle
+	 *            Event handle (ignored if null).
+	 * @param pilotPointID
+	 *            Pilot point ID.
+	 * @param imageType
+	 *            Pilot point image type.
+	 * @param rendition
+	 *            Pilot point image rendition.
+	 * @param loaded
+	 *            True if the image was loaded from the database.
+	 * @param bytes
+	 *            Image size in bytes.
+	 */
+	public static void commitImage(Object handle, int pilotPointID, String imageType, String rendition, boolean loaded, long bytes) {
+		if (handle == null)
+			return;
+		ImageEvent event = (ImageEvent) handle;
+		event.end();
+		if (!event.shouldCommit())
+			return;
+		event.pilotPointID = pilotPointID;
+		event.imageType = imageType;
+		event.rendition = rendition;
+		event.loaded = loaded;
+		event.bytes = bytes;
+		event.commit();
+	}
+
+	/**
+	 * Returns true if the flight recorder is available on the running JVM.
+	 *
+	 * @return True if the flight recorder is available.
+	 */
+	private static boolean isAvailable() {
+		try {
+			Class.forName("jdk.jfr.Event");
+			return true;
+		}
+		catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+}
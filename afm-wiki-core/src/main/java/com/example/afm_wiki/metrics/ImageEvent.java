@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for pilot point image requests. Only referenced through {@link FlightEvents}.
+ */
+@Name("com.example.afm_wiki.Image")
+@Label("Image")
+@Category({ "AFM Wiki", "Images" })
+@Description("Request of a pilot point image rendition from the image cache")
+@StackTrace(false)
+class ImageEvent extends Event {
+
+	/** Pilot point ID. */
+	@Label("Pilot Point ID")
+	int pilotPointID;
+
+	/** Pilot point image type. */
+	@Label("Image Type")
+	String imageType;
+
+	/** Pilot point image rendition. */
+	@Label("Rendition")
+	String rendition;
+
+	/** True if the image was loaded from the database. */
+	@Label("Loaded")
+	@Description("True if the image was loaded from the database (cache miss)")
+	boolean loaded;
+
+	/** Number of transferred bytes. */
+	@Label("Bytes")
+	@DataAmount
+	long bytes;
+}
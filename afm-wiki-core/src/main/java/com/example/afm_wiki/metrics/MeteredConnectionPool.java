@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.metrics;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.afm_wiki.utility.LatencyHistogram;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Class for connection pool which records the time spent waiting for connections. The wait times are recorded both for the pool and for the task sample bound to the requesting thread (see {@link TaskSample}).
+ */
+public class MeteredConnectionPool extends ConnectionPool {
+
+	/** Connection wait times. */
+	private final LatencyHistogram waits_ = new LatencyHistogram();
+
+	/** Number of connection requests which timed out. */
+	private final AtomicLong timeouts_ = new AtomicLong();
+
+	/**
+	 * Creates connection pool.
+	 *
+	 * @param name
+	 *            Pool name.
+	 * @param minPool
+	 *            Minimum number of pooled connections.
+	 * @param maxPool
+	 *            Maximum number of pooled connections.
+	 * @param maxSize
+	 *            Maximum number of connections (0 for no limit).
+	 * @param idleTimeout
+	 *            Idle timeout in milliseconds.
+	 * @param url
+	 *            JDBC URL.
+	 * @param username
+	 *            Database username.
+	 * @param password
+	 *            Database password.
+	 */
+	public MeteredConnectionPool(String name, int minPool, int maxPool, int maxSize, long idleTimeout, String url, String username, String password) {
+		super(name, minPool, maxPool, maxSize, idleTimeout, url, username, password);
+	}
+
+	@Override
+	public Connection getConnection(long timeout) throws SQLException {
+		long start = System.nanoTime();
+		Connection connection = super.getConnection(timeout);
+		long wait = System.nanoTime() - start;
+		waits_.record(wait);
+		TaskSample.record(TaskPhase.CONNECTION, wait);
+		if (connection == null)
+			timeouts_.incrementAndGet();
+		return connection;
+	}
+
+	/**
+	 * Returns connection wait times.
+	 *
+	 * @return Connection wait times.
+	 */
+	public LatencyHistogram getWaits() {
+		return waits_;
+	}
+
+	/**
+	 * Returns number of connection requests which timed out.
+	 *
+	 * @return Number of connection requests which timed out.
+	 */
+	public long getTimeouts() {
+		return timeouts_.get();
+	}
+}
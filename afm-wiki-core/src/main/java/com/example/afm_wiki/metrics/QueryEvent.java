@@ -0,0 +1,41 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for search query executions. Only referenced through {@link FlightEvents}.
+ */
+@Name("com.example.afm_wiki.Query")
+@Label("Query")
+@Category({ "AFM Wiki", "Database" })
+@Description("Execution of a search query")
+@StackTrace(false)
+@Threshold("1 ms")
+class QueryEvent extends Event {
+
+	/** Query shape. */
+	@Label("Query")
+	@Description("Shape of the query (literals replaced by ?)")
+	String query;
+}
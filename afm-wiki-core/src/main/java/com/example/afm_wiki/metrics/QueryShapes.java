@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class for query shapes. The shape of a query is its SQL text with string and numeric literals replaced by <code>?</code>, lists of literals collapsed to a single <code>?</code> and white space
+ * normalized, so that executions of the same query with different search keywords or IDs have the same shape.
+ */
+public class QueryShapes {
+
+	/**
+	 * Returns the shape of given SQL query.
+	 *
+	 * @param sql
+	 *            SQL query.
+	 * @return The shape of the query, or null if the query is null.
+	 */
+	public static String getShape(String sql) {
+		return sql == null ? null : scan(sql, null);
+	}
+
+	/**
+	 * Returns the literals of given SQL query in order of appearance (string literals without their quotes).
+	 *
+	 * @param sql
+	 *            SQL query.
+	 * @return The literals of the query.
+	 */
+	public static List<String> getParameters(String sql) {
+		ArrayList<String> parameters = new ArrayList<>();
+		if (sql != null)
+			scan(sql, parameters);
+		return parameters;
+	}
+
+	/**
+	 * Scans given SQL query for literals.
+	 *
+	 * @param sql
+	 *            SQL query.
+	 * @param parameters
+	 *            List to add the literals to, or null if the literals are not needed.
+	 * @return The shape of the query.
+	 */
+	private static String scan(String sql, List<String> parameters) {
+
+		// loop over characters
+		StringBuilder shape = new StringBuilder(sql.length());
+		int length = sql.length();
+		for (int i = 0; i < length; i++) {
+			char c = sql.charAt(i);
+
+			// string literal (quotes within literals are escaped by doubling)
+			if (c == '\'') {
+				int start = ++i;
+				while (i < length) {
+					if (sql.charAt(i) == '\'') {
+						if ((i + 1 < length) && (sql.charAt(i + 1) == '\''))
+							i++;
+						else
+							break;
+					}
+					i++;
+				}
+				if (parameters != null)
+					parameters.add(sql.substring(start, Math.min(i, length)).replace("''", "'"));
+				appendParameter(shape);
+			}
+
+			// numeric literal (not part of an identifier)
+			else if (Character.isDigit(c) && ((shape.length() == 0) || !isIdentifierPart(shape.charAt(shape.length() - 1)))) {
+				int start = i;
+				while ((i + 1 < length) && (Character.isDigit(sql.charAt(i + 1)) || (sql.charAt(i + 1) == '.')))
+					i++;
+				if (parameters != null)
+					parameters.add(sql.substring(start, i + 1));
+				appendParameter(shape);
+			}
+
+			// white space
+			else if (Character.isWhitespace(c)) {
+				if ((shape.length() > 0) && (shape.charAt(shape.length() - 1) != ' '))
+					shape.append(' ');
+			}
+
+			// other
+			else {
+				shape.append(c);
+			}
+		}
+
+		// return shape
+		return shape.toString().trim();
+	}
+
+	/**
+	 * Appends a parameter to given shape, unless the shape ends with a list of parameters (such as <code>in (?, </code>).
+	 *
+	 * @param shape
+	 *            Shape to append to.
+	 */
+	private static void appendParameter(StringBuilder shape) {
+
+		// find the last non-blank character
+		int end = shape.length() - 1;
+		while ((end >= 0) && (shape.charAt(end) == ' '))
+			end--;
+
+		// list of parameters
+		if ((end > 0) && (shape.charAt(end) == ',')) {
+			int previous = end - 1;
+			while ((previous >= 0) && (shape.charAt(previous) == ' '))
+				previous--;
+			if ((previous >= 0) && (shape.charAt(previous) == '?')) {
+				shape.setLength(previous + 1);
+				return;
+			}
+		}
+
+		// append parameter
+		shape.append('?');
+	}
+
+	/**
+	 * Returns true if given character can be part of an SQL identifier.
+	 *
+	 * @param c
+	 *            Character.
+	 * @return True if given character can be part of an SQL identifier.
+	 */
+	private static boolean isIdentifierPart(char c) {
+		return Character.isLetterOrDigit(c) || (c == '_') || (c == '.');
+	}
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.afm_wiki.utility.Utility;
+
+/**
+ * Class for slow query log. Search queries which take longer than the threshold are logged with their shape, their literals, the number of rows and (if plan capture is enabled) the runtime statistics of Derby,
+ * which contain the execution plan with the rows seen and the time spent in each node.
+ * <p>
+ * Logging never blocks the searches: entries are queued and written by a periodic task on the given scheduler. Entries are dropped if the queue is full. The log file is rotated when it exceeds the maximum file
+ * size, keeping the given number of rotated files. The most recent entries are also kept in memory for the statistics endpoint.
+ */
+public class SlowQueryLog {
+
+	/** Servlet context attribute name of the slow query log. */
+	public static final String ATTRIBUTE = "slowQueryLog";
+
+	/** Name of the log file. */
+	public static final String FILE_NAME = "slow-queries.log";
+
+	/** Default threshold in milliseconds. */
+	public static final long DEFAULT_THRESHOLD = 1000L;
+
+	/** Default maximum size of the log file in bytes. */
+	public static final long DEFAULT_MAX_FILE_SIZE = 10L * 1024L * 1024L;
+
+	/** Default number of rotated log files. */
+	public static final int DEFAULT_MAX_FILES = 5;
+
+	/** Capacity of the entry queue, number of recent entries kept in memory and flush interval in milliseconds. */
+	private static final int QUEUE_CAPACITY = 1000, RECENT_ENTRIES = 20, FLUSH_INTERVAL = 1000;
+
+	/** Log directory. */
+	private final Path directory_;
+
+	/** Threshold in nanoseconds. */
+	private final long threshold_;
+
+	/** True if runtime statistics are captured. */
+	private final boolean capturePlans_;
+
+	/** Maximum size of the log file in bytes. */
+	private final long maxFileSize_;
+
+	/** Number of rotated log files. */
+	private final int maxFiles_;
+
+	/** Queue of entries to write. */
+	private final ArrayBlockingQueue<String> queue_ = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+	/** Recent entries (most recent first). */
+	private final LinkedList<String> recent_ = new LinkedList<>();
+
+	/** Periodic flush task. */
+	private final ScheduledFuture<?> flush_;
+
+	/** Log statistics. */
+	private final AtomicLong logged_ = new AtomicLong(), dropped_ = new AtomicLong(), rotations_ = new AtomicLong();
+
+	/**
+	 * Creates slow query log.
+	 *
+	 * @param directory
+	 *            Log directory (created if it doesn't exist).
+	 * @param threshold
+	 *            Threshold in milliseconds.
+	 * @param capturePlans
+	 *            True to capture the runtime statistics of slow queries. This enables Derby runtime statistics (with timing) during every search query, which costs four additional statements per query, so
+	 *            it should only be enabled while slow queries are analyzed.
+	 * @param maxFileSize
+	 *            Maximum size of the log file in bytes.
+	 * @param maxFiles
+	 *            Number of rotated log files.
+	 * @param scheduler
+	 *            Scheduler of the periodic flush task.
+	 * @throws IOException
+	 *             If the log directory cannot be created.
+	 */
+	public SlowQueryLog(Path directory, long threshold, boolean capturePlans, long maxFileSize, int maxFiles, ScheduledExecutorService scheduler) throws IOException {
+		directory_ = Files.createDirectories(directory);
+		threshold_ = TimeUnit.MILLISECONDS.toNanos(threshold);
+		capturePlans_ = capturePlans;
+		maxFileSize_ = maxFileSize;
+		maxFiles_ = maxFiles;
+		flush_ = scheduler.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				flush();
+			}
+		}, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Returns true if given execution time exceeds the threshold.
+	 *
+	 * @param nanos
+	 *            Execution time in nanoseconds.
+	 * @return True if given execution time exceeds the threshold.
+	 */
+	public boolean isSlow(long nanos) {
+		return nanos >= threshold_;
+	}
+
+	/**
+	 * Returns true if runtime statistics are captured.
+	 *
+	 * @return True if runtime statistics are captured.
+	 */
+	public boolean isCapturingPlans() {
+		return capturePlans_;
+	}
+
+	/**
+	 * Logs given slow query. This method doesn't block; the entry is dropped if the queue is full.
+	 *
+	 * @param source
+	 *            Source of the query (such as the query class).
+	 * @param sql
+	 *            SQL query.
+	 * @param rows
+	 *            Number of rows, or -1 if the query failed before its rows are counted.
+	 * @param nanos
+	 *            Execution time in nanoseconds.
+	 * @param plan
+	 *            Runtime statistics of the query, or null if not captured.
+	 */
+	public void log(String source, String sql, long rows, long nanos, String plan) {
+
+		// create entry
+		String entry = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date()) + " " + source + ": " + String.format("%.2f", nanos / 1e6) + " ms, " + (rows < 0 ? "failed" : rows + " rows") + "\n";
+		entry += "Shape: " + QueryShapes.getShape(sql) + "\n";
+		entry += "Parameters: " + QueryShapes.getParameters(sql) + "\n";
+		if (plan != null)
+			entry += "Runtime statistics:\n" + plan.trim() + "\n";
+
+		// add to recent entries
+		synchronized (recent_) {
+			recent_.addFirst(entry);
+			if (recent_.size() > RECENT_ENTRIES)
+				recent_.removeLast();
+		}
+
+		// queue entry
+		if (queue_.offer(entry))
+			logged_.incrementAndGet();
+		else
+			dropped_.incrementAndGet();
+	}
+
+	/**
+	 * Returns the recent entries (most recent first).
+	 *
+	 * @return The recent entries.
+	 */
+	public List<String> getRecentEntries() {
+		synchronized (recent_) {
+			return new ArrayList<>(recent_);
+		}
+	}
+
+	/**
+	 * Returns the log file.
+	 *
+	 * @return The log file.
+	 */
+	public Path getFile() {
+		return directory_.resolve(FILE_NAME);
+	}
+
+	/**
+	 * Writes the queued entries to the log file, rotating the file if it exceeds the maximum file size.
+	 */
+	public synchronized void flush() {
+
+		// no entries
+		if (queue_.isEmpty())
+			return;
+
+		// write entries
+		try {
+			Path file = getFile();
+			try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+				String entry;
+				while ((entry = queue_.poll()) != null) {
+					writer.write(entry);
+					writer.write("\n");
+				}
+			}
+
+			// rotate file (slow-queries.log.1 is the most recent rotated file)
+			if (Files.size(file) > maxFileSize_) {
+				Files.deleteIfExists(directory_.resolve(FILE_NAME + "." + maxFiles_));
+				for (int i = maxFiles_ - 1; i >= 1; i--) {
+					Path rotated = directory_.resolve(FILE_NAME + "." + i);
+					if (Files.exists(rotated))
+						Files.move(rotated, directory_.resolve(FILE_NAME + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+				}
+				Files.move(file, directory_.resolve(FILE_NAME + ".1"), StandardCopyOption.REPLACE_EXISTING);
+				rotations_.incrementAndGet();
+			}
+		}
+
+		// exception occurred during writing
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Stops the periodic flush task and writes the remaining entries.
+	 */
+	public void shutdown() {
+		flush_.cancel(false);
+		flush();
+	}
+
+	/**
+	 * Returns log statistics.
+	 *
+	 * @return Log statistics.
+	 */
+	public String getStatistics() {
+		String file = getFile().toString();
+		try {
+			file += " (" + Utility.readableFileSize(Files.exists(getFile()) ? Files.size(getFile()) : 0L) + ")";
+		}
+		catch (IOException e) {
+			// ignore
+		}
+		return logged_.get() + " logged, " + dropped_.get() + " dropped, " + rotations_.get() + " rotations, threshold " + TimeUnit.NANOSECONDS.toMillis(threshold_) + " ms, plans " + (capturePlans_ ? "captured" : "not captured") + ", file " + file;
+	}
+}
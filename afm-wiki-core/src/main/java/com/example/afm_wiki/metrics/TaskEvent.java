@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for task executions. The event spans the execution of the task in the thread pool. Only referenced through {@link FlightEvents}.
+ */
+@Name("com.example.afm_wiki.Task")
+@Label("Task")
+@Category({ "AFM Wiki", "Tasks" })
+@Description("Execution of a search, download or image task")
+@StackTrace(false)
+class TaskEvent extends Event {
+
+	/** Task name. */
+	@Label("Task")
+	String task;
+
+	/** True if the task runs in background. */
+	@Label("Background")
+	boolean background;
+
+	/** Query shape. */
+	@Label("Query")
+	@Description("Shape of the last query of the task (literals replaced by ?)")
+	String query;
+
+	/** Number of mapped rows. */
+	@Label("Rows")
+	long rows;
+
+	/** Number of transferred BLOB bytes. */
+	@Label("BLOB Bytes")
+	@DataAmount
+	long bytes;
+
+	/** Queue wait time. */
+	@Label("Queue Wait")
+	@Timespan(Timespan.NANOSECONDS)
+	long queueWait;
+
+	/** Connection wait time. */
+	@Label("Connection Wait")
+	@Timespan(Timespan.NANOSECONDS)
+	long connectionWait;
+
+	/** Query time. */
+	@Label("Query Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long queryTime;
+
+	/** BLOB transfer time. */
+	@Label("BLOB Transfer Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long blobTime;
+
+	/** Exception of the failure, or null if succeeded. */
+	@Label("Failure")
+	String failure;
+}
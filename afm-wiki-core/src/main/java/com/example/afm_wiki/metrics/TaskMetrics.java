@@ -0,0 +1,227 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.example.afm_wiki.utility.LatencyHistogram;
+import com.example.afm_wiki.utility.Utility;
+
+/**
+ * Class for per-task latency metrics. Each task execution is recorded as a {@link TaskSample} under the name of its task; the phases of the executions are aggregated into one latency histogram per task and phase.
+ * Phases other than queue wait and total time are only recorded if the execution went through them, so that (for instance) the connection wait percentiles of a task are not diluted by its cached executions.
+ * <p>
+ * The metrics are exposed as standard MBean with object name {@link #OBJECT_NAME}.
+ */
+public class TaskMetrics implements TaskMetricsMBean {
+
+	/** Servlet context attribute name of the task metrics. */
+	public static final String ATTRIBUTE = "taskMetrics";
+
+	/** Object name of the MBean. */
+	public static final String OBJECT_NAME = "com.example.afm_wiki:type=TaskMetrics";
+
+	/** Maximum number of recent failures kept. */
+	private static final int MAX_FAILURES = 20;
+
+	/** Measurements per task name. */
+	private final ConcurrentHashMap<String, TaskStatistics> tasks_ = new ConcurrentHashMap<>();
+
+	/** Recent failures (most recent first). */
+	private final LinkedList<String> failures_ = new LinkedList<>();
+
+	/**
+	 * Records given task execution.
+	 *
+	 * @param task
+	 *            Task name.
+	 * @param sample
+	 *            Measurements of the execution.
+	 * @param failure
+	 *            Exception of the failed execution, or null if the execution succeeded.
+	 */
+	public void record(String task, TaskSample sample, Exception failure) {
+
+		// record phases
+		TaskStatistics statistics = getTaskStatistics(task);
+		for (TaskPhase phase : TaskPhase.values()) {
+			long nanos = sample.getNanos(phase);
+			if ((nanos > 0L) || phase.equals(TaskPhase.QUEUE) || phase.equals(TaskPhase.TOTAL))
+				statistics.phases_.get(phase).record(nanos);
+		}
+
+		// record counters
+		statistics.runs_.incrementAndGet();
+		statistics.bytes_.addAndGet(sample.getBytes());
+		statistics.rows_.addAndGet(sample.getRows());
+
+		// record failure
+		if (failure != null) {
+			statistics.failures_.incrementAndGet();
+			String description = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()) + " " + task + ": " + failure.getClass().getName() + (failure.getMessage() == null ? "" : ": " + failure.getMessage());
+			synchronized (failures_) {
+				failures_.addFirst(description);
+				if (failures_.size() > MAX_FAILURES)
+					failures_.removeLast();
+			}
+		}
+	}
+
+	/**
+	 * Records given time of given task phase outside of a task execution (such as the user interface call back of a task).
+	 *
+	 * @param task
+	 *            Task name.
+	 * @param phase
+	 *            Task phase.
+	 * @param nanos
+	 *            Time in nanoseconds.
+	 */
+	public void record(String task, TaskPhase phase, long nanos) {
+		getTaskStatistics(task).phases_.get(phase).record(nanos);
+	}
+
+	@Override
+	public String[] getTaskNames() {
+		return new TreeMap<>(tasks_).keySet().toArray(new String[0]);
+	}
+
+	@Override
+	public String getStatistics() {
+		String statistics = "";
+		for (Map.Entry<String, TaskStatistics> entry : new TreeMap<>(tasks_).entrySet()) {
+			TaskStatistics task = entry.getValue();
+			statistics += entry.getKey() + ": " + task.runs_.get() + " runs, " + task.failures_.get() + " failed, " + task.rows_.get() + " rows, " + Utility.readableFileSize(task.bytes_.get()) + " BLOB transfer\n";
+			for (TaskPhase phase : TaskPhase.values()) {
+				LatencyHistogram histogram = task.phases_.get(phase);
+				if (histogram.getCount() > 0)
+					statistics += "  " + phase + ": " + histogram.getStatistics() + "\n";
+			}
+		}
+		return statistics.isEmpty() ? "No task executed.\n" : statistics;
+	}
+
+	@Override
+	public String[] getRecentFailures() {
+		synchronized (failures_) {
+			return new ArrayList<>(failures_).toArray(new String[0]);
+		}
+	}
+
+	@Override
+	public long getRuns(String task) {
+		TaskStatistics statistics = tasks_.get(task);
+		return statistics == null ? 0L : statistics.runs_.get();
+	}
+
+	@Override
+	public long getFailures(String task) {
+		TaskStatistics statistics = tasks_.get(task);
+		return statistics == null ? 0L : statistics.failures_.get();
+	}
+
+	@Override
+	public double getPercentile(String task, String phase, double percentile) {
+		TaskStatistics statistics = tasks_.get(task);
+		return statistics == null ? 0.0 : statistics.phases_.get(TaskPhase.valueOf(phase)).getPercentile(percentile) / 1e6;
+	}
+
+	@Override
+	public void reset() {
+		tasks_.clear();
+		synchronized (failures_) {
+			failures_.clear();
+		}
+	}
+
+	/**
+	 * Registers these metrics to the platform MBean server.
+	 *
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public void register() throws Exception {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(OBJECT_NAME);
+		if (server.isRegistered(name))
+			server.unregisterMBean(name);
+		server.registerMBean(this, name);
+	}
+
+	/**
+	 * Unregisters these metrics from the platform MBean server.
+	 *
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public void unregister() throws Exception {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(OBJECT_NAME);
+		if (server.isRegistered(name))
+			server.unregisterMBean(name);
+	}
+
+	/**
+	 * Returns the measurements of given task, creating them if necessary.
+	 *
+	 * @param task
+	 *            Task name.
+	 * @return The measurements of given task.
+	 */
+	private TaskStatistics getTaskStatistics(String task) {
+		TaskStatistics statistics = tasks_.get(task);
+		if (statistics == null) {
+			TaskStatistics created = new TaskStatistics();
+			statistics = tasks_.putIfAbsent(task, created);
+			if (statistics == null)
+				statistics = created;
+		}
+		return statistics;
+	}
+
+	/**
+	 * Inner class for measurements of a task.
+	 */
+	private static class TaskStatistics {
+
+		/** Latency histograms per phase. */
+		private final EnumMap<TaskPhase, LatencyHistogram> phases_ = new EnumMap<>(TaskPhase.class);
+
+		/** Number of executions, failed executions, transferred BLOB bytes and mapped rows. */
+		private final AtomicLong runs_ = new AtomicLong(), failures_ = new AtomicLong(), bytes_ = new AtomicLong(), rows_ = new AtomicLong();
+
+		/**
+		 * Creates task measurements.
+		 */
+		TaskStatistics() {
+			for (TaskPhase phase : TaskPhase.values()) {
+				phases_.put(phase, new LatencyHistogram());
+			}
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.metrics;
+
+/**
+ * Management interface of task metrics.
+ */
+public interface TaskMetricsMBean {
+
+	/**
+	 * Returns the names of the measured tasks.
+	 *
+	 * @return The names of the measured tasks.
+	 */
+	String[] getTaskNames();
+
+	/**
+	 * Returns statistics summary of all tasks.
+	 *
+	 * @return Statistics summary of all tasks.
+	 */
+	String getStatistics();
+
+	/**
+	 * Returns the recent task failures (most recent first).
+	 *
+	 * @return The recent task failures.
+	 */
+	String[] getRecentFailures();
+
+	/**
+	 * Returns the number of executions of given task.
+	 *
+	 * @param task
+	 *            Task name.
+	 * @return The number of executions of given task, or 0 if the task is not measured.
+	 */
+	long getRuns(String task);
+
+	/**
+	 * Returns the number of failed executions of given task.
+	 *
+	 * @param task
+	 *            Task name.
+	 * @return The number of failed executions of given task, or 0 if the task is not measured.
+	 */
+	long getFailures(String task);
+
+	/**
+	 * Returns the time at given percentile of given task phase.
+	 *
+	 * @param task
+	 *            Task name.
+	 * @param phase
+	 *            Task phase name (see {@link TaskPhase}).
+	 * @param percentile
+	 *            Percentile (between 0 and 100).
+	 * @return The time at given percentile in milliseconds, or 0 if the task is not measured.
+	 */
+	double getPercentile(String task, String phase, double percentile);
+
+	/**
+	 * Removes all measurements.
+	 */
+	void reset();
+}
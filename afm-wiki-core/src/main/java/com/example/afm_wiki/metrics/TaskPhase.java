@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.metrics;
+
+/**
+ * Enumeration for task phases measured by task metrics.
+ */
+public enum TaskPhase {
+
+	/** Time between submission and start of execution in the thread pool. */
+	QUEUE("queue wait"),
+
+	/** Time spent waiting for database connections. */
+	CONNECTION("connection wait"),
+
+	/** Time spent executing SQL queries and fetching their rows. */
+	QUERY("query"),
+
+	/** Time spent mapping result rows to info objects. */
+	MAPPING("mapping"),
+
+	/** Time spent transferring BLOBs from the database. */
+	BLOB("BLOB transfer"),
+
+	/** Time spent calling back the user interface. */
+	UI_PUSH("UI push"),
+
+	/** Execution time (excluding queue wait and UI push). */
+	TOTAL("total");
+
+	/** Display name of phase. */
+	private final String name_;
+
+	/**
+	 * Creates task phase constant.
+	 *
+	 * @param name
+	 *            Display name of phase.
+	 */
+	TaskPhase(String name) {
+		name_ = name;
+	}
+
+	@Override
+	public String toString() {
+		return name_;
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.metrics;
+
+/**
+ * Class for the measurements of a single task execution. The sample is bound to the executing thread between {@link #begin()} and {@link #end()}, so that the engine records its phases without knowing the task.
+ * Recording is a no-op if no sample is bound to the current thread.
+ */
+public class TaskSample {
+
+	/** Sample bound to the current thread. */
+	private static final ThreadLocal<TaskSample> CURRENT = new ThreadLocal<>();
+
+	/** Time spent in each phase in nanoseconds. */
+	private final long[] nanos_ = new long[TaskPhase.values().length];
+
+	/** Number of transferred BLOB bytes and mapped rows. */
+	private long bytes_ = 0L, rows_ = 0L;
+
+	/** The last SQL query executed by the task. */
+	private String query_;
+
+	/** Sample which was bound to the thread before this sample (for nested samples). */
+	private TaskSample previous_;
+
+	/**
+	 * Creates a new sample and binds it to the current thread.
+	 *
+	 * @return The new sample.
+	 */
+	public static TaskSample begin() {
+		TaskSample sample = new TaskSample();
+		sample.previous_ = CURRENT.get();
+		CURRENT.set(sample);
+		return sample;
+	}
+
+	/**
+	 * Unbinds this sample from the current thread (restoring the previously bound sample, if any).
+	 */
+	public void end() {
+		if (previous_ == null)
+			CURRENT.remove();
+		else
+			CURRENT.set(previous_);
+		previous_ = null;
+	}
+
+	/**
+	 * Returns the sample bound to the current thread.
+	 *
+	 * @return The sample bound to the current thread, or null if there is none.
+	 */
+	public static TaskSample current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Adds given time to the given phase of the sample bound to the current thread.
+	 *
+	 * @param phase
+	 *            Task phase.
+	 * @param nanos
+	 *            Time in nanoseconds.
+	 */
+	public static void record(TaskPhase phase, long nanos) {
+		TaskSample sample = CURRENT.get();
+		if (sample != null)
+			sample.nanos_[phase.ordinal()] += nanos;
+	}
+
+	/**
+	 * Adds given number of transferred BLOB bytes to the sample bound to the current thread.
+	 *
+	 * @param bytes
+	 *            Number of bytes.
+	 */
+	public static void addBytes(long bytes) {
+		TaskSample sample = CURRENT.get();
+		if (sample != null)
+			sample.bytes_ += bytes;
+	}
+
+	/**
+	 * Adds given number of mapped rows to the sample bound to the current thread.
+	 *
+	 * @param rows
+	 *            Number of rows.
+	 */
+	public static void addRows(int rows) {
+		TaskSample sample = CURRENT.get();
+		if (sample != null)
+			sample.rows_ += rows;
+	}
+
+	/**
+	 * Sets the last SQL query executed by the task of the sample bound to the current thread.
+	 *
+	 * @param sql
+	 *            SQL query.
+	 */
+	public static void setQuery(String sql) {
+		TaskSample sample = CURRENT.get();
+		if (sample != null)
+			sample.query_ = sql;
+	}
+
+	/**
+	 * Sets the time of given phase.
+	 *
+	 * @param phase
+	 *            Task phase.
+	 * @param nanos
+	 *            Time in nanoseconds.
+	 */
+	public void set(TaskPhase phase, long nanos) {
+		nanos_[phase.ordinal()] = nanos;
+	}
+
+	/**
+	 * Returns the time spent in given phase.
+	 *
+	 * @param phase
+	 *            Task phase.
+	 * @return The time spent in given phase in nanoseconds.
+	 */
+	public long getNanos(TaskPhase phase) {
+		return nanos_[phase.ordinal()];
+	}
+
+	/**
+	 * Returns number of transferred BLOB bytes.
+	 *
+	 * @return Number of transferred BLOB bytes.
+	 */
+	public long getBytes() {
+		return bytes_;
+	}
+
+	/**
+	 * Returns number of mapped rows.
+	 *
+	 * @return Number of mapped rows.
+	 */
+	public long getRows() {
+		return rows_;
+	}
+
+	/**
+	 * Returns the last SQL query executed by the task.
+	 *
+	 * @return The last SQL query executed by the task, or null if the task executed no query.
+	 */
+	public String getQuery() {
+		return query_;
+	}
+}
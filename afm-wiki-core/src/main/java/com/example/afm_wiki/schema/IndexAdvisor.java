@@ -0,0 +1,529 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.schema;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.example.afm_wiki.metrics.SlowQueryLog;
+
+/**
+ * Class for index advisor. The advisor collects the column filters of search queries (given as SQL text, or read from the shapes and parameters of the slow query log), inspects the schema of the database for
+ * existing columns and indexes, and proposes the missing indexes:
+ * <UL>
+ * <LI>An index on the column, if the column is filtered case-sensitively with equality or prefix (<code>like 'value%'</code>) filters.
+ * <LI>An upper-cased shadow column (a generated column named with {@link #SHADOW_SUFFIX}, maintained by Derby) and an index on it, if the column is filtered with <code>upper(column)</code>, since Derby cannot use
+ * an index of the column for it.
+ * </UL>
+ * Contains and ends with filters (<code>like '%value%'</code> and <code>like '%value'</code>) cannot use B-tree indexes, they are only reported. Columns with less than {@link #MIN_DISTINCT_VALUES} distinct
+ * values are not indexed either, since the index range of a value would cover more rows than a table scan needs to read for the first page of results.
+ * <p>
+ * Note that generated columns are appended to the tables, so that applications inserting into the search tables without a column list have to be adapted before the proposals are applied.
+ */
+public class IndexAdvisor {
+
+	/** Name suffix of upper-cased shadow columns. */
+	public static final String SHADOW_SUFFIX = "_uc";
+
+	/** Default minimum number of rows of a table to propose indexes for. */
+	public static final long DEFAULT_MIN_ROWS = 1000L;
+
+	/** Minimum number of distinct values of a column to propose an index for. */
+	public static final long MIN_DISTINCT_VALUES = 100L;
+
+	/** Pattern of the table of a query. */
+	private static final Pattern TABLE = Pattern.compile("(?i)\\bfrom\\s+([a-z_][a-z0-9_]*)");
+
+	/** Pattern of a column filter (optionally upper-cased column, like or equals operator, optionally upper-cased literal or parameter). */
+	private static final Pattern FILTER = Pattern.compile("(?i)(upper\\(\\s*)?\\b([a-z_][a-z0-9_]*)\\s*\\)?\\s*(like\\b|=)\\s*(upper\\(\\s*)?('(?:[^']|'')*'|\\?)");
+
+	/**
+	 * Enumeration for filter access type.
+	 */
+	private enum Access {
+
+		/** Access type. */
+		EQUALS("equality", true), PREFIX("prefix", true), SUFFIX("suffix", false), CONTAINS("contains", false);
+
+		/** Display name. */
+		private final String name_;
+
+		/** True if the access type can use a B-tree index. */
+		private final boolean indexable_;
+
+		/**
+		 * Creates access type.
+		 *
+		 * @param name
+		 *            Display name.
+		 * @param indexable
+		 *            True if the access type can use a B-tree index.
+		 */
+		Access(String name, boolean indexable) {
+			name_ = name;
+			indexable_ = indexable;
+		}
+	}
+
+	/** Filter counts of columns (mapped by table and column names), indexed by case (0 for case-sensitive, 1 for case-insensitive) and access type ordinal. */
+	private final Map<String, Map<String, int[][]>> filters_ = new TreeMap<>();
+
+	/** Number of analyzed queries. */
+	private int queries_ = 0;
+
+	/** Notes of the columns which are not proposed for indexing. */
+	private final ArrayList<String> notes_ = new ArrayList<>();
+
+	/**
+	 * Adds the column filters of given SQL query. Filters on shadow columns are counted as case-insensitive filters of their base columns.
+	 *
+	 * @param sql
+	 *            SQL query (with literals, or with parameters for equality filters).
+	 */
+	public void addQuery(String sql) {
+
+		// get table
+		Matcher table = TABLE.matcher(sql);
+		if (!table.find())
+			return;
+		Map<String, int[][]> columns = filters_.get(table.group(1).toLowerCase());
+		if (columns == null) {
+			columns = new TreeMap<>();
+			filters_.put(table.group(1).toLowerCase(), columns);
+		}
+		queries_++;
+
+		// loop over filters of the where clause
+		Matcher filter = FILTER.matcher(sql);
+		filter.region(table.end(), sql.length());
+		while (filter.find()) {
+
+			// get column and case
+			String column = filter.group(2).toLowerCase();
+			boolean ignoreCase = filter.group(1) != null;
+			if (column.endsWith(SHADOW_SUFFIX)) {
+				column = column.substring(0, column.length() - SHADOW_SUFFIX.length());
+				ignoreCase = true;
+			}
+
+			// get access type
+			Access access = getAccess(filter.group(3), filter.group(5));
+
+			// count filter
+			int[][] counts = columns.get(column);
+			if (counts == null) {
+				counts = new int[2][Access.values().length];
+				columns.put(column, counts);
+			}
+			counts[ignoreCase ? 1 : 0][access.ordinal()]++;
+		}
+	}
+
+	/**
+	 * Adds the queries of given slow query log file. The queries are reconstructed from the logged shapes and parameters. Numeric parameter lists (such as the <code>id in (...)</code> filters of the reverse
+	 * index) are collapsed to a single placeholder in shapes, so the placeholder after <code>in (</code> takes the surplus parameters.
+	 *
+	 * @param file
+	 *            Slow query log file.
+	 * @return Number of queries added.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 * @see SlowQueryLog
+	 */
+	public int addSlowQueryLog(Path file) throws IOException {
+		int added = 0;
+		String shape = null;
+		for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+
+			// shape
+			if (line.startsWith("Shape: "))
+				shape = line.substring("Shape: ".length());
+
+			// parameters of the shape
+			else if (line.startsWith("Parameters: ") && (shape != null)) {
+				String list = line.substring("Parameters: [".length(), line.length() - 1);
+				String[] parameters = list.isEmpty() ? new String[0] : list.split(", ");
+				StringBuilder sql = new StringBuilder();
+				int parameter = 0, placeholders = shape.length() - shape.replace("?", "").length();
+				for (int i = 0; i < shape.length(); i++) {
+					char c = shape.charAt(i);
+					if ((c == '?') && (parameter < parameters.length)) {
+
+						// list of parameters (shapes collapse them to a single placeholder)
+						if (shape.substring(0, i).trim().endsWith("in (")) {
+							sql.append(parameters[parameter++]);
+							while ((parameters.length - parameter > placeholders - 1) && parameters[parameter].matches("[0-9.]+"))
+								sql.append(", ").append(parameters[parameter++]);
+						}
+
+						// single parameter
+						else
+							sql.append('\'').append(parameters[parameter++].replace("'", "''")).append('\'');
+						placeholders--;
+					}
+					else
+						sql.append(c);
+				}
+				addQuery(sql.toString());
+				shape = null;
+				added++;
+			}
+		}
+		return added;
+	}
+
+	/**
+	 * Returns the number of analyzed queries.
+	 *
+	 * @return The number of analyzed queries.
+	 */
+	public int getQueries() {
+		return queries_;
+	}
+
+	/**
+	 * Returns report of the column filters of the analyzed queries.
+	 *
+	 * @return Report of the column filters.
+	 */
+	public String getReport() {
+		String report = "";
+		for (Map.Entry<String, Map<String, int[][]>> table : filters_.entrySet()) {
+			for (Map.Entry<String, int[][]> column : table.getValue().entrySet()) {
+				report += table.getKey() + "." + column.getKey() + ":";
+				for (int ignoreCase = 0; ignoreCase < 2; ignoreCase++) {
+					for (Access access : Access.values()) {
+						int count = column.getValue()[ignoreCase][access.ordinal()];
+						if (count > 0)
+							report += " " + count + " " + access.name_ + (ignoreCase == 1 ? " (ignore case)" : "") + (access.indexable_ ? "" : " (not indexable)") + ",";
+					}
+				}
+				report = report.substring(0, report.length() - 1) + "\n";
+			}
+		}
+		return report;
+	}
+
+	/**
+	 * Returns the notes of the filtered columns which are not proposed for indexing by the last proposal.
+	 *
+	 * @return The notes of the columns which are not proposed for indexing.
+	 */
+	public List<String> getNotes() {
+		return notes_;
+	}
+
+	/**
+	 * Inspects the schema of the database and proposes the missing shadow columns and indexes for the analyzed filters. Only the tables with at least the given number of rows are considered.
+	 *
+	 * @param connection
+	 *            Database connection.
+	 * @param minRows
+	 *            Minimum number of rows of a table to propose indexes for.
+	 * @return The proposals in the order they should be applied.
+	 * @throws SQLException
+	 *             If exception occurs during process.
+	 */
+	public List<IndexProposal> propose(Connection connection, long minRows) throws SQLException {
+
+		// create list of proposals
+		ArrayList<IndexProposal> proposals = new ArrayList<>();
+		notes_.clear();
+
+		// get current schema
+		String schema = getCurrentSchema(connection);
+		DatabaseMetaData metaData = connection.getMetaData();
+
+		// loop over tables
+		for (Map.Entry<String, Map<String, int[][]>> table : filters_.entrySet()) {
+
+			// get columns and indexed columns
+			String tableName = table.getKey();
+			Map<String, String> columns = getColumns(metaData, schema, tableName);
+			if (columns.isEmpty())
+				continue;
+			Set<String> indexed = getIndexedColumns(metaData, schema, tableName);
+
+			// too small to index
+			long rows = countRows(connection, tableName);
+			if (rows < minRows)
+				continue;
+
+			// loop over filtered columns
+			for (Map.Entry<String, int[][]> column : table.getValue().entrySet()) {
+
+				// column doesn't exist
+				String columnName = column.getKey();
+				String type = columns.get(columnName);
+				if (type == null)
+					continue;
+
+				// no indexable filters
+				int[][] counts = column.getValue();
+				int filters = counts[0][Access.EQUALS.ordinal()] + counts[0][Access.PREFIX.ordinal()];
+				int ignoreCaseFilters = counts[1][Access.EQUALS.ordinal()] + counts[1][Access.PREFIX.ordinal()];
+				if (filters + ignoreCaseFilters == 0)
+					continue;
+
+				// too few distinct values
+				long distinct = countDistinctValues(connection, tableName, columnName);
+				if (distinct < MIN_DISTINCT_VALUES) {
+					notes_.add(tableName + "." + columnName + ": only " + distinct + " distinct values in " + rows + " rows");
+					continue;
+				}
+
+				// case-sensitive equality and prefix filters
+				if ((filters > 0) && !indexed.contains(columnName)) {
+					String reason = filters + " equality and prefix filters on " + rows + " rows";
+					proposals.add(new IndexProposal(IndexProposal.ProposalType.INDEX, tableName, columnName, getIndexStatement(tableName, columnName), reason));
+				}
+
+				// case-insensitive equality and prefix filters (only for character columns)
+				if ((ignoreCaseFilters > 0) && type.contains("char")) {
+					String shadow = getShadowColumn(columnName);
+					String reason = ignoreCaseFilters + " case-insensitive equality and prefix filters on " + rows + " rows";
+					if (!columns.containsKey(shadow)) {
+						String sql = "alter table " + tableName + " add column " + shadow + " " + type + " generated always as (upper(" + columnName + "))";
+						proposals.add(new IndexProposal(IndexProposal.ProposalType.SHADOW_COLUMN, tableName, shadow, sql, reason));
+					}
+					if (!indexed.contains(shadow))
+						proposals.add(new IndexProposal(IndexProposal.ProposalType.INDEX, tableName, shadow, getIndexStatement(tableName, shadow), reason));
+				}
+			}
+		}
+
+		// return proposals
+		return proposals;
+	}
+
+	/**
+	 * Applies given proposals, and updates the index statistics of their tables so that the optimizer can use the new indexes. Tables with new shadow columns are compressed, since adding a column to existing
+	 * rows moves the rows which don't fit in their pages anymore to overflow pages.
+	 *
+	 * @param connection
+	 *            Database connection.
+	 * @param proposals
+	 *            Proposals to apply.
+	 * @throws SQLException
+	 *             If exception occurs during process.
+	 */
+	public static void apply(Connection connection, List<IndexProposal> proposals) throws SQLException {
+
+		// execute statements
+		Set<String> tables = new LinkedHashSet<>(), extended = new LinkedHashSet<>();
+		try (Statement statement = connection.createStatement()) {
+			for (IndexProposal proposal : proposals) {
+				statement.executeUpdate(proposal.getStatement());
+				tables.add(proposal.getTable());
+				if (proposal.getType().equals(IndexProposal.ProposalType.SHADOW_COLUMN))
+					extended.add(proposal.getTable());
+			}
+		}
+
+		// compress extended tables
+		String schema = getCurrentSchema(connection);
+		try (PreparedStatement statement = connection.prepareStatement("call syscs_util.syscs_compress_table(?, ?, 1)")) {
+			for (String table : extended) {
+				statement.setString(1, schema);
+				statement.setString(2, table.toUpperCase());
+				statement.execute();
+			}
+		}
+
+		// update statistics
+		try (PreparedStatement statement = connection.prepareStatement("call syscs_util.syscs_update_statistics(?, ?, null)")) {
+			for (String table : tables) {
+				statement.setString(1, schema);
+				statement.setString(2, table.toUpperCase());
+				statement.execute();
+			}
+		}
+	}
+
+	/**
+	 * Returns the name of the upper-cased shadow column of given column.
+	 *
+	 * @param column
+	 *            Column name.
+	 * @return The name of the shadow column.
+	 */
+	public static String getShadowColumn(String column) {
+		return column + SHADOW_SUFFIX;
+	}
+
+	/**
+	 * Returns the access type of given filter.
+	 *
+	 * @param operator
+	 *            Operator (like or equals).
+	 * @param value
+	 *            Quoted literal or parameter.
+	 * @return The access type.
+	 */
+	private static Access getAccess(String operator, String value) {
+
+		// equals or parameter
+		if (operator.equals("=") || value.equals("?"))
+			return operator.equals("=") ? Access.EQUALS : Access.PREFIX;
+
+		// like pattern (a leading wildcard prevents index use)
+		String pattern = value.substring(1, value.length() - 1);
+		boolean leading = pattern.startsWith("%") || pattern.startsWith("_");
+		if (leading)
+			return (pattern.length() > 1) && pattern.endsWith("%") ? Access.CONTAINS : Access.SUFFIX;
+		return (pattern.indexOf('%') >= 0) || (pattern.indexOf('_') >= 0) ? Access.PREFIX : Access.EQUALS;
+	}
+
+	/**
+	 * Returns the index creation statement for given column.
+	 *
+	 * @param table
+	 *            Table name.
+	 * @param column
+	 *            Column name.
+	 * @return The index creation statement.
+	 */
+	private static String getIndexStatement(String table, String column) {
+		return "create index " + table + "_" + column + "_ix on " + table + "(" + column + ")";
+	}
+
+	/**
+	 * Returns the current schema of given connection.
+	 *
+	 * @param connection
+	 *            Database connection.
+	 * @return The current schema.
+	 * @throws SQLException
+	 *             If exception occurs during process.
+	 */
+	static String getCurrentSchema(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			try (ResultSet resultSet = statement.executeQuery("values current schema")) {
+				resultSet.next();
+				return resultSet.getString(1);
+			}
+		}
+	}
+
+	/**
+	 * Returns the columns of given table mapped to their type declarations.
+	 *
+	 * @param metaData
+	 *            Database meta data.
+	 * @param schema
+	 *            Schema name.
+	 * @param table
+	 *            Table name.
+	 * @return The columns (lower case) mapped to their type declarations, or an empty map if the table doesn't exist.
+	 * @throws SQLException
+	 *             If exception occurs during process.
+	 */
+	static Map<String, String> getColumns(DatabaseMetaData metaData, String schema, String table) throws SQLException {
+		Map<String, String> columns = new TreeMap<>();
+		try (ResultSet resultSet = metaData.getColumns(null, schema, table.toUpperCase(), null)) {
+			while (resultSet.next()) {
+				String type = resultSet.getString("TYPE_NAME").toLowerCase();
+				if (type.contains("char"))
+					type += "(" + resultSet.getInt("COLUMN_SIZE") + ")";
+				columns.put(resultSet.getString("COLUMN_NAME").toLowerCase(), type);
+			}
+		}
+		return columns;
+	}
+
+	/**
+	 * Returns the columns of given table which are the leading columns of an index (including the primary key).
+	 *
+	 * @param metaData
+	 *            Database meta data.
+	 * @param schema
+	 *            Schema name.
+	 * @param table
+	 *            Table name.
+	 * @return The indexed columns (lower case).
+	 * @throws SQLException
+	 *             If exception occurs during process.
+	 */
+	private static Set<String> getIndexedColumns(DatabaseMetaData metaData, String schema, String table) throws SQLException {
+		Set<String> indexed = new HashSet<>();
+		try (ResultSet resultSet = metaData.getIndexInfo(null, schema, table.toUpperCase(), false, true)) {
+			while (resultSet.next()) {
+				if ((resultSet.getShort("ORDINAL_POSITION") == 1) && (resultSet.getString("COLUMN_NAME") != null))
+					indexed.add(resultSet.getString("COLUMN_NAME").toLowerCase());
+			}
+		}
+		return indexed;
+	}
+
+	/**
+	 * Returns the number of distinct values of given column.
+	 *
+	 * @param connection
+	 *            Database connection.
+	 * @param table
+	 *            Table name.
+	 * @param column
+	 *            Column name.
+	 * @return The number of distinct values.
+	 * @throws SQLException
+	 *             If exception occurs during process.
+	 */
+	private static long countDistinctValues(Connection connection, String table, String column) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			try (ResultSet resultSet = statement.executeQuery("select count(distinct " + column + ") from " + table)) {
+				resultSet.next();
+				return resultSet.getLong(1);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of rows of given table.
+	 *
+	 * @param connection
+	 *            Database connection.
+	 * @param table
+	 *            Table name.
+	 * @return The number of rows.
+	 * @throws SQLException
+	 *             If exception occurs during process.
+	 */
+	private static long countRows(Connection connection, String table) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			try (ResultSet resultSet = statement.executeQuery("select count(*) from " + table)) {
+				resultSet.next();
+				return resultSet.getLong(1);
+			}
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.schema;
+
+/**
+ * Class for index proposal of the index advisor. A proposal is a single DDL statement for a column of a search table.
+ */
+public class IndexProposal {
+
+	/**
+	 * Enumeration for proposal type.
+	 */
+	public enum ProposalType {
+
+		/** Proposal type. */
+		SHADOW_COLUMN("Shadow column"), INDEX("Index");
+
+		/** Display name of proposal type. */
+		private final String name_;
+
+		/**
+		 * Creates proposal type.
+		 *
+		 * @param name
+		 *            Display name of proposal type.
+		 */
+		ProposalType(String name) {
+			name_ = name;
+		}
+
+		/**
+		 * Returns the display name of proposal type.
+		 *
+		 * @return The display name of proposal type.
+		 */
+		public String getName() {
+			return name_;
+		}
+	}
+
+	/** Proposal type. */
+	private final ProposalType type_;
+
+	/** Table and column names. */
+	private final String table_, column_;
+
+	/** DDL statement and the reason of the proposal. */
+	private final String statement_, reason_;
+
+	/**
+	 * Creates index proposal.
+	 *
+	 * @param type
+	 *            Proposal type.
+	 * @param table
+	 *            Table name.
+	 * @param column
+	 *            Name of the column to create (shadow column) or to index.
+	 * @param statement
+	 *            DDL statement.
+	 * @param reason
+	 *            Reason of the proposal.
+	 */
+	public IndexProposal(ProposalType type, String table, String column, String statement, String reason) {
+		type_ = type;
+		table_ = table;
+		column_ = column;
+		statement_ = statement;
+		reason_ = reason;
+	}
+
+	/**
+	 * Returns proposal type.
+	 *
+	 * @return Proposal type.
+	 */
+	public ProposalType getType() {
+		return type_;
+	}
+
+	/**
+	 * Returns table name.
+	 *
+	 * @return Table name.
+	 */
+	public String getTable() {
+		return table_;
+	}
+
+	/**
+	 * Returns the name of the column to create or to index.
+	 *
+	 * @return The name of the column to create or to index.
+	 */
+	public String getColumn() {
+		return column_;
+	}
+
+	/**
+	 * Returns the DDL statement.
+	 *
+	 * @return The DDL statement.
+	 */
+	public String getStatement() {
+		return statement_;
+	}
+
+	/**
+	 * Returns the reason of the proposal.
+	 *
+	 * @return The reason of the proposal.
+	 */
+	public String getReason() {
+		return reason_;
+	}
+
+	@Override
+	public String toString() {
+		return statement_ + " -- " + reason_;
+	}
+}
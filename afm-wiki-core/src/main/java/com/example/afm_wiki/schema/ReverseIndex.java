@@ -0,0 +1,344 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.schema;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.example.afm_wiki.utility.Utility;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Class for the reverse-string index of the name columns of the search tables. For each indexed column, the index holds the upper-cased and reversed values mapped to the IDs of their rows in a sorted map, so
+ * that an ends with filter becomes a prefix range lookup of the reversed suffix. Search queries turn the IDs into an <code>id in (...)</code> filter, which Derby serves from the primary key index.
+ * <p>
+ * Each column is built with one query. Before each lookup, the rows with IDs above the highest indexed ID are added (with a range scan of the primary key), so that inserted rows are always found. Updated and
+ * deleted rows cannot be detected this way, so the columns are rebuilt at a longer interval. Until then, rows whose names were changed to match an ends with filter are not found (rows which no longer match are
+ * removed by the <code>like '%value'</code> filter, which is kept in the queries). Columns whose last build is older than twice the rebuild interval (e.g. since rebuilding fails), or which are not built yet,
+ * are not used for lookups, so that search queries fall back to <code>like '%value'</code>.
+ */
+public class ReverseIndex {
+
+	/** Servlet context attribute name of the reverse-string index. */
+	public static final String ATTRIBUTE = "reverseIndex";
+
+	/** Indexed columns (as table.column). */
+	public static final String[] COLUMNS = { "spectra.name", "pilot_points.name", "pilot_points.spectrum_name", "mult_tables.name", "mult_tables.spectrum_name", "mult_tables.pilot_point_name" };
+
+	/** Default refresh and rebuild intervals in minutes. */
+	public static final long DEFAULT_REFRESH_INTERVAL = 1L, DEFAULT_REBUILD_INTERVAL = 10L;
+
+	/** Maximum number of IDs returned by a lookup. Less selective suffixes are left to the table scan, which stops at the maximum number of hits anyway. */
+	public static final int MAX_IDS = 1000;
+
+	/** Database connection pool. */
+	private final ConnectionPool databaseConnectionPool_;
+
+	/** Column indexes (mapped by indexed column). Columns which are not built yet or fail to build are not contained. */
+	private final ConcurrentHashMap<String, ColumnIndex> columns_ = new ConcurrentHashMap<>();
+
+	/** Reasons why columns are not indexed (mapped by indexed column). */
+	private final ConcurrentHashMap<String, String> failures_ = new ConcurrentHashMap<>();
+
+	/** Times of the last build attempts (mapped by indexed column). */
+	private final Map<String, Long> builds_ = new HashMap<>();
+
+	/** Rebuild interval in milliseconds. */
+	private final long rebuildInterval_;
+
+	/**
+	 * Creates reverse-string index. The index is built and refreshed periodically on the given scheduler.
+	 *
+	 * @param databaseConnectionPool
+	 *            Database connection pool.
+	 * @param scheduler
+	 *            Scheduler to run builds and refreshes on.
+	 * @param refreshInterval
+	 *            Incremental refresh interval in minutes.
+	 * @param rebuildInterval
+	 *            Complete rebuild interval in minutes.
+	 */
+	public ReverseIndex(ConnectionPool databaseConnectionPool, ScheduledExecutorService scheduler, long refreshInterval, long rebuildInterval) {
+		databaseConnectionPool_ = databaseConnectionPool;
+		rebuildInterval_ = TimeUnit.MINUTES.toMillis(rebuildInterval);
+		scheduler.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				update();
+			}
+		}, 0L, refreshInterval, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * Returns the IDs of the rows whose value of the given column ends with the given suffix, ignoring case. As in <code>like</code> patterns, underscores of the suffix match any single character; the range
+	 * of the reversed suffix ends at its last underscore, and the values in the range are checked at the underscore positions.
+	 *
+	 * @param table
+	 *            Table name (lower case).
+	 * @param column
+	 *            Column name (lower case).
+	 * @param suffix
+	 *            Suffix (without <code>%</code> wildcards).
+	 * @return The sorted row IDs, or null if the column is not indexed, its inserted rows cannot be added, or more than {@link #MAX_IDS} rows match.
+	 */
+	public int[] getIDs(String table, String column, String suffix) {
+
+		// get column index (not used if it is not rebuilt in time)
+		String name = table + "." + column;
+		ColumnIndex index = columns_.get(name);
+		if ((index == null) || (System.currentTimeMillis() - index.built_ > 2L * rebuildInterval_))
+			return null;
+
+		// add inserted rows
+		try (Connection connection = databaseConnectionPool_.getConnection(3000)) {
+			index.append(connection, name);
+		}
+		catch (Exception e) {
+			report(name, e.toString());
+			return null;
+		}
+
+		// collect IDs of the reversed suffix range
+		String pattern = reverse(suffix);
+		int wildcard = pattern.indexOf('_');
+		String prefix = wildcard == -1 ? pattern : pattern.substring(0, wildcard);
+		NavigableMap<String, int[]> range = index.values_.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+		int[] ids = new int[16];
+		int size = 0;
+		for (Map.Entry<String, int[]> value : range.entrySet()) {
+			if ((wildcard != -1) && !matches(value.getKey(), pattern, wildcard))
+				continue;
+			int[] rows = value.getValue();
+			if (size + rows.length > MAX_IDS)
+				return null;
+			if (size + rows.length > ids.length)
+				ids = Arrays.copyOf(ids, Math.max(ids.length * 2, size + rows.length));
+			System.arraycopy(rows, 0, ids, size, rows.length);
+			size += rows.length;
+		}
+
+		// sort IDs
+		ids = Arrays.copyOf(ids, size);
+		Arrays.sort(ids);
+		return ids;
+	}
+
+	/**
+	 * Returns index statistics summary.
+	 *
+	 * @return Index statistics summary.
+	 */
+	public String getStatistics() {
+		if (columns_.isEmpty() && failures_.isEmpty())
+			return "not built";
+		long values = 0L, rows = 0L, chars = 0L;
+		for (ColumnIndex column : columns_.values()) {
+			for (Map.Entry<String, int[]> value : column.values_.entrySet()) {
+				values++;
+				rows += value.getValue().length;
+				chars += value.getKey().length();
+			}
+		}
+		String stats = rows + " rows with " + values + " distinct values indexed for " + columns_.size() + " columns (about " + Utility.readableFileSize(2L * chars + 4L * rows + 64L * values) + ")";
+		for (Map.Entry<String, String> failure : failures_.entrySet())
+			stats += ", " + failure.getKey() + " not indexed (" + failure.getValue() + ")";
+		return stats;
+	}
+
+	/**
+	 * Returns true if given reversed value starts with given reversed suffix pattern, where underscores match any single character.
+	 *
+	 * @param value
+	 *            Reversed value.
+	 * @param pattern
+	 *            Reversed suffix pattern.
+	 * @param from
+	 *            Position of the first underscore of the pattern (the value is known to match the pattern before it).
+	 * @return True if the value matches the pattern.
+	 */
+	private static boolean matches(String value, String pattern, int from) {
+		if (value.length() < pattern.length())
+			return false;
+		for (int i = from; i < pattern.length(); i++) {
+			char c = pattern.charAt(i);
+			if ((c != '_') && (c != value.charAt(i)))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the upper-cased and reversed form of given value.
+	 *
+	 * @param value
+	 *            Value.
+	 * @return The upper-cased and reversed value.
+	 */
+	private static String reverse(String value) {
+		return new StringBuilder(value.toUpperCase(Locale.ENGLISH)).reverse().toString();
+	}
+
+	/**
+	 * Rebuilds the columns which are due, and adds the inserted rows to the others. Columns are updated one at a time, and exceptions are caught and reported per column, so that the other columns and the
+	 * scheduled updates are not affected.
+	 */
+	private synchronized void update() {
+		for (String column : COLUMNS) {
+			try (Connection connection = databaseConnectionPool_.getConnection(3000)) {
+
+				// rebuild column (the previous index is used until the new one is complete)
+				Long build = builds_.get(column);
+				if ((build == null) || (System.currentTimeMillis() - build >= rebuildInterval_)) {
+					builds_.put(column, System.currentTimeMillis());
+					ColumnIndex index = new ColumnIndex();
+					index.append(connection, column);
+					columns_.put(column, index);
+				}
+
+				// add inserted rows
+				else {
+					ColumnIndex index = columns_.get(column);
+					if (index != null)
+						index.append(connection, column);
+				}
+
+				// indexed
+				if (columns_.containsKey(column))
+					failures_.remove(column);
+			}
+
+			// report failure (the previous index of the column is kept)
+			catch (Exception e) {
+				report(column, e.toString());
+			}
+		}
+	}
+
+	/**
+	 * Records the reason why given column is not indexed (or its inserted rows cannot be added). The reason is printed only if it changes, so that a failing column does not flood the log.
+	 *
+	 * @param column
+	 *            Indexed column (as table.column).
+	 * @param reason
+	 *            Reason.
+	 */
+	private void report(String column, String reason) {
+		if (!reason.equals(failures_.put(column, reason)))
+			System.err.println("Reverse-string index of column " + column + " is not available: " + reason);
+	}
+
+	/**
+	 * Queries the rows of given column with IDs greater than the given ID, and collects their IDs by reversed value.
+	 *
+	 * @param connection
+	 *            Database connection.
+	 * @param column
+	 *            Indexed column (as table.column).
+	 * @param afterID
+	 *            Only IDs greater than this are queried.
+	 * @param values
+	 *            Map to collect the ID arrays by reversed value (arrays may be larger than their sizes).
+	 * @param sizes
+	 *            Map to collect the sizes of the ID arrays.
+	 * @return The highest ID found, or the given ID if no IDs are found.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private static int query(Connection connection, String column, int afterID, Map<String, int[]> values, Map<String, Integer> sizes) throws Exception {
+		int maxID = afterID;
+		String[] names = column.split("\\.");
+		String sql = "select id, " + names[1] + " from " + names[0] + " where id > ? and " + names[1] + " is not null";
+		try (PreparedStatement statement = connection.prepareStatement(sql)) {
+			statement.setInt(1, afterID);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+
+					// get ID and reversed value
+					int id = resultSet.getInt(1);
+					String value = reverse(resultSet.getString(2));
+					maxID = Math.max(maxID, id);
+
+					// add ID (growing the array if needed)
+					int[] ids = values.get(value);
+					int size = ids == null ? 0 : sizes.get(value);
+					if (ids == null)
+						ids = new int[1];
+					else if (size == ids.length)
+						ids = Arrays.copyOf(ids, size * 2);
+					ids[size] = id;
+					values.put(value, ids);
+					sizes.put(value, size + 1);
+				}
+			}
+		}
+		return maxID;
+	}
+
+	/**
+	 * Reverse-string index of a column.
+	 */
+	private static final class ColumnIndex {
+
+		/** Reversed values mapped to row IDs. */
+		private final ConcurrentSkipListMap<String, int[]> values_ = new ConcurrentSkipListMap<>();
+
+		/** Time of the complete build of the column. */
+		private final long built_ = System.currentTimeMillis();
+
+		/** Highest row ID seen. */
+		private int maxID_ = Integer.MIN_VALUE;
+
+		/**
+		 * Adds the rows which were inserted after the last update to the index. Arrays are replaced, so that lookups never see partial arrays.
+		 *
+		 * @param connection
+		 *            Database connection.
+		 * @param column
+		 *            Indexed column (as table.column).
+		 * @throws Exception
+		 *             If exception occurs during process.
+		 */
+		private synchronized void append(Connection connection, String column) throws Exception {
+
+			// query new rows
+			Map<String, int[]> values = new HashMap<>();
+			Map<String, Integer> sizes = new HashMap<>();
+			int maxID = query(connection, column, maxID_, values, sizes);
+
+			// append their IDs
+			for (Map.Entry<String, int[]> value : values.entrySet()) {
+				int[] ids = values_.get(value.getKey());
+				int size = sizes.get(value.getKey());
+				int[] merged = ids == null ? new int[size] : Arrays.copyOf(ids, ids.length + size);
+				System.arraycopy(value.getValue(), 0, merged, merged.length - size, size);
+				values_.put(value.getKey(), merged);
+			}
+			maxID_ = maxID;
+		}
+	}
+}
@@ -0,0 +1,672 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.schema;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.example.afm_wiki.data.AircraftModelInfo.AircraftModelInfoType;
+import com.example.afm_wiki.data.LoadcaseFactorInfo.LoadcaseFactorInfoType;
+import com.example.afm_wiki.data.PilotPointInfo.PilotPointInfoType;
+import com.example.afm_wiki.data.SearchExpression;
+import com.example.afm_wiki.data.SpectrumInfo.SpectrumInfoType;
+import com.example.afm_wiki.utility.Utility;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Class for the search document index of basic searches. For each row of the search tables, the index holds a search document with the values of the searched columns, and maps the upper-cased alphanumeric
+ * tokens of the documents to the rows containing them. The tokens are in turn indexed by their substrings of up to 3 characters (grams). A keyword is looked up once per table: the tokens containing the longest
+ * alphanumeric part of the keyword are found from the grams of the part, the rows of these tokens are the candidates, and the candidates whose documents contain the keyword are the matches. So keywords are
+ * matched exactly like the <code>like '%keyword%'</code> filters of the searched columns, without evaluating these filters for every row. Search expressions are evaluated on the matching rows of their terms
+ * with bitmap operations, and field and prefix terms are checked against the values of their columns in the documents.
+ * <p>
+ * Each table is built with one query. Before each lookup, the rows with IDs above the highest indexed ID are added (with a range scan of the primary key), so that inserted rows are always found. Updated and
+ * deleted rows cannot be detected this way, so the tables are rebuilt at a longer interval. Until then, rows which were updated to match a search are not found by basic searches (rows which no longer match are
+ * removed by the column filters, which are kept in the queries). Tables whose last build is older than twice the rebuild interval (e.g. since rebuilding fails) are not used for lookups.
+ * <p>
+ * The estimated memory of the index is limited. Tables which do not fit into the limit or fail to build are not indexed, and their basic searches fall back to the column filters. Tables are rebuilt one at a
+ * time while their previous version is still used, so the peak memory is the limit plus the size of one table.
+ */
+public class SearchDocumentIndex {
+
+	/** Servlet context attribute name of the search document index. */
+	public static final String ATTRIBUTE = "searchDocumentIndex";
+
+	/** Default refresh and rebuild intervals in minutes. */
+	public static final long DEFAULT_REFRESH_INTERVAL = 1L, DEFAULT_REBUILD_INTERVAL = 10L;
+
+	/** Default memory limit in bytes. */
+	public static final long DEFAULT_MAX_MEMORY = 256L * 1024L * 1024L;
+
+	/** Maximum length of the grams indexing the tokens. */
+	private static final int GRAM_LENGTH = 3;
+
+	/** Separator of the column values in search documents (keywords cannot contain it, so they never match across columns). */
+	private static final char SEPARATOR = '\u0000';
+
+	/** Searched columns (mapped by table name). */
+	private static final Map<String, String[]> COLUMNS = new LinkedHashMap<>();
+
+	static {
+		COLUMNS.put("spectra", new String[] { SpectrumInfoType.NAME.getColumnName(), SpectrumInfoType.AC_PROGRAM.getColumnName(), SpectrumInfoType.AC_SECTION.getColumnName(), SpectrumInfoType.FAT_MISSION.getColumnName(), SpectrumInfoType.DELIVERY_REF.getColumnName(), SpectrumInfoType.DESCRIPTION.getColumnName() });
+		COLUMNS.put("pilot_points", new String[] { PilotPointInfoType.SPECTRUM_NAME.getColumnName(), PilotPointInfoType.NAME.getColumnName(), PilotPointInfoType.AC_PROGRAM.getColumnName(), PilotPointInfoType.AC_SECTION.getColumnName(), PilotPointInfoType.FAT_MISSION.getColumnName(), PilotPointInfoType.DESCRIPTION.getColumnName(), PilotPointInfoType.ELEMENT_TYPE.getColumnName(), PilotPointInfoType.FRAME_RIB_POSITION.getColumnName(), PilotPointInfoType.STRINGER_POSITION.getColumnName(), PilotPointInfoType.DATA_SOURCE.getColumnName(), PilotPointInfoType.GENERATION_SOURCE.getColumnName(), PilotPointInfoType.DELIVERY_REF_NUM.getColumnName(), PilotPointInfoType.MATERIAL_NAME.getColumnName() });
+		COLUMNS.put("mult_tables", new String[] { LoadcaseFactorInfoType.NAME.getColumnName(), LoadcaseFactorInfoType.SPECTRUM_NAME.getColumnName(), LoadcaseFactorInfoType.PILOT_POINT_NAME.getColumnName(), LoadcaseFactorInfoType.AC_PROGRAM.getColumnName(), LoadcaseFactorInfoType.AC_SECTION.getColumnName(), LoadcaseFactorInfoType.FAT_MISSION.getColumnName(), LoadcaseFactorInfoType.DELIVERY_REF.getColumnName(), LoadcaseFactorInfoType.DESCRIPTION.getColumnName() });
+		COLUMNS.put("ac_models", new String[] { AircraftModelInfoType.MODEL_NAME.getColumnName(), AircraftModelInfoType.AC_PROGRAM.getColumnName(), AircraftModelInfoType.DELIVERY_REF.getColumnName(), AircraftModelInfoType.DESCRIPTION.getColumnName() });
+	}
+
+	/** Database connection pool. */
+	private final ConnectionPool databaseConnectionPool_;
+
+	/** Search documents (mapped by table name). Tables which are not built yet, do not fit into the memory limit or fail to build are not contained. */
+	private final ConcurrentHashMap<String, Documents> tables_ = new ConcurrentHashMap<>();
+
+	/** Reasons why tables are not indexed (mapped by table name). */
+	private final ConcurrentHashMap<String, String> failures_ = new ConcurrentHashMap<>();
+
+	/** Times of the last build attempts (mapped by table name). */
+	private final Map<String, Long> builds_ = new HashMap<>();
+
+	/** Rebuild interval in milliseconds and memory limit in bytes. */
+	private final long rebuildInterval_, maxMemory_;
+
+	/**
+	 * Creates search document index. The index is built and refreshed periodically on the given scheduler.
+	 *
+	 * @param databaseConnectionPool
+	 *            Database connection pool.
+	 * @param scheduler
+	 *            Scheduler to run builds and refreshes on.
+	 * @param refreshInterval
+	 *            Incremental refresh interval in minutes.
+	 * @param rebuildInterval
+	 *            Complete rebuild interval in minutes.
+	 * @param maxMemory
+	 *            Memory limit in bytes.
+	 */
+	public SearchDocumentIndex(ConnectionPool databaseConnectionPool, ScheduledExecutorService scheduler, long refreshInterval, long rebuildInterval, long maxMemory) {
+		databaseConnectionPool_ = databaseConnectionPool;
+		rebuildInterval_ = TimeUnit.MINUTES.toMillis(rebuildInterval);
+		maxMemory_ = maxMemory;
+		scheduler.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				update();
+			}
+		}, 0L, refreshInterval, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * Returns the searched columns of given table.
+	 *
+	 * @param table
+	 *            Table name (lower case).
+	 * @return The searched columns of the table.
+	 */
+	public static String[] getColumns(String table) {
+		return COLUMNS.get(table).clone();
+	}
+
+	/**
+	 * Returns the key column of given table.
+	 *
+	 * @param table
+	 *            Table name (lower case).
+	 * @return The key column of the table.
+	 */
+	public static String getKeyColumn(String table) {
+		return table.equals("ac_models") ? AircraftModelInfoType.ID.getColumnName() : "id";
+	}
+
+	/**
+	 * Returns the IDs of the rows of given table matching the given search expression.
+	 *
+	 * @param table
+	 *            Table name (lower case).
+	 * @param expression
+	 *            Search expression.
+	 * @param ignoreCase
+	 *            True if case is ignored.
+	 * @param maxIDs
+	 *            Maximum number of IDs to return.
+	 * @return The lowest matching row IDs in ascending order (at most <code>maxIDs</code>), or null if the table is not indexed, its inserted rows cannot be added, or a term refers to a column which is not
+	 *         searched.
+	 */
+	public int[] getIDs(String table, SearchExpression expression, boolean ignoreCase, int maxIDs) {
+
+		// get documents (not used if they are not rebuilt in time)
+		Documents documents = tables_.get(table);
+		if ((documents == null) || (System.currentTimeMillis() - documents.built_ > 2L * rebuildInterval_))
+			return null;
+
+		// add inserted rows
+		try (Connection connection = databaseConnectionPool_.getConnection(3000)) {
+			documents = append(connection, table, documents);
+		}
+		catch (Exception e) {
+			report(table, e.toString());
+			return null;
+		}
+		if (documents == null)
+			return null;
+
+		// evaluate expression
+		BitSet rows = documents.evaluate(expression, Arrays.asList(COLUMNS.get(table)), ignoreCase);
+		if (rows == null)
+			return null;
+
+		// get IDs of the rows
+		int[] ids = new int[Math.min(rows.cardinality(), maxIDs)];
+		int row = -1;
+		for (int i = 0; i < ids.length; i++) {
+			row = rows.nextSetBit(row + 1);
+			ids[i] = documents.ids_[row];
+		}
+		return ids;
+	}
+
+	/**
+	 * Returns index statistics summary.
+	 *
+	 * @return Index statistics summary.
+	 */
+	public String getStatistics() {
+		if (tables_.isEmpty() && failures_.isEmpty())
+			return "not built";
+		long documents = 0L, tokens = 0L, grams = 0L, memory = 0L;
+		for (Documents table : tables_.values()) {
+			documents += table.ids_.length;
+			tokens += table.tokens_.size();
+			grams += table.grams_.size();
+			memory += table.memory_;
+		}
+		String stats = documents + " documents with " + tokens + " tokens and " + grams + " grams indexed for " + tables_.size() + " tables (about " + Utility.readableFileSize(memory) + " of " + Utility.readableFileSize(maxMemory_) + ")";
+		for (Map.Entry<String, String> failure : failures_.entrySet())
+			stats += ", " + failure.getKey() + " not indexed (" + failure.getValue() + ")";
+		return stats;
+	}
+
+	/**
+	 * Rebuilds the tables which are due, and adds the inserted rows to the others. Tables are updated one at a time, and exceptions are caught and reported per table, so that the other tables and the
+	 * scheduled updates are not affected.
+	 */
+	private synchronized void update() {
+		for (String table : COLUMNS.keySet()) {
+			try (Connection connection = databaseConnectionPool_.getConnection(3000)) {
+
+				// rebuild table (failed tables are retried at the rebuild interval)
+				Long build = builds_.get(table);
+				if ((build == null) || (System.currentTimeMillis() - build >= rebuildInterval_)) {
+					builds_.put(table, System.currentTimeMillis());
+					Documents documents = query(connection, table, null);
+					if (documents == null)
+						tables_.remove(table);
+					else
+						tables_.put(table, documents);
+				}
+
+				// add inserted rows
+				else {
+					Documents documents = tables_.get(table);
+					if (documents != null)
+						append(connection, table, documents);
+				}
+
+				// indexed
+				if (tables_.containsKey(table))
+					failures_.remove(table);
+			}
+
+			// report failure (the previous version of the table is kept)
+			catch (Exception e) {
+				report(table, e.toString());
+			}
+		}
+	}
+
+	/**
+	 * Adds the rows inserted into given table since the given documents were queried, and replaces the documents of the table with the result.
+	 *
+	 * @param connection
+	 *            Database connection.
+	 * @param table
+	 *            Table name.
+	 * @param documents
+	 *            Current documents of the table.
+	 * @return The documents with the inserted rows, or null if they do not fit into the memory limit.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private Documents append(Connection connection, String table, Documents documents) throws Exception {
+		Documents appended = query(connection, table, documents);
+		if (appended == null)
+			tables_.remove(table, documents);
+		else if (appended != documents)
+			tables_.replace(table, documents, appended);
+		return appended;
+	}
+
+	/**
+	 * Queries the rows of given table which are not in the given documents, and returns the documents with these rows added.
+	 *
+	 * @param connection
+	 *            Database connection.
+	 * @param table
+	 *            Table name.
+	 * @param previous
+	 *            Documents to add the rows to, or null to query all rows.
+	 * @return The documents with the queried rows (the given documents if there are no new rows), or null if they do not fit into the memory limit.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private Documents query(Connection connection, String table, Documents previous) throws Exception {
+
+		// get memory available to the table
+		long available = maxMemory_;
+		for (Map.Entry<String, Documents> other : tables_.entrySet()) {
+			if (!other.getKey().equals(table))
+				available -= other.getValue().memory_;
+		}
+
+		// create query
+		String key = getKeyColumn(table);
+		String sql = "select " + key;
+		for (String column : COLUMNS.get(table))
+			sql += ", " + column;
+		sql += " from " + table + " where " + key + " > ? order by " + key;
+
+		// collect documents (stop as soon as they do not fit into the available memory)
+		long memory = previous == null ? 0L : previous.memory_;
+		ArrayList<Integer> ids = new ArrayList<>();
+		ArrayList<String> documents = new ArrayList<>();
+		try (PreparedStatement statement = connection.prepareStatement(sql)) {
+			statement.setInt(1, previous == null ? Integer.MIN_VALUE : previous.getMaxID());
+			try (ResultSet resultSet = statement.executeQuery()) {
+				int columns = resultSet.getMetaData().getColumnCount();
+				while (resultSet.next()) {
+					StringBuilder document = new StringBuilder();
+					for (int i = 2; i <= columns; i++) {
+						String value = resultSet.getString(i);
+						document.append(i == 2 ? "" : String.valueOf(SEPARATOR)).append(value == null ? "" : value);
+					}
+					ids.add(resultSet.getInt(1));
+					documents.add(document.toString());
+					memory += Documents.getMemory(document.length()) + 4L;
+					if (memory > available) {
+						report(table, "exceeds memory limit of " + Utility.readableFileSize(maxMemory_));
+						return null;
+					}
+				}
+			}
+		}
+
+		// no new rows
+		if ((previous != null) && ids.isEmpty())
+			return previous;
+
+		// add documents
+		Documents added = new Documents(previous, ids, documents);
+		if (added.memory_ > available) {
+			report(table, "exceeds memory limit of " + Utility.readableFileSize(maxMemory_));
+			return null;
+		}
+		return added;
+	}
+
+	/**
+	 * Records the reason why given table is not indexed (or its inserted rows cannot be added). The reason is printed only if it changes, so that a failing table does not flood the log.
+	 *
+	 * @param table
+	 *            Table name.
+	 * @param reason
+	 *            Reason.
+	 */
+	private void report(String table, String reason) {
+		if (!reason.equals(failures_.put(table, reason)))
+			System.err.println("Search document index of table " + table + " is not available: " + reason);
+	}
+
+	/**
+	 * Immutable search documents of a table. Incremental refreshes create new instances which share the unchanged arrays with their predecessors.
+	 */
+	private static final class Documents {
+
+		/** Row IDs in ascending order. */
+		private final int[] ids_;
+
+		/** Search documents (indexed like the row IDs). */
+		private final String[] documents_;
+
+		/** Upper-cased tokens mapped to the indices of the rows containing them (in ascending order). */
+		private final Map<String, int[]> tokens_;
+
+		/** Grams mapped to the tokens containing them. */
+		private final Map<String, String[]> grams_;
+
+		/** Time of the complete build of the table. */
+		private final long built_;
+
+		/** Estimated memory in bytes. */
+		private final long memory_;
+
+		/**
+		 * Creates search documents.
+		 *
+		 * @param previous
+		 *            Documents to add the new rows to, or null.
+		 * @param ids
+		 *            IDs of the new rows (in ascending order, greater than the IDs of the previous documents).
+		 * @param documents
+		 *            Search documents of the new rows.
+		 */
+		private Documents(Documents previous, List<Integer> ids, List<String> documents) {
+
+			// append rows
+			int start = previous == null ? 0 : previous.ids_.length;
+			ids_ = previous == null ? new int[ids.size()] : Arrays.copyOf(previous.ids_, start + ids.size());
+			documents_ = previous == null ? new String[documents.size()] : Arrays.copyOf(previous.documents_, start + documents.size());
+			built_ = previous == null ? System.currentTimeMillis() : previous.built_;
+			long memory = previous == null ? 0L : previous.memory_;
+			for (int i = 0; i < ids.size(); i++) {
+				ids_[start + i] = ids.get(i);
+				documents_[start + i] = documents.get(i);
+				memory += getMemory(documents.get(i).length()) + 4L;
+			}
+
+			// copy postings and grams (arrays are full, so they are copied before they are appended to)
+			Map<String, int[]> tokens = previous == null ? new HashMap<String, int[]>() : new HashMap<>(previous.tokens_);
+			Map<String, String[]> grams = previous == null ? new HashMap<String, String[]>() : new HashMap<>(previous.grams_);
+			Map<String, Integer> sizes = new HashMap<>(), gramSizes = new HashMap<>();
+
+			// add tokens of new rows
+			for (int row = start; row < ids_.length; row++) {
+				String document = documents_[row].toUpperCase(Locale.ENGLISH);
+				for (int i = 0, end; i < document.length(); i = end + 1) {
+
+					// find next token
+					while ((i < document.length()) && !Character.isLetterOrDigit(document.charAt(i)))
+						i++;
+					end = i;
+					while ((end < document.length()) && Character.isLetterOrDigit(document.charAt(end)))
+						end++;
+					if (end == i)
+						break;
+					String token = document.substring(i, end);
+
+					// new token (index its grams)
+					int[] rows = tokens.get(token);
+					if (rows == null)
+						memory += getMemory(token.length()) + addGrams(token, grams, gramSizes);
+
+					// add row to postings of token (once per row)
+					Integer size = sizes.get(token);
+					int length = size != null ? size : rows == null ? 0 : rows.length;
+					if ((length > 0) && (rows[length - 1] == row))
+						continue;
+					if (rows == null)
+						rows = new int[1];
+					else if (length == rows.length)
+						rows = Arrays.copyOf(rows, length * 2);
+					rows[length] = row;
+					tokens.put(token, rows);
+					sizes.put(token, length + 1);
+					memory += 4L;
+				}
+			}
+
+			// trim postings and grams to their sizes
+			for (Map.Entry<String, Integer> size : sizes.entrySet()) {
+				int[] rows = tokens.get(size.getKey());
+				if (rows.length > size.getValue())
+					tokens.put(size.getKey(), Arrays.copyOf(rows, size.getValue()));
+			}
+			for (Map.Entry<String, Integer> size : gramSizes.entrySet()) {
+				String[] gramTokens = grams.get(size.getKey());
+				if (gramTokens.length > size.getValue())
+					grams.put(size.getKey(), Arrays.copyOf(gramTokens, size.getValue()));
+			}
+			tokens_ = tokens;
+			grams_ = grams;
+			memory_ = memory;
+		}
+
+		/**
+		 * Returns the highest row ID.
+		 *
+		 * @return The highest row ID, or the lowest integer if there are no rows.
+		 */
+		private int getMaxID() {
+			return ids_.length == 0 ? Integer.MIN_VALUE : ids_[ids_.length - 1];
+		}
+
+		/**
+		 * Returns the estimated memory of a string (with its map entry or array slot).
+		 *
+		 * @param length
+		 *            Length of the string.
+		 * @return The estimated memory in bytes.
+		 */
+		private static long getMemory(int length) {
+			return 64L + 2L * length;
+		}
+
+		/**
+		 * Adds given new token to the tokens of its grams.
+		 *
+		 * @param token
+		 *            New token.
+		 * @param grams
+		 *            Grams mapped to the tokens containing them.
+		 * @param sizes
+		 *            Used sizes of the token arrays which are already copied.
+		 * @return The estimated memory added in bytes.
+		 */
+		private static long addGrams(String token, Map<String, String[]> grams, Map<String, Integer> sizes) {
+			long memory = 0L;
+			for (int i = 0; i < token.length(); i++) {
+				for (int end = i + 1; (end <= i + GRAM_LENGTH) && (end <= token.length()); end++) {
+
+					// add token to the tokens of gram (once per token)
+					String gram = token.substring(i, end);
+					String[] tokens = grams.get(gram);
+					Integer size = sizes.get(gram);
+					int length = size != null ? size : tokens == null ? 0 : tokens.length;
+					if ((length > 0) && (tokens[length - 1] == token))
+						continue;
+					if (tokens == null) {
+						tokens = new String[1];
+						memory += getMemory(gram.length());
+					}
+					else if (length == tokens.length)
+						tokens = Arrays.copyOf(tokens, length * 2);
+					tokens[length] = token;
+					grams.put(gram, tokens);
+					sizes.put(gram, length + 1);
+					memory += 4L;
+				}
+			}
+			return memory;
+		}
+
+		/**
+		 * Returns the tokens containing given alphanumeric part. Parts up to the gram length are looked up directly. Longer parts are looked up by their rarest gram, and the tokens of the gram are checked.
+		 *
+		 * @param part
+		 *            Upper-cased alphanumeric part.
+		 * @return The tokens containing the part.
+		 */
+		private List<String> getTokens(String part) {
+
+			// short part
+			if (part.length() <= GRAM_LENGTH) {
+				String[] tokens = grams_.get(part);
+				return tokens == null ? new ArrayList<String>() : Arrays.asList(tokens);
+			}
+
+			// find rarest gram of long part
+			String[] rarest = null;
+			for (int i = 0; i + GRAM_LENGTH <= part.length(); i++) {
+				String[] tokens = grams_.get(part.substring(i, i + GRAM_LENGTH));
+				if (tokens == null)
+					return new ArrayList<>();
+				if ((rarest == null) || (tokens.length < rarest.length))
+					rarest = tokens;
+			}
+
+			// check tokens of the rarest gram
+			ArrayList<String> tokens = new ArrayList<>();
+			for (String token : rarest) {
+				if (token.contains(part))
+					tokens.add(token);
+			}
+			return tokens;
+		}
+
+		/**
+		 * Returns the rows matching given search expression.
+		 *
+		 * @param expression
+		 *            Search expression.
+		 * @param columns
+		 *            Searched columns of the table.
+		 * @param ignoreCase
+		 *            True if case is ignored.
+		 * @return The indices of the matching rows, or null if a term refers to a column which is not searched.
+		 */
+		private BitSet evaluate(SearchExpression expression, List<String> columns, boolean ignoreCase) {
+
+			// term
+			if (expression.getType() == SearchExpression.ExpressionType.TERM) {
+				int column = expression.getField() == null ? -1 : columns.indexOf(expression.getField());
+				if ((expression.getField() != null) && (column < 0))
+					return null;
+				return find(expression.getValue(), column, expression.isPrefix(), ignoreCase);
+			}
+
+			// evaluate operands
+			BitSet rows = null;
+			for (SearchExpression operand : expression.getOperands()) {
+				BitSet matches = evaluate(operand, columns, ignoreCase);
+				if (matches == null)
+					return null;
+				if (rows == null)
+					rows = matches;
+				else if (expression.getType() == SearchExpression.ExpressionType.AND)
+					rows.and(matches);
+				else
+					rows.or(matches);
+			}
+
+			// negation
+			if (expression.getType() == SearchExpression.ExpressionType.NOT) {
+				BitSet all = new BitSet(ids_.length);
+				all.set(0, ids_.length);
+				all.andNot(rows);
+				return all;
+			}
+			return rows;
+		}
+
+		/**
+		 * Returns the rows with a column value containing (or starting with) the given keyword.
+		 *
+		 * @param keyword
+		 *            Keyword (matched literally).
+		 * @param column
+		 *            Index of the column to match, or -1 to match any searched column.
+		 * @param prefix
+		 *            True to match column values starting with the keyword, false to match column values containing it.
+		 * @param ignoreCase
+		 *            True if case is ignored.
+		 * @return The indices of the matching rows.
+		 */
+		private BitSet find(String keyword, int column, boolean prefix, boolean ignoreCase) {
+
+			// find longest alphanumeric part of keyword
+			String upper = keyword.toUpperCase(Locale.ENGLISH), part = "";
+			for (String token : upper.split("[^\\p{L}\\p{Nd}]+")) {
+				if (token.length() > part.length())
+					part = token;
+			}
+
+			// collect candidate rows (all rows if the keyword has no alphanumeric part)
+			BitSet rows = new BitSet(ids_.length);
+			if (part.isEmpty())
+				rows.set(0, ids_.length);
+			else {
+				for (String token : getTokens(part)) {
+					for (int row : tokens_.get(token))
+						rows.set(row);
+				}
+			}
+
+			// remove candidates not matching the keyword
+			for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+				if (!matches(ignoreCase ? documents_[row].toUpperCase(Locale.ENGLISH) : documents_[row], ignoreCase ? upper : keyword, column, prefix))
+					rows.clear(row);
+			}
+			return rows;
+		}
+
+		/**
+		 * Returns true if a column value of given search document contains (or starts with) the given keyword.
+		 *
+		 * @param document
+		 *            Search document.
+		 * @param keyword
+		 *            Keyword.
+		 * @param column
+		 *            Index of the column to match, or -1 to match any column.
+		 * @param prefix
+		 *            True to match column values starting with the keyword, false to match column values containing it.
+		 * @return True if a column value matches.
+		 */
+		private static boolean matches(String document, String keyword, int column, boolean prefix) {
+
+			// any column contains keyword (keywords cannot contain the separator)
+			if ((column < 0) && !prefix)
+				return document.contains(keyword);
+
+			// loop over column values
+			int start = 0;
+			for (int i = 0; start <= document.length(); i++) {
+				int end = document.indexOf(SEPARATOR, start);
+				if (end < 0)
+					end = document.length();
+				if ((column < 0) || (column == i)) {
+					int index = prefix ? (document.startsWith(keyword, start) ? start : -1) : document.indexOf(keyword, start);
+					if ((index >= 0) && (index + keyword.length() <= end))
+						return true;
+				}
+				start = end + 1;
+			}
+			return false;
+		}
+	}
+}
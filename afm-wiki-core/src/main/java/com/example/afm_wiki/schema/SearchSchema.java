@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.schema;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Class for the search schema of the AFM database. Holds the columns of the search tables which have an upper-cased shadow column (see {@link IndexAdvisor}), so that case-insensitive search queries can
+ * filter on the shadow columns instead of <code>upper(column)</code>.
+ * <p>
+ * Until the schema is inspected, no shadow columns are reported, so that search queries fall back to <code>upper(column)</code>. The schema can be inspected periodically, so that shadow columns added by the
+ * index migration are used without restarting the application.
+ */
+public class SearchSchema {
+
+	/** Servlet context attribute name of the search schema. */
+	public static final String ATTRIBUTE = "searchSchema";
+
+	/** Search tables. */
+	public static final String[] TABLES = { "spectra", "pilot_points", "mult_tables", "ac_models" };
+
+	/** Default inspection interval in minutes. */
+	public static final long DEFAULT_REFRESH_INTERVAL = 60L;
+
+	/** Columns with shadow columns (as table.column). */
+	private volatile Set<String> shadowColumns_ = Collections.emptySet();
+
+	/**
+	 * Inspects the search schema periodically on the given scheduler. Exceptions are caught and printed, so that the scheduled inspections are not canceled.
+	 *
+	 * @param databaseConnectionPool
+	 *            Database connection pool.
+	 * @param scheduler
+	 *            Scheduler to run the inspections on.
+	 * @param refreshInterval
+	 *            Inspection interval in minutes.
+	 */
+	public void schedule(final ConnectionPool databaseConnectionPool, ScheduledExecutorService scheduler, long refreshInterval) {
+		scheduler.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				try (Connection connection = databaseConnectionPool.getConnection(3000)) {
+					update(connection);
+				}
+				catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		}, 0L, refreshInterval, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * Inspects the search tables for shadow columns.
+	 *
+	 * @param connection
+	 *            Database connection.
+	 * @throws SQLException
+	 *             If exception occurs during process.
+	 */
+	public void update(Connection connection) throws SQLException {
+		Set<String> shadowColumns = new TreeSet<>();
+		String schema = IndexAdvisor.getCurrentSchema(connection);
+		DatabaseMetaData metaData = connection.getMetaData();
+		for (String table : TABLES) {
+			Map<String, String> columns = IndexAdvisor.getColumns(metaData, schema, table);
+			for (String column : columns.keySet()) {
+				if (columns.containsKey(IndexAdvisor.getShadowColumn(column)))
+					shadowColumns.add(table + "." + column);
+			}
+		}
+		shadowColumns_ = Collections.unmodifiableSet(shadowColumns);
+	}
+
+	/**
+	 * Returns true if the given column has an upper-cased shadow column.
+	 *
+	 * @param table
+	 *            Table name (lower case).
+	 * @param column
+	 *            Column name (lower case).
+	 * @return True if the given column has an upper-cased shadow column.
+	 */
+	public boolean hasShadowColumn(String table, String column) {
+		return shadowColumns_.contains(table + "." + column);
+	}
+
+	/**
+	 * Returns search schema statistics summary.
+	 *
+	 * @return Search schema statistics summary.
+	 */
+	public String getStatistics() {
+		Set<String> shadowColumns = shadowColumns_;
+		return shadowColumns.isEmpty() ? "no shadow columns" : shadowColumns.size() + " shadow columns " + shadowColumns;
+	}
+}
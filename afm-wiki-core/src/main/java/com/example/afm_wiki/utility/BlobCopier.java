@@ -0,0 +1,349 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.utility;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class for pipelined copying of database BLOB streams to files. The calling thread reads chunks from the BLOB stream into pooled direct buffers, while a second thread writes the filled buffers to the target file, so that network reads from the
+ * database and disk writes overlap instead of alternating.
+ * <p>
+ * Buffers are shared by all copies and allocated lazily up to the configured buffer count. Throughput and the time the reader and the writer stall waiting for each other are measured, so that chunk size and buffer count can be tuned on the
+ * production machine.
+ */
+public class BlobCopier {
+
+	/** Servlet context attribute name of the BLOB copier. */
+	public static final String ATTRIBUTE = "blobCopier";
+
+	/** Default chunk size. */
+	public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+	/** Default number of pooled buffers. */
+	public static final int DEFAULT_BUFFER_COUNT = 32;
+
+	/** Maximum number of buffers a single copy can hold in its pipeline. */
+	private static final int PIPELINE_DEPTH = 4;
+
+	/** End of stream marker. */
+	private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+	/** Chunk size. */
+	private final int chunkSize_;
+
+	/** Maximum number of pooled buffers. */
+	private final int bufferCount_;
+
+	/** Thread executor for writer threads. */
+	private final ExecutorService executor_;
+
+	/** Pool of free buffers. */
+	private final LinkedBlockingQueue<ByteBuffer> pool_ = new LinkedBlockingQueue<>();
+
+	/** Number of allocated buffers. */
+	private final AtomicInteger allocated_ = new AtomicInteger();
+
+	/** Copy statistics. */
+	private final AtomicLong copies_ = new AtomicLong(), bytes_ = new AtomicLong(), wallTime_ = new AtomicLong(), readerStall_ = new AtomicLong(), writerStall_ = new AtomicLong();
+
+	/**
+	 * Creates BLOB copier.
+	 *
+	 * @param chunkSize
+	 *            Chunk size in bytes.
+	 * @param bufferCount
+	 *            Maximum number of pooled buffers (at least 2).
+	 * @param executor
+	 *            Thread executor for writer threads.
+	 */
+	public BlobCopier(int chunkSize, int bufferCount, ExecutorService executor) {
+		chunkSize_ = chunkSize;
+		bufferCount_ = Math.max(2, bufferCount);
+		executor_ = executor;
+	}
+
+	/**
+	 * Copies given BLOB stream to given target file. The target file is replaced if it already exists. The input stream is closed after the copy.
+	 *
+	 * @param in
+	 *            BLOB input stream.
+	 * @param target
+	 *            Target file.
+	 * @return Number of bytes copied.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public long copy(InputStream in, Path target) throws Exception {
+
+		// start measuring
+		long start = System.nanoTime();
+
+		// create pipeline and start writer
+		ArrayBlockingQueue<ByteBuffer> pipeline = new ArrayBlockingQueue<>(PIPELINE_DEPTH + 1);
+		AtomicBoolean failed = new AtomicBoolean();
+		Future<Long> writer = executor_.submit(new Callable<Long>() {
+
+			@Override
+			public Long call() throws Exception {
+				return write(pipeline, target, failed);
+			}
+		});
+
+		// read chunks
+		long read = 0L;
+		try (ReadableByteChannel channel = Channels.newChannel(in)) {
+			while (true) {
+
+				// writer failed (stop reading)
+				if (failed.get())
+					break;
+
+				// get free buffer
+				ByteBuffer buffer = acquireBuffer();
+
+				// fill buffer and pass it to writer (the buffer is returned to the pool if reading fails)
+				int n = 0;
+				try {
+					while (buffer.hasRemaining() && ((n = channel.read(buffer)) != -1)) {
+						// keep on reading
+					}
+					buffer.flip();
+					if (buffer.hasRemaining()) {
+						int size = buffer.remaining();
+						put(pipeline, buffer, readerStall_);
+						read += size;
+						buffer = null;
+					}
+				}
+				finally {
+					if (buffer != null)
+						pool_.offer(buffer);
+				}
+
+				// end of stream
+				if (n == -1)
+					break;
+			}
+		}
+
+		// signal end of stream and wait for writer
+		finally {
+
+			// make room for the marker if the reader is interrupted while waiting (the copy then fails)
+			InterruptedException interrupted = null;
+			try {
+				put(pipeline, END, readerStall_);
+			}
+			catch (InterruptedException e) {
+				interrupted = e;
+				release(pipeline);
+				pipeline.offer(END);
+			}
+
+			// wait for writer and return the buffers it left in the pipeline
+			try {
+				writer.get();
+			}
+			catch (ExecutionException e) {
+				if (e.getCause() instanceof Exception)
+					throw (Exception) e.getCause();
+				throw e;
+			}
+			finally {
+				release(pipeline);
+			}
+			if (interrupted != null)
+				throw interrupted;
+		}
+
+		// record statistics
+		copies_.incrementAndGet();
+		bytes_.addAndGet(read);
+		wallTime_.addAndGet(System.nanoTime() - start);
+		return read;
+	}
+
+	/**
+	 * Returns copy statistics summary.
+	 *
+	 * @return Copy statistics summary.
+	 */
+	public String getStatistics() {
+		long bytes = bytes_.get();
+		long wallTime = wallTime_.get();
+		String stats = copies_.get() + " copies, " + Utility.readableFileSize(bytes) + ", chunk size " + Utility.readableFileSize(chunkSize_) + ", " + allocated_.get() + " buffers allocated";
+		if (wallTime > 0) {
+			stats += ", " + Utility.readableFileSize((long) (bytes / (wallTime / 1e9))) + "/s";
+			stats += ", reader stalled " + String.format("%.1f", readerStall_.get() * 100.0 / wallTime) + "%";
+			stats += ", writer stalled " + String.format("%.1f", writerStall_.get() * 100.0 / wallTime) + "% of wall time";
+		}
+		return stats;
+	}
+
+	/**
+	 * Writes the buffers in the given pipeline to given target file, until the end of stream marker is received. The buffers are returned to the pool after being written.
+	 *
+	 * @param pipeline
+	 *            Pipeline of filled buffers.
+	 * @param target
+	 *            Target file.
+	 * @param failed
+	 *            Set to true if writing fails, so that the reader stops reading.
+	 * @return Number of bytes written.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private long write(BlockingQueue<ByteBuffer> pipeline, Path target, AtomicBoolean failed) throws Exception {
+		long written = 0L;
+		try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (true) {
+				ByteBuffer buffer = take(pipeline, writerStall_);
+				if (buffer == END)
+					return written;
+				try {
+					while (buffer.hasRemaining())
+						written += channel.write(buffer);
+				}
+				finally {
+					pool_.offer(buffer);
+				}
+			}
+		}
+
+		// write failed (drain pipeline so that the reader is not blocked)
+		catch (Exception e) {
+			failed.set(true);
+			try {
+				ByteBuffer buffer;
+				while ((buffer = pipeline.take()) != END)
+					pool_.offer(buffer);
+			}
+
+			// interrupted while draining (return the queued buffers, the reader returns the rest)
+			catch (InterruptedException ie) {
+				release(pipeline);
+			}
+			Files.deleteIfExists(target);
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the buffers queued in given pipeline to the pool, without waiting.
+	 *
+	 * @param pipeline
+	 *            Pipeline of filled buffers.
+	 */
+	private void release(BlockingQueue<ByteBuffer> pipeline) {
+		ByteBuffer buffer;
+		while ((buffer = pipeline.poll()) != null) {
+			if (buffer != END)
+				pool_.offer(buffer);
+		}
+	}
+
+	/**
+	 * Returns a cleared buffer from the pool. A new direct buffer is allocated if the pool is empty and the buffer count is not yet reached, otherwise waits for a buffer to be returned.
+	 *
+	 * @return A cleared buffer.
+	 * @throws InterruptedException
+	 *             If the calling thread is interrupted while waiting.
+	 */
+	private ByteBuffer acquireBuffer() throws InterruptedException {
+
+		// get free buffer
+		ByteBuffer buffer = pool_.poll();
+
+		// allocate new buffer
+		if (buffer == null) {
+			if (allocated_.incrementAndGet() <= bufferCount_) {
+				try {
+					buffer = ByteBuffer.allocateDirect(chunkSize_);
+				}
+				catch (OutOfMemoryError e) {
+					allocated_.decrementAndGet();
+					throw e;
+				}
+			}
+			else {
+				allocated_.decrementAndGet();
+				buffer = take(pool_, readerStall_);
+			}
+		}
+
+		// clear and return
+		buffer.clear();
+		return buffer;
+	}
+
+	/**
+	 * Puts given buffer to given queue, measuring the stall time.
+	 *
+	 * @param queue
+	 *            Queue.
+	 * @param buffer
+	 *            Buffer.
+	 * @param stall
+	 *            Stall time counter.
+	 * @throws InterruptedException
+	 *             If the calling thread is interrupted while waiting.
+	 */
+	private static void put(BlockingQueue<ByteBuffer> queue, ByteBuffer buffer, AtomicLong stall) throws InterruptedException {
+		if (!queue.offer(buffer)) {
+			long start = System.nanoTime();
+			queue.put(buffer);
+			stall.addAndGet(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Takes a buffer from given queue, measuring the stall time.
+	 *
+	 * @param queue
+	 *            Queue.
+	 * @param stall
+	 *            Stall time counter.
+	 * @return The buffer.
+	 * @throws InterruptedException
+	 *             If the calling thread is interrupted while waiting.
+	 */
+	private static ByteBuffer take(BlockingQueue<ByteBuffer> queue, AtomicLong stall) throws InterruptedException {
+		ByteBuffer buffer = queue.poll();
+		if (buffer == null) {
+			long start = System.nanoTime();
+			buffer = queue.take();
+			stall.addAndGet(System.nanoTime() - start);
+		}
+		return buffer;
+	}
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.utility;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.BitSet;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.example.afm_wiki.data.PilotPointImageType;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Class for the pilot point image availability index. For each image type, the index holds a bitmap of pilot point IDs which have an image of that type. The index is rebuilt periodically with one query per image table, which
+ * reads only the IDs of the rows with an image. Since image rows are keyed by pilot point ID, images added to (or removed from) existing pilot points cannot be found by querying new IDs only, so every refresh scans the
+ * image tables completely. Changes are therefore seen within one refresh interval. Images which were added or removed since the previous refresh are invalidated in the image cache, so that the cache does not keep serving
+ * its missing image markers (or removed images) until they expire.
+ * <p>
+ * Until the first build is completed, all images are reported as available, so that callers fall back to querying the database.
+ */
+public class ImageAvailabilityIndex {
+
+	/** Servlet context attribute name of the image availability index. */
+	public static final String ATTRIBUTE = "imageAvailabilityIndex";
+
+	/** Default refresh interval in minutes. */
+	public static final long DEFAULT_REFRESH_INTERVAL = 5L;
+
+	/** Database connection pool. */
+	private final ConnectionPool databaseConnectionPool_;
+
+	/** Image cache to invalidate changed images in. */
+	private final ImageCache imageCache_;
+
+	/** Bitmaps of pilot point IDs with images (indexed by image type ordinal). The bitmaps are not modified after they are published. */
+	private volatile BitSet[] bitmaps_;
+
+	/** Duration of the last refresh in milliseconds. */
+	private volatile long refreshTime_ = 0L;
+
+	/**
+	 * Creates image availability index. The index is built and refreshed periodically on the given scheduler.
+	 *
+	 * @param databaseConnectionPool
+	 *            Database connection pool.
+	 * @param imageCache
+	 *            Image cache to invalidate changed images in.
+	 * @param scheduler
+	 *            Scheduler to run refreshes on.
+	 * @param refreshInterval
+	 *            Refresh interval in minutes.
+	 */
+	public ImageAvailabilityIndex(ConnectionPool databaseConnectionPool, ImageCache imageCache, ScheduledExecutorService scheduler, long refreshInterval) {
+		databaseConnectionPool_ = databaseConnectionPool;
+		imageCache_ = imageCache;
+		scheduler.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				update();
+			}
+		}, 0L, refreshInterval, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * Returns true if the given pilot point has an image of the given type. Returns true if the index is not built yet.
+	 *
+	 * @param pilotPointID
+	 *            Pilot point ID.
+	 * @param imageType
+	 *            Image type.
+	 * @return True if the given pilot point has an image of the given type.
+	 */
+	public boolean isAvailable(int pilotPointID, PilotPointImageType imageType) {
+		BitSet[] bitmaps = bitmaps_;
+		if (bitmaps == null)
+			return true;
+		return bitmaps[imageType.ordinal()].get(pilotPointID);
+	}
+
+	/**
+	 * Returns the availability bitmap of the given pilot point, where the bit of each image type (at the position of its ordinal) is set if the image is available. All bits are set if the index is not built yet.
+	 *
+	 * @param pilotPointID
+	 *            Pilot point ID.
+	 * @return The availability bitmap of the given pilot point.
+	 */
+	public int getAvailability(int pilotPointID) {
+		int availability = 0;
+		for (PilotPointImageType imageType : PilotPointImageType.values()) {
+			if (isAvailable(pilotPointID, imageType))
+				availability |= 1 << imageType.ordinal();
+		}
+		return availability;
+	}
+
+	/**
+	 * Returns index statistics summary.
+	 *
+	 * @return Index statistics summary.
+	 */
+	public String getStatistics() {
+		BitSet[] bitmaps = bitmaps_;
+		if (bitmaps == null)
+			return "not built";
+		int images = 0;
+		long bytes = 0L;
+		for (BitSet bitmap : bitmaps) {
+			images += bitmap.cardinality();
+			bytes += bitmap.size() / 8;
+		}
+		return images + " images indexed in " + Utility.readableFileSize(bytes) + ", last refresh " + refreshTime_ + " ms";
+	}
+
+	/**
+	 * Rebuilds the index. Exceptions are caught and printed (the previous bitmaps are kept), so that the scheduled updates are not canceled.
+	 */
+	private synchronized void update() {
+		try {
+			build();
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Builds the index from scratch and publishes it.
+	 *
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private void build() throws Exception {
+
+		// create bitmaps
+		long start = System.currentTimeMillis();
+		PilotPointImageType[] imageTypes = PilotPointImageType.values();
+		BitSet[] bitmaps = new BitSet[imageTypes.length];
+
+		// query image tables
+		try (Connection connection = databaseConnectionPool_.getConnection(3000)) {
+			try (Statement statement = connection.createStatement()) {
+				for (PilotPointImageType imageType : imageTypes) {
+					bitmaps[imageType.ordinal()] = query(statement, imageType);
+				}
+			}
+		}
+
+		// invalidate added and removed images in the image cache
+		BitSet[] previous = bitmaps_;
+		if (previous != null) {
+			for (PilotPointImageType imageType : imageTypes) {
+				BitSet changed = (BitSet) previous[imageType.ordinal()].clone();
+				changed.xor(bitmaps[imageType.ordinal()]);
+				for (int id = changed.nextSetBit(0); id >= 0; id = changed.nextSetBit(id + 1))
+					imageCache_.invalidate(id, imageType);
+			}
+		}
+
+		// publish
+		bitmaps_ = bitmaps;
+		refreshTime_ = System.currentTimeMillis() - start;
+
+		// release expired images
+		imageCache_.expire();
+	}
+
+	/**
+	 * Queries the IDs of the given image table which have an image.
+	 *
+	 * @param statement
+	 *            Database statement.
+	 * @param imageType
+	 *            Image type.
+	 * @return Bitmap of the IDs.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private static BitSet query(Statement statement, PilotPointImageType imageType) throws Exception {
+		BitSet bitmap = new BitSet();
+		String sql = "select id from " + imageType.getTableName() + " where image is not null";
+		try (ResultSet resultSet = statement.executeQuery(sql)) {
+			while (resultSet.next()) {
+				bitmap.set(resultSet.getInt("id"));
+			}
+		}
+		return bitmap;
+	}
+}
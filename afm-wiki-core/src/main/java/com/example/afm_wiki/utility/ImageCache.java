@@ -0,0 +1,812 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.utility;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import com.example.afm_wiki.data.PilotPointImageRendition;
+import com.example.afm_wiki.data.PilotPointImageType;
+
+/**
+ * Class for the pilot point image cache shared by all sessions. Images are cached per pilot point, image type and rendition.
+ * <p>
+ * Original images are never materialized on the heap. They are streamed from the database into files of the disk tier (enforcing {@link PilotPointImageType#MAX_IMAGE_SIZE} while streaming), and served from there. Downscaled renditions are
+ * derived from the original file and kept in memory up to a byte budget, evicted in least recently used order, and spilled to the disk tier. The disk tier has its own byte budget.
+ * <p>
+ * Concurrent requests for the same missing image are served by a single database load. Missing images are cached as well, so that empty image tabs do not hit the database again.
+ * <p>
+ * The image tables have no modification timestamps, so all cached renditions and missing image markers of a pilot point image expire together, a given time after its original was loaded. Images added to or removed from a pilot
+ * point can be invalidated earlier with {@link #invalidate(int, PilotPointImageType)} (the image availability index does so when it finds them).
+ */
+public class ImageCache {
+
+	/** Servlet context attribute name of the image cache. */
+	public static final String ATTRIBUTE = "imageCache";
+
+	/** Default memory and disk tier budgets. */
+	public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024L * 1024L, DEFAULT_DISK_BUDGET = 1024L * 1024L * 1024L;
+
+	/** Default time to live of cached images in minutes. */
+	public static final long DEFAULT_TIME_TO_LIVE = 10L;
+
+	/** Name of the disk tier directory, which is created in the given parent directory and owned by the cache. */
+	public static final String DIRECTORY_NAME = "afm-wiki-image-cache";
+
+	/** Marker for missing images. */
+	public static final byte[] NO_IMAGE = new byte[0];
+
+	/** Accounted size of cached missing images. */
+	private static final long NO_IMAGE_SIZE = 64L;
+
+	/** Memory and disk tier budgets. */
+	private final long memoryBudget_, diskBudget_;
+
+	/** Disk tier directory. */
+	private final Path diskDirectory_;
+
+	/** Memory tier of renditions and missing image markers (in access order). */
+	private final LinkedHashMap<Key, byte[]> memory_ = new LinkedHashMap<>(256, 0.75f, true);
+
+	/** Disk tier index of original and spilled rendition files (in access order). */
+	private final LinkedHashMap<Key, ImageFile> disk_ = new LinkedHashMap<>(256, 0.75f, true);
+
+	/** Load times of cached images (keyed by original image key). All renditions of an image expire at the time to live after this time. */
+	private final ConcurrentHashMap<Key, Long> loaded_ = new ConcurrentHashMap<>();
+
+	/** Time to live of cached images in milliseconds. */
+	private final long timeToLive_;
+
+	/** Loads in progress. */
+	private final ConcurrentHashMap<Key, FutureTask<?>> loading_ = new ConcurrentHashMap<>();
+
+	/** Used bytes of memory and disk tiers. */
+	private long memoryUsed_ = 0L, diskUsed_ = 0L;
+
+	/** Cache statistics. */
+	private final AtomicLong memoryHits_ = new AtomicLong(), diskHits_ = new AtomicLong(), misses_ = new AtomicLong(), evictions_ = new AtomicLong();
+
+	/**
+	 * Interface for original image loader.
+	 */
+	public interface ImageLoader {
+
+		/**
+		 * Writes the original image to the given output stream.
+		 *
+		 * @param out
+		 *            Output stream. Writing more than {@link PilotPointImageType#MAX_IMAGE_SIZE} bytes fails with an exception.
+		 * @return True if the image is available, false otherwise.
+		 * @throws Exception
+		 *             If exception occurs during process.
+		 */
+		boolean load(OutputStream out) throws Exception;
+	}
+
+	/**
+	 * Creates image cache.
+	 *
+	 * @param memoryBudget
+	 *            Memory tier budget in bytes.
+	 * @param parentDirectory
+	 *            Parent directory of the disk tier. The disk tier directory ({@link #DIRECTORY_NAME}) is created in this directory and emptied. Other contents of the parent directory are not touched.
+	 * @param diskBudget
+	 *            Disk tier budget in bytes.
+	 * @param timeToLive
+	 *            Time to live of cached images (and missing image markers) in minutes.
+	 * @throws IOException
+	 *             If the disk tier directory cannot be created.
+	 */
+	public ImageCache(long memoryBudget, Path parentDirectory, long diskBudget, long timeToLive) throws IOException {
+		memoryBudget_ = memoryBudget;
+		diskDirectory_ = parentDirectory.resolve(DIRECTORY_NAME);
+		diskBudget_ = diskBudget;
+		timeToLive_ = TimeUnit.MINUTES.toMillis(timeToLive);
+		Utility.deleteTemporaryFiles(diskDirectory_, diskDirectory_);
+		Files.createDirectories(diskDirectory_);
+	}
+
+	/**
+	 * Returns the original image file from the cache. If the image is not cached, it is streamed into the disk tier with the given loader.
+	 * <p>
+	 * Note that, the returned file may be evicted from the disk tier at any time. Callers should open the file immediately, and request it again if it is gone.
+	 *
+	 * @param id
+	 *            Pilot point ID.
+	 * @param type
+	 *            Image type.
+	 * @param loader
+	 *            Original image loader.
+	 * @return The original image file, or null if the image is not available.
+	 * @throws Exception
+	 *             If exception occurs during loading the image.
+	 */
+	public ImageFile getOriginal(int id, PilotPointImageType type, ImageLoader loader) throws Exception {
+		expire(id, type);
+		return getOriginal(id, type, loader, true);
+	}
+
+	/**
+	 * Returns the requested rendition from the cache. If the rendition is not cached, it is derived from the original image file (which is loaded with the given loader if necessary).
+	 *
+	 * @param id
+	 *            Pilot point ID.
+	 * @param type
+	 *            Image type.
+	 * @param rendition
+	 *            Image rendition. Cannot be the original (see {@link #getOriginal(int, PilotPointImageType, ImageLoader)}).
+	 * @param loader
+	 *            Original image loader.
+	 * @return The rendition bytes, or {@link #NO_IMAGE} if the image is not available.
+	 * @throws Exception
+	 *             If exception occurs during loading the image.
+	 */
+	public byte[] get(int id, PilotPointImageType type, PilotPointImageRendition rendition, ImageLoader loader) throws Exception {
+
+		// cache hit (expired images are removed first)
+		byte[] image = getIfPresent(id, type, rendition);
+		if (image != null)
+			return image;
+
+		// join or start load
+		Key key = new Key(id, type, rendition);
+		return load(key, new Callable<byte[]>() {
+
+			@Override
+			public byte[] call() throws Exception {
+				misses_.incrementAndGet();
+				ImageFile original = getOriginal(id, type, loader, false);
+				byte[] image = original == null ? NO_IMAGE : ImageScaler.createRendition(original.getPath(), rendition);
+				put(key, image);
+				return image;
+			}
+		});
+	}
+
+	/**
+	 * Returns the requested rendition if it is cached in memory or on disk.
+	 *
+	 * @param id
+	 *            Pilot point ID.
+	 * @param type
+	 *            Image type.
+	 * @param rendition
+	 *            Image rendition. Cannot be the original.
+	 * @return The rendition bytes, {@link #NO_IMAGE} if the image is known to be not available, or null if the rendition is not cached.
+	 */
+	public byte[] getIfPresent(int id, PilotPointImageType type, PilotPointImageRendition rendition) {
+
+		// original requested
+		if (rendition.equals(PilotPointImageRendition.ORIGINAL))
+			throw new IllegalArgumentException("Original images are not kept in memory.");
+
+		// remove expired image
+		expire(id, type);
+
+		// memory hit (or known to be missing)
+		Key key = new Key(id, type, rendition);
+		byte[] image = getFromMemory(key);
+		if ((image == null) && (getFromMemory(new Key(id, type, PilotPointImageRendition.ORIGINAL)) == NO_IMAGE))
+			image = NO_IMAGE;
+		if (image != null) {
+			memoryHits_.incrementAndGet();
+			return image;
+		}
+
+		// disk hit
+		ImageFile file = getFromDiskIndex(key);
+		if (file != null) {
+			try {
+				image = Files.readAllBytes(file.getPath());
+				diskHits_.incrementAndGet();
+				put(key, image);
+			}
+
+			// file is gone (treat as miss)
+			catch (IOException e) {
+				image = null;
+			}
+		}
+		return image;
+	}
+
+	/**
+	 * Returns true if the given rendition is cached in memory or on disk.
+	 *
+	 * @param id
+	 *            Pilot point ID.
+	 * @param type
+	 *            Image type.
+	 * @param rendition
+	 *            Image rendition.
+	 * @return True if the given image is cached.
+	 */
+	public boolean contains(int id, PilotPointImageType type, PilotPointImageRendition rendition) {
+		Key key = new Key(id, type, rendition);
+		synchronized (memory_) {
+			if (memory_.containsKey(key))
+				return true;
+		}
+		synchronized (disk_) {
+			return disk_.containsKey(key);
+		}
+	}
+
+	/**
+	 * Removes all renditions and the missing image marker of the given image from the cache, so that the image is loaded again on the next request.
+	 *
+	 * @param id
+	 *            Pilot point ID.
+	 * @param type
+	 *            Image type.
+	 */
+	public void invalidate(int id, PilotPointImageType type) {
+		loaded_.remove(new Key(id, type, PilotPointImageRendition.ORIGINAL));
+		for (PilotPointImageRendition rendition : PilotPointImageRendition.values()) {
+			Key key = new Key(id, type, rendition);
+			synchronized (memory_) {
+				byte[] image = memory_.remove(key);
+				if (image != null)
+					memoryUsed_ -= getSize(image);
+			}
+			synchronized (disk_) {
+				ImageFile file = disk_.remove(key);
+				if (file != null) {
+					diskUsed_ -= file.getSize();
+					deleteFile(file.getPath());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes all expired images from the cache. Expired images are also removed when they are requested, this only releases the memory and disk space of expired images which are not requested anymore.
+	 */
+	public void expire() {
+		long now = System.currentTimeMillis();
+		for (Entry<Key, Long> entry : loaded_.entrySet()) {
+			if (now - entry.getValue() >= timeToLive_)
+				invalidate(entry.getKey().id_, entry.getKey().type_);
+		}
+	}
+
+	/**
+	 * Removes all images from the cache.
+	 */
+	public void clear() {
+		loaded_.clear();
+		synchronized (memory_) {
+			memory_.clear();
+			memoryUsed_ = 0L;
+		}
+		synchronized (disk_) {
+			for (ImageFile file : disk_.values())
+				deleteFile(file.getPath());
+			disk_.clear();
+			diskUsed_ = 0L;
+		}
+	}
+
+	/**
+	 * Returns cache statistics summary.
+	 *
+	 * @return Cache statistics summary.
+	 */
+	public String getStatistics() {
+		long memoryHits = memoryHits_.get(), diskHits = diskHits_.get(), misses = misses_.get();
+		long requests = memoryHits + diskHits + misses;
+		String stats = requests + " requests, " + memoryHits + " memory hits, " + diskHits + " disk hits, " + misses + " misses, " + evictions_.get() + " evictions";
+		if (requests > 0)
+			stats += ", hit rate " + String.format("%.1f", (memoryHits + diskHits) * 100.0 / requests) + "%";
+		synchronized (memory_) {
+			stats += ", memory " + memory_.size() + " images, " + Utility.readableFileSize(memoryUsed_) + " of " + Utility.readableFileSize(memoryBudget_);
+		}
+		synchronized (disk_) {
+			stats += ", disk " + disk_.size() + " images, " + Utility.readableFileSize(diskUsed_) + " of " + Utility.readableFileSize(diskBudget_);
+		}
+		return stats;
+	}
+
+	/**
+	 * Returns the original image file from the cache, or loads it with the given loader.
+	 *
+	 * @param id
+	 *            Pilot point ID.
+	 * @param type
+	 *            Image type.
+	 * @param loader
+	 *            Original image loader.
+	 * @param record
+	 *            True to record the request in the cache statistics (false if the original is requested to derive a rendition, whose request is already recorded).
+	 * @return The original image file, or null if the image is not available.
+	 * @throws Exception
+	 *             If exception occurs during loading the image.
+	 */
+	private ImageFile getOriginal(int id, PilotPointImageType type, ImageLoader loader, boolean record) throws Exception {
+
+		// known to be missing
+		Key key = new Key(id, type, PilotPointImageRendition.ORIGINAL);
+		if (getFromMemory(key) == NO_IMAGE) {
+			if (record)
+				memoryHits_.incrementAndGet();
+			return null;
+		}
+
+		// disk hit
+		ImageFile file = getFromDiskIndex(key);
+		if (file != null) {
+			if (record)
+				diskHits_.incrementAndGet();
+			return file;
+		}
+
+		// join or start load
+		return load(key, new Callable<ImageFile>() {
+
+			@Override
+			public ImageFile call() throws Exception {
+				if (record)
+					misses_.incrementAndGet();
+				loaded_.putIfAbsent(key, System.currentTimeMillis());
+				return writeOriginal(key, loader);
+			}
+		});
+	}
+
+	/**
+	 * Removes the given image from the cache if it has expired.
+	 *
+	 * @param id
+	 *            Pilot point ID.
+	 * @param type
+	 *            Image type.
+	 */
+	private void expire(int id, PilotPointImageType type) {
+		Long loaded = loaded_.get(new Key(id, type, PilotPointImageRendition.ORIGINAL));
+		if ((loaded != null) && (System.currentTimeMillis() - loaded >= timeToLive_))
+			invalidate(id, type);
+	}
+
+	/**
+	 * Runs the given load, or joins the load of the same key which is already in progress.
+	 *
+	 * @param key
+	 *            Cache key.
+	 * @param callable
+	 *            Load to run.
+	 * @return The result of the load.
+	 * @throws Exception
+	 *             If the load fails.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> T load(Key key, Callable<T> callable) throws Exception {
+
+		// join load in progress
+		FutureTask<T> load = new FutureTask<>(callable);
+		FutureTask<?> running = loading_.putIfAbsent(key, load);
+		if (running != null)
+			load = (FutureTask<T>) running;
+
+		// run load
+		else {
+			try {
+				load.run();
+			}
+			finally {
+				loading_.remove(key);
+			}
+		}
+
+		// get result
+		try {
+			return load.get();
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception)
+				throw (Exception) e.getCause();
+			throw e;
+		}
+	}
+
+	/**
+	 * Streams the original image with the given loader into a disk tier file.
+	 *
+	 * @param key
+	 *            Cache key.
+	 * @param loader
+	 *            Original image loader.
+	 * @return The original image file, or null if the image is not available.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private ImageFile writeOriginal(Key key, ImageLoader loader) throws Exception {
+
+		// stream image into temporary file
+		Path temp = Files.createTempFile(diskDirectory_, "load", ".tmp");
+		CRC32 crc = new CRC32();
+		boolean available;
+		long size;
+		try {
+			try (SizeLimitedOutputStream out = new SizeLimitedOutputStream(new CheckedOutputStream(Files.newOutputStream(temp), crc), PilotPointImageType.MAX_IMAGE_SIZE)) {
+				available = loader.load(out);
+				size = out.getSize();
+			}
+		}
+		catch (Exception e) {
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+
+		// not available
+		if (!available || (size == 0L)) {
+			Files.deleteIfExists(temp);
+			put(key, NO_IMAGE);
+			return null;
+		}
+
+		// move to disk tier
+		ImageFile file = new ImageFile(getFile(key), size, crc.getValue());
+		Files.move(temp, file.getPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		addToDisk(key, file);
+		return file;
+	}
+
+	/**
+	 * Returns the image from the memory tier.
+	 *
+	 * @param key
+	 *            Cache key.
+	 * @return The image, or null if it is not in the memory tier.
+	 */
+	private byte[] getFromMemory(Key key) {
+		synchronized (memory_) {
+			return memory_.get(key);
+		}
+	}
+
+	/**
+	 * Returns the disk tier file of given key if it exists.
+	 *
+	 * @param key
+	 *            Cache key.
+	 * @return The disk tier file, or null if it is not in the disk tier.
+	 */
+	private ImageFile getFromDiskIndex(Key key) {
+		synchronized (disk_) {
+			ImageFile file = disk_.get(key);
+			if ((file != null) && !Files.exists(file.getPath())) {
+				disk_.remove(key);
+				diskUsed_ -= file.getSize();
+				return null;
+			}
+			return file;
+		}
+	}
+
+	/**
+	 * Puts given rendition to the memory tier. Renditions evicted from the memory tier are spilled to the disk tier.
+	 *
+	 * @param key
+	 *            Cache key.
+	 * @param image
+	 *            Image bytes.
+	 */
+	private void put(Key key, byte[] image) {
+
+		// put to memory tier and collect evicted images
+		ArrayList<Entry<Key, byte[]>> evicted = new ArrayList<>();
+		synchronized (memory_) {
+			byte[] previous = memory_.put(key, image);
+			if (previous != null)
+				memoryUsed_ -= getSize(previous);
+			memoryUsed_ += getSize(image);
+			Iterator<Entry<Key, byte[]>> iterator = memory_.entrySet().iterator();
+			while ((memoryUsed_ > memoryBudget_) && iterator.hasNext()) {
+				Entry<Key, byte[]> eldest = iterator.next();
+				iterator.remove();
+				memoryUsed_ -= getSize(eldest.getValue());
+				evictions_.incrementAndGet();
+				evicted.add(eldest);
+			}
+		}
+
+		// spill evicted renditions to disk tier (outside of memory lock)
+		for (Entry<Key, byte[]> entry : evicted) {
+			if (entry.getValue() != NO_IMAGE)
+				spill(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Writes given rendition to the disk tier.
+	 *
+	 * @param key
+	 *            Cache key.
+	 * @param image
+	 *            Image bytes.
+	 */
+	private void spill(Key key, byte[] image) {
+
+		// already in disk tier
+		synchronized (disk_) {
+			if (disk_.containsKey(key))
+				return;
+		}
+
+		// write file
+		Path file = getFile(key);
+		try {
+			Path temp = Files.createTempFile(diskDirectory_, "spill", ".tmp");
+			Files.write(temp, image);
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+
+		// cannot write (skip disk tier)
+		catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+
+		// add to disk tier
+		CRC32 crc = new CRC32();
+		crc.update(image);
+		addToDisk(key, new ImageFile(file, image.length, crc.getValue()));
+	}
+
+	/**
+	 * Adds given file to the disk tier index, and evicts least recently used files if the disk budget is exceeded.
+	 *
+	 * @param key
+	 *            Cache key.
+	 * @param file
+	 *            Disk tier file.
+	 */
+	private void addToDisk(Key key, ImageFile file) {
+		synchronized (disk_) {
+			ImageFile previous = disk_.put(key, file);
+			if (previous != null)
+				diskUsed_ -= previous.getSize();
+			diskUsed_ += file.getSize();
+			Iterator<Entry<Key, ImageFile>> iterator = disk_.entrySet().iterator();
+			while ((diskUsed_ > diskBudget_) && iterator.hasNext()) {
+				Entry<Key, ImageFile> eldest = iterator.next();
+				if (eldest.getKey().equals(key))
+					continue;
+				iterator.remove();
+				diskUsed_ -= eldest.getValue().getSize();
+				evictions_.incrementAndGet();
+				deleteFile(eldest.getValue().getPath());
+			}
+		}
+	}
+
+	/**
+	 * Deletes given disk tier file.
+	 *
+	 * @param file
+	 *            Disk tier file.
+	 */
+	private static void deleteFile(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Returns the disk tier file path of given key.
+	 *
+	 * @param key
+	 *            Cache key.
+	 * @return The disk tier file path.
+	 */
+	private Path getFile(Key key) {
+		return diskDirectory_.resolve(key.type_.getTableName() + "_" + key.id_ + "_" + key.rendition_.name().toLowerCase());
+	}
+
+	/**
+	 * Returns the accounted size of given image.
+	 *
+	 * @param image
+	 *            Image bytes.
+	 * @return The accounted size of given image.
+	 */
+	private static long getSize(byte[] image) {
+		return image == NO_IMAGE ? NO_IMAGE_SIZE : image.length;
+	}
+
+	/**
+	 * Class for image file of the disk tier.
+	 */
+	public static class ImageFile {
+
+		/** File path. */
+		private final Path path_;
+
+		/** File size. */
+		private final long size_;
+
+		/** CRC32 checksum of file content. */
+		private final long crc_;
+
+		/**
+		 * Creates image file.
+		 *
+		 * @param path
+		 *            File path.
+		 * @param size
+		 *            File size.
+		 * @param crc
+		 *            CRC32 checksum of file content.
+		 */
+		ImageFile(Path path, long size, long crc) {
+			path_ = path;
+			size_ = size;
+			crc_ = crc;
+		}
+
+		/**
+		 * Returns file path.
+		 *
+		 * @return File path.
+		 */
+		public Path getPath() {
+			return path_;
+		}
+
+		/**
+		 * Returns file size.
+		 *
+		 * @return File size.
+		 */
+		public long getSize() {
+			return size_;
+		}
+
+		/**
+		 * Returns CRC32 checksum of file content.
+		 *
+		 * @return CRC32 checksum of file content.
+		 */
+		public long getCRC() {
+			return crc_;
+		}
+	}
+
+	/**
+	 * Output stream which fails as soon as more than the given number of bytes are written.
+	 */
+	private static class SizeLimitedOutputStream extends FilterOutputStream {
+
+		/** Maximum number of bytes. */
+		private final long limit_;
+
+		/** Number of bytes written. */
+		private long size_ = 0L;
+
+		/**
+		 * Creates size limited output stream.
+		 *
+		 * @param out
+		 *            Underlying output stream.
+		 * @param limit
+		 *            Maximum number of bytes.
+		 */
+		SizeLimitedOutputStream(OutputStream out, long limit) {
+			super(out);
+			limit_ = limit;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			count(1);
+			out.write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			count(len);
+			out.write(b, off, len);
+		}
+
+		/**
+		 * Returns number of bytes written.
+		 *
+		 * @return Number of bytes written.
+		 */
+		long getSize() {
+			return size_;
+		}
+
+		/**
+		 * Counts given number of bytes, and fails if the limit is exceeded.
+		 *
+		 * @param len
+		 *            Number of bytes to be written.
+		 * @throws IOException
+		 *             If the limit is exceeded.
+		 */
+		private void count(int len) throws IOException {
+			size_ += len;
+			if (size_ > limit_)
+				throw new IOException("Image exceeds the maximum image size of " + Utility.readableFileSize(limit_) + ".");
+		}
+	}
+
+	/**
+	 * Inner class for cache key.
+	 */
+	private static class Key {
+
+		/** Pilot point ID. */
+		private final int id_;
+
+		/** Image type. */
+		private final PilotPointImageType type_;
+
+		/** Image rendition. */
+		private final PilotPointImageRendition rendition_;
+
+		/**
+		 * Creates cache key.
+		 *
+		 * @param id
+		 *            Pilot point ID.
+		 * @param type
+		 *            Image type.
+		 * @param rendition
+		 *            Image rendition.
+		 */
+		Key(int id, PilotPointImageType type, PilotPointImageRendition rendition) {
+			id_ = id;
+			type_ = type;
+			rendition_ = rendition;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * id_ + type_.hashCode()) + rendition_.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return (id_ == other.id_) && (type_ == other.type_) && (rendition_ == other.rendition_);
+		}
+	}
+}
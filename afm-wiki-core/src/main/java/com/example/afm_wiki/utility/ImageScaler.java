@@ -0,0 +1,200 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.utility;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import com.example.afm_wiki.data.PilotPointImageRendition;
+
+/**
+ * Class for creating downscaled renditions of pilot point images. Renditions are encoded both as PNG and (for opaque images) JPEG, and the smaller encoding is kept. Charts usually stay PNG, while photographs usually become JPEG.
+ */
+public class ImageScaler {
+
+	/** JPEG quality of renditions. */
+	private static final float JPEG_QUALITY = 0.85f;
+
+	/** MIME types. */
+	public static final String PNG = "image/png", JPEG = "image/jpeg";
+
+	/**
+	 * Creates the given rendition of the given image file. The original file content is returned if the image already fits into the rendition bounds, or the image cannot be decoded.
+	 *
+	 * @param original
+	 *            Original image file.
+	 * @param rendition
+	 *            Rendition to create. Cannot be the original.
+	 * @return The rendition bytes.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static byte[] createRendition(Path original, PilotPointImageRendition rendition) throws Exception {
+
+		// original requested
+		if (rendition.equals(PilotPointImageRendition.ORIGINAL))
+			throw new IllegalArgumentException("Original images are not created as renditions.");
+
+		// decode image
+		BufferedImage image = ImageIO.read(original.toFile());
+		if (image == null)
+			return Files.readAllBytes(original);
+
+		// already fits
+		double scale = Math.min((double) rendition.getWidth() / image.getWidth(), (double) rendition.getHeight() / image.getHeight());
+		if (scale >= 1.0)
+			return Files.readAllBytes(original);
+
+		// downscale in halving steps (bilinear interpolation loses detail when shrinking more than half at once)
+		int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+		int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+		BufferedImage scaled = image;
+		do {
+			int w = Math.max(width, scaled.getWidth() / 2);
+			int h = Math.max(height, scaled.getHeight() / 2);
+			scaled = resize(scaled, w, h);
+		}
+		while ((scaled.getWidth() != width) || (scaled.getHeight() != height));
+
+		// encode as PNG
+		byte[] png = encode(scaled, "png");
+
+		// encode as JPEG (only opaque images) and keep smaller one
+		if (!scaled.getColorModel().hasAlpha()) {
+			byte[] jpeg = encode(scaled, "jpeg");
+			if ((jpeg != null) && (jpeg.length < png.length))
+				return jpeg;
+		}
+		return png;
+	}
+
+	/**
+	 * Returns the MIME type of the given image bytes.
+	 *
+	 * @param image
+	 *            Image bytes.
+	 * @return The MIME type of the given image bytes.
+	 */
+	public static String getMimeType(byte[] image) {
+		if ((image.length > 1) && ((image[0] & 0xFF) == 0xFF) && ((image[1] & 0xFF) == 0xD8))
+			return JPEG;
+		return PNG;
+	}
+
+	/**
+	 * Returns the MIME type of the given image file.
+	 *
+	 * @param image
+	 *            Image file.
+	 * @return The MIME type of the given image file.
+	 * @throws IOException
+	 *             If the file cannot be read.
+	 */
+	public static String getMimeType(Path image) throws IOException {
+		byte[] magic = new byte[2];
+		try (InputStream in = Files.newInputStream(image)) {
+			int n = in.read(magic);
+			return n == 2 ? getMimeType(magic) : PNG;
+		}
+	}
+
+	/**
+	 * Returns the file extension of the given image bytes.
+	 *
+	 * @param image
+	 *            Image bytes.
+	 * @return The file extension of the given image bytes.
+	 */
+	public static String getExtension(byte[] image) {
+		return getMimeType(image).equals(JPEG) ? ".jpg" : ".png";
+	}
+
+	/**
+	 * Resizes given image with bilinear interpolation.
+	 *
+	 * @param image
+	 *            Image to resize.
+	 * @param width
+	 *            Target width.
+	 * @param height
+	 *            Target height.
+	 * @return The resized image.
+	 */
+	private static BufferedImage resize(BufferedImage image, int width, int height) {
+		int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+		BufferedImage resized = new BufferedImage(width, height, type);
+		Graphics2D g = resized.createGraphics();
+		try {
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			g.drawImage(image, 0, 0, width, height, null);
+		}
+		finally {
+			g.dispose();
+		}
+		return resized;
+	}
+
+	/**
+	 * Encodes given image in given format.
+	 *
+	 * @param image
+	 *            Image to encode.
+	 * @param format
+	 *            Image format name.
+	 * @return The encoded bytes, or null if there is no writer for the format.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private static byte[] encode(BufferedImage image, String format) throws Exception {
+
+		// get writer
+		Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+		if (!writers.hasNext())
+			return null;
+		ImageWriter writer = writers.next();
+
+		// write image
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+			writer.setOutput(out);
+			ImageWriteParam param = writer.getDefaultWriteParam();
+			if (format.equals("jpeg")) {
+				param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+				param.setCompressionQuality(JPEG_QUALITY);
+			}
+			writer.write(null, new IIOImage(image, null, null), param);
+		}
+		finally {
+			writer.dispose();
+		}
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.utility;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class for lock-free latency histogram. Values are recorded in nanoseconds into log-linear buckets (64 linear sub-buckets per power of two), so that percentiles are reported with less than 2% relative error over
+ * the full range of long values, in constant memory.
+ */
+public class LatencyHistogram {
+
+	/** Number of bits of the linear sub-buckets. */
+	private static final int SUB_BUCKET_BITS = 7;
+
+	/** Number of values recorded exactly, and number of sub-buckets per power of two above it. */
+	private static final int EXACT = 1 << SUB_BUCKET_BITS, HALF = EXACT / 2;
+
+	/** Number of buckets. */
+	private static final int BUCKETS = EXACT + (63 - SUB_BUCKET_BITS) * HALF;
+
+	/** Bucket counts. */
+	private final AtomicLongArray counts_ = new AtomicLongArray(BUCKETS);
+
+	/** Number of recorded values, their sum and maximum. */
+	private final AtomicLong count_ = new AtomicLong(), sum_ = new AtomicLong(), max_ = new AtomicLong();
+
+	/**
+	 * Records given value.
+	 *
+	 * @param nanos
+	 *            Value in nanoseconds (negative values are recorded as 0).
+	 */
+	public void record(long nanos) {
+		long value = Math.max(0L, nanos);
+		counts_.incrementAndGet(getIndex(value));
+		count_.incrementAndGet();
+		sum_.addAndGet(value);
+		long max = max_.get();
+		while ((value > max) && !max_.compareAndSet(max, value))
+			max = max_.get();
+	}
+
+	/**
+	 * Adds all values of the given histogram to this histogram.
+	 *
+	 * @param histogram
+	 *            Histogram to add.
+	 */
+	public void add(LatencyHistogram histogram) {
+		for (int i = 0; i < BUCKETS; i++) {
+			long count = histogram.counts_.get(i);
+			if (count > 0)
+				counts_.addAndGet(i, count);
+		}
+		count_.addAndGet(histogram.count_.get());
+		sum_.addAndGet(histogram.sum_.get());
+		long value = histogram.max_.get(), max = max_.get();
+		while ((value > max) && !max_.compareAndSet(max, value))
+			max = max_.get();
+	}
+
+	/**
+	 * Removes all recorded values.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++)
+			counts_.set(i, 0L);
+		count_.set(0L);
+		sum_.set(0L);
+		max_.set(0L);
+	}
+
+	/**
+	 * Returns number of recorded values.
+	 *
+	 * @return Number of recorded values.
+	 */
+	public long getCount() {
+		return count_.get();
+	}
+
+	/**
+	 * Returns sum of recorded values in nanoseconds.
+	 *
+	 * @return Sum of recorded values in nanoseconds.
+	 */
+	public long getSum() {
+		return sum_.get();
+	}
+
+	/**
+	 * Returns mean of recorded values in nanoseconds.
+	 *
+	 * @return Mean of recorded values in nanoseconds, or 0 if no value is recorded.
+	 */
+	public double getMean() {
+		long count = count_.get();
+		return count == 0 ? 0.0 : (double) sum_.get() / count;
+	}
+
+	/**
+	 * Returns maximum recorded value in nanoseconds.
+	 *
+	 * @return Maximum recorded value in nanoseconds.
+	 */
+	public long getMax() {
+		return max_.get();
+	}
+
+	/**
+	 * Returns the value at given percentile.
+	 *
+	 * @param percentile
+	 *            Percentile (between 0 and 100).
+	 * @return The value at given percentile in nanoseconds, or 0 if no value is recorded.
+	 */
+	public long getPercentile(double percentile) {
+
+		// no value
+		long count = count_.get();
+		if (count == 0)
+			return 0L;
+
+		// find bucket of the percentile rank
+		long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * count));
+		long seen = 0L;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts_.get(i);
+			if (seen >= rank)
+				return Math.min(getUpperBound(i), max_.get());
+		}
+		return max_.get();
+	}
+
+	/**
+	 * Returns statistics summary in milliseconds.
+	 *
+	 * @return Statistics summary in milliseconds.
+	 */
+	public String getStatistics() {
+		return String.format("n %d, mean %.2f, p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, max %.2f ms", getCount(), getMean() / 1e6, getPercentile(50) / 1e6, getPercentile(90) / 1e6, getPercentile(99) / 1e6, getPercentile(99.9) / 1e6, getMax() / 1e6);
+	}
+
+	/**
+	 * Returns bucket index of given value.
+	 *
+	 * @param value
+	 *            Non-negative value.
+	 * @return Bucket index.
+	 */
+	private static int getIndex(long value) {
+		if (value < EXACT)
+			return (int) value;
+		int magnitude = 63 - Long.numberOfLeadingZeros(value);
+		int shift = magnitude - SUB_BUCKET_BITS + 1;
+		return EXACT + (magnitude - SUB_BUCKET_BITS) * HALF + (int) (value >>> shift) - HALF;
+	}
+
+	/**
+	 * Returns the highest value of the bucket with given index.
+	 *
+	 * @param index
+	 *            Bucket index.
+	 * @return The highest value of the bucket.
+	 */
+	private static long getUpperBound(int index) {
+		if (index < EXACT)
+			return index;
+		int magnitude = (index - EXACT) / HALF + SUB_BUCKET_BITS;
+		long subBucket = (index - EXACT) % HALF + HALF;
+		int shift = magnitude - SUB_BUCKET_BITS + 1;
+		return ((subBucket + 1) << shift) - 1;
+	}
+}
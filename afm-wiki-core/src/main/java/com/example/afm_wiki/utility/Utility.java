@@ -38,7 +38,7 @@ import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.lang3.RandomUtils;
 
-import snaq.db.ConnectionPool;
+import com.example.afm_wiki.metrics.MeteredConnectionPool;
 
 /**
  * Class for utility methods and functions.
@@ -93,7 +93,7 @@ public class Utility {
 	}
 
 	/**
-	 * Sets up database connection pool for connecting to global database.
+	 * Sets up database connection pool for connecting to global database. The pool records the connection wait times.
 	 *
 	 * @param hostname
 	 *            Host name of the database server.
@@ -107,7 +107,7 @@ public class Utility {
 	 *            Database password.
 	 * @return The newly created database connection pool.
 	 */
-	public static ConnectionPool setupDatabaseConnectionPool(String hostname, String port, String path, String username, String password) {
+	public static MeteredConnectionPool setupDatabaseConnectionPool(String hostname, String port, String path, String username, String password) {
 
 		try {
 
@@ -125,7 +125,7 @@ public class Utility {
 			String dbURL = "jdbc:derby://" + hostname + ":" + port + "/" + path;
 
 			// create and initialize database connection pool
-			ConnectionPool dbPool = new ConnectionPool(poolName, minPool, maxPool, maxSize, idleTimeout, dbURL, username, password);
+			MeteredConnectionPool dbPool = new MeteredConnectionPool(poolName, minPool, maxPool, maxSize, idleTimeout, dbURL, username, password);
 
 			// register shut down hook (to ensure it releases resources when JVM exits)
 			dbPool.registerShutdownHook();
@@ -204,9 +204,20 @@ public class Utility {
 	 * @return Newly created download file path.
 	 */
 	public static Path createDownloadFilePath() {
-		Path path = DOWNLOADS_DIR.resolve("download_" + RandomUtils.nextInt(0, 10000) + ".zip");
+		return createDownloadFilePath(DOWNLOADS_DIR);
+	}
+
+	/**
+	 * Creates and returns a download file path within the given directory.
+	 *
+	 * @param directory
+	 *            Directory of the download file.
+	 * @return Newly created download file path.
+	 */
+	public static Path createDownloadFilePath(Path directory) {
+		Path path = directory.resolve("download_" + RandomUtils.nextInt(0, 10000) + ".zip");
 		while (Files.exists(path))
-			path = DOWNLOADS_DIR.resolve("download_" + RandomUtils.nextInt(0, 10000) + ".zip");
+			path = directory.resolve("download_" + RandomUtils.nextInt(0, 10000) + ".zip");
 		return path;
 	}
 
@@ -0,0 +1,455 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+import javax.servlet.annotation.WebServlet;
+
+import org.vaadin.simplefiledownloader.SimpleFileDownloader;
+
+import com.example.afm_wiki.download.DownloadAdmission;
+import com.example.afm_wiki.download.DownloadRegistry;
+import com.example.afm_wiki.metrics.SlowQueryLog;
+import com.example.afm_wiki.metrics.TaskMetrics;
+import com.example.afm_wiki.schema.ReverseIndex;
+import com.example.afm_wiki.schema.SearchDocumentIndex;
+import com.example.afm_wiki.schema.SearchSchema;
+import com.example.afm_wiki.servlet.DownloadServlet;
+import com.example.afm_wiki.servlet.StreamServlet;
+import com.example.afm_wiki.task.DownloadTask;
+import com.example.afm_wiki.task.WikiTask;
+import com.example.afm_wiki.ui.JobTray;
+import com.example.afm_wiki.ui.ProgressDialog;
+import com.example.afm_wiki.ui.ResultsView;
+import com.example.afm_wiki.ui.SearchView;
+import com.example.afm_wiki.utility.AFMDatabaseConnection;
+import com.example.afm_wiki.utility.BlobCopier;
+import com.example.afm_wiki.utility.ImageAvailabilityIndex;
+import com.example.afm_wiki.utility.ImageCache;
+import com.example.afm_wiki.utility.Utility;
+import com.vaadin.annotations.Push;
+import com.vaadin.annotations.Theme;
+import com.vaadin.annotations.VaadinServletConfiguration;
+import com.vaadin.navigator.Navigator;
+import com.vaadin.server.ExternalResource;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinServlet;
+import com.vaadin.ui.UI;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * This UI is the application entry point. A UI may either represent a browser window (or tab) or some part of a html page where a Vaadin application is embedded.
+ * <p>
+ * The UI is initialized using {@link #init(VaadinRequest)}. This method is intended to be overridden to add component to the user interface and initialize non-component functionality.
+ */
+@Theme("mytheme")
+@Push
+public class WikiUI extends UI {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** Progress dialog. */
+	private ProgressDialog progressDialog_;
+
+	/** Job tray. */
+	private JobTray jobTray_;
+
+	/** File downloader. */
+	private SimpleFileDownloader downloader_;
+
+	/** Search view. */
+	private SearchView searchView_;
+
+	/** Results view. */
+	private ResultsView resultsView_;
+
+	/** The navigator of application. */
+	private Navigator navigator_;
+
+	@Override
+	protected void init(VaadinRequest vaadinRequest) {
+
+		// set browser title
+		getPage().setTitle("Digital Twin - WIKI");
+
+		// create search view
+		searchView_ = new SearchView(this);
+
+		// create results view
+		resultsView_ = new ResultsView(this);
+
+		// create progress dialog
+		progressDialog_ = new ProgressDialog(this);
+
+		// create job tray
+		jobTray_ = new JobTray(this);
+
+		// create file downloader
+		downloader_ = new SimpleFileDownloader();
+		addExtension(downloader_);
+
+		// create navigator and add views
+		navigator_ = new Navigator(this, this);
+		navigator_.addView("", searchView_);
+		navigator_.addView("Results", resultsView_);
+	}
+
+	/**
+	 * Returns the progress dialog.
+	 *
+	 * @return The progress dialog.
+	 */
+	public ProgressDialog getProgressDialog() {
+		return progressDialog_;
+	}
+
+	/**
+	 * Returns search view.
+	 *
+	 * @return The search view.
+	 */
+	public SearchView getSearchView() {
+		return searchView_;
+	}
+
+	/**
+	 * Returns results view.
+	 *
+	 * @return Results view.
+	 */
+	public ResultsView getResultsView() {
+		return resultsView_;
+	}
+
+	/**
+	 * Shows search view.
+	 */
+	public void showSearchView() {
+		navigator_.navigateTo("");
+	}
+
+	/**
+	 * Shows results view.
+	 */
+	public void showResultsView() {
+		navigator_.navigateTo("Results");
+	}
+
+	/**
+	 * Submits given task to thread pool.
+	 *
+	 * @param task
+	 *            Task to submit.
+	 */
+	public void submitTask(WikiTask<?> task) {
+		if (!progressDialog_.isAttached()) {
+			addWindow(progressDialog_);
+		}
+		progressDialog_.submitTask(task);
+	}
+
+	/**
+	 * Submits given task to thread pool as a background task. Background tasks run with minimum priority and don't show the progress dialog.
+	 *
+	 * @param task
+	 *            Task to submit.
+	 */
+	public void submitBackgroundTask(WikiTask<?> task) {
+		task.setBackground(true);
+		progressDialog_.submitTask(task);
+	}
+
+	/**
+	 * Submits given download task as a background job. The job is tracked by the job tray, so that the user can keep on working while the download is prepared.
+	 *
+	 * @param task
+	 *            Download task to submit.
+	 */
+	public void submitJob(DownloadTask task) {
+		submitJob(task, task.getJobCaption());
+	}
+
+	/**
+	 * Submits given task as a job tracked by the job tray.
+	 *
+	 * @param task
+	 *            Task to submit.
+	 * @param caption
+	 *            Caption of the job.
+	 */
+	public void submitJob(WikiTask<?> task, String caption) {
+		jobTray_.addJob(task, caption);
+		showJobTray();
+		progressDialog_.submitTask(task);
+	}
+
+	/**
+	 * Shows the job tray (if not already shown).
+	 */
+	public void showJobTray() {
+		if (!jobTray_.isAttached()) {
+			jobTray_.setPositionX(Math.max(0, getPage().getBrowserWindowWidth() - 400));
+			jobTray_.setPositionY(20);
+			addWindow(jobTray_);
+		}
+	}
+
+	@Override
+	public void detach() {
+
+		// delete prepared downloads which were never fetched
+		jobTray_.discardUnfetched();
+
+		// call ancestor
+		super.detach();
+	}
+
+	/**
+	 * Starts downloading given prepared file. The file is registered to the download registry and served by the download servlet, which supports resuming broken downloads.
+	 *
+	 * @param downloadPath
+	 *            Path to download file.
+	 * @param fileName
+	 *            Download file name.
+	 */
+	synchronized public void download(File downloadPath, String fileName) {
+
+		// register download
+		ServletContext servletContext = VaadinServlet.getCurrent().getServletContext();
+		DownloadRegistry registry = (DownloadRegistry) servletContext.getAttribute(DownloadRegistry.ATTRIBUTE);
+		String token = registry.register(downloadPath, fileName);
+
+		// start download
+		downloader_.setFileDownloadResource(new ExternalResource(DownloadServlet.getURL(servletContext.getContextPath(), token)));
+		downloader_.download();
+	}
+
+	/**
+	 * Starts the streamed download with given token. The download is served by the stream servlet directly from the database.
+	 *
+	 * @param token
+	 *            Streamed download token.
+	 */
+	synchronized public void stream(String token) {
+		String contextPath = VaadinServlet.getCurrent().getServletContext().getContextPath();
+		downloader_.setFileDownloadResource(new ExternalResource(StreamServlet.getURL(contextPath, token)));
+		downloader_.download();
+	}
+
+	@SuppressWarnings("serial")
+	@WebListener
+	@WebServlet(urlPatterns = "/*", name = "WikiUIServlet", asyncSupported = true)
+	@VaadinServletConfiguration(ui = WikiUI.class, productionMode = true)
+	public static class WikiUIServlet extends VaadinServlet implements ServletContextListener {
+
+		@Override
+		public void contextInitialized(ServletContextEvent arg0) {
+
+			// get servlet context
+			ServletContext servletContext = arg0.getServletContext();
+
+			// create cashed thread pool and set it to servlet context
+			ExecutorService threadPool = Executors.newCachedThreadPool();
+			servletContext.setAttribute("threadPool", threadPool);
+			System.out.println("Thread pool created.");
+
+			// create scheduler for periodic maintenance tasks
+			ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+			servletContext.setAttribute("scheduler", scheduler);
+			System.out.println("Scheduler created.");
+
+			// create task metrics (exposed via JMX and the statistics servlet)
+			TaskMetrics metrics = new TaskMetrics();
+			servletContext.setAttribute(TaskMetrics.ATTRIBUTE, metrics);
+			try {
+				metrics.register();
+				System.out.println("Task metrics created.");
+			}
+			catch (Exception e) {
+				System.out.println("Task metrics created (not registered to MBean server).");
+				e.printStackTrace();
+			}
+
+			// setup global database connection pool
+			String hostname = AFMDatabaseConnection.HOSTNAME.getValue();
+			String port = AFMDatabaseConnection.PORT.getValue();
+			String path = AFMDatabaseConnection.PATH.getValue();
+			String username = AFMDatabaseConnection.USERNAME.getValue();
+			String password = AFMDatabaseConnection.PASSWORD.getValue();
+			ConnectionPool databaseConnectionPool = Utility.setupDatabaseConnectionPool(hostname, port, path, username, password);
+			servletContext.setAttribute("databaseConnectionPool", databaseConnectionPool);
+			System.out.println("Database connection pool created.");
+
+			// create slow query log (threshold in milliseconds, plan capture and directory can be set as context parameters, plan capture is off by default since it slows down every search query)
+			String slowQueryThreshold = servletContext.getInitParameter("slowQueryThreshold");
+			String slowQueryPlans = servletContext.getInitParameter("slowQueryPlans");
+			String slowQueryDirectory = servletContext.getInitParameter("slowQueryLogDirectory");
+			long threshold = slowQueryThreshold == null ? SlowQueryLog.DEFAULT_THRESHOLD : Long.parseLong(slowQueryThreshold);
+			boolean plans = slowQueryPlans == null ? false : Boolean.parseBoolean(slowQueryPlans);
+			try {
+				SlowQueryLog slowQueryLog = new SlowQueryLog(Paths.get(slowQueryDirectory == null ? "logs" : slowQueryDirectory), threshold, plans, SlowQueryLog.DEFAULT_MAX_FILE_SIZE, SlowQueryLog.DEFAULT_MAX_FILES, scheduler);
+				servletContext.setAttribute(SlowQueryLog.ATTRIBUTE, slowQueryLog);
+				System.out.println("Slow query log created.");
+			}
+			catch (IOException e) {
+				throw new IllegalStateException("Cannot create slow query log directory.", e);
+			}
+
+			// create search schema (inspected on the scheduler, so that shadow columns added by the index migration are used)
+			SearchSchema searchSchema = new SearchSchema();
+			searchSchema.schedule(databaseConnectionPool, scheduler, SearchSchema.DEFAULT_REFRESH_INTERVAL);
+			servletContext.setAttribute(SearchSchema.ATTRIBUTE, searchSchema);
+			System.out.println("Search schema created.");
+
+			// create reverse-string index (built on the scheduler, ends with filters are not served from it until then)
+			ReverseIndex reverseIndex = new ReverseIndex(databaseConnectionPool, scheduler, ReverseIndex.DEFAULT_REFRESH_INTERVAL, ReverseIndex.DEFAULT_REBUILD_INTERVAL);
+			servletContext.setAttribute(ReverseIndex.ATTRIBUTE, reverseIndex);
+			System.out.println("Reverse-string index created.");
+
+			// create search document index (built on the scheduler, basic searches are not served from it until then)
+			SearchDocumentIndex searchDocumentIndex = new SearchDocumentIndex(databaseConnectionPool, scheduler, SearchDocumentIndex.DEFAULT_REFRESH_INTERVAL, SearchDocumentIndex.DEFAULT_REBUILD_INTERVAL, SearchDocumentIndex.DEFAULT_MAX_MEMORY);
+			servletContext.setAttribute(SearchDocumentIndex.ATTRIBUTE, searchDocumentIndex);
+			System.out.println("Search document index created.");
+
+			// create download registry
+			servletContext.setAttribute(DownloadRegistry.ATTRIBUTE, new DownloadRegistry());
+			System.out.println("Download registry created.");
+
+			// create download admission controller
+			DownloadAdmission admission = new DownloadAdmission(DownloadAdmission.DEFAULT_USER_BUDGET, DownloadAdmission.DEFAULT_GLOBAL_BUDGET, DownloadAdmission.DEFAULT_MAX_QUEUED, DownloadAdmission.DEFAULT_QUEUE_TIMEOUT);
+			servletContext.setAttribute(DownloadAdmission.ATTRIBUTE, admission);
+			System.out.println("Download admission controller created.");
+
+			// create BLOB copier (chunk size and buffer count can be set as context parameters)
+			String chunkSize = servletContext.getInitParameter("blobChunkSize");
+			String bufferCount = servletContext.getInitParameter("blobBufferCount");
+			int chunk = chunkSize == null ? BlobCopier.DEFAULT_CHUNK_SIZE : Integer.parseInt(chunkSize);
+			int buffers = bufferCount == null ? BlobCopier.DEFAULT_BUFFER_COUNT : Integer.parseInt(bufferCount);
+			servletContext.setAttribute(BlobCopier.ATTRIBUTE, new BlobCopier(chunk, buffers, threadPool));
+			System.out.println("BLOB copier created.");
+
+			// create image cache (original images are streamed to the disk tier, which is a directory of the cache under the given or downloads directory)
+			String memoryBudget = servletContext.getInitParameter("imageCacheSize");
+			String diskDirectory = servletContext.getInitParameter("imageCacheDirectory");
+			String diskBudget = servletContext.getInitParameter("imageCacheDiskSize");
+			String timeToLive = servletContext.getInitParameter("imageCacheTimeToLive");
+			long memory = memoryBudget == null ? ImageCache.DEFAULT_MEMORY_BUDGET : Long.parseLong(memoryBudget);
+			long disk = diskBudget == null ? ImageCache.DEFAULT_DISK_BUDGET : Long.parseLong(diskBudget);
+			long ttl = timeToLive == null ? ImageCache.DEFAULT_TIME_TO_LIVE : Long.parseLong(timeToLive);
+			ImageCache imageCache;
+			try {
+				imageCache = new ImageCache(memory, diskDirectory == null ? Utility.DOWNLOADS_DIR : Paths.get(diskDirectory), disk, ttl);
+				servletContext.setAttribute(ImageCache.ATTRIBUTE, imageCache);
+				System.out.println("Image cache created.");
+			}
+			catch (IOException e) {
+				throw new IllegalStateException("Cannot create image cache directory.", e);
+			}
+
+			// create image availability index (built and refreshed on the scheduler, invalidates changed images in the image cache)
+			ImageAvailabilityIndex imageIndex = new ImageAvailabilityIndex(databaseConnectionPool, imageCache, scheduler, ImageAvailabilityIndex.DEFAULT_REFRESH_INTERVAL);
+			servletContext.setAttribute(ImageAvailabilityIndex.ATTRIBUTE, imageIndex);
+			System.out.println("Image availability index created.");
+
+			// servlet context initialized
+			System.out.println("Servlet context initialized.");
+		}
+
+		@Override
+		public void contextDestroyed(ServletContextEvent arg0) {
+
+			// get servlet context
+			ServletContext servletContext = arg0.getServletContext();
+
+			// shut down thread pool
+			ExecutorService threadpool = (ExecutorService) servletContext.getAttribute("threadPool");
+			Utility.shutdownThreadExecutor(threadpool);
+			System.out.println("Thread pool shut down.");
+
+			// write remaining slow queries
+			SlowQueryLog slowQueryLog = (SlowQueryLog) servletContext.getAttribute(SlowQueryLog.ATTRIBUTE);
+			slowQueryLog.shutdown();
+			System.out.println("Slow query log: " + slowQueryLog.getStatistics());
+
+			// shut down scheduler
+			ScheduledExecutorService scheduler = (ScheduledExecutorService) servletContext.getAttribute("scheduler");
+			Utility.shutdownThreadExecutor(scheduler);
+			System.out.println("Scheduler shut down.");
+
+			// shutdown database connection pool
+			ConnectionPool databaseConnectionPool = (ConnectionPool) servletContext.getAttribute("databaseConnectionPool");
+			databaseConnectionPool.release();
+			System.out.println("Database connection pool shutdown.");
+
+			// print task metrics
+			TaskMetrics metrics = (TaskMetrics) servletContext.getAttribute(TaskMetrics.ATTRIBUTE);
+			System.out.println("Task metrics:\n" + metrics.getStatistics());
+			try {
+				metrics.unregister();
+			}
+			catch (Exception e) {
+				e.printStackTrace();
+			}
+
+			// print search schema statistics
+			SearchSchema searchSchema = (SearchSchema) servletContext.getAttribute(SearchSchema.ATTRIBUTE);
+			System.out.println("Search schema: " + searchSchema.getStatistics());
+
+			// print reverse-string index statistics
+			ReverseIndex reverseIndex = (ReverseIndex) servletContext.getAttribute(ReverseIndex.ATTRIBUTE);
+			System.out.println("Reverse-string index: " + reverseIndex.getStatistics());
+
+			// print search document index statistics
+			SearchDocumentIndex searchDocumentIndex = (SearchDocumentIndex) servletContext.getAttribute(SearchDocumentIndex.ATTRIBUTE);
+			System.out.println("Search document index: " + searchDocumentIndex.getStatistics());
+
+			// print download admission statistics
+			DownloadAdmission admission = (DownloadAdmission) servletContext.getAttribute(DownloadAdmission.ATTRIBUTE);
+			System.out.println("Download admission: " + admission.getStatistics());
+
+			// print BLOB copy statistics
+			BlobCopier copier = (BlobCopier) servletContext.getAttribute(BlobCopier.ATTRIBUTE);
+			System.out.println("BLOB copies: " + copier.getStatistics());
+
+			// print image cache statistics
+			ImageCache imageCache = (ImageCache) servletContext.getAttribute(ImageCache.ATTRIBUTE);
+			System.out.println("Image cache: " + imageCache.getStatistics());
+
+			// print image availability index statistics
+			ImageAvailabilityIndex imageIndex = (ImageAvailabilityIndex) servletContext.getAttribute(ImageAvailabilityIndex.ATTRIBUTE);
+			System.out.println("Image availability index: " + imageIndex.getStatistics());
+
+			// clean downloads directory
+			Utility.deleteTemporaryFiles(Utility.DOWNLOADS_DIR, Utility.DOWNLOADS_DIR);
+			System.out.println("Downloads directory cleaned.");
+
+			// servlet context destroyed
+			System.out.println("Servlet context destroyed.");
+		}
+	}
+}
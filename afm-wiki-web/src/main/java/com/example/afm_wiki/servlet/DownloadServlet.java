@@ -0,0 +1,169 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.servlet;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebInitParam;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.example.afm_wiki.download.DownloadRegistry;
+import com.example.afm_wiki.download.DownloadRegistry.PreparedDownload;
+import com.example.afm_wiki.download.FileTransfer;
+import com.example.afm_wiki.download.FileTransfer.TransferMode;
+
+/**
+ * Servlet for serving prepared download files. Supports content length, entity tags and single byte-range requests, so that broken downloads can be resumed by the client. The file content is written with the transfer mode given by the <code>transferMode</code>
+ * init parameter. In <code>SENDFILE</code> mode, the file content is handed to the container's sendfile support (falling back to <code>TRANSFER_TO</code> if the container has none), so that the other modes can be measured on containers
+ * with sendfile support as well.
+ */
+@WebServlet(urlPatterns = "/download/*", name = "DownloadServlet", asyncSupported = true, initParams = @WebInitParam(name = "transferMode", value = "STREAM"))
+public class DownloadServlet extends HttpServlet {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** URL path of the servlet (relative to context path). */
+	public static final String PATH = "/download/";
+
+	/** Request attributes of the container sendfile support. */
+	private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support", SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename", SENDFILE_START = "org.apache.tomcat.sendfile.start", SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+	/** File transfer mode. */
+	private TransferMode transferMode_ = TransferMode.STREAM;
+
+	@Override
+	public void init() throws ServletException {
+		String mode = getInitParameter("transferMode");
+		if (mode != null)
+			transferMode_ = TransferMode.valueOf(mode);
+	}
+
+	@Override
+	public void destroy() {
+		for (TransferMode mode : TransferMode.values())
+			System.out.println("Download transfers " + mode.getStatistics());
+	}
+
+	@Override
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		serve(request, response, true);
+	}
+
+	@Override
+	protected void doHead(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		serve(request, response, false);
+	}
+
+	/**
+	 * Returns the URL of the download with given token.
+	 *
+	 * @param contextPath
+	 *            Servlet context path.
+	 * @param token
+	 *            Download token.
+	 * @return The URL of the download.
+	 */
+	public static String getURL(String contextPath, String token) {
+		return contextPath + PATH + token;
+	}
+
+	/**
+	 * Serves the requested download file.
+	 *
+	 * @param request
+	 *            HTTP request.
+	 * @param response
+	 *            HTTP response.
+	 * @param content
+	 *            True if the content should be written.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private void serve(HttpServletRequest request, HttpServletResponse response, boolean content) throws IOException {
+
+		// get prepared download
+		DownloadRegistry registry = (DownloadRegistry) getServletContext().getAttribute(DownloadRegistry.ATTRIBUTE);
+		String token = request.getPathInfo() == null ? null : request.getPathInfo().substring(1);
+		PreparedDownload download = registry == null ? null : registry.get(token);
+
+		// download not found
+		if ((download == null) || !download.getFile().isFile()) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		// get file attributes
+		File file = download.getFile();
+		long size = file.length();
+		long lastModified = file.lastModified();
+		String eTag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+
+		// set common headers
+		response.setContentType("application/octet-stream");
+		response.setHeader("Content-Disposition", "attachment; filename=\"" + download.getFileName() + "\"");
+		response.setHeader("Accept-Ranges", "bytes");
+		response.setHeader("ETag", eTag);
+		response.setDateHeader("Last-Modified", lastModified);
+
+		// get requested range
+		long[] range = RangeRequest.getRange(request, size, eTag, lastModified);
+
+		// range not satisfiable
+		if (range == null) {
+			response.setHeader("Content-Range", "bytes */" + size);
+			response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+			return;
+		}
+
+		// partial content
+		long length = range[1] - range[0] + 1;
+		if (length != size) {
+			response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+			response.setHeader("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + size);
+		}
+		response.setHeader("Content-Length", Long.toString(length));
+
+		// no content to write
+		if (!content || (length == 0))
+			return;
+
+		// sendfile mode
+		TransferMode mode = transferMode_;
+		if (mode.equals(TransferMode.SENDFILE)) {
+
+			// container supports sendfile (let container transfer the file)
+			if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+				request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+				request.setAttribute(SENDFILE_START, range[0]);
+				request.setAttribute(SENDFILE_END, range[1] + 1);
+				FileTransfer.recordSendfile(length);
+				return;
+			}
+
+			// no sendfile support
+			mode = TransferMode.TRANSFER_TO;
+		}
+
+		// write content
+		FileTransfer.transfer(file.toPath(), range[0], length, response.getOutputStream(), mode);
+	}
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.servlet;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.zip.CRC32;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.example.afm_wiki.data.PilotPointImageRendition;
+import com.example.afm_wiki.data.PilotPointImageType;
+import com.example.afm_wiki.download.FileTransfer;
+import com.example.afm_wiki.download.FileTransfer.TransferMode;
+import com.example.afm_wiki.engine.PilotPointImages;
+import com.example.afm_wiki.utility.ImageAvailabilityIndex;
+import com.example.afm_wiki.utility.ImageCache;
+import com.example.afm_wiki.utility.ImageCache.ImageFile;
+import com.example.afm_wiki.utility.ImageScaler;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Servlet for serving pilot point images at URLs of the form <code>/images/pilot-point/{id}/{type}/{rendition}?v={version}</code>, where the version is the checksum of the cached image (see {@link #getURL(String, int,
+ * PilotPointImageType, PilotPointImageRendition, String)}). Since a replaced image gets a new URL, versioned responses are cacheable for a year and marked immutable, so that repeated views of an image do not reach the server.
+ * <p>
+ * Requests without version are answered with <code>no-cache</code> and a content based entity tag, so that they are revalidated on each use. The entity tag is computed from the cached image, so conditional requests still look the
+ * image up in the image cache, but they are answered with 304 without sending the image.
+ * <p>
+ * Since the image tables have no modification timestamps, the last modification date is the start time of the servlet. The entity tag takes precedence in conditional requests.
+ */
+@WebServlet(urlPatterns = "/images/*", name = "ImageServlet", asyncSupported = true)
+public class ImageServlet extends HttpServlet {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** URL path of pilot point images (relative to context path). */
+	public static final String PATH = "/images/pilot-point/";
+
+	/** Max-age of versioned images in seconds. */
+	private static final long MAX_AGE = 365L * 24L * 60L * 60L;
+
+	/** Start time of the servlet (rounded to seconds for HTTP dates). */
+	private long startTime_;
+
+	@Override
+	public void init() throws ServletException {
+		startTime_ = System.currentTimeMillis() / 1000L * 1000L;
+	}
+
+	@Override
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+
+		// parse path (/pilot-point/{id}/{type}/{rendition})
+		String[] path = request.getPathInfo() == null ? new String[0] : request.getPathInfo().split("/");
+		if ((path.length != 5) || !path[1].equals("pilot-point")) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+		int pilotPointID;
+		PilotPointImageType imageType;
+		PilotPointImageRendition rendition;
+		try {
+			pilotPointID = Integer.parseInt(path[2]);
+			imageType = PilotPointImageType.valueOf(path[3].toUpperCase());
+			rendition = PilotPointImageRendition.valueOf(path[4].toUpperCase());
+		}
+		catch (IllegalArgumentException e) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		// image not available
+		ServletContext servletContext = getServletContext();
+		ImageAvailabilityIndex imageIndex = (ImageAvailabilityIndex) servletContext.getAttribute(ImageAvailabilityIndex.ATTRIBUTE);
+		if (!imageIndex.isAvailable(pilotPointID, imageType)) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		// get services
+		ImageCache imageCache = (ImageCache) servletContext.getAttribute(ImageCache.ATTRIBUTE);
+		ConnectionPool databaseConnectionPool = (ConnectionPool) servletContext.getAttribute("databaseConnectionPool");
+
+		// original (streamed from disk tier file)
+		if (rendition.equals(PilotPointImageRendition.ORIGINAL)) {
+			writeOriginal(request, response, imageCache, databaseConnectionPool, pilotPointID, imageType);
+			return;
+		}
+
+		// get rendition
+		byte[] image;
+		try {
+			image = PilotPointImages.getImage(imageCache, databaseConnectionPool, pilotPointID, imageType, rendition);
+		}
+		catch (Exception e) {
+			throw new ServletException(e);
+		}
+
+		// no image
+		if (image.length == 0) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		// not modified
+		CRC32 crc = new CRC32();
+		crc.update(image);
+		if (setCachingHeaders(request, response, image.length, crc.getValue()))
+			return;
+
+		// write image
+		response.setContentType(ImageScaler.getMimeType(image));
+		response.setContentLength(image.length);
+		response.getOutputStream().write(image);
+	}
+
+	/**
+	 * Streams the original image from its disk tier file to the response. Since the file may be evicted from the disk tier between lookup and transfer, the image is requested once more if the file is gone.
+	 *
+	 * @param request
+	 *            HTTP request.
+	 * @param response
+	 *            HTTP response.
+	 * @param imageCache
+	 *            Image cache.
+	 * @param databaseConnectionPool
+	 *            Database connection pool.
+	 * @param pilotPointID
+	 *            Pilot point ID.
+	 * @param imageType
+	 *            Image type.
+	 * @throws ServletException
+	 *             If the image cannot be loaded.
+	 * @throws IOException
+	 *             If exception occurs during writing the response.
+	 */
+	private void writeOriginal(HttpServletRequest request, HttpServletResponse response, ImageCache imageCache, ConnectionPool databaseConnectionPool, int pilotPointID, PilotPointImageType imageType) throws ServletException, IOException {
+		for (int attempt = 0;; attempt++) {
+
+			// get original file
+			ImageFile file;
+			try {
+				file = PilotPointImages.getOriginal(imageCache, databaseConnectionPool, pilotPointID, imageType);
+			}
+			catch (Exception e) {
+				throw new ServletException(e);
+			}
+
+			// no image
+			if (file == null) {
+				response.sendError(HttpServletResponse.SC_NOT_FOUND);
+				return;
+			}
+
+			// not modified
+			if (setCachingHeaders(request, response, file.getSize(), file.getCRC()))
+				return;
+
+			// stream file
+			try {
+				response.setContentType(ImageScaler.getMimeType(file.getPath()));
+				response.setHeader("Content-Length", Long.toString(file.getSize()));
+				FileTransfer.transfer(file.getPath(), 0L, file.getSize(), response.getOutputStream(), TransferMode.STREAM);
+				return;
+			}
+
+			// evicted before transfer (request again)
+			catch (NoSuchFileException e) {
+				if ((attempt > 0) || response.isCommitted())
+					throw e;
+				response.reset();
+			}
+		}
+	}
+
+	/**
+	 * Sets the caching headers of the response, and answers conditional requests. Versioned requests are cacheable for {@link #MAX_AGE} seconds, others are revalidated on each use.
+	 *
+	 * @param request
+	 *            HTTP request.
+	 * @param response
+	 *            HTTP response.
+	 * @param size
+	 *            Image size.
+	 * @param crc
+	 *            CRC32 checksum of the image.
+	 * @return True if the client's copy of the image is still valid and 304 is sent.
+	 */
+	private boolean setCachingHeaders(HttpServletRequest request, HttpServletResponse response, long size, long crc) {
+
+		// set caching headers
+		String eTag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(crc) + "\"";
+		response.setHeader("ETag", eTag);
+		response.setDateHeader("Last-Modified", startTime_);
+		response.setHeader("Cache-Control", request.getParameter("v") == null ? "no-cache" : "public, max-age=" + MAX_AGE + ", immutable");
+
+		// not modified
+		if (isNotModified(request, eTag)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the URL of the given pilot point image.
+	 *
+	 * @param contextPath
+	 *            Servlet context path.
+	 * @param pilotPointID
+	 *            Pilot point ID.
+	 * @param imageType
+	 *            Image type.
+	 * @param rendition
+	 *            Image rendition.
+	 * @param version
+	 *            Image version (a checksum of the image, which changes when the image is replaced), or null to request revalidation on each use.
+	 * @return The URL of the image.
+	 */
+	public static String getURL(String contextPath, int pilotPointID, PilotPointImageType imageType, PilotPointImageRendition rendition, String version) {
+		String url = contextPath + PATH + pilotPointID + "/" + imageType.name().toLowerCase() + "/" + rendition.name().toLowerCase();
+		return version == null ? url : url + "?v=" + version;
+	}
+
+	/**
+	 * Returns true if the client's copy of the image is still valid.
+	 *
+	 * @param request
+	 *            HTTP request.
+	 * @param eTag
+	 *            Entity tag of the image.
+	 * @return True if the client's copy of the image is still valid.
+	 */
+	private boolean isNotModified(HttpServletRequest request, String eTag) {
+
+		// entity tag validation
+		String ifNoneMatch = request.getHeader("If-None-Match");
+		if (ifNoneMatch != null) {
+			for (String tag : ifNoneMatch.split(",")) {
+				tag = tag.trim();
+				if (tag.equals("*") || tag.equals(eTag) || tag.equals("W/" + eTag))
+					return true;
+			}
+			return false;
+		}
+
+		// date validation
+		try {
+			long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+			return (ifModifiedSince != -1) && (ifModifiedSince >= startTime_);
+		}
+
+		// invalid date
+		catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.servlet;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Class for parsing the <code>Range</code> and <code>If-Range</code> headers of download requests. Only single byte-ranges are supported; multiple or invalid ranges are answered with the full content.
+ */
+class RangeRequest {
+
+	/**
+	 * Returns the requested byte range as first and last byte positions (inclusive). The whole content is returned if there is no (or an unsupported) range request, or if the content changed since the client's copy.
+	 *
+	 * @param request
+	 *            HTTP request.
+	 * @param size
+	 *            Content size.
+	 * @param eTag
+	 *            Entity tag of the content.
+	 * @param lastModified
+	 *            Last modification time of the content, or -1 if not known (date validators are then treated as changed).
+	 * @return The requested byte range, or null if the range is not satisfiable.
+	 */
+	static long[] getRange(HttpServletRequest request, long size, String eTag, long lastModified) {
+
+		// create full range
+		long[] full = { 0, size - 1 };
+
+		// no range requested
+		String range = request.getHeader("Range");
+		if ((range == null) || !range.startsWith("bytes="))
+			return full;
+
+		// content changed since the client's copy (serve full content)
+		String ifRange = request.getHeader("If-Range");
+		if (ifRange != null) {
+			if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+				if (!ifRange.equals(eTag))
+					return full;
+			}
+			else {
+				if (lastModified < 0)
+					return full;
+				try {
+					if (request.getDateHeader("If-Range") < lastModified / 1000 * 1000)
+						return full;
+				}
+
+				// invalid date (serve full content)
+				catch (IllegalArgumentException e) {
+					return full;
+				}
+			}
+		}
+
+		// multiple ranges are not supported (serve full content)
+		String spec = range.substring("bytes=".length()).trim();
+		int dash = spec.indexOf('-');
+		if ((dash == -1) || spec.contains(","))
+			return full;
+
+		try {
+
+			// suffix range
+			long start, end;
+			if (dash == 0) {
+				long suffix = Long.parseLong(spec.substring(1).trim());
+				if (suffix <= 0)
+					return null;
+				start = Math.max(0, size - suffix);
+				end = size - 1;
+			}
+
+			// open or closed range
+			else {
+				start = Long.parseLong(spec.substring(0, dash).trim());
+				String last = spec.substring(dash + 1).trim();
+				end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+			}
+
+			// check range
+			if ((start >= size) || (start > end))
+				return null;
+			return new long[] { start, end };
+		}
+
+		// invalid range (serve full content)
+		catch (NumberFormatException e) {
+			return full;
+		}
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.servlet;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.util.List;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.example.afm_wiki.download.DownloadAdmission;
+import com.example.afm_wiki.metrics.MeteredConnectionPool;
+import com.example.afm_wiki.metrics.SlowQueryLog;
+import com.example.afm_wiki.metrics.TaskMetrics;
+import com.example.afm_wiki.schema.ReverseIndex;
+import com.example.afm_wiki.schema.SearchDocumentIndex;
+import com.example.afm_wiki.schema.SearchSchema;
+import com.example.afm_wiki.utility.BlobCopier;
+import com.example.afm_wiki.utility.ImageAvailabilityIndex;
+import com.example.afm_wiki.utility.ImageCache;
+
+/**
+ * Read-only servlet for operations statistics. Serves the task metrics, the recent task failures, the recent slow queries and the statistics of the shared services as plain text at <code>/stats</code>.
+ * <p>
+ * Statistics are only served to local clients, unless the context parameter <code>statsRemoteAccess</code> is set to <code>true</code>.
+ */
+@WebServlet(urlPatterns = "/stats/*", name = "StatsServlet", asyncSupported = true)
+public class StatsServlet extends HttpServlet {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+
+		// remote client
+		ServletContext servletContext = getServletContext();
+		if (!Boolean.parseBoolean(servletContext.getInitParameter("statsRemoteAccess")) && !InetAddress.getByName(request.getRemoteAddr()).isLoopbackAddress()) {
+			response.sendError(HttpServletResponse.SC_FORBIDDEN);
+			return;
+		}
+
+		// set headers
+		response.setContentType("text/plain");
+		response.setCharacterEncoding("UTF-8");
+		response.setHeader("Cache-Control", "no-store");
+		PrintWriter writer = response.getWriter();
+
+		// task metrics
+		TaskMetrics metrics = (TaskMetrics) servletContext.getAttribute(TaskMetrics.ATTRIBUTE);
+		if (metrics != null) {
+			writer.println("Task metrics:");
+			writer.print(metrics.getStatistics());
+			writer.println();
+			writer.println("Recent failures:");
+			String[] failures = metrics.getRecentFailures();
+			if (failures.length == 0)
+				writer.println("None.");
+			for (String failure : failures)
+				writer.println(failure);
+			writer.println();
+		}
+
+		// slow queries
+		SlowQueryLog slowQueryLog = (SlowQueryLog) servletContext.getAttribute(SlowQueryLog.ATTRIBUTE);
+		if (slowQueryLog != null) {
+			writer.println("Slow query log: " + slowQueryLog.getStatistics());
+			writer.println("Recent slow queries:");
+			List<String> entries = slowQueryLog.getRecentEntries();
+			if (entries.isEmpty())
+				writer.println("None.");
+			for (String entry : entries)
+				writer.println(entry);
+			writer.println();
+		}
+
+		// database connection pool
+		Object pool = servletContext.getAttribute("databaseConnectionPool");
+		if (pool instanceof MeteredConnectionPool) {
+			MeteredConnectionPool databaseConnectionPool = (MeteredConnectionPool) pool;
+			writer.println("Database connection pool: " + databaseConnectionPool.getSize() + " connections (" + databaseConnectionPool.getCheckedOut() + " checked out, " + databaseConnectionPool.getMaxPool() + " pooled), " + databaseConnectionPool.getTimeouts() + " timed out");
+			writer.println("Connection wait: " + databaseConnectionPool.getWaits().getStatistics());
+		}
+
+		// shared services
+		SearchSchema searchSchema = (SearchSchema) servletContext.getAttribute(SearchSchema.ATTRIBUTE);
+		if (searchSchema != null)
+			writer.println("Search schema: " + searchSchema.getStatistics());
+		ReverseIndex reverseIndex = (ReverseIndex) servletContext.getAttribute(ReverseIndex.ATTRIBUTE);
+		if (reverseIndex != null)
+			writer.println("Reverse-string index: " + reverseIndex.getStatistics());
+		SearchDocumentIndex searchDocumentIndex = (SearchDocumentIndex) servletContext.getAttribute(SearchDocumentIndex.ATTRIBUTE);
+		if (searchDocumentIndex != null)
+			writer.println("Search document index: " + searchDocumentIndex.getStatistics());
+		DownloadAdmission admission = (DownloadAdmission) servletContext.getAttribute(DownloadAdmission.ATTRIBUTE);
+		if (admission != null)
+			writer.println("Download admission: " + admission.getStatistics());
+		BlobCopier copier = (BlobCopier) servletContext.getAttribute(BlobCopier.ATTRIBUTE);
+		if (copier != null)
+			writer.println("BLOB copies: " + copier.getStatistics());
+		ImageCache imageCache = (ImageCache) servletContext.getAttribute(ImageCache.ATTRIBUTE);
+		if (imageCache != null)
+			writer.println("Image cache: " + imageCache.getStatistics());
+		ImageAvailabilityIndex imageIndex = (ImageAvailabilityIndex) servletContext.getAttribute(ImageAvailabilityIndex.ATTRIBUTE);
+		if (imageIndex != null)
+			writer.println("Image availability index: " + imageIndex.getStatistics());
+	}
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.servlet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Blob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebInitParam;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.example.afm_wiki.download.DownloadAdmission;
+import com.example.afm_wiki.download.DownloadRegistry;
+import com.example.afm_wiki.download.DownloadRejectedException;
+import com.example.afm_wiki.download.StreamedDownload;
+import com.example.afm_wiki.download.StreamedDownload.ProgressListener;
+import com.example.afm_wiki.metrics.FlightEvents;
+import com.example.afm_wiki.utility.Utility;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Servlet for serving streamed downloads. BLOBs are streamed in chunks from the database directly to the response, so that the download is never held in memory or in a temporary file. A single BLOB is served with its content length and
+ * supports single byte-range requests for resuming. Multiple BLOBs are served as a zip archive which is written on the fly (without compression, since the BLOBs are archives themselves).
+ * <p>
+ * Since the BLOB is read while the client receives it, a pooled database connection and a download admission slot are held for the whole transfer, so slow clients hold them for longer. Each stream is therefore aborted once it exceeds
+ * the duration given by the <code>streamTimeout</code> init parameter (in seconds), after which the connection and the slot are released. The timeout is checked between chunks, so a write blocked on a stalled client is bounded
+ * by the idle timeout of the container's connector instead.
+ */
+@WebServlet(urlPatterns = "/stream/*", name = "StreamServlet", asyncSupported = true, initParams = @WebInitParam(name = "streamTimeout", value = "1800"))
+public class StreamServlet extends HttpServlet {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** URL path of the servlet (relative to context path). */
+	public static final String PATH = "/stream/";
+
+	/** Chunk size of streaming. */
+	private static final int CHUNK_SIZE = 64 * 1024;
+
+	/** Minimum interval between progress notifications in milliseconds. */
+	private static final long PROGRESS_INTERVAL = 500L;
+
+	/** Stream statistics. */
+	private final AtomicLong streams_ = new AtomicLong(), bytes_ = new AtomicLong(), aborted_ = new AtomicLong(), timedOut_ = new AtomicLong();
+
+	/** Maximum duration of a stream in milliseconds. */
+	private long streamTimeout_ = 1800L * 1000L;
+
+	@Override
+	public void init() throws ServletException {
+		String timeout = getInitParameter("streamTimeout");
+		if (timeout != null)
+			streamTimeout_ = Long.parseLong(timeout) * 1000L;
+	}
+
+	@Override
+	public void destroy() {
+		System.out.println("Streamed downloads: " + streams_.get() + " streams, " + Utility.readableFileSize(bytes_.get()) + ", " + aborted_.get() + " aborted (" + timedOut_.get() + " timed out)");
+	}
+
+	@Override
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+
+		// get streamed download
+		ServletContext servletContext = getServletContext();
+		DownloadRegistry registry = (DownloadRegistry) servletContext.getAttribute(DownloadRegistry.ATTRIBUTE);
+		String token = request.getPathInfo() == null ? null : request.getPathInfo().substring(1);
+		StreamedDownload download = registry == null ? null : registry.getStream(token);
+
+		// download not found
+		if (download == null) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		// acquire admission (the user budget caps the admitted bytes, since streamed downloads use no disk space)
+		DownloadAdmission admission = (DownloadAdmission) servletContext.getAttribute(DownloadAdmission.ATTRIBUTE);
+		long admitted = Math.min(download.getSize(), admission.getUserBudget());
+		try {
+			admission.acquire(download.getUser(), admitted, null);
+		}
+
+		// rejected
+		catch (DownloadRejectedException e) {
+			download.getListener().failed(e);
+			response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage());
+			return;
+		}
+
+		// interrupted
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			download.getListener().failed(e);
+			response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			return;
+		}
+
+		// stream
+		Object event = FlightEvents.beginDownload();
+		long streamed = 0L;
+		long deadline = System.currentTimeMillis() + streamTimeout_;
+		try {
+			streams_.incrementAndGet();
+			ConnectionPool databaseConnectionPool = (ConnectionPool) servletContext.getAttribute("databaseConnectionPool");
+			try (Connection connection = databaseConnectionPool.getConnection(3000)) {
+				String sql = "select " + download.getColumn() + " from " + download.getTable() + " where id = ?";
+				try (PreparedStatement statement = connection.prepareStatement(sql)) {
+					if (download.getIDs().size() == 1)
+						streamed = streamSingle(request, response, statement, download, deadline);
+					else
+						streamed = streamZip(response, statement, download, deadline);
+				}
+			}
+			FlightEvents.commitDownload(event, "stream", download.getTable(), download.getIDs().size(), streamed, null);
+		}
+
+		// client aborted or database failed
+		catch (Exception e) {
+			aborted_.incrementAndGet();
+			FlightEvents.commitDownload(event, "stream", download.getTable(), download.getIDs().size(), streamed, e);
+			download.getListener().failed(e);
+			if (e instanceof IOException)
+				throw (IOException) e;
+			throw new ServletException(e);
+		}
+
+		// release admission
+		finally {
+			admission.release(download.getUser(), admitted);
+		}
+	}
+
+	/**
+	 * Returns the URL of the streamed download with given token.
+	 *
+	 * @param contextPath
+	 *            Servlet context path.
+	 * @param token
+	 *            Download token.
+	 * @return The URL of the download.
+	 */
+	public static String getURL(String contextPath, String token) {
+		return contextPath + PATH + token;
+	}
+
+	/**
+	 * Streams a single BLOB with its content length. A single byte-range request is served from the requested position of the BLOB.
+	 *
+	 * @param request
+	 *            HTTP request.
+	 * @param response
+	 *            HTTP response.
+	 * @param statement
+	 *            BLOB query statement.
+	 * @param download
+	 *            Streamed download.
+	 * @param deadline
+	 *            Time at which the stream is aborted.
+	 * @return Number of streamed bytes.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private long streamSingle(HttpServletRequest request, HttpServletResponse response, PreparedStatement statement, StreamedDownload download, long deadline) throws Exception {
+
+		// get BLOB
+		statement.setInt(1, download.getIDs().get(0));
+		try (ResultSet resultSet = statement.executeQuery()) {
+			Blob blob = resultSet.next() ? resultSet.getBlob(1) : null;
+			if (blob == null) {
+				response.sendError(HttpServletResponse.SC_NOT_FOUND);
+				return 0L;
+			}
+
+			// set headers
+			try {
+				long size = blob.length();
+				String eTag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(download.getCreated()) + "\"";
+				response.setContentType("application/octet-stream");
+				response.setHeader("Content-Disposition", "attachment; filename=\"" + download.getFileName() + "\"");
+				response.setHeader("Accept-Ranges", "bytes");
+				response.setHeader("ETag", eTag);
+
+				// get requested range
+				long[] range = RangeRequest.getRange(request, size, eTag, -1L);
+				if (range == null) {
+					response.setHeader("Content-Range", "bytes */" + size);
+					response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+					return 0L;
+				}
+				long length = range[1] - range[0] + 1;
+				if (length != size) {
+					response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+					response.setHeader("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + size);
+				}
+				response.setHeader("Content-Length", Long.toString(length));
+
+				// stream range
+				long streamed = 0L;
+				if (length > 0) {
+					try (InputStream in = blob.getBinaryStream(range[0] + 1, length)) {
+						streamed = stream(in, response.getOutputStream(), download, 0L, length, deadline);
+						download.getListener().completed(streamed);
+					}
+				}
+				return streamed;
+			}
+
+			// free BLOB
+			finally {
+				blob.free();
+			}
+		}
+	}
+
+	/**
+	 * Streams all BLOBs of the download into a zip archive written on the fly.
+	 *
+	 * @param response
+	 *            HTTP response.
+	 * @param statement
+	 *            BLOB query statement.
+	 * @param download
+	 *            Streamed download.
+	 * @param deadline
+	 *            Time at which the stream is aborted.
+	 * @return Number of streamed bytes.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private long streamZip(HttpServletResponse response, PreparedStatement statement, StreamedDownload download, long deadline) throws Exception {
+
+		// set headers (size of archive is not known in advance)
+		response.setContentType("application/zip");
+		response.setHeader("Content-Disposition", "attachment; filename=\"" + download.getFileName() + "\"");
+
+		// create zip stream
+		ZipOutputStream zip = new ZipOutputStream(response.getOutputStream());
+		zip.setLevel(Deflater.NO_COMPRESSION);
+		long streamed = 0L;
+
+		// loop over BLOBs
+		for (int i = 0; i < download.getIDs().size(); i++) {
+			statement.setInt(1, download.getIDs().get(i));
+			try (ResultSet resultSet = statement.executeQuery()) {
+				Blob blob = resultSet.next() ? resultSet.getBlob(1) : null;
+				if (blob == null)
+					continue;
+				try (InputStream in = blob.getBinaryStream()) {
+					zip.putNextEntry(new ZipEntry(download.getEntryNames().get(i)));
+					streamed = stream(in, zip, download, streamed, download.getSize(), deadline);
+					zip.closeEntry();
+				}
+				finally {
+					blob.free();
+				}
+			}
+		}
+
+		// finish archive (response stream is closed by the container)
+		zip.finish();
+		download.getListener().completed(streamed);
+		return streamed;
+	}
+
+	/**
+	 * Copies given input stream to given output stream in chunks, and notifies the progress listener periodically. The copy is aborted if it is not completed by the given deadline.
+	 *
+	 * @param in
+	 *            Input stream.
+	 * @param out
+	 *            Output stream.
+	 * @param download
+	 *            Streamed download.
+	 * @param streamed
+	 *            Number of bytes streamed before this stream.
+	 * @param total
+	 *            Total number of bytes to stream.
+	 * @param deadline
+	 *            Time at which the stream is aborted.
+	 * @return Number of bytes streamed including this stream.
+	 * @throws IOException
+	 *             If exception occurs during process (or the client aborts the download, or the deadline passes).
+	 */
+	private long stream(InputStream in, OutputStream out, StreamedDownload download, long streamed, long total, long deadline) throws IOException {
+		ProgressListener listener = download.getListener();
+		byte[] buffer = new byte[CHUNK_SIZE];
+		long lastNotification = System.currentTimeMillis();
+		int n;
+		while ((n = in.read(buffer)) != -1) {
+			out.write(buffer, 0, n);
+			streamed += n;
+			bytes_.addAndGet(n);
+			long now = System.currentTimeMillis();
+			if (now > deadline) {
+				timedOut_.incrementAndGet();
+				throw new IOException("Stream timed out after " + streamTimeout_ / 1000L + " seconds.");
+			}
+			if (now - lastNotification >= PROGRESS_INTERVAL) {
+				listener.progress(streamed, total);
+				lastNotification = now;
+			}
+		}
+		return streamed;
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.task;
+
+import com.example.afm_wiki.WikiUI;
+import com.example.afm_wiki.data.PilotPointSearchInput;
+import com.example.afm_wiki.engine.AdvancedPilotPointQuery;
+
+/**
+ * Class for advanced pilot point search task. The search is run by {@link AdvancedPilotPointQuery}.
+ *
+ * @author Murat Artim
+ * @date 5 Mar 2017
+ * @time 13:21:24
+ */
+public class AdvancedPilotPointSearch extends SearchTask {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Creates advanced pilot point search task.
+	 *
+	 * @param ui
+	 *            The owner user interface.
+	 * @param input
+	 *            Search input.
+	 */
+	public AdvancedPilotPointSearch(WikiUI ui, PilotPointSearchInput input) {
+		super(ui, new AdvancedPilotPointQuery(input));
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.task;
+
+import com.example.afm_wiki.WikiUI;
+import com.example.afm_wiki.data.SpectrumSearchInput;
+import com.example.afm_wiki.engine.AdvancedSpectrumQuery;
+
+/**
+ * Class for advanced spectrum search task. The search is run by {@link AdvancedSpectrumQuery}.
+ *
+ * @author Murat Artim
+ * @date 4 Mar 2017
+ * @time 22:52:31
+ */
+public class AdvancedSpectrumSearch extends SearchTask {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Creates advanced spectrum search task.
+	 *
+	 * @param ui
+	 *            The owner user interface.
+	 * @param input
+	 *            Search input.
+	 */
+	public AdvancedSpectrumSearch(WikiUI ui, SpectrumSearchInput input) {
+		super(ui, new AdvancedSpectrumQuery(input));
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.task;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+
+import com.example.afm_wiki.WikiUI;
+import com.example.afm_wiki.data.LoadcaseFactorInfo;
+import com.example.afm_wiki.data.LoadcaseFactorInfo.LoadcaseFactorInfoType;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Class for download loadcase factors task.
+ *
+ * @author Murat Artim
+ * @date 10 Mar 2017
+ * @time 10:10:32
+ */
+public class DownloadLoadcaseFactors extends DownloadTask {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** Loadcase factor info. */
+	private final ArrayList<LoadcaseFactorInfo> info_;
+
+	/**
+	 * Creates download loadcase factors task.
+	 *
+	 * @param ui
+	 *            The owner user interface.
+	 */
+	public DownloadLoadcaseFactors(WikiUI ui) {
+
+		// create task
+		super(ui);
+
+		// create list of info
+		info_ = new ArrayList<>();
+	}
+
+	/**
+	 * Adds loadcase factor info to be downloaded.
+	 *
+	 * @param info
+	 *            Loadcase factor info.
+	 */
+	public void addLoadcaseFactorInfo(LoadcaseFactorInfo info) {
+		info_.add(info);
+	}
+
+	@Override
+	protected File download(ConnectionPool databaseConnectionPool) throws Exception {
+
+		// set progress and info
+		setProgressInfo("D o w n l o a d i n g");
+		setProgressValue(0);
+
+		// download and zip all files
+		ArrayList<Integer> ids = new ArrayList<>();
+		for (LoadcaseFactorInfo info : info_)
+			ids.add((int) info.getInfo(LoadcaseFactorInfoType.ID));
+		return downloadBundle(databaseConnectionPool, "mult_table_data", ids);
+	}
+
+	@Override
+	protected long getDownloadSize(ConnectionPool databaseConnectionPool) throws Exception {
+		ArrayList<Integer> ids = new ArrayList<>();
+		for (LoadcaseFactorInfo info : info_)
+			ids.add((int) info.getInfo(LoadcaseFactorInfoType.ID));
+		return getDataSize(databaseConnectionPool, "mult_table_data", ids);
+	}
+
+	@Override
+	public String getJobCaption() {
+		return info_.size() + " loadcase factor files";
+	}
+
+	@Override
+	protected String getDownloadFileName() {
+		return "download_" + new SimpleDateFormat("dd_MM_yyyy_HH_mm_ss").format(new Date()) + ".zip";
+	}
+}
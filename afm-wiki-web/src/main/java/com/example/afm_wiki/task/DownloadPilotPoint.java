@@ -16,13 +16,11 @@
 package com.example.afm_wiki.task;
 
 import java.io.File;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
-import java.sql.Blob;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.Statement;
+import java.util.Arrays;
 
 import com.example.afm_wiki.WikiUI;
 import com.example.afm_wiki.data.PilotPointInfo;
@@ -38,7 +36,7 @@ import snaq.db.ConnectionPool;
  * @date 7 Mar 2017
  * @time 17:44:04
  */
-public class DownloadPilotPoint extends WikiTask<File> {
+public class DownloadPilotPoint extends DownloadTask {
 
 	/** Serial ID. */
 	private static final long serialVersionUID = 1L;
@@ -64,7 +62,7 @@ public class DownloadPilotPoint extends WikiTask<File> {
 	}
 
 	@Override
-	protected File run(ConnectionPool databaseConnectionPool) throws Exception {
+	protected File download(ConnectionPool databaseConnectionPool) throws Exception {
 
 		// set progress and info
 		setProgressInfo("D o w n l o a d i n g");
@@ -92,17 +90,18 @@ public class DownloadPilotPoint extends WikiTask<File> {
 	}
 
 	@Override
-	protected void succeeded(File result, WikiUI ui) {
-
-		// call super method
-		super.succeeded(result, ui);
+	protected long getDownloadSize(ConnectionPool databaseConnectionPool) throws Exception {
+		return getDataSize(databaseConnectionPool, "pilot_point_data", Arrays.asList((int) info_.getInfo(PilotPointInfoType.ID)));
+	}
 
-		// create download file name
-		String fileName = (String) info_.getInfo(PilotPointInfoType.NAME);
-		fileName = Utility.correctFileName(fileName + ".zip");
+	@Override
+	public String getJobCaption() {
+		return (String) info_.getInfo(PilotPointInfoType.NAME);
+	}
 
-		// download
-		ui.download(result, fileName);
+	@Override
+	protected String getDownloadFileName() {
+		return (String) info_.getInfo(PilotPointInfoType.NAME) + ".zip";
 	}
 
 	/**
@@ -117,12 +116,10 @@ public class DownloadPilotPoint extends WikiTask<File> {
 	 * @throws Exception
 	 *             If exception occurs during process.
 	 */
-	private static void downloadArchive(Statement statement, int ppID, Path downloadPath) throws Exception {
+	private void downloadArchive(Statement statement, int ppID, Path downloadPath) throws Exception {
 		try (ResultSet resultSet = statement.executeQuery("select data from pilot_point_data where id = " + ppID)) {
 			if (resultSet.next()) {
-				Blob blob = resultSet.getBlob("data");
-				Files.copy(blob.getBinaryStream(), downloadPath, StandardCopyOption.REPLACE_EXISTING);
-				blob.free();
+				copyBlob(resultSet.getBlob("data"), downloadPath);
 			}
 		}
 	}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.task;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+
+import com.example.afm_wiki.WikiUI;
+import com.example.afm_wiki.data.PilotPointInfo;
+import com.example.afm_wiki.data.PilotPointInfo.PilotPointInfoType;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Class for download pilot points task.
+ *
+ * @author Murat Artim
+ * @date 10 Mar 2017
+ * @time 09:42:48
+ */
+public class DownloadPilotPoints extends DownloadTask {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** Pilot point info. */
+	private final ArrayList<PilotPointInfo> info_;
+
+	/**
+	 * Creates download pilot point task.
+	 *
+	 * @param ui
+	 *            The owner user interface.
+	 */
+	public DownloadPilotPoints(WikiUI ui) {
+
+		// create task
+		super(ui);
+
+		// create list of info
+		info_ = new ArrayList<>();
+	}
+
+	/**
+	 * Adds pilot point info to be downloaded.
+	 *
+	 * @param info
+	 *            Pilot point info.
+	 */
+	public void addPilotPointInfo(PilotPointInfo info) {
+		info_.add(info);
+	}
+
+	@Override
+	protected File download(ConnectionPool databaseConnectionPool) throws Exception {
+
+		// set progress and info
+		setProgressInfo("D o w n l o a d i n g");
+		setProgressValue(0);
+
+		// download and zip all files
+		ArrayList<Integer> ids = new ArrayList<>();
+		for (PilotPointInfo info : info_)
+			ids.add((int) info.getInfo(PilotPointInfoType.ID));
+		return downloadBundle(databaseConnectionPool, "pilot_point_data", ids);
+	}
+
+	@Override
+	protected long getDownloadSize(ConnectionPool databaseConnectionPool) throws Exception {
+		ArrayList<Integer> ids = new ArrayList<>();
+		for (PilotPointInfo info : info_)
+			ids.add((int) info.getInfo(PilotPointInfoType.ID));
+		return getDataSize(databaseConnectionPool, "pilot_point_data", ids);
+	}
+
+	@Override
+	public String getJobCaption() {
+		return info_.size() + " pilot points";
+	}
+
+	@Override
+	protected String getDownloadFileName() {
+		return "download_" + new SimpleDateFormat("dd_MM_yyyy_HH_mm_ss").format(new Date()) + ".zip";
+	}
+}
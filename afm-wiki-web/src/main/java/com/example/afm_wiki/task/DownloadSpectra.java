@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.task;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+
+import com.example.afm_wiki.WikiUI;
+import com.example.afm_wiki.data.SpectrumInfo;
+import com.example.afm_wiki.data.SpectrumInfo.SpectrumInfoType;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Class for download spectra task.
+ *
+ * @author Murat Artim
+ * @date 9 Mar 2017
+ * @time 18:16:17
+ */
+public class DownloadSpectra extends DownloadTask {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** CDF set info. */
+	private final ArrayList<SpectrumInfo> info_;
+
+	/**
+	 * Creates download spectra task.
+	 *
+	 * @param ui
+	 *            The owner user interface.
+	 */
+	public DownloadSpectra(WikiUI ui) {
+
+		// create task
+		super(ui);
+
+		// create list of info
+		info_ = new ArrayList<>();
+	}
+
+	/**
+	 * Adds spectrum info to be downloaded.
+	 *
+	 * @param info
+	 *            Spectrum info.
+	 */
+	public void addSpectrumInfo(SpectrumInfo info) {
+		info_.add(info);
+	}
+
+	@Override
+	protected File download(ConnectionPool databaseConnectionPool) throws Exception {
+
+		// set progress and info
+		setProgressInfo("D o w n l o a d i n g");
+		setProgressValue(0);
+
+		// download and zip all files
+		ArrayList<Integer> ids = new ArrayList<>();
+		for (SpectrumInfo info : info_)
+			ids.add((int) info.getInfo(SpectrumInfoType.ID));
+		return downloadBundle(databaseConnectionPool, "spectrum_data", ids);
+	}
+
+	@Override
+	protected long getDownloadSize(ConnectionPool databaseConnectionPool) throws Exception {
+		long size = 0L;
+		ArrayList<Integer> unknown = new ArrayList<>();
+		for (SpectrumInfo info : info_) {
+			Long dataSize = (Long) info.getInfo(SpectrumInfoType.DATA_SIZE);
+			if (dataSize != null)
+				size += dataSize;
+			else
+				unknown.add((int) info.getInfo(SpectrumInfoType.ID));
+		}
+		return unknown.isEmpty() ? size : size + getDataSize(databaseConnectionPool, "spectrum_data", unknown);
+	}
+
+	@Override
+	public String getJobCaption() {
+		return info_.size() + " spectra";
+	}
+
+	@Override
+	protected String getDownloadFileName() {
+		return "download_" + new SimpleDateFormat("dd_MM_yyyy_HH_mm_ss").format(new Date()) + ".zip";
+	}
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.task;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.sql.Blob;
+import java.util.Collection;
+import java.util.List;
+
+import javax.servlet.ServletContext;
+
+import com.example.afm_wiki.WikiUI;
+import com.example.afm_wiki.download.DownloadAdmission;
+import com.example.afm_wiki.download.DownloadRejectedException;
+import com.example.afm_wiki.engine.BlobQueries;
+import com.example.afm_wiki.ui.JobTrayItem;
+import com.example.afm_wiki.utility.BlobCopier;
+import com.example.afm_wiki.utility.Utility;
+import com.vaadin.server.Page;
+import com.vaadin.server.VaadinServlet;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.ui.Notification;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Abstract class for download task. Download tasks can either run with the modal progress dialog, or as background jobs tracked by the job tray. Before a download starts, its total data size is passed through the download admission
+ * controller, so that a few huge downloads cannot saturate the disk and network for all users.
+ */
+public abstract class DownloadTask extends WikiTask<File> {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** User (session) ID. */
+	private final String user_;
+
+	/** Download admission controller. */
+	private final DownloadAdmission admission_;
+
+	/** BLOB copier. */
+	private final BlobCopier copier_;
+
+	/**
+	 * Creates download task.
+	 *
+	 * @param ui
+	 *            The owner user interface.
+	 */
+	public DownloadTask(WikiUI ui) {
+
+		// create task
+		super(ui);
+
+		// set user, admission controller and BLOB copier
+		ServletContext servletContext = VaadinServlet.getCurrent().getServletContext();
+		user_ = VaadinSession.getCurrent().getSession().getId();
+		admission_ = (DownloadAdmission) servletContext.getAttribute(DownloadAdmission.ATTRIBUTE);
+		copier_ = (BlobCopier) servletContext.getAttribute(BlobCopier.ATTRIBUTE);
+	}
+
+	@Override
+	protected final File run(ConnectionPool databaseConnectionPool) throws Exception {
+
+		// get total data size
+		setProgressInfo("C h e c k i n g   s i z e");
+		long size = getDownloadSize(databaseConnectionPool);
+
+		// acquire admission
+		admission_.acquire(user_, size, new Runnable() {
+
+			@Override
+			public void run() {
+				setProgressInfo("Q u e u e d");
+			}
+		});
+
+		// download
+		try {
+			return download(databaseConnectionPool);
+		}
+
+		// release admission
+		finally {
+			admission_.release(user_, size);
+		}
+	}
+
+	/**
+	 * Prepares the download file. This is called only after the download is admitted.
+	 *
+	 * @param databaseConnectionPool
+	 *            Database connection pool.
+	 * @return The prepared download file.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	protected abstract File download(ConnectionPool databaseConnectionPool) throws Exception;
+
+	/**
+	 * Returns the total data size of this download in bytes.
+	 *
+	 * @param databaseConnectionPool
+	 *            Database connection pool.
+	 * @return The total data size of this download in bytes.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	protected abstract long getDownloadSize(ConnectionPool databaseConnectionPool) throws Exception;
+
+	/**
+	 * Returns the caption of this task to be shown in the job tray.
+	 *
+	 * @return The caption of this task.
+	 */
+	public abstract String getJobCaption();
+
+	/**
+	 * Returns the file name of the download (without correction).
+	 *
+	 * @return The file name of the download.
+	 */
+	protected abstract String getDownloadFileName();
+
+	/**
+	 * Copies given BLOB to given target file through the pipelined BLOB copier, and frees the BLOB.
+	 *
+	 * @param blob
+	 *            BLOB to copy.
+	 * @param target
+	 *            Target file.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	protected void copyBlob(Blob blob, Path target) throws Exception {
+		BlobQueries.copyBlob(copier_, blob, target);
+	}
+
+	/**
+	 * Copies the data BLOBs with given IDs from the given table to the downloads directory and zips them into a single file.
+	 *
+	 * @param databaseConnectionPool
+	 *            Database connection pool.
+	 * @param table
+	 *            Data table name.
+	 * @param ids
+	 *            Row IDs.
+	 * @return The zip file.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	protected File downloadBundle(ConnectionPool databaseConnectionPool, String table, List<Integer> ids) throws Exception {
+		return BlobQueries.downloadBundle(databaseConnectionPool, copier_, table, ids, Utility.DOWNLOADS_DIR, this);
+	}
+
+	/**
+	 * Returns the total size of the data BLOBs with given IDs.
+	 *
+	 * @param databaseConnectionPool
+	 *            Database connection pool.
+	 * @param table
+	 *            Data table name.
+	 * @param ids
+	 *            Data IDs.
+	 * @return The total size of the data BLOBs with given IDs.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	protected static long getDataSize(ConnectionPool databaseConnectionPool, String table, Collection<Integer> ids) throws Exception {
+		return getDataSize(databaseConnectionPool, table, "data", ids);
+	}
+
+	/**
+	 * Returns the total size of the BLOBs in given column with given IDs.
+	 *
+	 * @param databaseConnectionPool
+	 *            Database connection pool.
+	 * @param table
+	 *            Table name.
+	 * @param column
+	 *            BLOB column name.
+	 * @param ids
+	 *            Row IDs.
+	 * @return The total size of the BLOBs with given IDs.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	protected static long getDataSize(ConnectionPool databaseConnectionPool, String table, String column, Collection<Integer> ids) throws Exception {
+		return BlobQueries.getDataSize(databaseConnectionPool, table, column, ids);
+	}
+
+	@Override
+	protected void succeeded(File result, WikiUI ui) {
+
+		// call super method
+		super.succeeded(result, ui);
+
+		// create download file name
+		String fileName = Utility.correctFileName(getDownloadFileName());
+
+		// not a background job (download directly)
+		JobTrayItem job = getJob();
+		if (job == null) {
+			ui.download(result, fileName);
+			return;
+		}
+
+		// hold file in job tray until user fetches it
+		job.setReady(result, fileName);
+		ui.showJobTray();
+
+		// notify user
+		Notification n = new Notification("");
+		n.setCaption("Download ready");
+		n.setStyleName("tray");
+		n.setDescription(getJobCaption() + " is ready to be fetched from the downloads tray.");
+		n.show(Page.getCurrent());
+	}
+
+	@Override
+	protected void failed(Exception e, WikiUI ui) {
+
+		// not rejected by admission control
+		if (!(e instanceof DownloadRejectedException)) {
+			super.failed(e, ui);
+			return;
+		}
+
+		// remove progress window
+		JobTrayItem job = getJob();
+		if ((job == null) && ui.getProgressDialog().isAttached()) {
+			ui.removeWindow(ui.getProgressDialog());
+			ui.getProgressDialog().setProgressValue(0);
+		}
+
+		// mark job as rejected
+		if (job != null) {
+			job.setFailed();
+			job.setProgressInfo("Rejected");
+		}
+
+		// notify user
+		Notification n = new Notification("");
+		n.setCaption("Download rejected");
+		n.setStyleName("tray warning");
+		n.setDescription(e.getMessage());
+		n.show(Page.getCurrent());
+	}
+}
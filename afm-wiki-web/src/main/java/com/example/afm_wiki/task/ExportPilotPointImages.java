@@ -0,0 +1,653 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.task;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.imageio.ImageIO;
+import javax.servlet.ServletContext;
+
+import com.example.afm_wiki.WikiUI;
+import com.example.afm_wiki.data.PilotPointImageRendition;
+import com.example.afm_wiki.data.PilotPointImageType;
+import com.example.afm_wiki.data.PilotPointInfo;
+import com.example.afm_wiki.data.PilotPointInfo.PilotPointInfoType;
+import com.example.afm_wiki.engine.PilotPointImages;
+import com.example.afm_wiki.utility.ImageAvailabilityIndex;
+import com.example.afm_wiki.utility.ImageCache;
+import com.example.afm_wiki.utility.Utility;
+import com.vaadin.server.VaadinServlet;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Class for export pilot point images task. The selected image types of many pilot points are fetched in parallel, and exported either as a zip archive of the original images, or as contact sheets of thumbnails with one row per
+ * pilot point and one column per image type.
+ * <p>
+ * Original images are streamed from the database into temporary files, bypassing the image cache shared by all sessions, so that a bulk export neither evicts the images of other sessions nor archives stale cached copies. Zip
+ * entries are written as soon as their images are fetched. Since the images are already compressed, they are stored without deflating, using the sizes and checksums computed while streaming. Thumbnails are fetched through the
+ * image cache (each fetch takes its own pooled connection only if the thumbnail is not cached). Contact sheets are fetched, rendered and written one at a time, so that only one sheet is held in memory.
+ */
+public class ExportPilotPointImages extends DownloadTask {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** Maximum number of images fetched in parallel (bounded to leave pooled connections to other users). */
+	private static final int PARALLELISM = 4;
+
+	/** Maximum number of pilot points (rows) per contact sheet. */
+	private static final int ROWS_PER_SHEET = 25;
+
+	/** Contact sheet layout in pixels. */
+	private static final int LABEL_WIDTH = 220, HEADER_HEIGHT = 40, PADDING = 8;
+
+	/**
+	 * Enumeration for export format.
+	 */
+	public enum ExportFormat {
+
+		/** Export formats. */
+		ZIP("Zip archive of original images"), CONTACT_SHEET("Contact sheet of thumbnails");
+
+		/** Label of format. */
+		private final String label_;
+
+		/**
+		 * Creates export format.
+		 *
+		 * @param label
+		 *            Label of format.
+		 */
+		ExportFormat(String label) {
+			label_ = label;
+		}
+
+		@Override
+		public String toString() {
+			return label_;
+		}
+	}
+
+	/** Pilot point info. */
+	private final ArrayList<PilotPointInfo> info_;
+
+	/** Image types to export. */
+	private final ArrayList<PilotPointImageType> imageTypes_;
+
+	/** Export format. */
+	private final ExportFormat format_;
+
+	/** Image cache shared by all sessions. */
+	private final ImageCache imageCache_;
+
+	/** Image availability index. */
+	private final ImageAvailabilityIndex imageIndex_;
+
+	/** Thread pool to fetch images on. */
+	private final ExecutorService threadPool_;
+
+	/**
+	 * Creates export pilot point images task.
+	 *
+	 * @param imageTypes
+	 *            Image types to export.
+	 * @param format
+	 *            Export format.
+	 * @param ui
+	 *            The owner user interface.
+	 */
+	public ExportPilotPointImages(List<PilotPointImageType> imageTypes, ExportFormat format, WikiUI ui) {
+
+		// create task
+		super(ui);
+
+		// set attributes
+		info_ = new ArrayList<>();
+		imageTypes_ = new ArrayList<>(imageTypes);
+		format_ = format;
+		ServletContext servletContext = VaadinServlet.getCurrent().getServletContext();
+		imageCache_ = (ImageCache) servletContext.getAttribute(ImageCache.ATTRIBUTE);
+		imageIndex_ = (ImageAvailabilityIndex) servletContext.getAttribute(ImageAvailabilityIndex.ATTRIBUTE);
+		threadPool_ = (ExecutorService) servletContext.getAttribute("threadPool");
+	}
+
+	/**
+	 * Adds pilot point info whose images are to be exported.
+	 *
+	 * @param info
+	 *            Pilot point info.
+	 */
+	public void addPilotPointInfo(PilotPointInfo info) {
+		info_.add(info);
+	}
+
+	@Override
+	protected File download(ConnectionPool databaseConnectionPool) throws Exception {
+
+		// set progress and info
+		setProgressInfo("E x p o r t i n g");
+		setProgressValue(0);
+
+		// export
+		if (format_.equals(ExportFormat.ZIP))
+			return exportZip(databaseConnectionPool);
+		return exportContactSheets(databaseConnectionPool);
+	}
+
+	@Override
+	protected long getDownloadSize(ConnectionPool databaseConnectionPool) throws Exception {
+
+		// contact sheets (estimated from the uncompressed thumbnail grid)
+		if (format_.equals(ExportFormat.CONTACT_SHEET)) {
+			PilotPointImageRendition thumbnail = PilotPointImageRendition.THUMBNAIL;
+			return (long) info_.size() * imageTypes_.size() * thumbnail.getWidth() * thumbnail.getHeight() * 3L;
+		}
+
+		// zip archive
+		ArrayList<Integer> ids = new ArrayList<>();
+		for (PilotPointInfo info : info_)
+			ids.add(info.getID());
+		long size = 0L;
+		for (PilotPointImageType imageType : imageTypes_)
+			size += getDataSize(databaseConnectionPool, imageType.getTableName(), "image", ids);
+		return size;
+	}
+
+	@Override
+	public String getJobCaption() {
+		return "Images of " + info_.size() + " pilot points";
+	}
+
+	@Override
+	protected String getDownloadFileName() {
+		String extension = format_.equals(ExportFormat.CONTACT_SHEET) && (info_.size() <= ROWS_PER_SHEET) ? ".png" : ".zip";
+		return "images_" + new SimpleDateFormat("dd_MM_yyyy_HH_mm_ss").format(new Date()) + extension;
+	}
+
+	/**
+	 * Exports the original images as a zip archive. Entries are written in the order the images are fetched.
+	 *
+	 * @param databaseConnectionPool
+	 *            Database connection pool.
+	 * @return The zip archive.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private File exportZip(ConnectionPool databaseConnectionPool) throws Exception {
+
+		// create fetches
+		List<Path> files = Collections.synchronizedList(new ArrayList<Path>());
+		ArrayList<Callable<Fetch>> fetches = new ArrayList<>();
+		for (int i = 0; i < info_.size(); i++) {
+			for (int j = 0; j < imageTypes_.size(); j++) {
+				int row = i, column = j;
+				PilotPointInfo info = info_.get(i);
+				PilotPointImageType imageType = imageTypes_.get(j);
+				fetches.add(new Callable<Fetch>() {
+
+					@Override
+					public Fetch call() throws Exception {
+						return fetchOriginal(databaseConnectionPool, row, column, info, imageType, files);
+					}
+				});
+			}
+		}
+
+		// write entries as images are fetched
+		File downloadPath = Utility.createDownloadFilePath().toFile();
+		HashSet<String> entryNames = new HashSet<>();
+		try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(downloadPath.toPath()))) {
+			fetchAll(fetches, 0, fetches.size(), new FetchHandler() {
+
+				@Override
+				public void handle(Fetch fetch) throws Exception {
+					if (fetch.file_ != null)
+						writeEntry(zip, fetch, entryNames);
+				}
+			});
+		}
+
+		// delete temporary files (left over by failed or canceled exports)
+		finally {
+			synchronized (files) {
+				for (Path file : files)
+					Files.deleteIfExists(file);
+			}
+		}
+
+		// return archive
+		return downloadPath;
+	}
+
+	/**
+	 * Streams the original image of given pilot point and type from the database into a temporary file, computing its size and checksum while reading. The image cache is bypassed.
+	 *
+	 * @param databaseConnectionPool
+	 *            Database connection pool.
+	 * @param row
+	 *            Pilot point index.
+	 * @param column
+	 *            Image type index.
+	 * @param info
+	 *            Pilot point info.
+	 * @param imageType
+	 *            Image type.
+	 * @param files
+	 *            Temporary files of the export. The created file is added to this list.
+	 * @return The fetched image, without file if the image is not available.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private Fetch fetchOriginal(ConnectionPool databaseConnectionPool, int row, int column, PilotPointInfo info, PilotPointImageType imageType, List<Path> files) throws Exception {
+
+		// no image
+		if (!imageIndex_.isAvailable(info.getID(), imageType))
+			return new Fetch(row, column, info, imageType, null, 0L, 0L, null);
+
+		// stream image into temporary file
+		Path file = Files.createTempFile(Utility.DOWNLOADS_DIR, "export_", ".tmp");
+		files.add(file);
+		CRC32 crc = new CRC32();
+		boolean available;
+		try (Connection connection = databaseConnectionPool.getConnection(3000)) {
+			try (OutputStream out = new CheckedOutputStream(new BufferedOutputStream(Files.newOutputStream(file)), crc)) {
+				available = PilotPointImages.loadImage(connection, info.getID(), imageType, out);
+			}
+		}
+
+		// image removed in the meantime
+		if (!available) {
+			Files.deleteIfExists(file);
+			files.remove(file);
+			return new Fetch(row, column, info, imageType, null, 0L, 0L, null);
+		}
+
+		// return image
+		return new Fetch(row, column, info, imageType, file, Files.size(file), crc.getValue(), null);
+	}
+
+	/**
+	 * Streams the original image of the given fetch into a stored zip entry, and deletes its temporary file.
+	 *
+	 * @param zip
+	 *            Zip output stream.
+	 * @param fetch
+	 *            Fetched image.
+	 * @param entryNames
+	 *            Names of entries written so far (pilot point names are not unique).
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private void writeEntry(ZipOutputStream zip, Fetch fetch, HashSet<String> entryNames) throws Exception {
+
+		// create unique entry name
+		String folder = Utility.correctFileName((String) fetch.info_.getInfo(PilotPointInfoType.NAME));
+		String name = folder + "/" + fetch.imageType_.getFileName();
+		if (!entryNames.add(name)) {
+			name = folder + "_" + fetch.info_.getID() + "/" + fetch.imageType_.getFileName();
+			entryNames.add(name);
+		}
+
+		// stream file into stored entry
+		try (InputStream in = Files.newInputStream(fetch.file_)) {
+			ZipEntry entry = new ZipEntry(name);
+			entry.setMethod(ZipEntry.STORED);
+			entry.setSize(fetch.size_);
+			entry.setCompressedSize(fetch.size_);
+			entry.setCrc(fetch.crc_);
+			zip.putNextEntry(entry);
+			byte[] buffer = new byte[8192];
+			int n;
+			while ((n = in.read(buffer)) != -1)
+				zip.write(buffer, 0, n);
+			zip.closeEntry();
+		}
+
+		// delete temporary file
+		Files.deleteIfExists(fetch.file_);
+	}
+
+	/**
+	 * Exports the thumbnails as contact sheets. A single sheet is returned as PNG image, multiple sheets are returned in a zip archive. Each sheet is written before the next one is rendered.
+	 *
+	 * @param databaseConnectionPool
+	 *            Database connection pool.
+	 * @return The contact sheet, or the zip archive of contact sheets.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private File exportContactSheets(ConnectionPool databaseConnectionPool) throws Exception {
+
+		// single sheet
+		File downloadPath = Utility.createDownloadFilePath().toFile();
+		int sheetCount = (info_.size() + ROWS_PER_SHEET - 1) / ROWS_PER_SHEET;
+		if (sheetCount == 1) {
+			ImageIO.write(renderSheet(databaseConnectionPool, 0), "png", downloadPath);
+			return downloadPath;
+		}
+
+		// multiple sheets
+		try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(downloadPath.toPath()))) {
+			for (int i = 0; i < sheetCount; i++) {
+				BufferedImage sheet = renderSheet(databaseConnectionPool, i);
+				zip.putNextEntry(new ZipEntry("contact_sheet_" + (i + 1) + ".png"));
+				ImageIO.write(sheet, "png", zip);
+				zip.closeEntry();
+			}
+		}
+		return downloadPath;
+	}
+
+	/**
+	 * Fetches the thumbnails of the given contact sheet and draws them into a new sheet.
+	 *
+	 * @param databaseConnectionPool
+	 *            Database connection pool.
+	 * @param index
+	 *            Sheet index.
+	 * @return The contact sheet.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private BufferedImage renderSheet(ConnectionPool databaseConnectionPool, int index) throws Exception {
+
+		// create fetches
+		int first = index * ROWS_PER_SHEET, last = Math.min(info_.size(), first + ROWS_PER_SHEET);
+		ArrayList<Callable<Fetch>> fetches = new ArrayList<>();
+		for (int i = first; i < last; i++) {
+			for (int j = 0; j < imageTypes_.size(); j++) {
+				int row = i - first, column = j;
+				PilotPointInfo info = info_.get(i);
+				PilotPointImageType imageType = imageTypes_.get(j);
+				fetches.add(new Callable<Fetch>() {
+
+					@Override
+					public Fetch call() throws Exception {
+						byte[] thumbnail = null;
+						if (imageIndex_.isAvailable(info.getID(), imageType))
+							thumbnail = PilotPointImages.getImage(imageCache_, databaseConnectionPool, info.getID(), imageType, PilotPointImageRendition.THUMBNAIL);
+						return new Fetch(row, column, info, imageType, null, 0L, 0L, thumbnail);
+					}
+				});
+			}
+		}
+
+		// draw thumbnails as they are fetched
+		BufferedImage sheet = createSheet(info_.subList(first, last));
+		fetchAll(fetches, first * imageTypes_.size(), info_.size() * imageTypes_.size(), new FetchHandler() {
+
+			@Override
+			public void handle(Fetch fetch) throws Exception {
+				drawCell(sheet, fetch.row_, fetch.column_, fetch.thumbnail_);
+			}
+		});
+		return sheet;
+	}
+
+	/**
+	 * Creates an empty contact sheet with pilot point names and image type headers.
+	 *
+	 * @param rows
+	 *            Pilot points of the sheet.
+	 * @return The contact sheet.
+	 */
+	private BufferedImage createSheet(List<PilotPointInfo> rows) {
+
+		// create image
+		PilotPointImageRendition thumbnail = PilotPointImageRendition.THUMBNAIL;
+		int width = LABEL_WIDTH + imageTypes_.size() * (thumbnail.getWidth() + PADDING) + PADDING;
+		int height = HEADER_HEIGHT + rows.size() * (thumbnail.getHeight() + PADDING) + PADDING;
+		BufferedImage sheet = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+
+		// draw background and labels
+		Graphics2D g = sheet.createGraphics();
+		try {
+			g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+			g.setColor(Color.WHITE);
+			g.fillRect(0, 0, width, height);
+			g.setColor(Color.DARK_GRAY);
+
+			// image type headers
+			g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 11));
+			for (int column = 0; column < imageTypes_.size(); column++) {
+				int x = LABEL_WIDTH + column * (thumbnail.getWidth() + PADDING) + PADDING;
+				drawText(g, imageTypes_.get(column).getPageName(), x, HEADER_HEIGHT / 2, thumbnail.getWidth());
+			}
+
+			// pilot point names
+			g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 12));
+			for (int row = 0; row < rows.size(); row++) {
+				int y = HEADER_HEIGHT + row * (thumbnail.getHeight() + PADDING) + PADDING + thumbnail.getHeight() / 2;
+				drawText(g, (String) rows.get(row).getInfo(PilotPointInfoType.NAME), PADDING, y, LABEL_WIDTH - 2 * PADDING);
+			}
+		}
+		finally {
+			g.dispose();
+		}
+		return sheet;
+	}
+
+	/**
+	 * Draws given thumbnail into the given cell of the contact sheet, centered. Missing thumbnails are drawn as empty frames.
+	 *
+	 * @param sheet
+	 *            Contact sheet.
+	 * @param row
+	 *            Row index in the sheet.
+	 * @param column
+	 *            Column index in the sheet.
+	 * @param thumbnail
+	 *            Thumbnail bytes, or null or {@link ImageCache#NO_IMAGE} if the image is not available.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private void drawCell(BufferedImage sheet, int row, int column, byte[] thumbnail) throws Exception {
+		PilotPointImageRendition rendition = PilotPointImageRendition.THUMBNAIL;
+		int x = LABEL_WIDTH + column * (rendition.getWidth() + PADDING) + PADDING;
+		int y = HEADER_HEIGHT + row * (rendition.getHeight() + PADDING) + PADDING;
+		BufferedImage image = (thumbnail == null) || (thumbnail.length == 0) ? null : ImageIO.read(new ByteArrayInputStream(thumbnail));
+		synchronized (sheet) {
+			Graphics2D g = sheet.createGraphics();
+			try {
+				if (image == null) {
+					g.setColor(Color.LIGHT_GRAY);
+					g.drawRect(x, y, rendition.getWidth() - 1, rendition.getHeight() - 1);
+				}
+				else
+					g.drawImage(image, x + (rendition.getWidth() - image.getWidth()) / 2, y + (rendition.getHeight() - image.getHeight()) / 2, null);
+			}
+			finally {
+				g.dispose();
+			}
+		}
+	}
+
+	/**
+	 * Draws given text vertically centered at the given position, trimmed to the given width.
+	 *
+	 * @param g
+	 *            Graphics.
+	 * @param text
+	 *            Text to draw.
+	 * @param x
+	 *            Left position.
+	 * @param y
+	 *            Vertical center position.
+	 * @param width
+	 *            Maximum width.
+	 */
+	private static void drawText(Graphics2D g, String text, int x, int y, int width) {
+		FontMetrics metrics = g.getFontMetrics();
+		String trimmed = text == null ? "-" : text;
+		if (metrics.stringWidth(trimmed) > width) {
+			while ((trimmed.length() > 1) && (metrics.stringWidth(trimmed + "...") > width))
+				trimmed = trimmed.substring(0, trimmed.length() - 1);
+			trimmed += "...";
+		}
+		g.drawString(trimmed, x, y + (metrics.getAscent() - metrics.getDescent()) / 2);
+	}
+
+	/**
+	 * Runs given fetches on the thread pool with at most {@link #PARALLELISM} fetches in flight, and passes the fetched images to the given handler on the calling thread in completion order. Progress is updated as fetches complete.
+	 *
+	 * @param fetches
+	 *            Fetches to run.
+	 * @param done
+	 *            Number of fetches of the export which were completed before the given fetches.
+	 * @param total
+	 *            Total number of fetches of the export.
+	 * @param handler
+	 *            Handler of fetched images.
+	 * @throws Exception
+	 *             If any fetch or the handler fails. Remaining fetches are canceled.
+	 */
+	private void fetchAll(List<Callable<Fetch>> fetches, int done, int total, FetchHandler handler) throws Exception {
+
+		// submit initial fetches
+		CompletionService<Fetch> completion = new ExecutorCompletionService<>(threadPool_);
+		ArrayList<Future<Fetch>> futures = new ArrayList<>();
+		int submitted = 0;
+		while ((submitted < fetches.size()) && (submitted < PARALLELISM))
+			futures.add(completion.submit(fetches.get(submitted++)));
+
+		// handle fetched images and submit remaining fetches
+		try {
+			for (int completed = 0; completed < fetches.size(); completed++) {
+				Fetch fetch;
+				try {
+					fetch = completion.take().get();
+				}
+				catch (ExecutionException e) {
+					if (e.getCause() instanceof Exception)
+						throw (Exception) e.getCause();
+					throw e;
+				}
+				if (submitted < fetches.size())
+					futures.add(completion.submit(fetches.get(submitted++)));
+				handler.handle(fetch);
+				setProgressValue((float) (done + completed + 1) / total);
+			}
+		}
+
+		// cancel remaining fetches
+		catch (Exception e) {
+			for (Future<Fetch> future : futures)
+				future.cancel(true);
+			throw e;
+		}
+	}
+
+	/**
+	 * Interface for handler of fetched images.
+	 */
+	private interface FetchHandler {
+
+		/**
+		 * Handles the given fetched image.
+		 *
+		 * @param fetch
+		 *            Fetched image.
+		 * @throws Exception
+		 *             If exception occurs during process.
+		 */
+		void handle(Fetch fetch) throws Exception;
+	}
+
+	/**
+	 * Inner class for fetched image.
+	 */
+	private static class Fetch {
+
+		/** Row (pilot point index, within the sheet for contact sheets) and column (image type index) of the image. */
+		private final int row_, column_;
+
+		/** Pilot point info. */
+		private final PilotPointInfo info_;
+
+		/** Image type. */
+		private final PilotPointImageType imageType_;
+
+		/** Temporary file of original image (zip export only). */
+		private final Path file_;
+
+		/** Size and checksum of original image (zip export only). */
+		private final long size_, crc_;
+
+		/** Thumbnail bytes (contact sheet export only). */
+		private final byte[] thumbnail_;
+
+		/**
+		 * Creates fetched image.
+		 *
+		 * @param row
+		 *            Pilot point index (within the sheet for contact sheets).
+		 * @param column
+		 *            Image type index.
+		 * @param info
+		 *            Pilot point info.
+		 * @param imageType
+		 *            Image type.
+		 * @param file
+		 *            Temporary file of original image.
+		 * @param size
+		 *            Size of original image.
+		 * @param crc
+		 *            Checksum of original image.
+		 * @param thumbnail
+		 *            Thumbnail bytes.
+		 */
+		Fetch(int row, int column, PilotPointInfo info, PilotPointImageType imageType, Path file, long size, long crc, byte[] thumbnail) {
+			row_ = row;
+			column_ = column;
+			info_ = info;
+			imageType_ = imageType;
+			file_ = file;
+			size_ = size;
+			crc_ = crc;
+			thumbnail_ = thumbnail;
+		}
+	}
+}
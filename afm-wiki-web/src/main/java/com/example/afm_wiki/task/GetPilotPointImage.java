@@ -15,14 +15,13 @@
  */
 package com.example.afm_wiki.task;
 
-import java.sql.Blob;
-import java.sql.Connection;
-import java.sql.ResultSet;
-import java.sql.Statement;
-
 import com.example.afm_wiki.WikiUI;
+import com.example.afm_wiki.data.PilotPointImageRendition;
 import com.example.afm_wiki.data.PilotPointImageType;
+import com.example.afm_wiki.engine.PilotPointImages;
 import com.example.afm_wiki.ui.PilotPointImagePage;
+import com.example.afm_wiki.utility.ImageCache;
+import com.vaadin.server.VaadinServlet;
 
 import snaq.db.ConnectionPool;
 
@@ -33,7 +32,7 @@ import snaq.db.ConnectionPool;
  * @date 7 Mar 2017
  * @time 11:09:30
  */
-public class GetPilotPointImage extends WikiTask<byte[]> {
+public class GetPilotPointImage extends WikiTask<Boolean> {
 
 	/** Serial ID. */
 	private static final long serialVersionUID = 1L;
@@ -47,6 +46,12 @@ public class GetPilotPointImage extends WikiTask<byte[]> {
 	/** Pilot point image type. */
 	private final PilotPointImageType imageType_;
 
+	/** Pilot point image rendition. */
+	private final PilotPointImageRendition rendition_;
+
+	/** Image cache shared by all sessions. */
+	private final ImageCache imageCache_;
+
 	/**
 	 * Creates get pilot point image task.
 	 *
@@ -54,12 +59,14 @@ public class GetPilotPointImage extends WikiTask<byte[]> {
 	 *            Pilot point ID.
 	 * @param imageType
 	 *            Pilot point image type.
+	 * @param rendition
+	 *            Pilot point image rendition.
 	 * @param panel
 	 *            Requesting panel.
 	 * @param ui
 	 *            The owner user interface.
 	 */
-	public GetPilotPointImage(int pilotPointID, PilotPointImageType imageType, PilotPointImagePage panel, WikiUI ui) {
+	public GetPilotPointImage(int pilotPointID, PilotPointImageType imageType, PilotPointImageRendition rendition, PilotPointImagePage panel, WikiUI ui) {
 
 		// create task
 		super(ui);
@@ -67,58 +74,45 @@ public class GetPilotPointImage extends WikiTask<byte[]> {
 		// set attributes
 		pilotPointID_ = pilotPointID;
 		imageType_ = imageType;
+		rendition_ = rendition;
 		panel_ = panel;
+		imageCache_ = (ImageCache) VaadinServlet.getCurrent().getServletContext().getAttribute(ImageCache.ATTRIBUTE);
 	}
 
 	@Override
-	protected byte[] run(ConnectionPool databaseConnectionPool) throws Exception {
+	protected Boolean run(ConnectionPool databaseConnectionPool) throws Exception {
 
 		// set progress and info
 		setProgressInfo("D o w n l o a d i n g");
 		setProgressValue(0);
 
-		// initialize byte array
-		byte[] imageBytes = null;
-
-		// get connection to database
-		try (Connection connection = databaseConnectionPool.getConnection(3000)) {
-
-			// create statement
-			try (Statement statement = connection.createStatement()) {
-
-				// create and execute query
-				String sql = "select image from " + imageType_.getTableName();
-				sql += " where id = " + pilotPointID_;
-				try (ResultSet resultSet = statement.executeQuery(sql)) {
-					while (resultSet.next()) {
-
-						// set image
-						Blob blob = resultSet.getBlob("image");
-						if (blob != null) {
-							imageBytes = blob.getBytes(1L, (int) blob.length());
-							blob.free();
-						}
-					}
-				}
-			}
-		}
-
-		// return image bytes
-		return imageBytes;
+		// get image from cache (load from database if not cached)
+		byte[] image = PilotPointImages.getImage(imageCache_, databaseConnectionPool, pilotPointID_, imageType_, rendition_);
+		return image.length > 0;
 	}
 
 	@Override
-	protected void succeeded(byte[] result, WikiUI ui) {
+	protected void succeeded(Boolean result, WikiUI ui) {
 
 		// call super method
 		super.succeeded(result, ui);
 
 		// no results found
-		if ((result == null) || (result.length == 0))
+		if (!result)
 			panel_.setNoImageMessage();
 
 		// results found
 		else
-			panel_.setPilotPointImage(result);
+			panel_.setPilotPointImage();
+	}
+
+	@Override
+	protected void failed(Exception e, WikiUI ui) {
+
+		// call super method
+		super.failed(e, ui);
+
+		// remove placeholder (image is requested again when the page is selected)
+		panel_.reset();
 	}
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.task;
+
+import java.io.OutputStream;
+import java.sql.Connection;
+
+import javax.servlet.ServletContext;
+
+import com.example.afm_wiki.WikiUI;
+import com.example.afm_wiki.data.PilotPointImageRendition;
+import com.example.afm_wiki.data.PilotPointImageType;
+import com.example.afm_wiki.engine.PilotPointImages;
+import com.example.afm_wiki.utility.ImageAvailabilityIndex;
+import com.example.afm_wiki.utility.ImageCache;
+import com.example.afm_wiki.utility.ImageCache.ImageLoader;
+import com.vaadin.server.VaadinServlet;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Class for prefetch pilot point images task. The task loads the display renditions of all image types of a pilot point into the image cache using a single database connection, so that the image tabs of the pilot point info dialog can be rendered without further
+ * database round trips. This task is meant to be run in background.
+ */
+public class PrefetchPilotPointImages extends WikiTask<Void> {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** Pilot point ID. */
+	private final int pilotPointID_;
+
+	/** Image cache shared by all sessions. */
+	private final ImageCache imageCache_;
+
+	/** Image availability index. */
+	private final ImageAvailabilityIndex imageIndex_;
+
+	/**
+	 * Creates prefetch pilot point images task.
+	 *
+	 * @param pilotPointID
+	 *            Pilot point ID.
+	 * @param ui
+	 *            The owner user interface.
+	 */
+	public PrefetchPilotPointImages(int pilotPointID, WikiUI ui) {
+
+		// create task
+		super(ui);
+
+		// set attributes
+		pilotPointID_ = pilotPointID;
+		ServletContext servletContext = VaadinServlet.getCurrent().getServletContext();
+		imageCache_ = (ImageCache) servletContext.getAttribute(ImageCache.ATTRIBUTE);
+		imageIndex_ = (ImageAvailabilityIndex) servletContext.getAttribute(ImageAvailabilityIndex.ATTRIBUTE);
+	}
+
+	@Override
+	protected Void run(ConnectionPool databaseConnectionPool) throws Exception {
+
+		// get connection to database
+		try (Connection connection = databaseConnectionPool.getConnection(3000)) {
+
+			// loop over image types
+			for (PilotPointImageType imageType : PilotPointImageType.values()) {
+
+				// not available or already cached
+				if (!imageIndex_.isAvailable(pilotPointID_, imageType) || imageCache_.contains(pilotPointID_, imageType, PilotPointImageRendition.DISPLAY))
+					continue;
+
+				// load display rendition into cache
+				imageCache_.get(pilotPointID_, imageType, PilotPointImageRendition.DISPLAY, new ImageLoader() {
+
+					@Override
+					public boolean load(OutputStream out) throws Exception {
+						return PilotPointImages.loadImage(connection, pilotPointID_, imageType, out);
+					}
+				});
+			}
+		}
+
+		// return
+		return null;
+	}
+
+	@Override
+	protected void failed(Exception e, WikiUI ui) {
+
+		// prefetch is optional (images will be loaded on demand)
+		e.printStackTrace();
+	}
+}
@@ -17,13 +17,24 @@ package com.example.afm_wiki.task;
 
 import java.util.ArrayList;
 
+import javax.servlet.ServletContext;
+
 import com.example.afm_wiki.WikiUI;
 import com.example.afm_wiki.data.DownloadInfo;
+import com.example.afm_wiki.engine.SearchQuery;
+import com.example.afm_wiki.metrics.SlowQueryLog;
+import com.example.afm_wiki.schema.ReverseIndex;
+import com.example.afm_wiki.schema.SearchDocumentIndex;
+import com.example.afm_wiki.schema.SearchSchema;
 import com.vaadin.server.Page;
+import com.vaadin.server.VaadinServlet;
 import com.vaadin.ui.Notification;
 
+import snaq.db.ConnectionPool;
+
 /**
- * Abstract class for search task.
+ * Abstract class for search task. Search tasks run their search query, and show the results in the user interface. Slow search queries are logged to the slow query log, and case-insensitive filters use the
+ * shadow columns of the search schema.
  *
  * @author Murat Artim
  * @date 1 Mar 2017
@@ -34,14 +45,40 @@ public abstract class SearchTask extends WikiTask<ArrayList<DownloadInfo>> {
 	/** Serial ID. */
 	private static final long serialVersionUID = 1L;
 
+	/** Search query. */
+	private final SearchQuery query_;
+
 	/**
 	 * Creates search task.
 	 *
 	 * @param ui
 	 *            The owner user interface.
+	 * @param query
+	 *            Search query.
 	 */
-	public SearchTask(WikiUI ui) {
+	public SearchTask(WikiUI ui, SearchQuery query) {
 		super(ui);
+		query_ = query;
+		ServletContext servletContext = VaadinServlet.getCurrent().getServletContext();
+		query_.setSlowQueryLog((SlowQueryLog) servletContext.getAttribute(SlowQueryLog.ATTRIBUTE));
+		query_.setSearchSchema((SearchSchema) servletContext.getAttribute(SearchSchema.ATTRIBUTE));
+		query_.setReverseIndex((ReverseIndex) servletContext.getAttribute(ReverseIndex.ATTRIBUTE));
+		query_.setSearchDocumentIndex((SearchDocumentIndex) servletContext.getAttribute(SearchDocumentIndex.ATTRIBUTE));
+	}
+
+	/**
+	 * Returns the search query of this task.
+	 *
+	 * @return The search query of this task.
+	 */
+	public SearchQuery getQuery() {
+		return query_;
+	}
+
+	@Override
+	protected final ArrayList<DownloadInfo> run(ConnectionPool databaseConnectionPool) throws Exception {
+		query_.setProgress(this);
+		return query_.run(databaseConnectionPool);
 	}
 
 	@Override
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.task;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+
+import javax.servlet.ServletContext;
+
+import com.example.afm_wiki.WikiUI;
+import com.example.afm_wiki.data.AircraftModelInfo;
+import com.example.afm_wiki.data.AircraftModelInfo.AircraftModelInfoType;
+import com.example.afm_wiki.download.DownloadRegistry;
+import com.example.afm_wiki.download.DownloadRejectedException;
+import com.example.afm_wiki.download.StreamedDownload;
+import com.example.afm_wiki.download.StreamedDownload.ProgressListener;
+import com.example.afm_wiki.ui.JobTrayItem;
+import com.example.afm_wiki.utility.Utility;
+import com.vaadin.server.VaadinServlet;
+import com.vaadin.server.VaadinSession;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Class for stream A/C models task. A/C models are the largest payloads of the database, so they are not prepared as download files. Instead, the task registers a streamed download, which is then served by the stream servlet directly from the
+ * database to the client. The progress of the transfer is reported to the job tray.
+ */
+public class StreamAircraftModels extends WikiTask<String> {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** Model data table and column names. */
+	public static final String DATA_TABLE = "ac_model_data", DATA_COLUMN = "data";
+
+	/** A/C model info. */
+	private final ArrayList<AircraftModelInfo> info_ = new ArrayList<>();
+
+	/** User (session) ID. */
+	private final String user_;
+
+	/** Download registry. */
+	private final DownloadRegistry registry_;
+
+	/** The owner user interface. */
+	private final WikiUI ui_;
+
+	/**
+	 * Creates stream A/C models task.
+	 *
+	 * @param ui
+	 *            The owner user interface.
+	 */
+	public StreamAircraftModels(WikiUI ui) {
+
+		// create task
+		super(ui);
+
+		// set attributes
+		ui_ = ui;
+		ServletContext servletContext = VaadinServlet.getCurrent().getServletContext();
+		user_ = VaadinSession.getCurrent().getSession().getId();
+		registry_ = (DownloadRegistry) servletContext.getAttribute(DownloadRegistry.ATTRIBUTE);
+	}
+
+	/**
+	 * Adds A/C model info to be downloaded.
+	 *
+	 * @param info
+	 *            A/C model info.
+	 */
+	public void addAircraftModelInfo(AircraftModelInfo info) {
+		info_.add(info);
+	}
+
+	/**
+	 * Returns the caption of this task to be shown in the job tray.
+	 *
+	 * @return The caption of this task.
+	 */
+	public String getJobCaption() {
+		if (info_.size() == 1)
+			return (String) info_.get(0).getInfo(AircraftModelInfoType.MODEL_NAME);
+		return info_.size() + " A/C models";
+	}
+
+	@Override
+	protected String run(ConnectionPool databaseConnectionPool) throws Exception {
+
+		// set progress and info
+		setProgressInfo("C h e c k i n g   s i z e");
+		setProgressValue(0);
+
+		// get IDs and entry names
+		ArrayList<Integer> ids = new ArrayList<>();
+		ArrayList<String> entryNames = new ArrayList<>();
+		HashSet<String> uniqueNames = new HashSet<>();
+		long size = 0L;
+		boolean sizeKnown = true;
+		for (AircraftModelInfo info : info_) {
+			ids.add(info.getID());
+			String name = Utility.correctFileName((String) info.getInfo(AircraftModelInfoType.MODEL_NAME));
+			entryNames.add(uniqueNames.add(name) ? name + ".zip" : name + "_" + info.getID() + ".zip");
+			Long dataSize = (Long) info.getInfo(AircraftModelInfoType.DATA_SIZE);
+			if (dataSize == null)
+				sizeKnown = false;
+			else
+				size += dataSize;
+		}
+
+		// query size if not known
+		if (!sizeKnown)
+			size = DownloadTask.getDataSize(databaseConnectionPool, DATA_TABLE, DATA_COLUMN, ids);
+
+		// create file name
+		String fileName = ids.size() == 1 ? entryNames.get(0) : "models_" + new SimpleDateFormat("dd_MM_yyyy_HH_mm_ss").format(new Date()) + ".zip";
+
+		// register streamed download
+		StreamedDownload download = new StreamedDownload(DATA_TABLE, DATA_COLUMN, ids, entryNames, fileName, size, user_, new JobProgress(ui_, getJob()));
+		return registry_.register(download);
+	}
+
+	@Override
+	protected void succeeded(String result, WikiUI ui) {
+
+		// call super method
+		super.succeeded(result, ui);
+
+		// start streaming
+		JobTrayItem job = getJob();
+		if (job != null)
+			job.setProgressInfo("Starting transfer");
+		ui.stream(result);
+	}
+
+	/**
+	 * Progress listener which reports the transfer progress to a job tray item.
+	 */
+	private static class JobProgress implements ProgressListener {
+
+		/** The owner user interface. */
+		private final WikiUI ui_;
+
+		/** Job tray item. */
+		private final JobTrayItem job_;
+
+		/**
+		 * Creates progress listener.
+		 *
+		 * @param ui
+		 *            The owner user interface.
+		 * @param job
+		 *            Job tray item. Can be null.
+		 */
+		JobProgress(WikiUI ui, JobTrayItem job) {
+			ui_ = ui;
+			job_ = job;
+		}
+
+		@Override
+		public void progress(long bytes, long total) {
+			if ((job_ == null) || !ui_.isAttached())
+				return;
+			ui_.access(new Runnable() {
+
+				@Override
+				public void run() {
+					job_.setProgressValue(total <= 0 ? 0f : Math.min(1f, (float) bytes / total));
+					job_.setProgressInfo(Utility.readableFileSize(bytes) + " of " + Utility.readableFileSize(total));
+				}
+			});
+		}
+
+		@Override
+		public void completed(long bytes) {
+			if ((job_ == null) || !ui_.isAttached())
+				return;
+			ui_.access(new Runnable() {
+
+				@Override
+				public void run() {
+					job_.setStreamed(bytes);
+				}
+			});
+		}
+
+		@Override
+		public void failed(Exception e) {
+			if ((job_ == null) || !ui_.isAttached())
+				return;
+			ui_.access(new Runnable() {
+
+				@Override
+				public void run() {
+					job_.setFailed();
+					if (e instanceof DownloadRejectedException)
+						job_.setProgressInfo("Rejected");
+				}
+			});
+		}
+	}
+}
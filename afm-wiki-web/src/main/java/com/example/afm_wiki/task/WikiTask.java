@@ -0,0 +1,312 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.task;
+
+import java.util.concurrent.Callable;
+
+import javax.servlet.ServletContext;
+
+import org.apache.commons.lang3.text.WordUtils;
+
+import com.example.afm_wiki.WikiUI;
+import com.example.afm_wiki.engine.TaskProgress;
+import com.example.afm_wiki.metrics.FlightEvents;
+import com.example.afm_wiki.metrics.TaskMetrics;
+import com.example.afm_wiki.metrics.TaskPhase;
+import com.example.afm_wiki.metrics.TaskSample;
+import com.example.afm_wiki.ui.JobTrayItem;
+import com.vaadin.server.Page;
+import com.vaadin.server.VaadinServlet;
+import com.vaadin.ui.Notification;
+
+import snaq.db.ConnectionPool;
+
+/**
+ * Abstract class for wiki task. Wiki tasks adapt the engine to the user interface; they run in the thread pool, report their progress to the progress dialog (or job tray) and call back the user interface within access.
+ * <p>
+ * Each execution is measured by a {@link TaskSample} bound to the executing thread, and recorded to the task metrics under the simple class name of the task (together with the exception of failed executions). The
+ * execution is also recorded as task event of the flight recorder.
+ *
+ * @author Murat Artim
+ * @date 27 Feb 2017
+ * @time 20:19:15
+ * @param <V>
+ *            Result type of this task.
+ */
+public abstract class WikiTask<V> implements Callable<V>, TaskProgress {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The owner user interface. */
+	private final WikiUI ui_;
+
+	/** Database connection pool. */
+	private final ConnectionPool databaseConnectionPool_;
+
+	/** Task metrics. */
+	private final TaskMetrics metrics_;
+
+	/** Submission time in nanoseconds, or 0 if the submission time is not known. */
+	private volatile long submitted_ = 0L;
+
+	/** Job tray item of this task, or null if this task is tracked by the modal progress dialog. */
+	private JobTrayItem job_;
+
+	/** True if this task runs silently in background priority. */
+	private boolean background_ = false;
+
+	/**
+	 * Creates wiki task.
+	 *
+	 * @param ui
+	 *            The owner user interface.
+	 */
+	public WikiTask(WikiUI ui) {
+
+		// set owner user interface
+		ui_ = ui;
+
+		// set database connection pool
+		ServletContext servletContext = VaadinServlet.getCurrent().getServletContext();
+		databaseConnectionPool_ = (ConnectionPool) servletContext.getAttribute("databaseConnectionPool");
+
+		// set task metrics
+		metrics_ = (TaskMetrics) servletContext.getAttribute(TaskMetrics.ATTRIBUTE);
+	}
+
+	/**
+	 * Marks this task as submitted to the thread pool. The time between submission and execution is recorded as queue wait of the task.
+	 */
+	public void setSubmitted() {
+		submitted_ = System.nanoTime();
+	}
+
+	/**
+	 * Sets job tray item to this task. This makes the task a background job, which reports its progress to the given tray item instead of the modal progress dialog.
+	 *
+	 * @param job
+	 *            Job tray item.
+	 */
+	public void setJob(JobTrayItem job) {
+		job_ = job;
+	}
+
+	/**
+	 * Returns the job tray item of this task, or null if this task is not a background job.
+	 *
+	 * @return The job tray item of this task, or null if this task is not a background job.
+	 */
+	public JobTrayItem getJob() {
+		return job_;
+	}
+
+	/**
+	 * Sets this task as background task. Background tasks run with minimum thread priority, and they neither show nor update the progress dialog.
+	 *
+	 * @param background
+	 *            True if this task should run in background.
+	 */
+	public void setBackground(boolean background) {
+		background_ = background;
+	}
+
+	/**
+	 * Returns true if this task runs in background.
+	 *
+	 * @return True if this task runs in background.
+	 */
+	public boolean isBackground() {
+		return background_;
+	}
+
+	@Override
+	public final V call() throws Exception {
+
+		// bind task sample to thread and begin flight recorder event
+		long start = System.nanoTime();
+		TaskSample sample = TaskSample.begin();
+		Object event = FlightEvents.beginTask();
+		if (submitted_ != 0L)
+			sample.set(TaskPhase.QUEUE, start - submitted_);
+
+		// lower thread priority for background tasks
+		Thread thread = Thread.currentThread();
+		int priority = thread.getPriority();
+		if (background_)
+			thread.setPriority(Thread.MIN_PRIORITY);
+
+		// execute task
+		V result = null;
+		Exception failure = null;
+		try {
+			result = run(databaseConnectionPool_);
+		}
+
+		// exception occurred during execution
+		catch (Exception e) {
+			failure = e;
+		}
+
+		// restore thread priority (pool threads are reused) and record sample
+		finally {
+			thread.setPriority(priority);
+			sample.set(TaskPhase.TOTAL, System.nanoTime() - start);
+			sample.end();
+			FlightEvents.commitTask(event, getClass().getSimpleName(), background_, sample, failure);
+			if (metrics_ != null)
+				metrics_.record(getClass().getSimpleName(), sample, failure);
+		}
+
+		// call succeeded code within access
+		long requested = System.nanoTime();
+		if (failure == null) {
+			V value = result;
+			ui_.access(new Runnable() {
+
+				@Override
+				public void run() {
+					succeeded(value, ui_);
+					recordUIPush(requested);
+				}
+			});
+			return result;
+		}
+
+		// call failure code within access
+		Exception exception = failure;
+		ui_.access(new Runnable() {
+
+			@Override
+			public void run() {
+				failed(exception, ui_);
+				recordUIPush(requested);
+			}
+		});
+		return null;
+	}
+
+	/**
+	 * Records the time from the given call back request until now as UI push time of this task.
+	 *
+	 * @param requested
+	 *            Time of the call back request in nanoseconds.
+	 */
+	private void recordUIPush(long requested) {
+		if (metrics_ != null)
+			metrics_.record(getClass().getSimpleName(), TaskPhase.UI_PUSH, System.nanoTime() - requested);
+	}
+
+	/**
+	 * Runs this task and returns the result. Note that, no UI instance should be accessed from within this method.
+	 *
+	 * @param databaseConnectionPool
+	 *            Database connection pool.
+	 * @return The result of this task, or null no result can be computed.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	protected abstract V run(ConnectionPool databaseConnectionPool) throws Exception;
+
+	/**
+	 * Called after the task execution is completed. Note that, UI instances can be accessed from within this method.
+	 *
+	 * @param result
+	 *            The result of this task.
+	 * @param ui
+	 *            The owner user interface.
+	 */
+	protected void succeeded(V result, WikiUI ui) {
+
+		// remove progress window
+		if ((job_ == null) && !background_ && ui.getProgressDialog().isAttached()) {
+			ui.removeWindow(ui.getProgressDialog());
+			ui.getProgressDialog().setProgressValue(0);
+		}
+	}
+
+	/**
+	 * Called if the task execution fails. Note that, UI instances can be accessed from within this method.
+	 *
+	 * @param e
+	 *            Exception occurred.
+	 * @param ui
+	 *            The owner user interface.
+	 */
+	protected void failed(Exception e, WikiUI ui) {
+
+		// remove progress window
+		if ((job_ == null) && !background_ && ui.getProgressDialog().isAttached()) {
+			ui.removeWindow(ui.getProgressDialog());
+			ui.getProgressDialog().setProgressValue(0);
+		}
+
+		// mark job as failed
+		if (job_ != null)
+			job_.setFailed();
+
+		// show notification
+		Notification n = new Notification("");
+		n.setCaption("OOPS!");
+		n.setStyleName("tray error");
+		n.setDescription("A server exception occurred during processing your request.<br><br><i>Description:</i><br>" + WordUtils.wrap(e.getMessage(), 60));
+		n.setHtmlContentAllowed(true);
+		n.show(Page.getCurrent());
+
+		// print stack trace
+		e.printStackTrace();
+	}
+
+	@Override
+	public void setProgressValue(float value) {
+
+		// background task
+		if (background_)
+			return;
+
+		// set progress within access
+		ui_.access(new Runnable() {
+
+			@Override
+			public void run() {
+				if (job_ != null)
+					job_.setProgressValue(value);
+				else
+					ui_.getProgressDialog().setProgressValue(value);
+			}
+		});
+	}
+
+	@Override
+	public void setProgressInfo(String info) {
+
+		// background task
+		if (background_)
+			return;
+
+		// set progress within access
+		ui_.access(new Runnable() {
+
+			@Override
+			public void run() {
+				if (job_ != null)
+					job_.setProgressInfo(info);
+				else
+					ui_.getProgressDialog().setProgressInfo(info);
+			}
+		});
+	}
+}
@@ -23,7 +23,6 @@ import com.vaadin.server.FontAwesome;
 import com.vaadin.ui.Alignment;
 import com.vaadin.ui.Component;
 import com.vaadin.ui.Image;
-import com.vaadin.ui.Label;
 import com.vaadin.ui.TabSheet;
 import com.vaadin.ui.TabSheet.SelectedTabChangeEvent;
 import com.vaadin.ui.TabSheet.SelectedTabChangeListener;
@@ -83,7 +82,7 @@ public class AdvancedSearch extends VerticalLayout implements Paper {
 		pilotPointTab.setIcon(FontAwesome.FILE_POWERPOINT_O);
 		Tab loadcaseTab = searchTabs_.addTab(new AdvancedLoadcaseFactorSearchPage(this), "Loadcase Factors");
 		loadcaseTab.setIcon(FontAwesome.TABLE);
-		Tab modelTab = searchTabs_.addTab(new Label("Not implemented yet"), "Aircraft Models");
+		Tab modelTab = searchTabs_.addTab(new AdvancedAircraftModelSearchPage(this), "Aircraft Models");
 		modelTab.setIcon(FontAwesome.PAPER_PLANE);
 
 		// create settings image
@@ -130,6 +129,8 @@ public class AdvancedSearch extends VerticalLayout implements Paper {
 					((AdvancedPilotPointSearchPage) searchTabs_.getTab(1).getComponent()).removeListeners();
 				if (!selected.equals(searchTabs_.getTab(2).getComponent()))
 					((AdvancedLoadcaseFactorSearchPage) searchTabs_.getTab(2).getComponent()).removeListeners();
+				if (!selected.equals(searchTabs_.getTab(3).getComponent()))
+					((AdvancedAircraftModelSearchPage) searchTabs_.getTab(3).getComponent()).removeListeners();
 			}
 		});
 	}
@@ -162,6 +163,7 @@ public class AdvancedSearch extends VerticalLayout implements Paper {
 		((AdvancedSpectrumSearchPage) searchTabs_.getTab(0).getComponent()).removeListeners();
 		((AdvancedPilotPointSearchPage) searchTabs_.getTab(1).getComponent()).removeListeners();
 		((AdvancedLoadcaseFactorSearchPage) searchTabs_.getTab(2).getComponent()).removeListeners();
+		((AdvancedAircraftModelSearchPage) searchTabs_.getTab(3).getComponent()).removeListeners();
 		searchTabs_.setVisible(false);
 	}
 }
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.ui;
+
+import com.example.afm_wiki.data.AircraftModelInfo;
+import com.example.afm_wiki.data.AircraftModelInfo.AircraftModelInfoType;
+import com.example.afm_wiki.data.DownloadInfo;
+import com.example.afm_wiki.data.SearchItem;
+import com.example.afm_wiki.data.SpectrumInfo.SpectrumInfoType;
+import com.example.afm_wiki.data.SpectrumSearchInput;
+import com.example.afm_wiki.task.AdvancedSpectrumSearch;
+import com.example.afm_wiki.task.StreamAircraftModels;
+import com.example.afm_wiki.ui.SearchResults.DownloadableResult;
+import com.example.afm_wiki.utility.Utility;
+import com.vaadin.server.FontAwesome;
+import com.vaadin.ui.AbsoluteLayout;
+import com.vaadin.ui.Button;
+import com.vaadin.ui.Button.ClickEvent;
+import com.vaadin.ui.Button.ClickListener;
+import com.vaadin.ui.CheckBox;
+import com.vaadin.ui.CssLayout;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.themes.ValoTheme;
+
+/**
+ * Class for A/C model result item.
+ */
+public class AircraftModelResult extends AbsoluteLayout implements DownloadableResult, ClickListener {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The owner panel. */
+	private final SearchResults owner_;
+
+	/** A/C model info. */
+	private final AircraftModelInfo info_;
+
+	/** The title of the result. */
+	private final CheckBox titleCheckBox_;
+
+	/** The description of the result. */
+	private final Label descriptionLabel_;
+
+	/** Buttons. */
+	private final Button spectraButton_, downloadButton_;
+
+	/**
+	 * Creates A/C model result.
+	 *
+	 * @param owner
+	 *            The owner panel.
+	 * @param info
+	 *            A/C model info.
+	 */
+	public AircraftModelResult(SearchResults owner, AircraftModelInfo info) {
+
+		// set info
+		owner_ = owner;
+		info_ = info;
+
+		// setup layout
+		addStyleName("searchItem");
+		setWidth("100%");
+		setHeight(65, Unit.PIXELS);
+
+		// create header check box
+		titleCheckBox_ = new CheckBox(Utility.trimResultLine((String) info_.getInfo(AircraftModelInfoType.MODEL_NAME)));
+		titleCheckBox_.addStyleName("searchItemHeader");
+		addComponent(titleCheckBox_, "top: 10; left: 10;");
+
+		// create description
+		String description = (String) info_.getInfo(AircraftModelInfoType.AC_PROGRAM);
+		description += ", " + (String) info_.getInfo(AircraftModelInfoType.DELIVERY_REF);
+		description += ", " + (String) info_.getInfo(AircraftModelInfoType.DESCRIPTION);
+		Long dataSize = (Long) info_.getInfo(AircraftModelInfoType.DATA_SIZE);
+		if (dataSize != null)
+			description += ", " + Utility.readableFileSize(dataSize);
+		descriptionLabel_ = new Label(Utility.trimResultLine(description));
+		descriptionLabel_.addStyleName("searchItemDescription");
+		addComponent(descriptionLabel_, "top: 32; left: 35;");
+
+		// create layout for buttons
+		CssLayout buttonLayout = new CssLayout();
+		buttonLayout.addStyleName("v-component-group");
+		addComponent(buttonLayout, "top: 13; right: 10;");
+
+		// create spectra button
+		spectraButton_ = new Button(FontAwesome.AREA_CHART);
+		spectraButton_.addStyleName(ValoTheme.BUTTON_ICON_ONLY);
+		spectraButton_.addStyleName(ValoTheme.BUTTON_FRIENDLY);
+		spectraButton_.setDescription("Search spectra of the aircraft program");
+		buttonLayout.addComponent(spectraButton_);
+		spectraButton_.addClickListener(this);
+
+		// create download button
+		downloadButton_ = new Button(FontAwesome.CLOUD_DOWNLOAD);
+		downloadButton_.addStyleName(ValoTheme.BUTTON_ICON_ONLY);
+		downloadButton_.addStyleName(ValoTheme.BUTTON_FRIENDLY);
+		downloadButton_.setDescription("Download to disk");
+		buttonLayout.addComponent(downloadButton_);
+		downloadButton_.addClickListener(this);
+	}
+
+	/**
+	 * Returns the owner panel.
+	 *
+	 * @return The owner panel.
+	 */
+	public SearchResults getOwner() {
+		return owner_;
+	}
+
+	/**
+	 * Returns the A/C model info.
+	 *
+	 * @return The A/C model info.
+	 */
+	public AircraftModelInfo getInfo() {
+		return info_;
+	}
+
+	@Override
+	public boolean isSelected() {
+		return titleCheckBox_.getValue();
+	}
+
+	@Override
+	public DownloadInfo getDownloadInfo() {
+		return info_;
+	}
+
+	@Override
+	public void buttonClick(ClickEvent event) {
+		Object source = event.getSource();
+		if (source.equals(downloadButton_))
+			onDownloadClicked();
+		else if (source.equals(spectraButton_))
+			onSearchSpectraClicked();
+	}
+
+	/**
+	 * Called when download A/C model clicked.
+	 */
+	private void onDownloadClicked() {
+		StreamAircraftModels task = new StreamAircraftModels(owner_.getOwner().getOwner());
+		task.addAircraftModelInfo(info_);
+		owner_.getOwner().getOwner().submitJob(task, task.getJobCaption());
+	}
+
+	/**
+	 * Called when search spectra clicked.
+	 */
+	private void onSearchSpectraClicked() {
+
+		// create search input
+		SpectrumSearchInput input = new SpectrumSearchInput();
+		String program = (String) info_.getInfo(AircraftModelInfoType.AC_PROGRAM);
+		input.addInput(SpectrumInfoType.AC_PROGRAM, new SearchItem(program, SearchField.EQUALS));
+
+		// set engine settings
+		owner_.getOwner().getOwner().getSearchView().getSettings().setEngineSettings(input);
+
+		// search
+		owner_.getOwner().getOwner().submitTask(new AdvancedSpectrumSearch(owner_.getOwner().getOwner(), input));
+	}
+}
@@ -15,11 +15,13 @@
  */
 package com.example.afm_wiki.ui;
 
-import java.util.ArrayList;
-
 import org.vaadin.resetbuttonfortextfield.ResetButtonForTextField;
 
 import com.example.afm_wiki.data.BasicSearchInput;
+import com.example.afm_wiki.data.SearchExpression;
+import com.example.afm_wiki.data.SearchExpressionParser;
+import com.example.afm_wiki.schema.SearchDocumentIndex;
+import com.example.afm_wiki.task.BasicAircraftModelSearch;
 import com.example.afm_wiki.task.BasicLoadcaseFactorSearch;
 import com.example.afm_wiki.task.BasicPilotPointSearch;
 import com.example.afm_wiki.task.BasicSpectrumSearch;
@@ -128,7 +130,10 @@ public class BasicSearch extends VerticalLayout implements Paper {
 		String description = "Enter space or comma separated keywords. Examples:<br>";
 		description += "\"<font color=\"steelblue\">A380 FF</font>\" or ";
 		description += "\"<font color=\"steelblue\">A310, sect13</font>\" or ";
-		description += "\"<font color=\"steelblue\">A310 sect13 MR</font>\"";
+		description += "\"<font color=\"steelblue\">A310 sect13 MR</font>\"<br>";
+		description += "Comma separated keywords may contain spaces. Use quotes for phrases, column:value for fields, * for prefixes, and NOT, AND, OR (upper case) with parentheses. Example:<br>";
+		description += "\"<font color=\"steelblue\">ac_program:A350 element_type:skin frame_rib_position:FR4* NOT \"cruise\"</font>\"<br>";
+		description += "With the AND operator, each keyword may be found in a different column of the result.";
 		searchField_.setDescription(description);
 		searchLayout.addComponent(searchField_, "top: 0; left: 75;");
 
@@ -281,118 +286,61 @@ public class BasicSearch extends VerticalLayout implements Paper {
 	 */
 	private void performSearch(String input) {
 
+		// get settings dialog
+		SettingsDialog settings = owner_.getSettings();
+		String searchTarget = settings.getSearchTarget();
+
 		// check inputs
-		ArrayList<String> keywords = checkInputs(input);
-		if (keywords == null)
+		SearchExpression expression = checkInputs(input, settings.getLogicalOperator().equals(SettingsDialog.AND), searchTarget);
+		if (expression == null)
 			return;
 
 		// create input
 		BasicSearchInput searchInput = new BasicSearchInput();
-		searchInput.setKeywords(keywords);
-
-		// get settings dialog
-		SettingsDialog settings = owner_.getSettings();
 
 		// set engine settings
 		settings.setEngineSettings(searchInput);
+		searchInput.setExpression(expression);
 
 		// search
-		String searchTarget = settings.getSearchTarget();
 		if (searchTarget.equals(SettingsDialog.FATIGUE_SPECTRA))
 			owner_.getOwner().submitTask(new BasicSpectrumSearch(owner_.getOwner(), searchInput));
 		else if (searchTarget.equals(SettingsDialog.PILOT_POINTS))
 			owner_.getOwner().submitTask(new BasicPilotPointSearch(owner_.getOwner(), searchInput));
 		else if (searchTarget.equals(SettingsDialog.LOADCASE_FACTORS))
 			owner_.getOwner().submitTask(new BasicLoadcaseFactorSearch(owner_.getOwner(), searchInput));
+		else if (searchTarget.equals(SettingsDialog.AIRCRAFT_MODELS))
+			owner_.getOwner().submitTask(new BasicAircraftModelSearch(owner_.getOwner(), searchInput));
 	}
 
 	/**
-	 * Checks inputs and shows warning message if invalid.
+	 * Checks inputs and shows warning message if invalid. The input is parsed once here, and the search queries compile the parsed expression.
 	 *
 	 * @param input
 	 *            User input text.
-	 * @return List of extracted keywords, or null if invalid inputs are supplied.
+	 * @param and
+	 *            True if terms without an operator in between are combined with AND, false if with OR.
+	 * @param searchTarget
+	 *            Search target.
+	 * @return The search expression, or null if invalid inputs are supplied.
 	 */
-	private static ArrayList<String> checkInputs(String input) {
+	private static SearchExpression checkInputs(String input, boolean and, String searchTarget) {
 
 		try {
 
-			// no input supplied
-			if (input == null) {
-				Notification.show("Please enter keywords to search", Notification.Type.WARNING_MESSAGE);
-				return null;
-			}
-
-			// get keywords
-			final String keywords = input.trim();
-
-			// no keyword entered
-			if ((keywords == null) || keywords.isEmpty()) {
-				Notification.show("Please enter keywords to search", Notification.Type.WARNING_MESSAGE);
-				return null;
-			}
-
-			// create input list
-			final ArrayList<String> inputs = new ArrayList<>();
-
-			// comma separated keywords
-			if (keywords.contains(",")) {
-
-				// split
-				final String[] split = keywords.split(",");
-
-				// no keywords
-				if (split.length == 0) {
-					Notification.show("Please enter keywords to search", Notification.Type.WARNING_MESSAGE);
-					return null;
-				}
-
-				// add words to inputs
-				for (String word : split) {
-					word = word.trim();
-					if (!word.isEmpty())
-						inputs.add(word);
-				}
+			// parse input
+			SearchExpression expression = SearchExpressionParser.parse(input, and);
 
-				// no keywords
-				if (inputs.isEmpty()) {
-					Notification.show("Please enter keywords to search", Notification.Type.WARNING_MESSAGE);
-					return null;
-				}
-			}
-
-			// space separated keywords
-			else if (keywords.contains(" ")) {
-
-				// split
-				final String[] split = keywords.split(" ");
-
-				// no keywords
-				if (split.length == 0) {
-					Notification.show("Please enter keywords to search", Notification.Type.WARNING_MESSAGE);
-					return null;
-				}
-
-				// add words to inputs
-				for (String word : split) {
-					word = word.trim();
-					if (!word.isEmpty())
-						inputs.add(word);
-				}
-
-				// no keywords
-				if (inputs.isEmpty()) {
-					Notification.show("Please enter keywords to search", Notification.Type.WARNING_MESSAGE);
-					return null;
-				}
-			}
-
-			// single keyword
-			else
-				inputs.add(keywords);
+			// check fields of the searched table
+			String table = searchTarget.equals(SettingsDialog.PILOT_POINTS) ? "pilot_points" : searchTarget.equals(SettingsDialog.LOADCASE_FACTORS) ? "mult_tables" : searchTarget.equals(SettingsDialog.AIRCRAFT_MODELS) ? "ac_models" : "spectra";
+			expression.checkFields(SearchDocumentIndex.getColumns(table));
+			return expression;
+		}
 
-			// return inputs
-			return inputs;
+		// invalid input
+		catch (IllegalArgumentException e) {
+			Notification.show(e.getMessage(), Notification.Type.WARNING_MESSAGE);
+			return null;
 		}
 
 		// exception occurred during processing user inputs
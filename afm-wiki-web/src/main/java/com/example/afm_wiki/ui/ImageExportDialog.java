@@ -0,0 +1,206 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.ui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+import com.example.afm_wiki.data.PilotPointImageType;
+import com.example.afm_wiki.data.PilotPointInfo;
+import com.example.afm_wiki.task.ExportPilotPointImages;
+import com.example.afm_wiki.task.ExportPilotPointImages.ExportFormat;
+import com.vaadin.data.Property.ValueChangeEvent;
+import com.vaadin.data.Property.ValueChangeListener;
+import com.vaadin.server.FontAwesome;
+import com.vaadin.ui.Alignment;
+import com.vaadin.ui.Button;
+import com.vaadin.ui.Button.ClickEvent;
+import com.vaadin.ui.Button.ClickListener;
+import com.vaadin.ui.HorizontalLayout;
+import com.vaadin.ui.OptionGroup;
+import com.vaadin.ui.Panel;
+import com.vaadin.ui.VerticalLayout;
+import com.vaadin.ui.Window;
+import com.vaadin.ui.themes.ValoTheme;
+
+/**
+ * Class for pilot point image export dialog.
+ */
+public class ImageExportDialog extends Window {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The owner panel of this dialog. */
+	private final SearchResults owner_;
+
+	/** Image type and format selections. */
+	private final OptionGroup imageTypes_, format_;
+
+	/** Export button. */
+	private final Button exportButton_;
+
+	/** Pilot points to export images of. */
+	private final ArrayList<PilotPointInfo> info_ = new ArrayList<>();
+
+	/**
+	 * Creates pilot point image export dialog.
+	 *
+	 * @param owner
+	 *            The owner panel of this dialog.
+	 */
+	public ImageExportDialog(SearchResults owner) {
+
+		// set owner
+		owner_ = owner;
+
+		// create layout
+		VerticalLayout layout = new VerticalLayout();
+		layout.addStyleName("settingsPanel");
+		layout.setMargin(true);
+		layout.setSpacing(true);
+
+		// create image type selection
+		imageTypes_ = new OptionGroup();
+		imageTypes_.setMultiSelect(true);
+		imageTypes_.setImmediate(true);
+		imageTypes_.addItems((Object[]) PilotPointImageType.values());
+		imageTypes_.setValue(Arrays.asList(PilotPointImageType.MISSION_PROFILE, PilotPointImageType.LEVEL_CROSSING));
+		VerticalLayout imageTypesLayout = new VerticalLayout(imageTypes_);
+		imageTypesLayout.setMargin(true);
+		Panel imageTypesPanel = new Panel("Images");
+		imageTypesPanel.setIcon(FontAwesome.PICTURE_O);
+		imageTypesPanel.setWidth("100%");
+		imageTypesPanel.setContent(imageTypesLayout);
+		layout.addComponent(imageTypesPanel);
+
+		// create format selection
+		format_ = new OptionGroup();
+		format_.setImmediate(true);
+		format_.setNullSelectionAllowed(false);
+		format_.addItems((Object[]) ExportFormat.values());
+		format_.setValue(ExportFormat.ZIP);
+		VerticalLayout formatLayout = new VerticalLayout(format_);
+		formatLayout.setMargin(true);
+		Panel formatPanel = new Panel("Format");
+		formatPanel.setIcon(FontAwesome.FILE_ARCHIVE_O);
+		formatPanel.setWidth("100%");
+		formatPanel.setContent(formatLayout);
+		layout.addComponent(formatPanel);
+
+		// create buttons
+		exportButton_ = new Button("Export");
+		exportButton_.addStyleName(ValoTheme.BUTTON_PRIMARY);
+		exportButton_.addStyleName(ValoTheme.BUTTON_SMALL);
+		Button cancelButton = new Button("Cancel");
+		cancelButton.addStyleName(ValoTheme.BUTTON_PRIMARY);
+		cancelButton.addStyleName(ValoTheme.BUTTON_SMALL);
+		HorizontalLayout buttonLayout = new HorizontalLayout(exportButton_, cancelButton);
+		buttonLayout.setSpacing(true);
+		layout.addComponent(buttonLayout);
+		layout.setComponentAlignment(buttonLayout, Alignment.MIDDLE_RIGHT);
+
+		// add listener to export button
+		exportButton_.addClickListener(new ClickListener() {
+
+			/** Serial ID. */
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void buttonClick(ClickEvent event) {
+				onExportClicked();
+			}
+		});
+
+		// add listener to cancel button
+		cancelButton.addClickListener(new ClickListener() {
+
+			/** Serial ID. */
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void buttonClick(ClickEvent event) {
+				close();
+			}
+		});
+
+		// disable export when no image type is selected
+		imageTypes_.addValueChangeListener(new ValueChangeListener() {
+
+			/** Serial ID. */
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void valueChange(ValueChangeEvent event) {
+				exportButton_.setEnabled(!((Collection<?>) imageTypes_.getValue()).isEmpty());
+			}
+		});
+
+		// setup dialog
+		setIcon(FontAwesome.PICTURE_O);
+		setContent(layout);
+		setWidth(400, Unit.PIXELS);
+		center();
+		setModal(true);
+		setResizable(false);
+		setDraggable(false);
+	}
+
+	/**
+	 * Returns the owner of this dialog.
+	 *
+	 * @return The owner of this dialog.
+	 */
+	public SearchResults getOwner() {
+		return owner_;
+	}
+
+	/**
+	 * Sets pilot points to export images of.
+	 *
+	 * @param info
+	 *            Pilot points to export images of.
+	 */
+	public void setInfo(Collection<PilotPointInfo> info) {
+		info_.clear();
+		info_.addAll(info);
+		setCaption("  Export images of " + info_.size() + " pilot points");
+	}
+
+	/**
+	 * Called when export button is clicked.
+	 */
+	private void onExportClicked() {
+
+		// get selected image types (in declaration order)
+		ArrayList<PilotPointImageType> imageTypes = new ArrayList<>();
+		Collection<?> selected = (Collection<?>) imageTypes_.getValue();
+		for (PilotPointImageType imageType : PilotPointImageType.values()) {
+			if (selected.contains(imageType))
+				imageTypes.add(imageType);
+		}
+
+		// create task
+		ExportPilotPointImages task = new ExportPilotPointImages(imageTypes, (ExportFormat) format_.getValue(), owner_.getOwner().getOwner());
+		for (PilotPointInfo info : info_)
+			task.addPilotPointInfo(info);
+
+		// submit task as background job
+		owner_.getOwner().getOwner().submitJob(task);
+		close();
+	}
+}
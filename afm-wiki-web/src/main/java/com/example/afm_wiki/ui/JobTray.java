@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.ui;
+
+import java.util.Iterator;
+
+import com.example.afm_wiki.WikiUI;
+import com.example.afm_wiki.task.WikiTask;
+import com.vaadin.server.FontAwesome;
+import com.vaadin.ui.Component;
+import com.vaadin.ui.VerticalLayout;
+import com.vaadin.ui.Window;
+
+/**
+ * Class for non-modal job tray. The tray lists background download jobs of the session, so that the user can keep on searching while downloads are being prepared.
+ */
+public class JobTray extends Window {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The owner user interface. */
+	private final WikiUI owner_;
+
+	/** Job list layout. */
+	private final VerticalLayout jobs_;
+
+	/**
+	 * Creates job tray.
+	 *
+	 * @param owner
+	 *            The owner user interface.
+	 */
+	public JobTray(WikiUI owner) {
+
+		// set owner
+		owner_ = owner;
+
+		// create job list layout
+		jobs_ = new VerticalLayout();
+		jobs_.setMargin(true);
+		jobs_.setSpacing(true);
+		jobs_.setWidth(340, Unit.PIXELS);
+
+		// create tray
+		setCaption(" Downloads");
+		setIcon(FontAwesome.TASKS);
+		setContent(jobs_);
+		setSizeUndefined();
+		setModal(false);
+		setResizable(false);
+		setDraggable(true);
+		setClosable(true);
+	}
+
+	/**
+	 * Returns owner user interface.
+	 *
+	 * @return The owner user interface.
+	 */
+	public WikiUI getOwner() {
+		return owner_;
+	}
+
+	/**
+	 * Creates a new tray item with the given caption for the given task and attaches it to the task.
+	 *
+	 * @param task
+	 *            Task to track in the tray.
+	 * @param caption
+	 *            Caption of the tray item.
+	 */
+	public void addJob(WikiTask<?> task, String caption) {
+		JobTrayItem item = new JobTrayItem(this, caption);
+		jobs_.addComponent(item, 0);
+		task.setJob(item);
+	}
+
+	/**
+	 * Removes given item from this tray.
+	 *
+	 * @param item
+	 *            Tray item to remove.
+	 */
+	public void removeJob(JobTrayItem item) {
+		jobs_.removeComponent(item);
+		if ((jobs_.getComponentCount() == 0) && isAttached())
+			owner_.removeWindow(this);
+	}
+
+	/**
+	 * Deletes the prepared files of all jobs which were never fetched by the user.
+	 */
+	public void discardUnfetched() {
+		Iterator<Component> iterator = jobs_.iterator();
+		while (iterator.hasNext())
+			((JobTrayItem) iterator.next()).discardUnfetched();
+	}
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.ui;
+
+import java.io.File;
+
+import com.example.afm_wiki.utility.Utility;
+import com.vaadin.server.FontAwesome;
+import com.vaadin.ui.Alignment;
+import com.vaadin.ui.Button;
+import com.vaadin.ui.Button.ClickEvent;
+import com.vaadin.ui.Button.ClickListener;
+import com.vaadin.ui.HorizontalLayout;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.ProgressBar;
+import com.vaadin.ui.VerticalLayout;
+import com.vaadin.ui.themes.ValoTheme;
+
+/**
+ * Class for job tray item. Each item tracks a background download job and holds the prepared file until the user fetches it.
+ */
+public class JobTrayItem extends HorizontalLayout implements ClickListener {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The owner tray. */
+	private final JobTray owner_;
+
+	/** Labels. */
+	private final Label caption_, info_;
+
+	/** Progress bar. */
+	private final ProgressBar progress_;
+
+	/** Buttons. */
+	private final Button fetchButton_, removeButton_;
+
+	/** Prepared download file. */
+	private File file_;
+
+	/** Download file name. */
+	private String fileName_;
+
+	/** True if the prepared file is fetched by the user. */
+	private boolean fetched_ = false;
+
+	/**
+	 * Creates job tray item.
+	 *
+	 * @param owner
+	 *            The owner tray.
+	 * @param caption
+	 *            Job caption.
+	 */
+	public JobTrayItem(JobTray owner, String caption) {
+
+		// set owner
+		owner_ = owner;
+
+		// setup layout
+		setWidth("100%");
+		setSpacing(true);
+		setDefaultComponentAlignment(Alignment.MIDDLE_LEFT);
+
+		// create labels and progress bar
+		VerticalLayout statusLayout = new VerticalLayout();
+		caption_ = new Label(Utility.trimResultLine(caption));
+		caption_.addStyleName(ValoTheme.LABEL_SMALL);
+		caption_.addStyleName(ValoTheme.LABEL_BOLD);
+		statusLayout.addComponent(caption_);
+		progress_ = new ProgressBar(0f);
+		progress_.setWidth("100%");
+		statusLayout.addComponent(progress_);
+		info_ = new Label("Queued");
+		info_.addStyleName(ValoTheme.LABEL_TINY);
+		statusLayout.addComponent(info_);
+		addComponent(statusLayout);
+		setExpandRatio(statusLayout, 1);
+
+		// create fetch button
+		fetchButton_ = new Button(FontAwesome.CLOUD_DOWNLOAD);
+		fetchButton_.addStyleName(ValoTheme.BUTTON_ICON_ONLY);
+		fetchButton_.addStyleName(ValoTheme.BUTTON_FRIENDLY);
+		fetchButton_.setDescription("Fetch download");
+		fetchButton_.setEnabled(false);
+		fetchButton_.addClickListener(this);
+		addComponent(fetchButton_);
+
+		// create remove button
+		removeButton_ = new Button(FontAwesome.CLOSE);
+		removeButton_.addStyleName(ValoTheme.BUTTON_ICON_ONLY);
+		removeButton_.addStyleName(ValoTheme.BUTTON_BORDERLESS);
+		removeButton_.setDescription("Remove from list");
+		removeButton_.setEnabled(false);
+		removeButton_.addClickListener(this);
+		addComponent(removeButton_);
+	}
+
+	/**
+	 * Returns the owner tray.
+	 *
+	 * @return The owner tray.
+	 */
+	public JobTray getOwner() {
+		return owner_;
+	}
+
+	/**
+	 * Sets the progress value of the job.
+	 *
+	 * @param value
+	 *            Progress value between 0 and 1.
+	 */
+	public void setProgressValue(float value) {
+		progress_.setValue(value);
+	}
+
+	/**
+	 * Sets progress info of the job.
+	 *
+	 * @param info
+	 *            Information string.
+	 */
+	public void setProgressInfo(String info) {
+		info_.setValue(info);
+	}
+
+	/**
+	 * Marks the job as completed with the given prepared download file.
+	 *
+	 * @param file
+	 *            Prepared download file.
+	 * @param fileName
+	 *            Download file name.
+	 */
+	public void setReady(File file, String fileName) {
+		file_ = file;
+		fileName_ = fileName;
+		progress_.setValue(1f);
+		info_.setValue("Ready, " + Utility.readableFileSize(file.length()));
+		fetchButton_.setEnabled(true);
+		removeButton_.setEnabled(true);
+	}
+
+	/**
+	 * Marks the job as streamed. Streamed downloads have no prepared file, so they cannot be fetched again from the tray.
+	 *
+	 * @param bytes
+	 *            Number of bytes streamed.
+	 */
+	public void setStreamed(long bytes) {
+		progress_.setValue(1f);
+		info_.setValue("Downloaded, " + Utility.readableFileSize(bytes));
+		removeButton_.setEnabled(true);
+	}
+
+	/**
+	 * Marks the job as failed.
+	 */
+	public void setFailed() {
+		progress_.setValue(0f);
+		info_.setValue("Failed");
+		removeButton_.setEnabled(true);
+	}
+
+	/**
+	 * Deletes the prepared download file if it was never fetched by the user.
+	 */
+	public void discardUnfetched() {
+		if ((file_ != null) && !fetched_) {
+			file_.delete();
+			file_ = null;
+		}
+	}
+
+	@Override
+	public void buttonClick(ClickEvent event) {
+
+		// fetch download
+		if (event.getButton().equals(fetchButton_)) {
+			fetched_ = true;
+			owner_.getOwner().download(file_, fileName_);
+		}
+
+		// remove item
+		else if (event.getButton().equals(removeButton_)) {
+			discardUnfetched();
+			owner_.removeJob(this);
+		}
+	}
+}
@@ -188,7 +188,7 @@ public class LoadcaseFactorResult extends AbsoluteLayout implements Downloadable
 	 * Called when download loadcase factor clicked.
 	 */
 	private void onDownloadClicked() {
-		owner_.getOwner().getOwner().submitTask(new DownloadLoadcaseFactor(info_, owner_.getOwner().getOwner()));
+		owner_.getOwner().getOwner().submitJob(new DownloadLoadcaseFactor(info_, owner_.getOwner().getOwner()));
 	}
 
 	/**
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.afm_wiki.ui;
+
+import java.util.zip.CRC32;
+
+import javax.servlet.ServletContext;
+
+import com.example.afm_wiki.data.PilotPointImageRendition;
+import com.example.afm_wiki.data.PilotPointImageType;
+import com.example.afm_wiki.data.PilotPointInfo;
+import com.example.afm_wiki.servlet.ImageServlet;
+import com.example.afm_wiki.task.GetPilotPointImage;
+import com.example.afm_wiki.utility.ImageAvailabilityIndex;
+import com.example.afm_wiki.utility.ImageCache;
+import com.vaadin.server.BrowserWindowOpener;
+import com.vaadin.server.ClassResource;
+import com.vaadin.server.ExternalResource;
+import com.vaadin.server.VaadinServlet;
+import com.vaadin.ui.Alignment;
+import com.vaadin.ui.Image;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.VerticalLayout;
+
+/**
+ * Class for pilot point image page.
+ *
+ * @author Murat Artim
+ * @date 6 Mar 2017
+ * @time 17:21:10
+ */
+public class PilotPointImagePage extends VerticalLayout {
+
+	/** Serial ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The owner window of this page. */
+	private final PilotPointInfoDialog owner_;
+
+	/** Pilot point image. */
+	private final Image image_, noImage_;
+
+	/** Labels. */
+	private final Label noImageLabel_, loadingLabel_;
+
+	/** Pilot point image type. */
+	private final PilotPointImageType imageType_;
+
+	/** Browser window opener for the full size original image. */
+	private BrowserWindowOpener originalOpener_;
+
+	/** Image request indicator. */
+	private boolean imageRequested_ = false;
+
+	/**
+	 * Create pilot point image page.
+	 *
+	 * @param owner
+	 *            The owner window of this page.
+	 * @param imageType
+	 *            Pilot point image type.
+	 */
+	public PilotPointImagePage(PilotPointInfoDialog owner, PilotPointImageType imageType) {
+
+		// set owner
+		owner_ = owner;
+		imageType_ = imageType;
+
+		// setup layout
+		if (!imageType_.equals(PilotPointImageType.IMAGE))
+			addStyleName("pilotPointImagePage");
+		setWidth(501, Unit.PIXELS);
+		setHeight(438, Unit.PIXELS);
+		setMargin(true);
+		setSpacing(true);
+
+		// create components
+		image_ = new Image();
+		image_.setWidth(477, Unit.PIXELS);
+		image_.setHeight(414, Unit.PIXELS);
+
+		// setup no image label and image
+		noImage_ = new Image();
+		noImage_.setSource(new ClassResource("image/sad.png"));
+		noImageLabel_ = new Label(imageType_.getPageName() + " not available.");
+		noImageLabel_.addStyleName("noImageLabel");
+		noImageLabel_.setWidth("100%");
+
+		// setup loading label
+		loadingLabel_ = new Label("Loading " + imageType_.getPageName() + "...");
+		loadingLabel_.addStyleName("noImageLabel");
+		loadingLabel_.setWidth("100%");
+	}
+
+	/**
+	 * Returns the owner of this page.
+	 *
+	 * @return The owner of this page.
+	 */
+	public PilotPointInfoDialog getOwner() {
+		return owner_;
+	}
+
+	/**
+	 * Requests image of this page.
+	 *
+	 * @param info
+	 *            Pilot point info.
+	 */
+	public void requestImage(PilotPointInfo info) {
+
+		// image already requested
+		if (imageRequested_)
+			return;
+
+		// remove all components
+		removeAllComponents();
+		imageRequested_ = true;
+
+		// image not available (no database round trip)
+		ServletContext servletContext = VaadinServlet.getCurrent().getServletContext();
+		ImageAvailabilityIndex imageIndex = (ImageAvailabilityIndex) servletContext.getAttribute(ImageAvailabilityIndex.ATTRIBUTE);
+		if (!imageIndex.isAvailable(info.getID(), imageType_)) {
+			setNoImageMessage();
+			return;
+		}
+
+		// image already cached (render without database round trip)
+		ImageCache imageCache = (ImageCache) servletContext.getAttribute(ImageCache.ATTRIBUTE);
+		byte[] image = imageCache.getIfPresent(info.getID(), imageType_, PilotPointImageRendition.DISPLAY);
+		if (image != null) {
+			if (image.length == 0)
+				setNoImageMessage();
+			else
+				setPilotPointImage();
+			return;
+		}
+
+		// request pilot point image in background (the prefetch has not completed yet, so show a placeholder instead of the progress dialog)
+		addComponent(loadingLabel_);
+		setComponentAlignment(loadingLabel_, Alignment.MIDDLE_CENTER);
+		owner_.getOwner().getOwner().getOwner().submitBackgroundTask(new GetPilotPointImage(info.getID(), imageType_, PilotPointImageRendition.DISPLAY, this, owner_.getOwner().getOwner().getOwner()));
+	}
+
+	/**
+	 * Sets pilot point image to this panel. The image is served by the image servlet from a URL versioned with the checksum of the cached display rendition, so that it is cached by the browser until the image is replaced. Clicking on
+	 * the image opens the full size original in a new browser window.
+	 */
+	public void setPilotPointImage() {
+
+		// get image version (unversioned if the rendition was evicted in the meantime)
+		ServletContext servletContext = VaadinServlet.getCurrent().getServletContext();
+		ImageCache imageCache = (ImageCache) servletContext.getAttribute(ImageCache.ATTRIBUTE);
+		int pilotPointID = owner_.getInfo().getID();
+		byte[] image = imageCache.getIfPresent(pilotPointID, imageType_, PilotPointImageRendition.DISPLAY);
+		String version = null;
+		if ((image != null) && (image.length > 0)) {
+			CRC32 crc = new CRC32();
+			crc.update(image);
+			version = Long.toHexString(crc.getValue());
+		}
+
+		// get image URLs
+		String contextPath = servletContext.getContextPath();
+		String display = ImageServlet.getURL(contextPath, pilotPointID, imageType_, PilotPointImageRendition.DISPLAY, version);
+		String original = ImageServlet.getURL(contextPath, pilotPointID, imageType_, PilotPointImageRendition.ORIGINAL, version);
+
+		// set image
+		image_.setSource(new ExternalResource(display));
+
+		// attach original to image
+		if (originalOpener_ != null)
+			originalOpener_.remove();
+		originalOpener_ = new BrowserWindowOpener(original);
+		originalOpener_.extend(image_);
+		image_.setDescription("Click to open full size image");
+
+		// add image to layout
+		removeAllComponents();
+		addComponent(image_);
+		setComponentAlignment(image_, Alignment.MIDDLE_CENTER);
+	}
+
+	/**
+	 * Removes all components and sets no image message.
+	 */
+	public void setNoImageMessage() {
+		removeAllComponents();
+		addComponent(noImage_);
+		setComponentAlignment(noImage_, Alignment.BOTTOM_CENTER);
+		addComponent(noImageLabel_);
+		setComponentAlignment(noImageLabel_, Alignment.TOP_CENTER);
+	}
+
+	/**
+	 * Returns the image type of this page.
+	 *
+	 * @return The image type of this page.
+	 */
+	public PilotPointImageType getImageType() {
+		return imageType_;
+	}
+
+	/**
+	 * Resets this page.
+	 */
+	public void reset() {
+		imageRequested_ = false;
+		removeAllComponents();
+	}
+}
@@ -18,8 +18,11 @@ package com.example.afm_wiki.ui;
 import com.example.afm_wiki.data.PilotPointImageType;
 import com.example.afm_wiki.data.PilotPointInfo;
 import com.example.afm_wiki.data.PilotPointInfo.PilotPointInfoType;
+import com.example.afm_wiki.task.PrefetchPilotPointImages;
+import com.example.afm_wiki.utility.ImageAvailabilityIndex;
 import com.vaadin.server.ClassResource;
 import com.vaadin.server.FontAwesome;
+import com.vaadin.server.VaadinServlet;
 import com.vaadin.ui.Alignment;
 import com.vaadin.ui.Component;
 import com.vaadin.ui.TabSheet;
@@ -191,9 +194,17 @@ public class PilotPointInfoDialog extends Window {
 		// set pilot point info
 		((PilotPointInfoPage) tabs_.getTab(0).getComponent()).setInfo(info);
 
-		// reset image pages
-		for (int i = 1; i < 11; i++)
-			((PilotPointImagePage) tabs_.getTab(i).getComponent()).reset();
+		// reset image pages (disable tabs of images which are not available)
+		ImageAvailabilityIndex imageIndex = (ImageAvailabilityIndex) VaadinServlet.getCurrent().getServletContext().getAttribute(ImageAvailabilityIndex.ATTRIBUTE);
+		for (int i = 1; i < 11; i++) {
+			Tab tab = tabs_.getTab(i);
+			PilotPointImagePage page = (PilotPointImagePage) tab.getComponent();
+			page.reset();
+			tab.setEnabled(imageIndex.isAvailable(info.getID(), page.getImageType()));
+		}
+
+		// prefetch all images of the pilot point in background
+		owner_.getOwner().getOwner().submitBackgroundTask(new PrefetchPilotPointImages(info.getID(), owner_.getOwner().getOwner()));
 
 		// select first tab
 		tabs_.setSelectedTab(0);
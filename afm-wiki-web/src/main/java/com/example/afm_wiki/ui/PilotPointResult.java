@@ -189,7 +189,7 @@ public class PilotPointResult extends AbsoluteLayout implements DownloadableResu
 	 * Called when download pilot point clicked.
 	 */
 	private void onDownloadClicked() {
-		owner_.getOwner().getOwner().submitTask(new DownloadPilotPoint(info_, owner_.getOwner().getOwner()));
+		owner_.getOwner().getOwner().submitJob(new DownloadPilotPoint(info_, owner_.getOwner().getOwner()));
 	}
 
 	/**
@@ -130,6 +130,7 @@ public class ProgressDialog extends Window {
 		ExecutorService threadPool = (ExecutorService) context.getAttribute("threadPool");
 
 		// submit task
+		task.setSubmitted();
 		threadPool.submit(task);
 	}
 }
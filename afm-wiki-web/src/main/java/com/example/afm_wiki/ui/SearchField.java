@@ -19,6 +19,7 @@ import java.io.Serializable;
 
 import org.vaadin.resetbuttonfortextfield.ResetButtonForTextField;
 
+import com.example.afm_wiki.data.SearchItem;
 import com.vaadin.event.FieldEvents.BlurEvent;
 import com.vaadin.event.FieldEvents.BlurListener;
 import com.vaadin.event.FieldEvents.FocusEvent;
@@ -44,7 +45,7 @@ public class SearchField implements Serializable {
 	private static final long serialVersionUID = 1L;
 
 	/** Search filter. */
-	public static final String CONTAINS = "Contains", EQUALS = "Equals", STARTS_WITH = "Starts with", ENDS_WITH = "Ends with";
+	public static final String CONTAINS = SearchItem.CONTAINS, EQUALS = SearchItem.EQUALS, STARTS_WITH = SearchItem.STARTS_WITH, ENDS_WITH = SearchItem.ENDS_WITH;
 
 	/** Text field. */
 	private final TextField textField_;
@@ -72,6 +73,7 @@ public class SearchField implements Serializable {
 		textField_.setImmediate(true);
 		textField_.addStyleName("advancedSearchField");
 		textField_.setInputPrompt(prompt);
+		textField_.setDescription("% matches any characters, _ matches any single character");
 		textField_.setWidth(270, Unit.PIXELS);
 		textField_.setHeight(37, Unit.PIXELS);
 		textField_.setData(CONTAINS);
@@ -26,13 +26,16 @@ import com.example.afm_wiki.data.SpectrumInfo;
 import com.example.afm_wiki.task.DownloadLoadcaseFactors;
 import com.example.afm_wiki.task.DownloadPilotPoints;
 import com.example.afm_wiki.task.DownloadSpectra;
-import com.example.afm_wiki.task.WikiTask;
+import com.example.afm_wiki.task.DownloadTask;
+import com.example.afm_wiki.task.StreamAircraftModels;
 import com.vaadin.server.FontAwesome;
+import com.vaadin.server.Page;
 import com.vaadin.ui.AbsoluteLayout;
 import com.vaadin.ui.Button;
 import com.vaadin.ui.Button.ClickEvent;
 import com.vaadin.ui.Button.ClickListener;
 import com.vaadin.ui.Component;
+import com.vaadin.ui.Notification;
 import com.vaadin.ui.Panel;
 import com.vaadin.ui.TabSheet;
 import com.vaadin.ui.TabSheet.Tab;
@@ -69,6 +72,9 @@ public class SearchResults extends VerticalLayout {
 	/** Loadcase factor info dialog. */
 	private final LoadcaseFactorInfoDialog loadcaseFactorInfoDialog_;
 
+	/** Pilot point image export dialog. */
+	private final ImageExportDialog imageExportDialog_;
+
 	/**
 	 * Creates basic search page.
 	 *
@@ -139,10 +145,31 @@ public class SearchResults extends VerticalLayout {
 			}
 		});
 
+		// create export images button
+		Button exportImages = new Button("Export images", FontAwesome.PICTURE_O);
+		exportImages.setHtmlContentAllowed(true);
+		exportImages.setWidth(180, Unit.PIXELS);
+		exportImages.addStyleName(ValoTheme.BUTTON_PRIMARY);
+		exportImages.addStyleName(ValoTheme.BUTTON_SMALL);
+		buttonLayout.addComponent(exportImages, "top: 13; left: 595;");
+
+		// add click listener to export images button
+		exportImages.addClickListener(new ClickListener() {
+
+			/** Serial ID. */
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void buttonClick(ClickEvent event) {
+				exportImages();
+			}
+		});
+
 		// create info dialogs
 		spectrumInfoDialog_ = new SpectrumInfoDialog(this);
 		pilotPointInfoDialog_ = new PilotPointInfoDialog(this);
 		loadcaseFactorInfoDialog_ = new LoadcaseFactorInfoDialog(this);
+		imageExportDialog_ = new ImageExportDialog(this);
 	}
 
 	/**
@@ -204,9 +231,8 @@ public class SearchResults extends VerticalLayout {
 				layout.addComponent(new LoadcaseFactorResult(this, (LoadcaseFactorInfo) result));
 
 			// aircraft model info
-			else if (result instanceof AircraftModelInfo) {
-				// TODO aircraft model info
-			}
+			else if (result instanceof AircraftModelInfo)
+				layout.addComponent(new AircraftModelResult(this, (AircraftModelInfo) result));
 	}
 
 	/**
@@ -273,8 +299,17 @@ public class SearchResults extends VerticalLayout {
 		if (downloads.isEmpty())
 			return;
 
+		// stream aircraft models
+		if (downloads.get(0) instanceof AircraftModelInfo) {
+			StreamAircraftModels stream = new StreamAircraftModels(owner_.getOwner());
+			for (DownloadInfo info : downloads)
+				stream.addAircraftModelInfo((AircraftModelInfo) info);
+			owner_.getOwner().submitJob(stream, stream.getJobCaption());
+			return;
+		}
+
 		// initialize download task
-		WikiTask<?> task = null;
+		DownloadTask task = null;
 
 		// download spectra
 		if (downloads.get(0) instanceof SpectrumInfo) {
@@ -297,8 +332,48 @@ public class SearchResults extends VerticalLayout {
 				((DownloadLoadcaseFactors) task).addLoadcaseFactorInfo((LoadcaseFactorInfo) info);
 		}
 
-		// submit task
-		owner_.getOwner().submitTask(task);
+		// submit task as background job
+		owner_.getOwner().submitJob(task);
+	}
+
+	/**
+	 * Shows the image export dialog for the selected pilot points of the selected tab. If no pilot point is selected, all pilot points of the tab are exported.
+	 */
+	private void exportImages() {
+
+		// no tab
+		Panel panel = (Panel) searchTabs_.getSelectedTab();
+		if (panel == null)
+			return;
+
+		// get pilot points
+		ArrayList<PilotPointInfo> selected = new ArrayList<>(), all = new ArrayList<>();
+		Iterator<Component> iterator = ((VerticalLayout) panel.getContent()).iterator();
+		while (iterator.hasNext()) {
+			Component c = iterator.next();
+			if (c instanceof PilotPointResult) {
+				PilotPointResult result = (PilotPointResult) c;
+				all.add(result.getInfo());
+				if (result.isSelected())
+					selected.add(result.getInfo());
+			}
+		}
+
+		// not a pilot point tab
+		if (all.isEmpty()) {
+			Notification n = new Notification("");
+			n.setCaption("No pilot points");
+			n.setStyleName("tray warning");
+			n.setDescription("Images can only be exported from pilot point search results.");
+			n.show(Page.getCurrent());
+			return;
+		}
+
+		// show dialog
+		if (!imageExportDialog_.isAttached()) {
+			imageExportDialog_.setInfo(selected.isEmpty() ? all : selected);
+			owner_.getOwner().addWindow(imageExportDialog_);
+		}
 	}
 
 	/**
@@ -143,6 +143,7 @@ public class SettingsDialog extends Window {
 		logicalOperator.setInvalidAllowed(false);
 		logicalOperator.setTextInputAllowed(false);
 		logicalOperator.setImmediate(true);
+		logicalOperator.setDescription("Operator between search terms without AND or OR in between.");
 		filterGrid.addComponent(logicalOperator, 1, 1);
 
 		// create filter layout
@@ -188,7 +188,7 @@ public class SpectrumResult extends AbsoluteLayout implements DownloadableResult
 	 * Called when download spectrum clicked.
 	 */
 	private void onDownloadClicked() {
-		owner_.getOwner().getOwner().submitTask(new DownloadSpectrum(info_, owner_.getOwner().getOwner()));
+		owner_.getOwner().getOwner().submitJob(new DownloadSpectrum(info_, owner_.getOwner().getOwner()));
 	}
 
 	/**